@@ -1,5 +1,6 @@
 package eu.mikroskeem.shuriken.instrumentation;
 
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.LazyReflector;
 import eu.mikroskeem.shuriken.instrumentation.methodreflector.TargetFieldGetter;
 import eu.mikroskeem.shuriken.instrumentation.methodreflector.TargetFieldSetter;
 import eu.mikroskeem.shuriken.instrumentation.methodreflector.TargetMethod;
@@ -39,7 +40,8 @@ public final class ClassLoaderTools {
 
     /**
      * Load class from bytearray to existing class loader. Useful when you need to
-     * add generated class to classpath
+     * add generated class to classpath. Invalidates cached class lookup misses of this class loader,
+     * see {@link Reflect#invalidateClassCache(ClassLoader)}
      *
      * @param classLoader Class loader which defines given class
      * @param name Class name
@@ -52,16 +54,20 @@ public final class ClassLoaderTools {
         notNull(classLoader, "Classloader shouldn't be null!");
         notNull(name, "Name shouldn't be null!");
         notNull(data, "Class data shouldn't be null!");
+        Class<?> defined;
         if(Reflect.THE_UNSAFE != null)
-            return Reflect.THE_UNSAFE
+            defined = Reflect.THE_UNSAFE
                     .invokeMethod("defineClass", Class.class,
                             of(name), of(byte[].class, data), of(int.class, 0),
                             of(int.class, data.length), of(ClassLoader.class, classLoader),
                             of(ProtectionDomain.class, null));
-        return Reflect.wrapInstance(classLoader)
-                .invokeMethod("defineClass", Class.class,
-                        of(name), of(byte[].class, data), of(int.class, 0),
-                        of(int.class, data.length));
+        else
+            defined = Reflect.wrapInstance(classLoader)
+                    .invokeMethod("defineClass", Class.class,
+                            of(name), of(byte[].class, data), of(int.class, 0),
+                            of(int.class, data.length));
+        if(defined != null) Reflect.invalidateClassCache(classLoader);
+        return defined;
     }
 
     /**
@@ -108,7 +114,8 @@ public final class ClassLoaderTools {
         }
 
         /**
-         * Adds an url to {@code sun.misc.URLClassPath}
+         * Adds an url to {@code sun.misc.URLClassPath}. Invalidates cached class lookup misses of this class loader,
+         * see {@link Reflect#invalidateClassCache(ClassLoader)}
          * @param url {@link URL} to add
          */
         @Contract("null -> fail")
@@ -122,6 +129,9 @@ public final class ClassLoaderTools {
             Optional.ofNullable((Map<String, Object>) ucpAccessor.getLmap())
                     .orElse(ucpAccessor.getIBMLmap())
                     .put("file://" + url.getFile(), ucpLoader);
+
+            /* Classes which were not found before may be present now */
+            Reflect.invalidateClassCache(cl.getClassInstance());
         }
 
         /**
@@ -138,6 +148,7 @@ public final class ClassLoaderTools {
             }
         }
 
+        @LazyReflector
         public interface UCPAccessor {
             void addURL(URL url);
 
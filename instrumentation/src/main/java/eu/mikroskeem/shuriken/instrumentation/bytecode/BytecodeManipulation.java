@@ -2,11 +2,13 @@ package eu.mikroskeem.shuriken.instrumentation.bytecode;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.Handle;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.FieldInsnNode;
 import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
 import org.objectweb.asm.tree.MethodInsnNode;
 import org.objectweb.asm.tree.TypeInsnNode;
 
@@ -213,6 +215,38 @@ public final class BytecodeManipulation {
         rerouteMethodInvocation(instructions, methodInsn, owner, target.getName(), desc);
     }
 
+    /**
+     * Reroutes method invocation to invokedynamic call site. Call site has the same name as original method, and
+     * takes method instance (unless method is static) followed by original method parameters
+     *
+     * @param instructions Instructions list
+     * @param methodInsn Method instruction
+     * @param bootstrap Call site bootstrap method handle
+     * @param bootstrapArgs Additional bootstrap method arguments
+     */
+    public static void rerouteMethodInvocationDynamic(@NotNull InsnList instructions,
+                                                      @NotNull MethodInsnNode methodInsn,
+                                                      @NotNull Handle bootstrap,
+                                                      @NotNull Object... bootstrapArgs) {
+        if(!instructions.contains(methodInsn))
+            throw new IllegalStateException("Given instructions list does not contain provided instruction!");
+        if(methodInsn.getOpcode() == Opcodes.INVOKESPECIAL)
+            throw new IllegalStateException("Constructor, private and superclass method invocations can't be rerouted!");
+
+        // Method instance becomes first call site argument
+        String desc = methodInsn.desc;
+        if(methodInsn.getOpcode() != Opcodes.INVOKESTATIC) {
+            Type[] originalDesc = Type.getArgumentTypes(desc);
+            Type[] targetDesc = new Type[originalDesc.length + 1];
+            targetDesc[0] = Type.getObjectType(methodInsn.owner);
+            System.arraycopy(originalDesc, 0, targetDesc, 1, originalDesc.length);
+            desc = Type.getMethodDescriptor(Type.getReturnType(desc), targetDesc);
+        }
+
+        InvokeDynamicInsnNode newInsn = new InvokeDynamicInsnNode(methodInsn.name, desc, bootstrap, bootstrapArgs);
+        instructions.set(methodInsn, newInsn);
+    }
+
     /**
      * Tries to find field instructions (in other words, {@code X a = getXSomewhere(); a.getFoo(); })
      *
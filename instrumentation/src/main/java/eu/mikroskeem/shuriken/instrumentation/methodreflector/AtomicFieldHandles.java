@@ -0,0 +1,223 @@
+package eu.mikroskeem.shuriken.instrumentation.methodreflector;
+
+import eu.mikroskeem.shuriken.common.SneakyThrow;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.FINEST;
+
+
+/**
+ * Builds {@link MethodHandle}s for atomic field operations, see {@link TargetFieldAtomic}
+ *
+ * VarHandles are used on Java 9+, as JIT compiles their access modes down to plain atomic instructions. Java 8
+ * (and fields which can't be looked up privately) fall back to {@code sun.misc.Unsafe} methods with field offset
+ * bound in advance, see {@link UnsafeFields}.
+ *
+ * @author Mark Vainomaa
+ */
+final class AtomicFieldHandles {
+    private final static Logger log = Logger.getLogger(AtomicFieldHandles.class.getName());
+
+    /* VarHandle API, Java 9+ */
+    @Nullable private static final MethodHandle privateLookupIn;
+    @Nullable private static final MethodHandle unreflectVarHandle;
+    @Nullable private static final MethodHandle isAccessModeSupported;
+    @Nullable private static final MethodHandle toMethodHandle;
+    @Nullable private static final Class<? extends Enum> accessModeClass;
+
+    private static final MethodHandle REQUIRE_NON_NULL;
+
+    /**
+     * Builds {@link MethodHandle} for atomic field operation. Handle takes target instance (if field is not static)
+     * and operation arguments, and uses field type for field values.
+     *
+     * @param lookup Lookup with full privileges
+     * @param field Target field
+     * @param operation Atomic operation
+     * @return {@link MethodHandle} for atomic operation
+     * @throws ReflectiveOperationException If field could not be accessed
+     * @throws IllegalArgumentException If operation is not supported on given field
+     */
+    @NotNull
+    @Contract("null, null, null -> fail")
+    static MethodHandle unreflect(MethodHandles.Lookup lookup, Field field, TargetFieldAtomic.Operation operation)
+            throws ReflectiveOperationException {
+        if(operation.isWrite() && MethodReflectorFactory.isFinal(field))
+            throw new IllegalArgumentException("Atomic operation " + operation + " can't modify final field " + field);
+
+        if(toMethodHandle != null) {
+            try {
+                return unreflectVarHandle(lookup, field, operation);
+            } catch (IllegalAccessException e) {
+                log.log(FINEST, "Could not get VarHandle for {0}, falling back to Unsafe: {1}", new Object[] { field, e });
+            }
+        }
+        return unreflectUnsafe(field, operation);
+    }
+
+    /* Gets operation MethodHandle through VarHandle */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    private static MethodHandle unreflectVarHandle(MethodHandles.Lookup lookup, Field field, TargetFieldAtomic.Operation operation)
+            throws IllegalAccessException {
+        try {
+            Object accessMode = Enum.valueOf((Class) accessModeClass, operation.name());
+            MethodHandles.Lookup privateLookup = (MethodHandles.Lookup) privateLookupIn.invokeExact(field.getDeclaringClass(), lookup);
+            Object varHandle = (Object) unreflectVarHandle.invokeExact(privateLookup, field);
+            if(!(boolean) isAccessModeSupported.invokeExact(varHandle, accessMode))
+                throw new IllegalArgumentException("Atomic operation " + operation + " is not supported on field " + field);
+            return (MethodHandle) toMethodHandle.invokeExact(varHandle, accessMode);
+        } catch (IllegalAccessException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            SneakyThrow.throwException(e);
+            return null; // Unreachable
+        }
+    }
+
+    /* Gets operation MethodHandle through Unsafe */
+    @NotNull
+    private static MethodHandle unreflectUnsafe(Field field, TargetFieldAtomic.Operation operation) throws ReflectiveOperationException {
+        Object unsafe = UnsafeFields.getUnsafe();
+        if(unsafe == null)
+            throw new IllegalArgumentException("Neither VarHandles nor Unsafe is available for atomic operation on field " + field);
+
+        /* Figure out Unsafe method */
+        Class<?> fieldType = field.getType();
+        boolean intLongOrObject = fieldType == int.class || fieldType == long.class || !fieldType.isPrimitive();
+        Class<?> valueType = fieldType.isPrimitive() ? fieldType : Object.class;
+        String typeName = fieldType.isPrimitive() ?
+                Character.toUpperCase(fieldType.getName().charAt(0)) + fieldType.getName().substring(1) : "Object";
+        String methodName;
+        MethodType methodType;
+        switch (operation) {
+            case GET_VOLATILE:
+            case GET_ACQUIRE:
+                methodName = "get" + typeName + "Volatile";
+                methodType = MethodType.methodType(valueType, Object.class, long.class);
+                break;
+            case SET_RELEASE:
+                if(intLongOrObject) {
+                    methodName = "putOrdered" + typeName;
+                    methodType = MethodType.methodType(void.class, Object.class, long.class, valueType);
+                    break;
+                }
+                /* Volatile write is stronger than release write */
+            case SET_VOLATILE:
+                methodName = "put" + typeName + "Volatile";
+                methodType = MethodType.methodType(void.class, Object.class, long.class, valueType);
+                break;
+            case COMPARE_AND_SET:
+                methodName = intLongOrObject ? "compareAndSwap" + typeName : null;
+                methodType = MethodType.methodType(boolean.class, Object.class, long.class, valueType, valueType);
+                break;
+            case GET_AND_SET:
+                methodName = intLongOrObject ? "getAndSet" + typeName : null;
+                methodType = MethodType.methodType(valueType, Object.class, long.class, valueType);
+                break;
+            case GET_AND_ADD:
+                methodName = fieldType == int.class || fieldType == long.class ? "getAndAdd" + typeName : null;
+                methodType = MethodType.methodType(valueType, Object.class, long.class, valueType);
+                break;
+            default:
+                throw new IllegalStateException("Should not reach here");
+        }
+        if(methodName == null)
+            throw new IllegalArgumentException("Atomic operation " + operation + " is not supported on field " + field);
+
+        /* Bind Unsafe instance and field offset */
+        Class<?> unsafeClass = unsafe.getClass();
+        MethodHandle handle = MethodHandles.publicLookup().findVirtual(unsafeClass, methodName, methodType).bindTo(unsafe);
+        if(Modifier.isStatic(field.getModifiers())) {
+            handle = MethodHandles.insertArguments(handle, 0, UnsafeFields.getStaticBase(field), UnsafeFields.getOffset(field));
+        } else {
+            handle = MethodHandles.insertArguments(handle, 1, UnsafeFields.getOffset(field));
+
+            /* Unsafe does not check the instance, unlike VarHandles */
+            handle = MethodHandles.filterArguments(handle, 0, REQUIRE_NON_NULL);
+        }
+        return handle.asType(getHandleType(field, operation));
+    }
+
+    /* Gets type of operation MethodHandle, matching VarHandle#toMethodHandle */
+    @NotNull
+    private static MethodType getHandleType(Field field, TargetFieldAtomic.Operation operation) {
+        Class<?> fieldType = field.getType();
+        List<Class<?>> parameters = new ArrayList<>();
+        if(!Modifier.isStatic(field.getModifiers())) parameters.add(field.getDeclaringClass());
+        parameters.addAll(Collections.nCopies(operation.getArguments(), fieldType));
+        Class<?> returnType = operation.returnsField() ? fieldType :
+                (operation == TargetFieldAtomic.Operation.COMPARE_AND_SET ? boolean.class : void.class);
+        return MethodType.methodType(returnType, parameters);
+    }
+
+    static {
+        //<editor-fold desc="Look up VarHandle API">
+        MethodHandle thePrivateLookupIn = null;
+        MethodHandle theUnreflectVarHandle = null;
+        MethodHandle theIsAccessModeSupported = null;
+        MethodHandle theToMethodHandle = null;
+        Class<? extends Enum> theAccessModeClass = null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> varHandleClass = Class.forName("java.lang.invoke.VarHandle");
+            @SuppressWarnings("unchecked")
+            Class<? extends Enum> accessMode = (Class<? extends Enum>) Class.forName("java.lang.invoke.VarHandle$AccessMode");
+
+            // Lookup privateLookupIn(Class<?>, Lookup)
+            thePrivateLookupIn = lookup.findStatic(MethodHandles.class, "privateLookupIn",
+                    MethodType.methodType(MethodHandles.Lookup.class, Class.class, MethodHandles.Lookup.class));
+
+            // VarHandle Lookup.unreflectVarHandle(Field)
+            theUnreflectVarHandle = lookup.findVirtual(MethodHandles.Lookup.class, "unreflectVarHandle",
+                    MethodType.methodType(varHandleClass, Field.class))
+                    .asType(MethodType.methodType(Object.class, MethodHandles.Lookup.class, Field.class));
+
+            // boolean VarHandle.isAccessModeSupported(AccessMode)
+            theIsAccessModeSupported = lookup.findVirtual(varHandleClass, "isAccessModeSupported",
+                    MethodType.methodType(boolean.class, accessMode))
+                    .asType(MethodType.methodType(boolean.class, Object.class, Object.class));
+
+            // MethodHandle VarHandle.toMethodHandle(AccessMode)
+            theToMethodHandle = lookup.findVirtual(varHandleClass, "toMethodHandle",
+                    MethodType.methodType(MethodHandle.class, accessMode))
+                    .asType(MethodType.methodType(MethodHandle.class, Object.class, Object.class));
+            theAccessModeClass = accessMode;
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+            // VarHandles are not supported
+            thePrivateLookupIn = null;
+            theUnreflectVarHandle = null;
+            theIsAccessModeSupported = null;
+            theToMethodHandle = null;
+            theAccessModeClass = null;
+        }
+        privateLookupIn = thePrivateLookupIn;
+        unreflectVarHandle = theUnreflectVarHandle;
+        isAccessModeSupported = theIsAccessModeSupported;
+        toMethodHandle = theToMethodHandle;
+        accessModeClass = theAccessModeClass;
+        //</editor-fold>
+
+        //<editor-fold desc="Look up Unsafe helpers">
+        try {
+            REQUIRE_NON_NULL = MethodHandles.publicLookup().findStatic(Objects.class, "requireNonNull",
+                    MethodType.methodType(Object.class, Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+        //</editor-fold>
+    }
+}
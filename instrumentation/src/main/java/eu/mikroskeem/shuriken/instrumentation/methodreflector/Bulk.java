@@ -0,0 +1,32 @@
+package eu.mikroskeem.shuriken.instrumentation.methodreflector;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * Annotation to mark bulk reflector method, which invokes other method of same interface on many target instances
+ * at once. Only unbound reflectors support bulk methods, see {@link MethodReflector#newUnboundInstance(Class, Class)}.
+ *
+ * Bulk method takes array or {@link java.util.List} of target instances, and output array if element method returns
+ * a value. For example, for element method {@code int getA(TestClass instance)} bulk method would be
+ * <pre>@Bulk("getA") void getA(TestClass[] instances, int[] out);</pre>
+ * Output array must be at least as long as given target instances, value of n-th instance is stored into n-th slot.
+ *
+ * Generated reflector calls element method from a plain loop, so JIT is able to inline field access or target
+ * method invocation into it.
+ *
+ * @author Mark Vainomaa
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Bulk {
+    /**
+     * Element method name. Element method must take only target instance as an argument
+     *
+     * @return Element method name
+     */
+    String value();
+}
@@ -0,0 +1,35 @@
+package eu.mikroskeem.shuriken.instrumentation.methodreflector;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * Annotation to mark flyweight interface, which gives struct-like access to array of fixed size elements in off-heap
+ * or byte array memory. See {@link FlyweightReflector} and {@link FlyweightField}.
+ *
+ * For example, array of 16 byte elements with {@code int} id and {@code double} value would be
+ * <pre>
+ * &#64;Flyweight(16)
+ * public interface Entity {
+ *     &#64;FlyweightField(0) int getId(long index);
+ *     &#64;FlyweightField(0) void setId(long index, int id);
+ *     &#64;FlyweightField(8) double getValue(long index);
+ *     &#64;FlyweightField(8) void setValue(long index, double value);
+ * }
+ * </pre>
+ *
+ * @author Mark Vainomaa
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Flyweight {
+    /**
+     * Element size in bytes, i.e. distance between starts of two consecutive elements
+     *
+     * @return Element size
+     */
+    int value();
+}
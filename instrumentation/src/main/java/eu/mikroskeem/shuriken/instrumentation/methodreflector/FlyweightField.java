@@ -0,0 +1,34 @@
+package eu.mikroskeem.shuriken.instrumentation.methodreflector;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * Annotation to mark flyweight field getter or setter, see {@link Flyweight}.
+ *
+ * Getter takes element index ({@code int} or {@code long}) and returns primitive value, setter takes element index
+ * and primitive value. Values are stored in native byte order.
+ *
+ * @author Mark Vainomaa
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface FlyweightField {
+    /**
+     * Field offset from element start, in bytes
+     *
+     * @return Field offset
+     */
+    int value();
+
+    /**
+     * Whether field is accessed with volatile semantics. Volatile field address should be aligned to field size,
+     * otherwise access might not be atomic
+     *
+     * @return Whether field is volatile
+     */
+    boolean isVolatile() default false;
+}
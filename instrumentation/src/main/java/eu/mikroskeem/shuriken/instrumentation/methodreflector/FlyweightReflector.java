@@ -0,0 +1,154 @@
+package eu.mikroskeem.shuriken.instrumentation.methodreflector;
+
+import eu.mikroskeem.shuriken.common.Ensure;
+import eu.mikroskeem.shuriken.common.SneakyThrow;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+
+
+/**
+ * Flyweight accessor over memory region holding array of fixed size elements, see {@link Flyweight}.
+ *
+ * Flyweight class is generated once per interface, and it accesses memory through {@code sun.misc.Unsafe} with
+ * constant element size and field offsets, so no objects are allocated per element. Memory can be heap or direct
+ * {@link ByteBuffer}, memory mapped file (see {@link java.nio.channels.FileChannel#map}) or native memory address.
+ *
+ * Element index is checked against element count on every access, but memory address and its lifetime are not.
+ * Values are stored in native byte order, regardless of {@link ByteBuffer#order()}.
+ *
+ * @param <T> Flyweight interface type
+ * @author Mark Vainomaa
+ */
+public final class FlyweightReflector<T> {
+    private final static ClassValue<Constructor<?>> flyweightClasses = new ClassValue<Constructor<?>>() {
+        @Override
+        protected Constructor<?> computeValue(Class<?> type) {
+            return MethodReflector.getFactory().generateFlyweight(type).getConstructors()[0];
+        }
+    };
+
+    private final Class<T> itf;
+    private final long count;
+    private final T flyweight;
+
+    @SuppressWarnings("unchecked")
+    private FlyweightReflector(Class<T> itf, @Nullable Object owner, @Nullable Object base, long address, long count) {
+        this.itf = itf;
+        this.count = count;
+        try {
+            this.flyweight = (T) flyweightClasses.get(itf).newInstance(owner, base, address, count);
+        } catch (InvocationTargetException e) {
+            SneakyThrow.throwException(e.getCause());
+            throw new IllegalStateException(e); // Unreachable
+        } catch (ReflectiveOperationException e) {
+            SneakyThrow.throwException(e);
+            throw new IllegalStateException(e); // Unreachable
+        }
+    }
+
+    /**
+     * Creates new flyweight over buffer. Elements start from buffer position, and every complete element
+     * until buffer limit is accessible. Buffer is kept referenced as long as flyweight is.
+     *
+     * @param buffer Writable heap or direct buffer
+     * @param itf Flyweight interface
+     * @param <T> Flyweight interface type
+     * @return Instance of {@link FlyweightReflector}
+     */
+    @NotNull
+    @Contract("null, null -> fail")
+    public static <T> FlyweightReflector<T> newInstance(ByteBuffer buffer, Class<T> itf) {
+        Ensure.notNull(buffer, "Buffer shouldn't be null!");
+        int stride = getStride(itf);
+        Ensure.ensureCondition(!buffer.isReadOnly(), "Buffer should be writable!");
+        Ensure.ensureCondition(buffer.isDirect() || buffer.hasArray(), "Buffer should be either direct or backed by array!");
+
+        long count = buffer.remaining() / stride;
+        if(buffer.isDirect())
+            return new FlyweightReflector<>(itf, buffer, null, UnsafeFields.getDirectBufferAddress(buffer) + buffer.position(), count);
+        return new FlyweightReflector<>(itf, buffer, buffer.array(),
+                UnsafeFields.getByteArrayBaseOffset() + buffer.arrayOffset() + buffer.position(), count);
+    }
+
+    /**
+     * Creates new flyweight over native memory. Caller is responsible for keeping memory allocated while
+     * flyweight is in use.
+     *
+     * @param address Native memory address of first element
+     * @param count Element count
+     * @param itf Flyweight interface
+     * @param <T> Flyweight interface type
+     * @return Instance of {@link FlyweightReflector}
+     */
+    @NotNull
+    @Contract("_, _, null -> fail")
+    public static <T> FlyweightReflector<T> newInstance(long address, long count, Class<T> itf) {
+        getStride(itf);
+        Ensure.ensureCondition(address != 0, "Address shouldn't be null!");
+        Ensure.ensureCondition(count >= 0, "Element count shouldn't be negative!");
+        return new FlyweightReflector<>(itf, null, null, address, count);
+    }
+
+    /**
+     * Gets element size of flyweight interface, useful for allocating memory
+     *
+     * @param itf Flyweight interface
+     * @return Element size in bytes
+     */
+    @Contract("null -> fail")
+    public static int getStride(Class<?> itf) {
+        Ensure.notNull(itf, "Interface class shoudln't be null!");
+        Ensure.ensureCondition(Modifier.isInterface(itf.getModifiers()), "Interface class should be interface!");
+        Ensure.ensureCondition(Modifier.isPublic(itf.getModifiers()), "Interface should be public!");
+        Ensure.ensureCondition(UnsafeFields.isAvailable(), "Flyweights require sun.misc.Unsafe!");
+        Flyweight flyweight = itf.getAnnotation(Flyweight.class);
+        Ensure.ensureCondition(flyweight != null, "Interface " + itf + " is not annotated with @Flyweight!");
+        Ensure.ensureCondition(flyweight.value() > 0, "Flyweight element size must be positive!");
+        return flyweight.value();
+    }
+
+    /**
+     * Checks element index. Invoked from generated flyweight methods, do not use it directly.
+     *
+     * @param index Element index
+     * @param count Element count
+     * @return Element index
+     */
+    public static long checkIndex(long index, long count) {
+        if(index < 0 || index >= count)
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + count);
+        return index;
+    }
+
+    /**
+     * Gets flyweight interface implementation
+     *
+     * @return Flyweight interface implementation
+     */
+    @NotNull
+    @Contract(pure = true)
+    public T getReflector() {
+        return flyweight;
+    }
+
+    /**
+     * Gets accessible element count
+     *
+     * @return Element count
+     */
+    @Contract(pure = true)
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "FlyweightReflector{interface=" + itf + ", count=" + count + "}";
+    }
+}
@@ -4,12 +4,34 @@ import eu.mikroskeem.shuriken.common.Ensure;
 import eu.mikroskeem.shuriken.common.SneakyThrow;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
+ * Class loader for generated reflector classes.
+ *
+ * One is created per target class loader (and interface class loader, if interface is not visible from target
+ * class loader), so reflector classes can be unloaded along with their targets. Classes not visible from parent,
+ * e.g. interface or Shuriken's own runtime classes, are loaded from fallback class loaders.
+ *
+ * Class loader is parallel capable, so reflectors generated concurrently (see {@link ReflectorBatch}) are defined
+ * under per-class locks instead of contending on class loader itself.
+ *
  * @author Mark Vainomaa
  */
 final class GeneratedClassLoader extends ClassLoader {
+    private final ClassLoader[] fallbacks;
+
+    /* Classes which must resolve to given instance, even if parent class loader sees different class with same name */
+    private final Map<String, Class<?>> pinnedClasses = new ConcurrentHashMap<>();
+
+    static {
+        registerAsParallelCapable();
+    }
+
     @Contract("null, null -> fail")
     Class<?> defineClass(String name, byte[] data) {
         name = Ensure.notNull(name, "Null name").replace('/', '.');
@@ -21,8 +43,33 @@ final class GeneratedClassLoader extends ClassLoader {
         }
     }
 
-    GeneratedClassLoader(ClassLoader parent) {
+    GeneratedClassLoader(@Nullable ClassLoader parent, ClassLoader... fallbacks) {
         super(parent);
+        this.fallbacks = fallbacks;
+    }
+
+    /* Pins class, so generated classes will always link against it */
+    void pin(Class<?> clazz) {
+        while(clazz.isArray()) clazz = clazz.getComponentType();
+        if(clazz.isPrimitive()) return;
+        Class<?> existing = pinnedClasses.putIfAbsent(clazz.getName(), clazz);
+        Ensure.ensureCondition(existing == null || existing == clazz, "Class " + clazz.getName() + " is already pinned to other class!");
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        Class<?> pinned = pinnedClasses.get(name);
+        return pinned != null ? pinned : super.loadClass(name, resolve);
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        for(ClassLoader fallback : fallbacks) {
+            try {
+                return fallback.loadClass(name);
+            } catch (ClassNotFoundException ignored) {}
+        }
+        return super.findClass(name);
     }
 
     @NotNull
@@ -48,12 +95,7 @@ final class GeneratedClassLoader extends ClassLoader {
 
     private boolean hasClass(String name) {
         synchronized (getClassLoadingLock(name)) {
-            try {
-                Class.forName(name);
-                return true;
-            } catch (ClassNotFoundException e) {
-                return false;
-            }
+            return findLoadedClass(name) != null;
         }
     }
 }
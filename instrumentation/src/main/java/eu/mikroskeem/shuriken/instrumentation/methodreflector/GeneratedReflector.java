@@ -0,0 +1,123 @@
+package eu.mikroskeem.shuriken.instrumentation.methodreflector;
+
+import eu.mikroskeem.shuriken.common.Ensure;
+import eu.mikroskeem.shuriken.common.SneakyThrow;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+
+/**
+ * Generated reflector class, which is shared between all {@link MethodReflector}s using same target class,
+ * interface and placeholder replacements.
+ *
+ * @author Mark Vainomaa
+ */
+final class GeneratedReflector {
+    private final Class<?> reflectorClass;
+    private final int reflectorFlags;
+    private final Constructor<?> constructor;
+    private final boolean acceptsInstance;
+    @Nullable private final ReflectorMetrics metrics;
+    private final ReflectorInfo info;
+
+    /* Reflector implementation, which is shared when target class instance is not required */
+    @Nullable private volatile Object sharedInstance = null;
+
+    GeneratedReflector(Class<?> reflectorClass, int reflectorFlags, ReflectorInfo info) {
+        this(reflectorClass, reflectorFlags, null, info);
+    }
+
+    GeneratedReflector(Class<?> reflectorClass, int reflectorFlags, @Nullable ReflectorMetrics metrics, ReflectorInfo info) {
+        this.reflectorClass = reflectorClass;
+        this.reflectorFlags = reflectorFlags;
+        this.metrics = metrics;
+        this.info = info;
+        ReflectorInfo.register(reflectorClass, info);
+        this.constructor = reflectorClass.getConstructors()[0];
+
+        /* Lazily linked reflectors take target class instance whenever it is present */
+        this.acceptsInstance = constructor.getParameterCount() == 1;
+    }
+
+    /**
+     * Gets generated reflector class
+     *
+     * @return Reflector class
+     */
+    @NotNull
+    @Contract(pure = true)
+    Class<?> getReflectorClass() {
+        return reflectorClass;
+    }
+
+    /**
+     * Gets reflector invocation metrics
+     *
+     * @return Instance of {@link ReflectorMetrics}, or null if reflector was generated without metrics
+     */
+    @Nullable
+    @Contract(pure = true)
+    ReflectorMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets reflector generation report
+     *
+     * @return Instance of {@link ReflectorInfo}
+     */
+    @NotNull
+    @Contract(pure = true)
+    ReflectorInfo getInfo() {
+        return info;
+    }
+
+    /**
+     * Gets whether reflector class requires target class instance
+     *
+     * @return Whether reflector class requires target class instance
+     */
+    @Contract(pure = true)
+    boolean requiresInstance() {
+        return (reflectorFlags & Magic.REFLECTOR_CLASS_USE_INSTANCE) != 0;
+    }
+
+    /**
+     * Constructs new reflector implementation
+     *
+     * @param instance Target class instance, ignored if reflector class does not take one
+     * @return Reflector implementation
+     */
+    @NotNull
+    Object newInstance(@Nullable Object instance) {
+        if(!requiresInstance() && (instance == null || !acceptsInstance)) {
+            Object shared = sharedInstance;
+            if(shared == null) {
+                /* Racing here is harmless, reflector instances without target instance are stateless */
+                sharedInstance = shared = construct(null);
+            }
+            return shared;
+        }
+
+        Ensure.ensureCondition(instance != null, "Interface targets instance methods, but class instance is not present in ClassWrapper!");
+        return construct(instance);
+    }
+
+    @NotNull
+    private Object construct(@Nullable Object instance) {
+        Object[] args = acceptsInstance ? new Object[] { instance } : new Object[0];
+
+        try {
+            return Ensure.notNull(constructor.newInstance(args), "Reflector instance must not be null!");
+        } catch (InvocationTargetException e) {
+            SneakyThrow.throwException(e.getCause());
+        } catch (ReflectiveOperationException e) {
+            SneakyThrow.throwException(e);
+        }
+        return null; // Unreachable
+    }
+}
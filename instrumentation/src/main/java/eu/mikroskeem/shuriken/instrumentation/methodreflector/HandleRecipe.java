@@ -0,0 +1,195 @@
+package eu.mikroskeem.shuriken.instrumentation.methodreflector;
+
+import eu.mikroskeem.shuriken.common.Ensure;
+import eu.mikroskeem.shuriken.reflect.ClassMembers;
+import eu.mikroskeem.shuriken.reflect.Reflect;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.Type;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+
+/**
+ * Describes how to obtain {@link MethodHandle} for generated reflector class, so it can be bound again
+ * when reflector class is loaded from cache
+ *
+ * @author Mark Vainomaa
+ */
+final class HandleRecipe {
+    /* Recipe kinds */
+    final static int METHOD = 0;
+    final static int CONSTRUCTOR = 1;
+    final static int FIELD_GETTER = 2;
+    final static int FIELD_SETTER = 3;
+    final static int FIELD_ATOMIC = 4; /* Followed by other atomic operations, see TargetFieldAtomic.Operation */
+
+    private final int kind;
+    private final String owner;
+    private final String name;
+    private final String descriptor;
+    @Nullable private final String type;
+    @Nullable private Member member;
+
+    private HandleRecipe(int kind, String owner, String name, String descriptor, @Nullable String type, @Nullable Member member) {
+        this.kind = kind;
+        this.owner = owner;
+        this.name = name;
+        this.descriptor = descriptor;
+        this.type = type;
+        this.member = member;
+    }
+
+    @NotNull
+    static HandleRecipe of(int kind, String owner, String name, String descriptor) {
+        return new HandleRecipe(kind, owner, name, descriptor, null, null);
+    }
+
+    @NotNull
+    @Contract("null -> fail")
+    static HandleRecipe method(Method method) {
+        return new HandleRecipe(METHOD, method.getDeclaringClass().getName(), method.getName(), Type.getMethodDescriptor(method), null, method);
+    }
+
+    @NotNull
+    @Contract("null -> fail")
+    static HandleRecipe constructor(Constructor<?> constructor) {
+        return new HandleRecipe(CONSTRUCTOR, constructor.getDeclaringClass().getName(), "<init>", Type.getConstructorDescriptor(constructor), null, constructor);
+    }
+
+    @NotNull
+    @Contract("null, _ -> fail")
+    static HandleRecipe field(Field field, boolean setter) {
+        return new HandleRecipe(setter ? FIELD_SETTER : FIELD_GETTER, field.getDeclaringClass().getName(), field.getName(),
+                Type.getDescriptor(field.getType()), null, field);
+    }
+
+    @NotNull
+    @Contract("null, _ -> fail")
+    static HandleRecipe fieldAtomic(Field field, TargetFieldAtomic.Operation operation) {
+        return new HandleRecipe(FIELD_ATOMIC + operation.ordinal(), field.getDeclaringClass().getName(), field.getName(),
+                Type.getDescriptor(field.getType()), null, field);
+    }
+
+    /**
+     * Sets type what bound {@link MethodHandle} gets adapted into
+     *
+     * @param type Method descriptor of handle invocation
+     * @return New recipe with given type
+     */
+    @NotNull
+    @Contract("null -> fail")
+    HandleRecipe withType(String type) {
+        return new HandleRecipe(kind, owner, name, descriptor, Ensure.notNull(type, "Type shouldn't be null!"), member);
+    }
+
+    /**
+     * Binds recipe into {@link MethodHandle}
+     *
+     * @param lookup Lookup to unreflect target with
+     * @param classLoader Class loader to resolve owner class from, if target member is not known yet
+     * @return Bound {@link MethodHandle}
+     * @throws ReflectiveOperationException If target member could not be found or accessed
+     */
+    @NotNull
+    MethodHandle bind(MethodHandles.Lookup lookup, @Nullable ClassLoader classLoader) throws ReflectiveOperationException {
+        Member target = member != null ? member : (member = resolve(Class.forName(owner, false, classLoader)));
+        AccessibleObject accessible = (AccessibleObject) target;
+        if(!accessible.isAccessible()) accessible.setAccessible(true);
+        switch (kind) {
+            case METHOD:
+                return lookup.unreflect((Method) target);
+            case CONSTRUCTOR:
+                return lookup.unreflectConstructor((Constructor<?>) target);
+            case FIELD_GETTER:
+                return lookup.unreflectGetter((Field) target);
+            case FIELD_SETTER:
+                Field field = (Field) target;
+                if(MethodReflectorFactory.isFinal(field)) {
+                    /* Remove final modifier from private copy, as indexed fields are shared */
+                    field = field.getDeclaringClass().getDeclaredField(field.getName());
+                    field.setAccessible(true);
+                    int modifiers = field.getModifiers();
+                    Reflect.wrapInstance(field).getField("modifiers", int.class)
+                            .ifPresent(fw -> fw.write(modifiers & ~Modifier.FINAL));
+                }
+                return lookup.unreflectSetter(field);
+            default:
+                return AtomicFieldHandles.unreflect(lookup, (Field) target, TargetFieldAtomic.Operation.values()[kind - FIELD_ATOMIC]);
+        }
+    }
+
+    /**
+     * Binds recipe into {@link MethodHandle} and adapts it into recipe type, if present
+     *
+     * @param lookup Lookup to unreflect target with
+     * @param classLoader Class loader to resolve owner class from, if target member is not known yet
+     * @param typeLoader Class loader to resolve recipe type from, usually the one which defines reflector class
+     * @return Bound {@link MethodHandle}, suitable for {@link MethodHandle#invokeExact(Object...)}
+     * @throws ReflectiveOperationException If target member could not be found or accessed
+     */
+    @NotNull
+    MethodHandle bind(MethodHandles.Lookup lookup, @Nullable ClassLoader classLoader, @Nullable ClassLoader typeLoader) throws ReflectiveOperationException {
+        MethodHandle handle = bind(lookup, classLoader);
+        return type != null ? handle.asType(MethodType.fromMethodDescriptorString(type, typeLoader)) : handle;
+    }
+
+    /* Finds target member from owner class */
+    @NotNull
+    private Member resolve(Class<?> ownerClass) throws NoSuchMethodException, NoSuchFieldException {
+        switch (kind) {
+            case METHOD:
+                Method method = ClassMembers.of(ownerClass).getMethod(name, descriptor);
+                if(method == null || method.getDeclaringClass() != ownerClass)
+                    throw new NoSuchMethodException(owner + "." + name + descriptor);
+                return method;
+            case CONSTRUCTOR:
+                Constructor<?> constructor = ClassMembers.of(ownerClass).getConstructor(descriptor);
+                if(constructor == null) throw new NoSuchMethodException(owner + ".<init>" + descriptor);
+                return constructor;
+            default:
+                Field field = ClassMembers.of(ownerClass).getField(name, descriptor);
+                if(field == null || field.getDeclaringClass() != ownerClass)
+                    throw new NoSuchFieldException(owner + "." + name + " " + descriptor);
+                return field;
+        }
+    }
+
+    /* Writes recipe */
+    void write(DataOutput output) throws IOException {
+        output.writeByte(kind);
+        output.writeUTF(owner);
+        output.writeUTF(name);
+        output.writeUTF(descriptor);
+        output.writeBoolean(type != null);
+        if(type != null) output.writeUTF(type);
+    }
+
+    /* Reads recipe */
+    @NotNull
+    static HandleRecipe read(DataInput input) throws IOException {
+        int kind = input.readByte();
+        Ensure.ensureCondition(kind >= METHOD && kind < FIELD_ATOMIC + TargetFieldAtomic.Operation.values().length, "Invalid recipe kind: " + kind);
+        String owner = input.readUTF();
+        String name = input.readUTF();
+        String descriptor = input.readUTF();
+        return new HandleRecipe(kind, owner, name, descriptor, input.readBoolean() ? input.readUTF() : null, null);
+    }
+
+    @Override
+    public String toString() {
+        return "HandleRecipe{kind=" + kind + ", owner=" + owner + ", name=" + name + ", descriptor=" + descriptor + ", type=" + type + "}";
+    }
+}
@@ -0,0 +1,22 @@
+package eu.mikroskeem.shuriken.instrumentation.methodreflector;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * Annotation to mark reflector interface as lazily linked.
+ *
+ * Reflector methods are not resolved when reflector is created, instead every method is an <pre>invokedynamic</pre>
+ * call site, which gets linked to its target on first invocation. Useful for big interfaces, where most of methods
+ * are never called. Note that errors, like missing instance for instance methods, will surface on first invocation
+ * instead.
+ *
+ * @author Mark Vainomaa
+ * @see LazyReflectorLinker
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface LazyReflector {}
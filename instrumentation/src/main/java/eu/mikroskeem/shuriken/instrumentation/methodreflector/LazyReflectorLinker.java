@@ -0,0 +1,275 @@
+package eu.mikroskeem.shuriken.instrumentation.methodreflector;
+
+import eu.mikroskeem.shuriken.common.Ensure;
+import eu.mikroskeem.shuriken.common.SneakyThrow;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.Type;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.ConstantCallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static eu.mikroskeem.shuriken.common.Ensure.ensureCondition;
+import static java.util.logging.Level.FINEST;
+
+
+/**
+ * Links lazily generated reflector methods to their targets on first invocation, see {@link LazyReflector}.
+ *
+ * This class is public only because generated reflector classes live in other class loader, do not use it directly.
+ *
+ * @author Mark Vainomaa
+ */
+public final class LazyReflectorLinker {
+    private final static Logger log = Logger.getLogger(LazyReflectorLinker.class.getName());
+    private final static MethodHandles.Lookup mhLookup = MethodHandles.lookup();
+    private final static MethodHandle REQUIRE_INSTANCE;
+    private final static MethodHandle NEW_RUNTIME_EXCEPTION;
+
+    private LazyReflectorLinker() {
+        throw new RuntimeException("No LazyReflectorLinker instance for you!");
+    }
+
+    /**
+     * Bootstrap method for lazily linked reflector methods. Resolves target the same way as eager reflector
+     * generator does, and links call site to it permanently.
+     *
+     * @param caller Reflector class lookup
+     * @param name Interface method name
+     * @param type Call site type, reflector class followed by interface method parameters
+     * @return Constant call site
+     * @throws ReflectiveOperationException If target member could not be accessed
+     */
+    @NotNull
+    public static CallSite bootstrap(MethodHandles.Lookup caller, String name, MethodType type) throws ReflectiveOperationException {
+        Class<?> reflectorClass = caller.lookupClass();
+        Field linkageField = reflectorClass.getDeclaredField(MethodGenerator.LINKAGEF);
+        linkageField.setAccessible(true);
+        Linkage linkage = (Linkage) Ensure.notNull(linkageField.get(null), "Reflector class " + reflectorClass + " is not linked!");
+
+        Method interfaceMethod = linkage.intf.getMethod(name, type.dropParameterTypes(0, 1).parameterArray());
+        log.log(FINEST, "Linking interface method {0} to target class {1}", new Object[] { interfaceMethod, linkage.target });
+        return new ConstantCallSite(link(caller, reflectorClass, linkage, interfaceMethod).asType(type));
+    }
+
+    /* Resolves method handle for interface method, taking reflector instance as first argument */
+    @NotNull
+    private static MethodHandle link(MethodHandles.Lookup caller, Class<?> reflectorClass, Linkage linkage, Method interfaceMethod)
+            throws ReflectiveOperationException {
+        Class<?> target = linkage.target;
+        Map<String, String> replacements = linkage.replacements;
+        MethodType interfaceType = MethodType.methodType(interfaceMethod.getReturnType(), interfaceMethod.getParameterTypes());
+        Type interfaceReturnType = Type.getReturnType(interfaceMethod);
+        Type[] interfaceMethodParameters = Type.getArgumentTypes(interfaceMethod);
+
+        /* Valid bulk methods are generated as loops right away, so this only reports why bulk method is invalid */
+        Bulk bI = interfaceMethod.getAnnotation(Bulk.class);
+        if(bI != null) {
+            MethodReflectorFactory.findBulkElementMethod(linkage.intf, interfaceMethod, bI.value(), linkage.unbound);
+            throw new IllegalStateException("Bulk method was not generated! " + interfaceMethod);
+        }
+
+        TargetMethod tMI = interfaceMethod.getAnnotation(TargetMethod.class);
+        TargetFieldGetter fGI = interfaceMethod.getAnnotation(TargetFieldGetter.class);
+        TargetFieldSetter fSI = interfaceMethod.getAnnotation(TargetFieldSetter.class);
+        TargetFieldAtomic fAI = interfaceMethod.getAnnotation(TargetFieldAtomic.class);
+        TargetConstructor tCI = interfaceMethod.getAnnotation(TargetConstructor.class);
+        int annotationCount = (tMI != null ? 1 : 0) + (fGI != null ? 1 : 0) + (fSI != null ? 1 : 0) + (fAI != null ? 1 : 0) + (tCI != null ? 1 : 0);
+        ensureCondition(annotationCount <= 1, "Interface method can only have one target or field annotation! " + interfaceMethod);
+
+        HandleRecipe handleRecipe = null;
+        boolean isStatic = true;
+        if(tCI != null) {
+            //<editor-fold desc="Constructor invoker">
+            Type[] targetParameters = interfaceMethodParameters;
+            Type targetReturnType = interfaceReturnType;
+            if(!tCI.desc().isEmpty()) {
+                String desc = MethodReflectorFactory.replacePlaceholders(tCI.desc(), replacements);
+                targetParameters = Type.getArgumentTypes(desc);
+                targetReturnType = Type.getReturnType(desc);
+            }
+            ensureCondition(!targetReturnType.equals(MethodGenerator.OBJECT) && target != Object.class,
+                    "Please override constructor descriptor in annotation, or change method return type: " + interfaceMethod);
+
+            Constructor<?> targetConstructor = MethodReflectorFactory.findConstructor(target, targetParameters);
+            if(targetConstructor != null) handleRecipe = HandleRecipe.constructor(targetConstructor);
+            //</editor-fold>
+        } else if(fGI != null || fSI != null) {
+            //<editor-fold desc="Field accessor">
+            String targetName = MethodReflectorFactory.replacePlaceholders(fGI != null ? fGI.value() : fSI.value(), replacements);
+            String fieldTypeString = MethodReflectorFactory.replacePlaceholders(fGI != null ? fGI.type() : fSI.type(), replacements);
+            ensureCondition(targetName != null && !targetName.isEmpty(), "Field name shouldn't be null or empty!");
+
+            int receiverArgs = 0;
+            Type fieldType;
+            if(fGI != null) {
+                ensureCondition(!interfaceReturnType.equals(Type.VOID_TYPE), "Getters can't return void type! " + interfaceMethod);
+                if(linkage.unbound && interfaceMethodParameters.length == 1) receiverArgs = 1;
+                ensureCondition(interfaceMethodParameters.length == receiverArgs,
+                        (linkage.unbound ? "Unbound getters can only take target instance as an argument! " :
+                                "Getters can't take any arguments! ") + interfaceMethod);
+                fieldType = fieldTypeString.isEmpty() ? interfaceReturnType : Type.getType(fieldTypeString);
+            } else {
+                ensureCondition(interfaceReturnType.equals(Type.VOID_TYPE), "Setters can only return void type! " + interfaceMethod);
+                if(linkage.unbound && interfaceMethodParameters.length == 2) receiverArgs = 1;
+                ensureCondition(interfaceMethodParameters.length == 1 + receiverArgs,
+                        (linkage.unbound ? "Unbound setters can only take target instance and one argument! " :
+                                "Setters can only take one argument! ") + interfaceMethod);
+                fieldType = fieldTypeString.isEmpty() ? interfaceMethodParameters[receiverArgs] : Type.getType(fieldTypeString);
+            }
+
+            Field targetField = MethodReflectorFactory.findField(target, targetName, fieldType);
+            if(targetField != null) {
+                isStatic = Modifier.isStatic(targetField.getModifiers());
+                if(linkage.unbound) {
+                    ensureCondition(isStatic == (receiverArgs == 0),
+                            (receiverArgs == 0 ? "Target field is not static, unbound accessor must take target instance as first argument! " :
+                                    "Target field is static, unbound accessor must not take target instance! ") + interfaceMethod);
+                }
+                handleRecipe = HandleRecipe.field(targetField, fSI != null);
+            }
+            //</editor-fold>
+        } else if(fAI != null) {
+            //<editor-fold desc="Atomic field operation">
+            TargetFieldAtomic.Operation operation = fAI.operation();
+            String targetName = MethodReflectorFactory.replacePlaceholders(fAI.value(), replacements);
+            String fieldTypeString = MethodReflectorFactory.replacePlaceholders(fAI.type(), replacements);
+            ensureCondition(targetName != null && !targetName.isEmpty(), "Field name shouldn't be null or empty!");
+
+            int receiverArgs = linkage.unbound && interfaceMethodParameters.length == operation.getArguments() + 1 ? 1 : 0;
+            ensureCondition(interfaceMethodParameters.length == operation.getArguments() + receiverArgs,
+                    "Atomic operation " + operation + " takes " + operation.getArguments() + " argument(s)" +
+                            (linkage.unbound ? " after target instance! " : "! ") + interfaceMethod);
+            Type fieldType = !fieldTypeString.isEmpty() ? Type.getType(fieldTypeString) :
+                    operation.returnsField() ? interfaceReturnType : interfaceMethodParameters[receiverArgs];
+
+            Field targetField = MethodReflectorFactory.findField(target, targetName, fieldType);
+            if(targetField != null) {
+                isStatic = Modifier.isStatic(targetField.getModifiers());
+                if(linkage.unbound) {
+                    ensureCondition(isStatic == (receiverArgs == 0),
+                            (receiverArgs == 0 ? "Target field is not static, unbound accessor must take target instance as first argument! " :
+                                    "Target field is static, unbound accessor must not take target instance! ") + interfaceMethod);
+                }
+                handleRecipe = HandleRecipe.fieldAtomic(targetField, operation);
+            }
+            //</editor-fold>
+        } else {
+            //<editor-fold desc="Method invoker">
+            String targetName = interfaceMethod.getName();
+            Type targetReturnType = interfaceReturnType;
+            Type[] targetParameters = interfaceMethodParameters;
+            boolean descGiven = tMI != null && !tMI.desc().isEmpty();
+            if(tMI != null) {
+                targetName = tMI.value().isEmpty() ? targetName : MethodReflectorFactory.replacePlaceholders(tMI.value(), replacements);
+                if(descGiven) {
+                    String desc = MethodReflectorFactory.replacePlaceholders(tMI.desc(), replacements);
+                    targetParameters = Type.getArgumentTypes(desc);
+                    targetReturnType = Type.getReturnType(desc);
+                }
+            }
+
+            Method targetMethod;
+            if(linkage.unbound) {
+                /* Figure out whether interface method takes target instance as first argument */
+                targetMethod = null;
+                if(interfaceMethodParameters.length > 0 && (!descGiven || targetParameters.length == interfaceMethodParameters.length - 1)) {
+                    Type[] receiverParameters = descGiven ? targetParameters :
+                            Arrays.copyOfRange(targetParameters, 1, targetParameters.length);
+                    targetMethod = MethodReflectorFactory.findMethod(target, targetName, receiverParameters, targetReturnType);
+                    if(targetMethod != null && Modifier.isStatic(targetMethod.getModifiers()))
+                        targetMethod = null;
+                }
+                if(targetMethod == null && targetParameters.length == interfaceMethodParameters.length) {
+                    targetMethod = MethodReflectorFactory.findMethod(target, targetName, targetParameters, targetReturnType);
+                    if(targetMethod != null && !Modifier.isStatic(targetMethod.getModifiers()))
+                        targetMethod = null;
+                }
+            } else {
+                targetMethod = MethodReflectorFactory.findMethod(target, targetName, targetParameters, targetReturnType);
+            }
+            if(targetMethod != null) {
+                isStatic = Modifier.isStatic(targetMethod.getModifiers());
+                handleRecipe = HandleRecipe.method(targetMethod);
+            }
+            //</editor-fold>
+        }
+
+        if(handleRecipe == null) {
+            if(interfaceMethod.isDefault()) {
+                log.log(Level.FINE, "Could not find target for interface method {0}, but interface default is present.", interfaceMethod);
+                return caller.findSpecial(linkage.intf, interfaceMethod.getName(), interfaceType, reflectorClass);
+            }
+            log.log(Level.WARNING, "Could not find target for interface method {0}", interfaceMethod);
+            return failedMethod(reflectorClass, interfaceType, "Failed to generate implementation for method: " + interfaceMethod);
+        }
+
+        MethodHandle targetHandle = handleRecipe.bind(mhLookup, target.getClassLoader());
+        if(isStatic || linkage.unbound) {
+            /* Interface method arguments match target arguments */
+            return MethodHandles.dropArguments(targetHandle.asType(interfaceType), 0, reflectorClass);
+        }
+
+        /* Target instance is taken from reflector instance */
+        MethodHandle instanceGetter = MethodHandles.filterReturnValue(
+                caller.findGetter(reflectorClass, MethodGenerator.REFF, Object.class), REQUIRE_INSTANCE);
+        return MethodHandles.filterArguments(targetHandle.asType(interfaceType.insertParameterTypes(0, Object.class)), 0, instanceGetter);
+    }
+
+    /* Builds method handle, which throws new RuntimeException on every invocation */
+    @NotNull
+    private static MethodHandle failedMethod(Class<?> reflectorClass, MethodType interfaceType, String errorMessage) {
+        MethodHandle thrower = MethodHandles.foldArguments(
+                MethodHandles.throwException(interfaceType.returnType(), RuntimeException.class),
+                MethodHandles.insertArguments(NEW_RUNTIME_EXCEPTION, 0, errorMessage));
+        return MethodHandles.dropArguments(thrower, 0, interfaceType.insertParameterTypes(0, reflectorClass).parameterList());
+    }
+
+    /* Ensures that target class instance is present */
+    @NotNull
+    @Contract("null -> fail")
+    private static Object requireInstance(@Nullable Object instance) {
+        ensureCondition(instance != null, "Interface targets instance methods, but class instance is not present in ClassWrapper!");
+        return instance;
+    }
+
+    /**
+     * Lazy reflector class linkage information
+     */
+    static final class Linkage {
+        final Class<?> target;
+        final Class<?> intf;
+        final Map<String, String> replacements;
+        final boolean unbound;
+
+        Linkage(Class<?> target, Class<?> intf, Map<String, String> replacements, boolean unbound) {
+            this.target = target;
+            this.intf = intf;
+            this.replacements = replacements;
+            this.unbound = unbound;
+        }
+    }
+
+    static {
+        try {
+            REQUIRE_INSTANCE = mhLookup.findStatic(LazyReflectorLinker.class, "requireInstance",
+                    MethodType.methodType(Object.class, Object.class));
+            NEW_RUNTIME_EXCEPTION = mhLookup.findConstructor(RuntimeException.class, MethodType.methodType(void.class, String.class));
+        } catch (ReflectiveOperationException e) {
+            SneakyThrow.throwException(e);
+            throw new IllegalStateException(e); // Unreachable
+        }
+    }
+}
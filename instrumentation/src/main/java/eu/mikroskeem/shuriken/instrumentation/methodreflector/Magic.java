@@ -7,8 +7,9 @@ package eu.mikroskeem.shuriken.instrumentation.methodreflector;
  */
 final class Magic {
     /* REFLECTOR CLASS FLAGS */
-    final static int REFLECTOR_CLASS_USE_METHODHANDLE = 1;    // Indicates that reflector class must have method handle array field
+    final static int REFLECTOR_CLASS_USE_METHODHANDLE = 1;    // Indicates that reflector class must have static MethodHandle fields
     final static int REFLECTOR_CLASS_USE_INSTANCE = 1 << 1;   // Indicates that reflector class must have target class instance reference
+    final static int REFLECTOR_CLASS_USE_UNSAFE = 1 << 17;    // Indicates that reflector class must have static Unsafe field
 
     /* REFLECTOR CLASS METHOD FLAGS */
     final static int REFLECTOR_METHOD_USE_INVOKEINTERFACE = 1 << 2; // Indicates that reflector method should use INVOKEINTERFACE instruction
@@ -26,10 +27,21 @@ final class Magic {
     /* FIELD */
     final static int FIELD_GETTER = 1 << 9; // Indicates that reflector method is field getter
     final static int FIELD_SETTER = 1 << 10; // Indicates that reflector method is field setter
+    final static int FIELD_ATOMIC = 1 << 15; // Indicates that reflector method does atomic operation on field
+    final static int FIELD_UNSAFE = 1 << 16; // Indicates that reflector method accesses field through Unsafe with constant offset
 
     /* CTOR */
     final static int CTOR_INVOKER = 1 << 11; // Indicates that reflector method is constructor invoker
 
     /* MISC */
     final static int USES_MAGIC_ACCESSOR = 1 << 12; // Indicates that given accessor extends
+
+    /* NESTMATE */
+    final static int USES_NESTMATE_ACCESS = 1 << 14; // Indicates that reflector is defined as hidden nestmate of target class
+    final static int USES_PACKAGE_ACCESS = 1 << 18; // Indicates that reflector is defined into target class package using Lookup#defineClass
+    final static int IN_TARGET_PACKAGE = USES_NESTMATE_ACCESS | USES_PACKAGE_ACCESS; // Indicates that reflector lives in target class runtime package
+    final static int DIRECT_ACCESS = USES_MAGIC_ACCESSOR | IN_TARGET_PACKAGE; // Indicates that non-public targets can be accessed directly
+
+    /* UNBOUND */
+    final static int REFLECTOR_METHOD_UNBOUND = 1 << 13; // Indicates that reflector method takes target instance as its first argument
 }
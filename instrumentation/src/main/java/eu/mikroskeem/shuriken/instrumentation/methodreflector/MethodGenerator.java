@@ -7,28 +7,41 @@ import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.commons.GeneratorAdapter;
 
+import java.lang.invoke.CallSite;
 import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static eu.mikroskeem.shuriken.common.Ensure.notNull;
-import static org.objectweb.asm.Opcodes.AALOAD;
 import static org.objectweb.asm.Opcodes.ACC_FINAL;
 import static org.objectweb.asm.Opcodes.ACC_PRIVATE;
 import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
-import static org.objectweb.asm.Opcodes.BIPUSH;
+import static org.objectweb.asm.Opcodes.ACC_STATIC;
+import static org.objectweb.asm.Opcodes.ACONST_NULL;
 import static org.objectweb.asm.Opcodes.DUP;
-import static org.objectweb.asm.Opcodes.ICONST_0;
+import static org.objectweb.asm.Opcodes.GOTO;
+import static org.objectweb.asm.Opcodes.H_INVOKESTATIC;
+import static org.objectweb.asm.Opcodes.IF_ICMPGE;
+import static org.objectweb.asm.Opcodes.ILOAD;
 import static org.objectweb.asm.Opcodes.INVOKEINTERFACE;
 import static org.objectweb.asm.Opcodes.INVOKESPECIAL;
 import static org.objectweb.asm.Opcodes.INVOKESTATIC;
 import static org.objectweb.asm.Opcodes.INVOKEVIRTUAL;
+import static org.objectweb.asm.Opcodes.ISTORE;
 import static org.objectweb.asm.Opcodes.NEW;
 
 
@@ -41,78 +54,236 @@ final class MethodGenerator {
     /* Field names */
     final static String REFF = "ref";
     final static String MHF = "mh";
+    final static String LINKAGEF = "linkage";
+    final static String UNSAFEF = "unsafe";
+    final static String OWNERF = "owner";
+    final static String BASEF = "base";
+    final static String ADDRESSF = "address";
+    final static String COUNTF = "count";
 
     /* Common types */
     final static Type MH = Type.getType(MethodHandle.class);
-    final static Type MH_ARRAY = Type.getType(MethodHandle[].class);
     final static Type OBJECT = Type.getType(Object.class);
 
+    final static Type MH_ARRAY = Type.getType(MethodHandle[].class);
+
+    /* Class data holder */
+    private final static Type CLASS_DATA = Type.getType(ReflectorClassData.class);
+    private final static org.objectweb.asm.commons.Method CLASS_DATA_TAKE = new org.objectweb.asm.commons.Method("take",
+            MH_ARRAY, new Type[] { Type.getType(Class.class) });
+
+    /* Hidden class data, Java 16+ */
+    private final static Type METHOD_HANDLES = Type.getType(MethodHandles.class);
+    private final static Type LOOKUP = Type.getType(MethodHandles.Lookup.class);
+    private final static org.objectweb.asm.commons.Method METHOD_HANDLES_LOOKUP = new org.objectweb.asm.commons.Method("lookup",
+            LOOKUP, new Type[0]);
+    private final static org.objectweb.asm.commons.Method METHOD_HANDLES_CLASS_DATA = new org.objectweb.asm.commons.Method("classData",
+            OBJECT, new Type[] { LOOKUP, Type.getType(String.class), Type.getType(Class.class) });
+
+    /* Unsafe field access */
+    private final static Type CLASS = Type.getType(Class.class);
+    private final static Type FIELD = Type.getType(Field.class);
+    private final static org.objectweb.asm.commons.Method CLASS_GET_DECLARED_FIELD = new org.objectweb.asm.commons.Method("getDeclaredField",
+            FIELD, new Type[] { Type.getType(String.class) });
+    private final static org.objectweb.asm.commons.Method FIELD_SET_ACCESSIBLE = new org.objectweb.asm.commons.Method("setAccessible",
+            Type.VOID_TYPE, new Type[] { Type.BOOLEAN_TYPE });
+    private final static org.objectweb.asm.commons.Method FIELD_GET = new org.objectweb.asm.commons.Method("get",
+            OBJECT, new Type[] { OBJECT });
+    private final static Type OBJECTS = Type.getType(Objects.class);
+    private final static org.objectweb.asm.commons.Method REQUIRE_NON_NULL = new org.objectweb.asm.commons.Method("requireNonNull",
+            OBJECT, new Type[] { OBJECT });
+
+    /* Bulk methods */
+    private final static Type LIST = Type.getType(List.class);
+    private final static org.objectweb.asm.commons.Method LIST_SIZE = new org.objectweb.asm.commons.Method("size",
+            Type.INT_TYPE, new Type[0]);
+    private final static org.objectweb.asm.commons.Method LIST_GET = new org.objectweb.asm.commons.Method("get",
+            OBJECT, new Type[] { Type.INT_TYPE });
+
+    /* Flyweights */
+    private final static Type FLYWEIGHT_REFLECTOR = Type.getType(FlyweightReflector.class);
+    private final static org.objectweb.asm.commons.Method FLYWEIGHT_CHECK_INDEX = new org.objectweb.asm.commons.Method("checkIndex",
+            Type.LONG_TYPE, new Type[] { Type.LONG_TYPE, Type.LONG_TYPE });
+
+    /* Lazy linking bootstrap */
+    private final static Handle LAZY_BOOTSTRAP = new Handle(H_INVOKESTATIC, Type.getInternalName(LazyReflectorLinker.class), "bootstrap",
+            Type.getMethodDescriptor(Type.getType(CallSite.class), LOOKUP, Type.getType(String.class), Type.getType(MethodType.class)), false);
+
     /* Generates class base */
-    @Contract("null, null, _, null, null -> fail")
-    static void generateClassBase(ClassVisitor cv, Type superClass, int flags, Type reflectorClass, Type targetClass) {
-        FieldVisitor fv = null;
+    @Contract("null, null, _, null, null, _ -> fail")
+    static void generateClassBase(ClassVisitor cv, Type superClass, int flags, Type reflectorClass, Type targetClass, int mhCount) {
         GeneratorAdapter adapter;
         MethodVisitor mv;
 
-        if((flags & Magic.REFLECTOR_CLASS_USE_METHODHANDLE) != 0 || (flags & Magic.REFLECTOR_CLASS_USE_INSTANCE) != 0) {
+        if((flags & Magic.REFLECTOR_CLASS_USE_INSTANCE) != 0) {
             /* Use java.lang.Object instead */
             if((flags & Magic.TARGET_CLASS_VISIBILITY_PUBLIC) == 0)
                 targetClass = OBJECT;
 
-            /* Figure out what descriptor to use */
-            String descriptor = null;
-            if((flags & Magic.REFLECTOR_CLASS_USE_METHODHANDLE) != 0 && (flags & Magic.REFLECTOR_CLASS_USE_INSTANCE) != 0) {
-                descriptor = new Descriptor().accepts(targetClass.getDescriptor(), MH_ARRAY.getDescriptor()).toString();
-            } else if((flags & Magic.REFLECTOR_CLASS_USE_INSTANCE) != 0) {
-                descriptor = new Descriptor().accepts(targetClass.getDescriptor()).toString();
-            } else if((flags & Magic.REFLECTOR_CLASS_USE_METHODHANDLE) != 0) {
-                descriptor = new Descriptor().accepts(MH_ARRAY.getDescriptor()).toString();
-            } else {
-                descriptor.getClass(); // Explicit NPE
-            }
-
             /* Generate constructor */
+            String descriptor = new Descriptor().accepts(targetClass.getDescriptor()).toString();
             mv = cv.visitMethod(ACC_PUBLIC, "<init>", descriptor, null, null);
             adapter = new GeneratorAdapter(mv, ACC_PUBLIC, "<init>", descriptor);
             adapter.visitCode();
             adapter.loadThis();
             adapter.visitMethodInsn(INVOKESPECIAL, superClass.getInternalName(), "<init>", "()V", false);
 
-            /* Start putting arguments to fields */
-            // TODO: skip method handle field if magic accessor is used
-            if((flags & Magic.REFLECTOR_CLASS_USE_METHODHANDLE) != 0 && (flags & Magic.REFLECTOR_CLASS_USE_INSTANCE) != 0) {
-                adapter.loadThis();
-                adapter.loadArg(0);
-                adapter.putField(reflectorClass, REFF, targetClass);
-                adapter.loadThis();
-                adapter.loadArg(1);
-                adapter.putField(reflectorClass, MHF, MH_ARRAY);
-            } else if((flags & Magic.REFLECTOR_CLASS_USE_INSTANCE) != 0) {
-                adapter.loadThis();
-                adapter.loadArg(0);
-                adapter.putField(reflectorClass, REFF, targetClass);
-            } else /*if((flags & Magic.REFLECTOR_CLASS_USE_METHODHANDLE) != 0)*/ {
-                adapter.loadThis();
-                adapter.loadArg(0);
-                adapter.putField(reflectorClass, MHF, MH_ARRAY);
-            }
+            /* Put instance to field */
+            adapter.loadThis();
+            adapter.loadArg(0);
+            adapter.putField(reflectorClass, REFF, targetClass);
 
             /* End constructor */
             adapter.returnValue();
             adapter.endMethod();
 
-            /* Generate required fields as well */
-            if((flags & Magic.REFLECTOR_CLASS_USE_METHODHANDLE) != 0) fv = cv.visitField(ACC_PRIVATE | ACC_FINAL, "mh",
-                        MH_ARRAY.getDescriptor(), null, null);
+            /* Generate instance field as well */
+            FieldVisitor fv = cv.visitField(ACC_PRIVATE | ACC_FINAL, REFF, targetClass.getDescriptor(), null, null);
+            fv.visitEnd();
+        } else {
+            ClassTools.generateSimpleSuperConstructor(cv, Object.class);
+        }
+
+        if((flags & (Magic.REFLECTOR_CLASS_USE_METHODHANDLE | Magic.REFLECTOR_CLASS_USE_UNSAFE)) == 0) return;
 
-            if((flags & Magic.REFLECTOR_CLASS_USE_INSTANCE) != 0) fv = cv.visitField(ACC_PRIVATE | ACC_FINAL, "ref",
-                        targetClass.getDescriptor(), null, null);
+        /* Generate static initializer */
+        String descriptor = "()V";
+        mv = cv.visitMethod(ACC_STATIC, "<clinit>", descriptor, null, null);
+        adapter = new GeneratorAdapter(mv, ACC_STATIC, "<clinit>", descriptor);
+        adapter.visitCode();
+
+        // TODO: skip method handle fields if magic accessor is used
+        if((flags & Magic.REFLECTOR_CLASS_USE_METHODHANDLE) != 0) {
+            /*
+             * MethodHandles are put into static final fields, so JIT is able to treat them as constants
+             * and inline the target like a direct call
+             */
+            for(int i = 0; i < mhCount; i++) {
+                FieldVisitor fv = cv.visitField(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, MHF + i, MH.getDescriptor(), null, null);
+                fv.visitEnd();
+            }
+
+            /* Fetch MethodHandles from class data */
+            if((flags & Magic.USES_NESTMATE_ACCESS) != 0) {
+                /* Hidden class data, see MethodHandles#classData */
+                adapter.invokeStatic(METHOD_HANDLES, METHOD_HANDLES_LOOKUP);
+                adapter.push("_");
+                adapter.push(OBJECT);
+                adapter.invokeStatic(METHOD_HANDLES, METHOD_HANDLES_CLASS_DATA);
+                adapter.checkCast(MH_ARRAY);
+            } else {
+                adapter.push(reflectorClass);
+                adapter.invokeStatic(CLASS_DATA, CLASS_DATA_TAKE);
+            }
+            for(int i = 0; i < mhCount; i++) {
+                if(i < mhCount - 1) adapter.dup();
+                adapter.push(i);
+                adapter.arrayLoad(MH);
+                adapter.putStatic(reflectorClass, MHF + i, MH);
+            }
+            if(mhCount == 0) adapter.pop();
+        }
+
+        if((flags & Magic.REFLECTOR_CLASS_USE_UNSAFE) != 0)
+            generateUnsafeField(cv, adapter, reflectorClass);
 
-            notNull(fv, "FieldVisitor shouldn't be null!");
+        adapter.returnValue();
+        adapter.endMethod();
+    }
+
+    /* Generates flyweight class base, see FlyweightReflector */
+    @Contract("null, null -> fail")
+    static void generateFlyweightClassBase(ClassVisitor cv, Type flyweightClass) {
+        /* Memory owner is kept only to keep memory from being freed */
+        for(String field : new String[] { OWNERF, BASEF }) {
+            FieldVisitor fv = cv.visitField(ACC_PRIVATE | ACC_FINAL, field, OBJECT.getDescriptor(), null, null);
+            fv.visitEnd();
+        }
+        for(String field : new String[] { ADDRESSF, COUNTF }) {
+            FieldVisitor fv = cv.visitField(ACC_PRIVATE | ACC_FINAL, field, Type.LONG_TYPE.getDescriptor(), null, null);
             fv.visitEnd();
+        }
+
+        /* Generate constructor */
+        String descriptor = Type.getMethodDescriptor(Type.VOID_TYPE, OBJECT, OBJECT, Type.LONG_TYPE, Type.LONG_TYPE);
+        MethodVisitor mv = cv.visitMethod(ACC_PUBLIC, "<init>", descriptor, null, null);
+        GeneratorAdapter adapter = new GeneratorAdapter(mv, ACC_PUBLIC, "<init>", descriptor);
+        adapter.visitCode();
+        adapter.loadThis();
+        adapter.visitMethodInsn(INVOKESPECIAL, OBJECT.getInternalName(), "<init>", "()V", false);
+        adapter.loadThis();
+        adapter.loadArg(0);
+        adapter.putField(flyweightClass, OWNERF, OBJECT);
+        adapter.loadThis();
+        adapter.loadArg(1);
+        adapter.putField(flyweightClass, BASEF, OBJECT);
+        adapter.loadThis();
+        adapter.loadArg(2);
+        adapter.putField(flyweightClass, ADDRESSF, Type.LONG_TYPE);
+        adapter.loadThis();
+        adapter.loadArg(3);
+        adapter.putField(flyweightClass, COUNTF, Type.LONG_TYPE);
+        adapter.returnValue();
+        adapter.endMethod();
+
+        /* Generate static initializer */
+        descriptor = "()V";
+        mv = cv.visitMethod(ACC_STATIC, "<clinit>", descriptor, null, null);
+        adapter = new GeneratorAdapter(mv, ACC_STATIC, "<clinit>", descriptor);
+        adapter.visitCode();
+        generateUnsafeField(cv, adapter, flyweightClass);
+        adapter.returnValue();
+        adapter.endMethod();
+    }
+
+    /* Generates flyweight field getter or setter, which accesses memory at constant offset from element start */
+    @Contract("null, null, null, _, _, _ -> fail")
+    static void generateFlyweightFieldMethod(ClassVisitor cv, Method interfaceMethod, Type flyweightClass,
+                                             int stride, int offset, boolean isVolatile) {
+        String methodName = interfaceMethod.getName();
+        String methodDesc = Type.getMethodDescriptor(interfaceMethod);
+        MethodVisitor mv = cv.visitMethod(ACC_PUBLIC, methodName, methodDesc, null, null);
+        GeneratorAdapter adapter = new GeneratorAdapter(mv, ACC_PUBLIC, methodName, methodDesc);
+        adapter.visitCode();
+        Type[] parameters = Type.getArgumentTypes(interfaceMethod);
+        boolean setter = parameters.length == 2;
+        Class<?> valueType = setter ? interfaceMethod.getParameterTypes()[1] : interfaceMethod.getReturnType();
+
+        /* Load Unsafe and memory base */
+        adapter.getStatic(flyweightClass, UNSAFEF, UnsafeFields.UNSAFE);
+        adapter.loadThis();
+        adapter.getField(flyweightClass, BASEF, OBJECT);
+
+        /* Compute address: address + checkIndex(index, count) * stride + offset */
+        adapter.loadThis();
+        adapter.getField(flyweightClass, ADDRESSF, Type.LONG_TYPE);
+        adapter.loadArg(0);
+        adapter.cast(parameters[0], Type.LONG_TYPE);
+        adapter.loadThis();
+        adapter.getField(flyweightClass, COUNTF, Type.LONG_TYPE);
+        adapter.invokeStatic(FLYWEIGHT_REFLECTOR, FLYWEIGHT_CHECK_INDEX);
+        adapter.push((long) stride);
+        adapter.math(GeneratorAdapter.MUL, Type.LONG_TYPE);
+        adapter.math(GeneratorAdapter.ADD, Type.LONG_TYPE);
+        adapter.push((long) offset);
+        adapter.math(GeneratorAdapter.ADD, Type.LONG_TYPE);
+
+        /* Read or write value */
+        Type accessorType = Type.getType(valueType);
+        if(setter) {
+            adapter.loadArg(1);
+            adapter.invokeVirtual(UnsafeFields.UNSAFE, new org.objectweb.asm.commons.Method(UnsafeFields.getAccessorName("put", valueType, isVolatile),
+                    Type.VOID_TYPE, new Type[] { OBJECT, Type.LONG_TYPE, accessorType }));
         } else {
-            ClassTools.generateSimpleSuperConstructor(cv, Object.class);
+            adapter.invokeVirtual(UnsafeFields.UNSAFE, new org.objectweb.asm.commons.Method(UnsafeFields.getAccessorName("get", valueType, isVolatile),
+                    accessorType, new Type[] { OBJECT, Type.LONG_TYPE }));
         }
+
+        /* Return */
+        adapter.returnValue();
+
+        /* End method */
+        adapter.endMethod();
     }
 
     /* Generates proxy method, what invokes target method */
@@ -133,21 +304,14 @@ final class MethodGenerator {
         /* Load instance, if required */
         loadInstance(adapter, reflectorClass, targetClass, flags);
 
-        /* Load method parameters into stack */
-        loadArguments(adapter, Type.getArgumentTypes(interfaceMethod), targetParameters, (flags & Magic.TARGET_CLASS_VISIBILITY_PUBLIC) != 0);
-
-        if((flags & Magic.REFLECTOR_METHOD_USE_METHODHANDLE) != 0 && (flags & Magic.USES_MAGIC_ACCESSOR) == 0) {
-            /* Build MethodHandle descriptor (invokeExact is polymorphic) */
-            String mhDescriptor = convertDesc(targetParameters,
-                    ((flags & Magic.RETURN_TYPE_PUBLIC) != 0 ? targetReturnType : OBJECT),
-                    (flags & Magic.REFLECTOR_METHOD_USE_INSTANCE) != 0 ? ((flags & Magic.TARGET_CLASS_VISIBILITY_PUBLIC) != 0 ? targetClass : OBJECT) : null);
-
-            /* Select right MethodHandle invoker */
-            String mhInvoker = (flags & Magic.TARGET_CLASS_VISIBILITY_PUBLIC) != 0 && (flags & Magic.RETURN_TYPE_PUBLIC) != 0 ? "invokeExact" : "invoke";
-
-            /* Invoke MethodHandle */
-            mv.visitMethodInsn(INVOKEVIRTUAL, MH.getInternalName(), mhInvoker, mhDescriptor, false);
+        if(usesMethodHandle(flags)) {
+            /* Invoke pre-adapted MethodHandle */
+            invokeHandle(adapter, interfaceMethod, targetClass, flags);
         } else {
+            /* Load method parameters into stack */
+            loadArguments(adapter, Type.getArgumentTypes(interfaceMethod), targetParameters, (flags & Magic.TARGET_CLASS_VISIBILITY_PUBLIC) != 0,
+                    (flags & Magic.REFLECTOR_METHOD_UNBOUND) != 0 ? 1 : 0);
+
             /* Figure out what opcode to use */
             int opCode = (flags & Magic.REFLECTOR_METHOD_USE_INVOKEINTERFACE) != 0 ?
                     ((flags & Magic.REFLECTOR_METHOD_USE_INSTANCE) != 0 ? INVOKEINTERFACE : INVOKESTATIC)
@@ -160,10 +324,12 @@ final class MethodGenerator {
 
             /* Invoke method */
             adapter.visitMethodInsn(opCode, targetName, targetMethodName, targetDescriptor, (flags & Magic.REFLECTOR_METHOD_USE_INVOKEINTERFACE) != 0);
+
+            /* Box or unbox return value */
+            handleReturn(adapter, interfaceMethod, targetReturnType);
         }
 
         /* Return */
-        handleReturn(adapter, interfaceMethod, targetReturnType);
         adapter.returnValue();
 
         /* End method */
@@ -186,26 +352,16 @@ final class MethodGenerator {
         /* Load MethodHandle, if required */
         loadMH(adapter, reflectorClass, flags, mhIndex);
 
-        // if does not use method handle
-        if((flags & Magic.REFLECTOR_METHOD_USE_METHODHANDLE) == 0 || (flags & Magic.USES_MAGIC_ACCESSOR) != 0) {
+        if(usesMethodHandle(flags)) {
+            /* Invoke pre-adapted MethodHandle */
+            invokeHandle(adapter, interfaceMethod, targetClass, flags);
+        } else {
             adapter.visitTypeInsn(NEW, targetClassName);
             adapter.visitInsn(DUP);
-        }
-
-        /* Load method parameters into stack */
-        loadArguments(adapter, Type.getArgumentTypes(interfaceMethod), targetParameters, (flags & Magic.RETURN_TYPE_PUBLIC) != 0);
 
-        if((flags & Magic.REFLECTOR_METHOD_USE_METHODHANDLE) != 0 && (flags & Magic.USES_MAGIC_ACCESSOR) == 0) {
-            /* Build MethodHandle descriptor */
-            String mhDescriptor = convertDesc(targetParameters,
-                    (flags & Magic.RETURN_TYPE_PUBLIC) != 0 ? targetClass : OBJECT, null);
+            /* Load method parameters into stack */
+            loadArguments(adapter, Type.getArgumentTypes(interfaceMethod), targetParameters, (flags & Magic.RETURN_TYPE_PUBLIC) != 0, 0);
 
-            /* Select right MethodHandle invoker */
-            String mhInvoker = (flags & Magic.RETURN_TYPE_PUBLIC) != 0 ? "invokeExact" : "invoke";
-
-            /* Invoke MethodHandle */
-            mv.visitMethodInsn(INVOKEVIRTUAL, MH.getInternalName(), mhInvoker, mhDescriptor, false);
-        } else {
             /* Build target descriptor */
             String targetDesc = convertDesc(targetParameters, Type.VOID_TYPE, null);
 
@@ -214,7 +370,6 @@ final class MethodGenerator {
         }
 
         /* Return */
-        handleReturn(adapter, interfaceMethod, (flags & Magic.RETURN_TYPE_PUBLIC) != 0 ? targetClass : OBJECT);
         adapter.returnValue();
 
         /* End method */
@@ -238,27 +393,20 @@ final class MethodGenerator {
         /* Load instance, if required */
         loadInstance(adapter, reflectorClass, targetClass, flags);
 
-        if((flags & Magic.REFLECTOR_METHOD_USE_METHODHANDLE) != 0 && (flags & Magic.USES_MAGIC_ACCESSOR) == 0) {
-            /* Build MethodHandle descriptor */
-            String mhDescriptor = new Descriptor()
-                    .accepts((flags & Magic.REFLECTOR_METHOD_USE_INSTANCE) != 0 ? ((flags & Magic.TARGET_CLASS_VISIBILITY_PUBLIC) != 0 ? targetClass : OBJECT).getDescriptor() : "")
-                    .returns(fieldType.getDescriptor())
-                    .toString();
-
-            /* Select right MethodHandle invoker */
-            String mhInvoker = (flags & Magic.TARGET_CLASS_VISIBILITY_PUBLIC) != 0 && (flags & Magic.RETURN_TYPE_PUBLIC) != 0 ? "invokeExact" : "invoke";
-
-            /* Invoke MethodHandle */
-            adapter.visitMethodInsn(INVOKEVIRTUAL, MH.getInternalName(), mhInvoker, mhDescriptor, false);
+        if(usesMethodHandle(flags)) {
+            /* Invoke pre-adapted MethodHandle */
+            invokeHandle(adapter, interfaceMethod, targetClass, flags);
         } else {
             if((flags & Magic.REFLECTOR_METHOD_USE_INSTANCE) != 0)
                 adapter.getField(targetClass, fieldName, fieldType);
             else
                 adapter.getStatic(targetClass, fieldName, fieldType);
+
+            /* Box or unbox return value */
+            handleReturn(adapter, interfaceMethod, fieldType);
         }
 
         /* Return */
-        handleReturn(adapter, interfaceMethod, fieldType);
         adapter.returnValue();
 
         /* End method */
@@ -282,23 +430,17 @@ final class MethodGenerator {
         /* Load instance, if required */
         loadInstance(adapter, reflectorClass, targetClass, flags);
 
-        /* Load method parameter into stack */
-        adapter.loadArg(0);
-
-        if((flags & Magic.REFLECTOR_METHOD_USE_METHODHANDLE) != 0 && (flags & Magic.USES_MAGIC_ACCESSOR) == 0) {
-            /* Build MethodHandle descriptor */
-            String mhDescriptor = new Descriptor()
-                    .accepts(((flags & Magic.REFLECTOR_METHOD_USE_INSTANCE) != 0 ?
-                            ((flags & Magic.TARGET_CLASS_VISIBILITY_PUBLIC) != 0 ? targetClass : OBJECT).getDescriptor(): "")
-                            + fieldType.getDescriptor())
-                    .toString();
-
-            /* Select right MethodHandle invoker */
-            String mhInvoker = (flags & Magic.TARGET_CLASS_VISIBILITY_PUBLIC) != 0 && (flags & Magic.RETURN_TYPE_PUBLIC) != 0 ? "invokeExact" : "invoke";
-
-            /* Invoke MethodHandle */
-            adapter.visitMethodInsn(INVOKEVIRTUAL, MH.getInternalName(), mhInvoker, mhDescriptor, false);
+        if(usesMethodHandle(flags)) {
+            /* Invoke pre-adapted MethodHandle */
+            invokeHandle(adapter, interfaceMethod, targetClass, flags);
         } else {
+            /* Load method parameter into stack */
+            int argIndex = (flags & Magic.REFLECTOR_METHOD_UNBOUND) != 0 ? 1 : 0;
+            adapter.loadArg(argIndex);
+            Type interfaceType = Type.getArgumentTypes(interfaceMethod)[argIndex];
+            if((flags & Magic.RETURN_TYPE_PUBLIC) != 0 && !isPrimitive(fieldType) && !fieldType.equals(interfaceType))
+                adapter.checkCast(fieldType);
+
             if((flags & Magic.REFLECTOR_METHOD_USE_INSTANCE) != 0)
                 adapter.putField(targetClass, fieldName, fieldType);
             else
@@ -312,6 +454,230 @@ final class MethodGenerator {
         adapter.endMethod();
     }
 
+    /* Generates method, what reads field through Unsafe with constant field offset, see UnsafeFields */
+    @Contract("null, null, null, null, null, _, _ -> fail")
+    static void generateUnsafeFieldReadMethod(ClassVisitor cv, Method interfaceMethod,
+                                              Type reflectorClass, Type targetClass, Field field,
+                                              int flags, int mhIndex) {
+        String methodName = interfaceMethod.getName();
+        String methodDesc = Type.getMethodDescriptor(interfaceMethod);
+        MethodVisitor mv = cv.visitMethod(ACC_PUBLIC, methodName, methodDesc, null, null);
+        GeneratorAdapter adapter = new GeneratorAdapter(mv, ACC_PUBLIC, methodName, methodDesc);
+        adapter.visitCode();
+
+        /* Load Unsafe, field base and offset */
+        loadUnsafeBase(adapter, reflectorClass, targetClass, field, flags, mhIndex);
+
+        /* Read field */
+        Type accessorType = UnsafeFields.getAccessorType(field);
+        adapter.invokeVirtual(UnsafeFields.UNSAFE, new org.objectweb.asm.commons.Method(UnsafeFields.getAccessorName("get", field),
+                accessorType, new Type[] { OBJECT, Type.LONG_TYPE }));
+
+        /* Box, unbox or cast return value */
+        Type returnType = Type.getReturnType(interfaceMethod);
+        if(isPrimitive(accessorType)) {
+            handleReturn(adapter, interfaceMethod, accessorType);
+        } else if(isPrimitive(returnType)) {
+            adapter.unbox(returnType);
+        } else if(!returnType.equals(OBJECT)) {
+            adapter.checkCast(returnType);
+        }
+
+        /* Return */
+        adapter.returnValue();
+
+        /* End method */
+        adapter.endMethod();
+    }
+
+    /* Generates method, what writes field through Unsafe with constant field offset, see UnsafeFields */
+    @Contract("null, null, null, null, null, _, _ -> fail")
+    static void generateUnsafeFieldWriteMethod(ClassVisitor cv, Method interfaceMethod,
+                                               Type reflectorClass, Type targetClass, Field field,
+                                               int flags, int mhIndex) {
+        String methodName = interfaceMethod.getName();
+        String methodDesc = Type.getMethodDescriptor(interfaceMethod);
+        MethodVisitor mv = cv.visitMethod(ACC_PUBLIC, methodName, methodDesc, null, null);
+        GeneratorAdapter adapter = new GeneratorAdapter(mv, ACC_PUBLIC, methodName, methodDesc);
+        adapter.visitCode();
+
+        /* Load Unsafe, field base and offset */
+        loadUnsafeBase(adapter, reflectorClass, targetClass, field, flags, mhIndex);
+
+        /* Load method parameter into stack */
+        int argIndex = (flags & Magic.REFLECTOR_METHOD_UNBOUND) != 0 ? 1 : 0;
+        adapter.loadArg(argIndex);
+        Type interfaceType = Type.getArgumentTypes(interfaceMethod)[argIndex];
+        Type accessorType = UnsafeFields.getAccessorType(field);
+        if(isPrimitive(accessorType)) {
+            if(!isPrimitive(interfaceType))
+                adapter.unbox(accessorType);
+        } else {
+            /* Unsafe does not check stored value type, so it must be cast to field type here */
+            Type fieldType = Type.getType(field.getType());
+            if(isPrimitive(interfaceType)) {
+                adapter.box(interfaceType);
+                adapter.checkCast(fieldType);
+            } else if(!fieldType.equals(interfaceType) && !fieldType.equals(OBJECT)) {
+                adapter.checkCast(fieldType);
+            }
+        }
+
+        /* Write field */
+        adapter.invokeVirtual(UnsafeFields.UNSAFE, new org.objectweb.asm.commons.Method(UnsafeFields.getAccessorName("put", field),
+                Type.VOID_TYPE, new Type[] { OBJECT, Type.LONG_TYPE, accessorType }));
+
+        /* Return */
+        adapter.returnValue();
+
+        /* End method */
+        adapter.endMethod();
+    }
+
+    /* Generates method, what does atomic operation on field. These always go through MethodHandle, see AtomicFieldHandles */
+    @Contract("null, null, null, null, _, _ -> fail")
+    static void generateFieldAtomicMethod(ClassVisitor cv, Method interfaceMethod,
+                                          Type reflectorClass, Type targetClass,
+                                          int flags, int mhIndex) {
+        String methodName = interfaceMethod.getName();
+        String methodDesc = Type.getMethodDescriptor(interfaceMethod);
+        MethodVisitor mv = cv.visitMethod(ACC_PUBLIC, methodName, methodDesc, null, null);
+        GeneratorAdapter adapter = new GeneratorAdapter(mv, ACC_PUBLIC, methodName, methodDesc);
+        adapter.visitCode();
+
+        /* Load MethodHandle */
+        Ensure.ensureCondition(usesMethodHandle(flags), "Atomic field operations must use MethodHandle!");
+        loadMH(adapter, reflectorClass, flags, mhIndex);
+
+        /* Load instance, if required */
+        loadInstance(adapter, reflectorClass, targetClass, flags);
+
+        /* Invoke pre-adapted MethodHandle */
+        invokeHandle(adapter, interfaceMethod, targetClass, flags);
+
+        /* Return */
+        adapter.returnValue();
+
+        /* End method */
+        adapter.endMethod();
+    }
+
+    /* Generates bulk method, what invokes element method on every target instance, see Bulk */
+    @Contract("null, null, null, null -> fail")
+    static void generateBulkMethod(ClassVisitor cv, Method interfaceMethod, Method elementMethod, Type reflectorClass) {
+        String methodName = interfaceMethod.getName();
+        String methodDesc = Type.getMethodDescriptor(interfaceMethod);
+        MethodVisitor mv = cv.visitMethod(ACC_PUBLIC, methodName, methodDesc, null, null);
+        GeneratorAdapter adapter = new GeneratorAdapter(mv, ACC_PUBLIC, methodName, methodDesc);
+        adapter.visitCode();
+
+        Type[] parameters = Type.getArgumentTypes(interfaceMethod);
+        Type targetsType = parameters[0];
+        boolean isList = targetsType.getSort() != Type.ARRAY;
+        boolean hasOutput = parameters.length == 2;
+        Type elementType = Type.getArgumentTypes(elementMethod)[0];
+
+        /* Loop locals follow method arguments, which are all references */
+        int countLocal = 1 + parameters.length;
+        int indexLocal = countLocal + 1;
+
+        /* Count target instances */
+        adapter.loadArg(0);
+        if(isList)
+            adapter.invokeInterface(LIST, LIST_SIZE);
+        else
+            adapter.arrayLength();
+        mv.visitVarInsn(ISTORE, countLocal);
+        adapter.push(0);
+        mv.visitVarInsn(ISTORE, indexLocal);
+
+        /* Loop condition */
+        Label loopStart = new Label();
+        Label loopEnd = new Label();
+        adapter.mark(loopStart);
+        mv.visitVarInsn(ILOAD, indexLocal);
+        mv.visitVarInsn(ILOAD, countLocal);
+        mv.visitJumpInsn(IF_ICMPGE, loopEnd);
+
+        /* Output array slot */
+        if(hasOutput) {
+            adapter.loadArg(1);
+            mv.visitVarInsn(ILOAD, indexLocal);
+        }
+
+        /* Invoke element method on target instance */
+        adapter.loadThis();
+        adapter.loadArg(0);
+        mv.visitVarInsn(ILOAD, indexLocal);
+        if(isList) {
+            adapter.invokeInterface(LIST, LIST_GET);
+            if(!elementType.equals(OBJECT)) adapter.checkCast(elementType);
+        } else {
+            adapter.arrayLoad(targetsType.getElementType());
+        }
+        adapter.invokeVirtual(reflectorClass, org.objectweb.asm.commons.Method.getMethod(elementMethod));
+
+        /* Store value */
+        if(hasOutput) adapter.arrayStore(parameters[1].getElementType());
+
+        /* Next target instance */
+        mv.visitIincInsn(indexLocal, 1);
+        mv.visitJumpInsn(GOTO, loopStart);
+        adapter.mark(loopEnd);
+
+        /* Return */
+        adapter.returnValue();
+
+        /* End method */
+        adapter.endMethod();
+    }
+
+    /* Generates lazily linked reflector class base, see LazyReflectorLinker */
+    @Contract("null, null, _ -> fail")
+    static void generateLazyClassBase(ClassVisitor cv, Type reflectorClass, boolean unbound) {
+        /* Linkage information is set after class definition */
+        FieldVisitor fv = cv.visitField(ACC_PRIVATE | ACC_STATIC, LINKAGEF, OBJECT.getDescriptor(), null, null);
+        fv.visitEnd();
+
+        if(unbound) {
+            ClassTools.generateSimpleSuperConstructor(cv, Object.class);
+            return;
+        }
+
+        /* Target instance is not known to be required yet, so it's stored if present */
+        String descriptor = new Descriptor().accepts(OBJECT.getDescriptor()).toString();
+        MethodVisitor mv = cv.visitMethod(ACC_PUBLIC, "<init>", descriptor, null, null);
+        GeneratorAdapter adapter = new GeneratorAdapter(mv, ACC_PUBLIC, "<init>", descriptor);
+        adapter.visitCode();
+        adapter.loadThis();
+        adapter.visitMethodInsn(INVOKESPECIAL, OBJECT.getInternalName(), "<init>", "()V", false);
+        adapter.loadThis();
+        adapter.loadArg(0);
+        adapter.putField(reflectorClass, REFF, OBJECT);
+        adapter.returnValue();
+        adapter.endMethod();
+
+        fv = cv.visitField(ACC_PRIVATE | ACC_FINAL, REFF, OBJECT.getDescriptor(), null, null);
+        fv.visitEnd();
+    }
+
+    /* Generates method, which passes reflector instance and arguments to lazily linked invokedynamic call site */
+    @Contract("null, null, null -> fail")
+    static void generateLazyMethod(ClassVisitor cv, Method interfaceMethod, Type reflectorClass) {
+        String methodName = interfaceMethod.getName();
+        String methodDescriptor = Type.getMethodDescriptor(interfaceMethod);
+        MethodVisitor mv = cv.visitMethod(ACC_PUBLIC, methodName, methodDescriptor, null, null);
+        GeneratorAdapter adapter = new GeneratorAdapter(mv, ACC_PUBLIC, methodName, methodDescriptor);
+        adapter.visitCode();
+
+        Type[] parameters = Stream.concat(Stream.of(reflectorClass), Stream.of(Type.getArgumentTypes(interfaceMethod))).toArray(Type[]::new);
+        adapter.loadThis();
+        adapter.loadArgs();
+        adapter.invokeDynamic(methodName, Type.getMethodDescriptor(Type.getReturnType(interfaceMethod), parameters), LAZY_BOOTSTRAP);
+        adapter.returnValue();
+        adapter.endMethod();
+    }
+
     /* Generates method, what just throws RuntimeException */
     @Contract("null, null, null -> fail")
     static void generateFailedMethod(ClassVisitor cv, Method interfaceMethod, String errorMessage) {
@@ -329,18 +695,18 @@ final class MethodGenerator {
     }
 
     /* Helps to box/unbox parameters */
-    @Contract("null, null, null, !null -> fail")
-    private static void loadArguments(GeneratorAdapter ga, Type[] interfaceTypes, Type[] targetTypes, boolean isTargetPublic) {
-        Ensure.ensureCondition(interfaceTypes.length == targetTypes.length,
+    @Contract("null, null, null, _, _ -> fail")
+    private static void loadArguments(GeneratorAdapter ga, Type[] interfaceTypes, Type[] targetTypes, boolean isTargetPublic, int argOffset) {
+        Ensure.ensureCondition(interfaceTypes.length - argOffset == targetTypes.length,
                 "Interface and target parameter count don't match!");
         /* Iterate through all types */
-        for(int i = 0; i < interfaceTypes.length; i++) {
-            Type interfaceType = interfaceTypes[i];
+        for(int i = 0; i < targetTypes.length; i++) {
+            Type interfaceType = interfaceTypes[i + argOffset];
             Type targetType = targetTypes[i];
 
-            ga.loadArg(i);
+            ga.loadArg(i + argOffset);
 
-            /* Do not do boxing/unboxing if MethodHandle.invoke is used, it handles them on its own */
+            /* Types may not be accessible for casting, magic accessor and reflectors in target package take target types as they are */
             if(!isTargetPublic) continue;
 
             if(isPrimitive(interfaceType)) {
@@ -360,25 +726,105 @@ final class MethodGenerator {
         }
     }
 
-    /* Loads MethodHandle from array */
+    /*
+     * Builds descriptor of MethodHandle invocation, see MethodReflectorFactory. Handles are adapted into this type
+     * with MethodHandle#asType when they are bound, so reflector can always use invokeExact and all argument
+     * and return value conversions are done by the handle itself.
+     *
+     * Descriptor follows interface method signature, as its types are visible to reflector class. Types which are
+     * not accessible from reflector are erased to java.lang.Object, otherwise resolving the call site would fail
+     */
+    @NotNull
+    @Contract("null, null, _ -> fail")
+    static String getHandleDescriptor(Method interfaceMethod, Type targetClass, int flags) {
+        Class<?>[] interfaceParameters = interfaceMethod.getParameterTypes();
+        List<String> params = new ArrayList<>();
+        if((flags & Magic.REFLECTOR_METHOD_USE_INSTANCE) != 0)
+            params.add(((flags & Magic.TARGET_CLASS_VISIBILITY_PUBLIC) != 0 ? targetClass : OBJECT).getDescriptor());
+        for(int i = (flags & Magic.REFLECTOR_METHOD_UNBOUND) != 0 ? 1 : 0; i < interfaceParameters.length; i++)
+            params.add(Type.getDescriptor(eraseType(interfaceParameters[i])));
+        return new Descriptor()
+                .accepts(params.toArray(new String[params.size()]))
+                .returns(Type.getDescriptor(eraseType(interfaceMethod.getReturnType())))
+                .toString();
+    }
+
+    /* Invokes MethodHandle with interface method arguments as they are */
+    @Contract("null, null, null, _ -> fail")
+    private static void invokeHandle(GeneratorAdapter adapter, Method interfaceMethod, Type targetClass, int flags) {
+        for(int i = (flags & Magic.REFLECTOR_METHOD_UNBOUND) != 0 ? 1 : 0; i < interfaceMethod.getParameterCount(); i++)
+            adapter.loadArg(i);
+
+        /* invokeExact is signature polymorphic, descriptor must match adapted handle type exactly */
+        adapter.visitMethodInsn(INVOKEVIRTUAL, MH.getInternalName(), "invokeExact",
+                getHandleDescriptor(interfaceMethod, targetClass, flags), false);
+
+        Class<?> returnType = interfaceMethod.getReturnType();
+        if(eraseType(returnType) != returnType)
+            adapter.checkCast(Type.getType(returnType));
+    }
+
+    /* Erases type into java.lang.Object, if it's not accessible from reflector class */
+    @NotNull
+    @Contract("null -> fail")
+    private static Class<?> eraseType(Class<?> type) {
+        return type.isPrimitive() || Modifier.isPublic(type.getModifiers()) ? type : Object.class;
+    }
+
+    /* Checks if reflector method invokes target through MethodHandle */
+    @Contract(pure = true)
+    private static boolean usesMethodHandle(int flags) {
+        return (flags & Magic.REFLECTOR_METHOD_USE_METHODHANDLE) != 0 && (flags & Magic.DIRECT_ACCESS) == 0;
+    }
+
+    /* Loads MethodHandle from static field */
     @Contract("null, null, _, _ -> fail")
     private static void loadMH(GeneratorAdapter adapter, Type reflectorClass, int flags, int mhIndex) {
-        if((flags & Magic.REFLECTOR_METHOD_USE_METHODHANDLE) == 0) return;
-        if((flags & Magic.USES_MAGIC_ACCESSOR) != 0) return;
+        if(!usesMethodHandle(flags)) return;
 
         /* Load MethodHandle field */
-        adapter.loadThis();
-        adapter.getField(notNull(reflectorClass, "Reflector class shouldn't be null!"), MHF, MH_ARRAY);
+        adapter.getStatic(notNull(reflectorClass, "Reflector class shouldn't be null!"), MHF + mhIndex, MH);
+    }
 
-        /* Load index */
-        if(mhIndex >= 0 && mhIndex <= 5)
-            /* ICONST_x offset is 3, iow ICONST_0 = 3, ICONST_1 = 4 */
-            adapter.visitInsn(ICONST_0 + mhIndex);
-        else
-            adapter.visitIntInsn(BIPUSH, mhIndex);
+    /*
+     * Loads Unsafe, field base and constant field offset. Instance fields use target instance as base, and static
+     * fields use base object from constant MethodHandle, see MethodReflectorFactory
+     */
+    @Contract("null, null, null, null, _, _ -> fail")
+    private static void loadUnsafeBase(GeneratorAdapter adapter, Type reflectorClass, Type targetClass, Field field, int flags, int mhIndex) {
+        adapter.getStatic(reflectorClass, UNSAFEF, UnsafeFields.UNSAFE);
+        if((flags & Magic.REFLECTOR_METHOD_USE_INSTANCE) != 0) {
+            loadInstance(adapter, reflectorClass, targetClass, flags);
+
+            /* Unsafe does not check the instance */
+            adapter.dup();
+            adapter.invokeStatic(OBJECTS, REQUIRE_NON_NULL);
+            adapter.pop();
+        } else {
+            adapter.getStatic(reflectorClass, MHF + mhIndex, MH);
+            adapter.visitMethodInsn(INVOKEVIRTUAL, MH.getInternalName(), "invokeExact", "()" + OBJECT.getDescriptor(), false);
+        }
+        adapter.push(UnsafeFields.getOffset(field));
+    }
 
-        /* Load MethodHandle from array */
-        adapter.visitInsn(AALOAD);
+    /* Generates static final Unsafe field and its initialization, adapter must be in static initializer */
+    @Contract("null, null, null -> fail")
+    private static void generateUnsafeField(ClassVisitor cv, GeneratorAdapter adapter, Type reflectorClass) {
+        /* Unsafe instance is put into static final field as well, see UnsafeFields */
+        FieldVisitor fv = cv.visitField(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, UNSAFEF, UnsafeFields.UNSAFE.getDescriptor(), null, null);
+        fv.visitEnd();
+
+        /* Unsafe.class.getDeclaredField("theUnsafe"), made accessible and read */
+        adapter.push(UnsafeFields.UNSAFE);
+        adapter.push(UnsafeFields.THE_UNSAFE);
+        adapter.invokeVirtual(CLASS, CLASS_GET_DECLARED_FIELD);
+        adapter.dup();
+        adapter.push(true);
+        adapter.invokeVirtual(FIELD, FIELD_SET_ACCESSIBLE);
+        adapter.visitInsn(ACONST_NULL);
+        adapter.invokeVirtual(FIELD, FIELD_GET);
+        adapter.checkCast(UnsafeFields.UNSAFE);
+        adapter.putStatic(reflectorClass, UNSAFEF, UnsafeFields.UNSAFE);
     }
 
     /* Loads class instance */
@@ -386,6 +832,14 @@ final class MethodGenerator {
     private static void loadInstance(GeneratorAdapter adapter, Type reflectorClass, Type targetClass, int flags) {
         if((flags & Magic.REFLECTOR_METHOD_USE_INSTANCE) == 0) return;
 
+        /* Unbound reflector methods get target instance as first argument */
+        if((flags & Magic.REFLECTOR_METHOD_UNBOUND) != 0) {
+            adapter.loadArg(0);
+            if((flags & Magic.TARGET_CLASS_VISIBILITY_PUBLIC) != 0)
+                adapter.checkCast(targetClass);
+            return;
+        }
+
         adapter.loadThis();
         adapter.getField(reflectorClass, REFF, (flags & Magic.TARGET_CLASS_VISIBILITY_PUBLIC) != 0 ? targetClass : OBJECT);
     }
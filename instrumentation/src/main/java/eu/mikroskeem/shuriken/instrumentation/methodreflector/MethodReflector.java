@@ -1,18 +1,25 @@
 package eu.mikroskeem.shuriken.instrumentation.methodreflector;
 
 import eu.mikroskeem.shuriken.common.Ensure;
-import eu.mikroskeem.shuriken.common.data.Pair;
+import eu.mikroskeem.shuriken.common.SneakyThrow;
 import eu.mikroskeem.shuriken.reflect.ClassWrapper;
+import eu.mikroskeem.shuriken.reflect.Reflect;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.PrintWriter;
 import java.lang.reflect.Modifier;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 
 /**
@@ -26,18 +33,57 @@ public final class MethodReflector<T> {
     /** Global debug state */
     public static boolean DEBUG = false;
 
-    private final static Map<Pair<ClassWrapper<?>, Class<?>>, MethodReflector<?>> methodReflectors = new WeakHashMap<>();
-    private final static Map<String, String> replacements = new HashMap<>();
+    /**
+     * Whether to wrap methods of newly generated reflector classes with invocation counters, see {@link ReflectorMetrics}.
+     * Precompiled and lazily linked reflectors are not instrumented
+     */
+    public static boolean METRICS = Boolean.getBoolean("shuriken.methodreflector.metrics");
+
+    /** Time every Nth invocation on average when {@link #METRICS} is enabled, 0 disables timing */
+    public static int METRICS_SAMPLE_INTERVAL = Integer.getInteger("shuriken.methodreflector.metricsSampleInterval", 0);
+
+    /*
+     * Generated reflectors are stored on target class, so they go away along with it. When interface is not visible from
+     * target class loader, like when it comes from plugin, they are stored on interface class instead. Reflector class
+     * links against both, so target class must not keep interface class loader alive
+     */
+    private final static ClassValue<ConcurrentMap<ReflectorKey, CompletableFuture<GeneratedReflector>>> generatedReflectors =
+            new ClassValue<ConcurrentMap<ReflectorKey, CompletableFuture<GeneratedReflector>>>() {
+                @Override
+                protected ConcurrentMap<ReflectorKey, CompletableFuture<GeneratedReflector>> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+    private final static ClassValue<Set<String>> interfacePlaceholders = new ClassValue<Set<String>>() {
+        @Override
+        protected Set<String> computeValue(Class<?> type) {
+            return Collections.unmodifiableSet(MethodReflectorFactory.findPlaceholders(type));
+        }
+    };
+    private final static Map<String, String> replacements = new ConcurrentHashMap<>();
     private final static MethodReflectorFactory factory = new MethodReflectorFactory();
-    private MethodReflector(ClassWrapper<?> target, Class<T> itf) {
+    static {
+        String cacheDirectory = System.getProperty("shuriken.methodreflector.cacheDir");
+        if(cacheDirectory != null && !cacheDirectory.isEmpty())
+            factory.setCacheDirectory(Paths.get(cacheDirectory));
+    }
+    @SuppressWarnings("unchecked")
+    private MethodReflector(ClassWrapper<?> target, Class<T> itf, boolean unbound) {
         this.clazz = target;
         this.itf = itf;
-        this.interfaceImpl = factory.generateReflector(target, itf, replacements);
+        this.unbound = unbound;
+        GeneratedReflector generatedReflector = getGeneratedReflector(target.getWrappedClass(), itf, unbound);
+        this.interfaceImpl = (T) generatedReflector.newInstance(unbound ? null : target.getClassInstance());
+        this.metrics = generatedReflector.getMetrics();
+        this.info = generatedReflector.getInfo();
     }
 
     private final ClassWrapper<?> clazz;
     private final Class<T> itf;
+    private final boolean unbound;
     private final T interfaceImpl;
+    @Nullable private final ReflectorMetrics metrics;
+    private final ReflectorInfo info;
 
     /**
      * Generates new MethodReflector for target class
@@ -46,8 +92,8 @@ public final class MethodReflector<T> {
      * @param itf Interface which calls will be delegated to target class
      * @param <T> Interface type
      * @return Instance of {@link MethodReflector}
+     * @see ReflectorBatch
      */
-    @SuppressWarnings("unchecked")
     @NotNull
     @Contract("null, null -> fail")
     public static <T> MethodReflector<T> newInstance(ClassWrapper<?> targetClass, Class<T> itf) {
@@ -55,9 +101,70 @@ public final class MethodReflector<T> {
         Ensure.notNull(itf, "Interface class shoudln't be null!");
         Ensure.ensureCondition(Modifier.isInterface(itf.getModifiers()), "Interface class should be interface!");
         Ensure.ensureCondition(Modifier.isPublic(itf.getModifiers()), "Interface should be public!");
-        return (MethodReflector<T>) methodReflectors.computeIfAbsent(new Pair<>(targetClass, itf), k ->
-            new MethodReflector<>(targetClass, itf)
-        );
+        return new MethodReflector<>(targetClass, itf, false);
+    }
+
+    /**
+     * Generates new unbound MethodReflector for target class.
+     *
+     * Unbound reflector does not hold target class instance, instead interface methods targeting instance
+     * fields or methods take target instance as their first argument, like <pre>String getName(Object instance)</pre>.
+     * Static targets and constructors are declared like in bound reflectors.
+     * Only one reflector class is generated per target class and interface, and it can be used on every instance
+     * of target class.
+     *
+     * @param targetClass Target class to target. Class instance is ignored, if present
+     * @param itf Interface which calls will be delegated to target class
+     * @param <T> Interface type
+     * @return Instance of {@link MethodReflector}
+     */
+    @NotNull
+    @Contract("null, null -> fail")
+    public static <T> MethodReflector<T> newUnboundInstance(ClassWrapper<?> targetClass, Class<T> itf) {
+        Ensure.notNull(targetClass, "Target class shouldn't be null!");
+        Ensure.notNull(itf, "Interface class shoudln't be null!");
+        Ensure.ensureCondition(Modifier.isInterface(itf.getModifiers()), "Interface class should be interface!");
+        Ensure.ensureCondition(Modifier.isPublic(itf.getModifiers()), "Interface should be public!");
+        return new MethodReflector<>(targetClass, itf, true);
+    }
+
+    /**
+     * Generates new unbound MethodReflector for target class
+     *
+     * @param targetClass Target class to target
+     * @param itf Interface which calls will be delegated to target class
+     * @param <T> Interface type
+     * @return Instance of {@link MethodReflector}
+     * @see #newUnboundInstance(ClassWrapper, Class)
+     */
+    @NotNull
+    @Contract("null, null -> fail")
+    public static <T> MethodReflector<T> newUnboundInstance(Class<?> targetClass, Class<T> itf) {
+        return newUnboundInstance(Reflect.wrapClass(Ensure.notNull(targetClass, "Target class shouldn't be null!")), itf);
+    }
+
+    /**
+     * Sets persistent cache directory for generated reflector classes. Cached reflector classes are
+     * reused across JVM restarts as long as target class, interface, placeholder replacements and Shuriken itself
+     * stay the same.
+     *
+     * Defaults to value of <pre>shuriken.methodreflector.cacheDir</pre> system property, if set
+     *
+     * @param cacheDirectory Cache directory, or null to disable persistent cache
+     */
+    public static void setCacheDirectory(@Nullable Path cacheDirectory) {
+        factory.setCacheDirectory(cacheDirectory);
+    }
+
+    /**
+     * Gets persistent cache directory for generated reflector classes
+     *
+     * @return Cache directory, or null if persistent cache is disabled
+     * @see #setCacheDirectory(Path)
+     */
+    @Nullable
+    public static Path getCacheDirectory() {
+        return factory.getCacheDirectory();
     }
 
     /**
@@ -81,7 +188,7 @@ public final class MethodReflector<T> {
     public static void registerAnnotationReplacement(String placeholder, String replacement) {
         Ensure.notNull(placeholder, "Placeholder shouldn't be null!");
         Ensure.notNull(replacement, "Replacement shouldn't be null!");
-        replacements.compute(placeholder, (k,v) -> replacement);
+        replacements.put(placeholder, replacement);
     }
 
     /**
@@ -91,7 +198,7 @@ public final class MethodReflector<T> {
      */
     @Contract("null -> fail")
     public static void unregisterAnnotationReplacement(String placeholder) {
-        replacements.compute(Ensure.notNull(placeholder, "Placeholder shouldn't be null!"), (k,v) -> null);
+        replacements.remove(Ensure.notNull(placeholder, "Placeholder shouldn't be null!"));
     }
 
     /**
@@ -116,6 +223,17 @@ public final class MethodReflector<T> {
         return clazz;
     }
 
+    /**
+     * Gets whether this reflector is unbound, in other words interface methods targeting instance
+     * fields or methods take target instance as their first argument
+     *
+     * @return Whether this reflector is unbound
+     */
+    @Contract(pure = true)
+    public boolean isUnbound() {
+        return unbound;
+    }
+
     /**
      * Gets reflector implementation (generated from interface)
      *
@@ -127,6 +245,30 @@ public final class MethodReflector<T> {
         return interfaceImpl;
     }
 
+    /**
+     * Gets invocation metrics of reflector class. Metrics are shared between all reflectors using the same
+     * generated class
+     *
+     * @return Instance of {@link ReflectorMetrics}, or null if reflector was generated without {@link #METRICS}
+     */
+    @Contract(pure = true)
+    @Nullable
+    public ReflectorMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets generation report of reflector class, see {@link ReflectorInfo#getAll()} for reports of all
+     * reflector classes
+     *
+     * @return Instance of {@link ReflectorInfo}
+     */
+    @NotNull
+    @Contract(pure = true)
+    public ReflectorInfo getInfo() {
+        return info;
+    }
+
     /**
      * Set {@link org.objectweb.asm.util.TraceClassVisitor} output {@link PrintWriter} instance
      *
@@ -136,8 +278,97 @@ public final class MethodReflector<T> {
         factory.setTraceClassOutput(traceClassOutput);
     }
 
+    /* Gets shared reflector factory */
+    @NotNull
+    static MethodReflectorFactory getFactory() {
+        return factory;
+    }
+
+    /* Gets generated reflector, or generates it exactly once if it is not present yet */
+    @NotNull
+    private static GeneratedReflector getGeneratedReflector(Class<?> target, Class<?> itf, boolean unbound) {
+        /* Take only placeholders which are used in given interface into account */
+        Map<String, String> usedReplacements = new HashMap<>();
+        for(String placeholder: interfacePlaceholders.get(itf)) {
+            String replacement = replacements.get(placeholder);
+            if(replacement != null) usedReplacements.put(placeholder, replacement);
+        }
+
+        /* Target class loader must not keep interface class loader alive, even if neither one sees the other */
+        boolean storeOnInterface = !MethodReflectorFactory.isVisible(itf, target.getClassLoader());
+        ReflectorKey key = new ReflectorKey(storeOnInterface ? target : itf, unbound, usedReplacements);
+        ConcurrentMap<ReflectorKey, CompletableFuture<GeneratedReflector>> reflectors = generatedReflectors.get(storeOnInterface ? itf : target);
+        CompletableFuture<GeneratedReflector> future = reflectors.get(key);
+        if(future == null) {
+            CompletableFuture<GeneratedReflector> newFuture = new CompletableFuture<>();
+            if((future = reflectors.putIfAbsent(key, newFuture)) == null) {
+                future = newFuture;
+                try {
+                    newFuture.complete(factory.generateReflector(target, itf, usedReplacements, unbound));
+                } catch (Throwable e) {
+                    /* Let next caller retry */
+                    reflectors.remove(key, newFuture);
+                    newFuture.completeExceptionally(e);
+                }
+            }
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            SneakyThrow.throwException(e.getCause());
+            return null; // Unreachable
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) return true;
+        if(o == null || getClass() != o.getClass()) return false;
+        MethodReflector<?> that = (MethodReflector<?>) o;
+        return unbound == that.unbound && itf.equals(that.itf) &&
+                (unbound ? clazz.getWrappedClass() == that.clazz.getWrappedClass() : clazz.equals(that.clazz));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = unbound ? clazz.getWrappedClass().hashCode() : clazz.hashCode();
+        result = 31 * result + itf.hashCode();
+        result = 31 * result + (unbound ? 1 : 0);
+        return result;
+    }
+
     @Override
     public String toString() {
-        return "MethodReflector{target=" + clazz +", interface=" + itf + "}";
+        return "MethodReflector{target=" + clazz +", interface=" + itf + ", unbound=" + unbound + "}";
+    }
+
+    /* Key for generated reflector lookup. Holds either interface or target class, whichever cache is not stored on */
+    private static final class ReflectorKey {
+        private final Class<?> clazz;
+        private final boolean unbound;
+        private final Map<String, String> replacements;
+
+        private ReflectorKey(Class<?> clazz, boolean unbound, Map<String, String> replacements) {
+            this.clazz = clazz;
+            this.unbound = unbound;
+            this.replacements = replacements;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) return true;
+            if(o == null || getClass() != o.getClass()) return false;
+            ReflectorKey that = (ReflectorKey) o;
+            return unbound == that.unbound && clazz == that.clazz && replacements.equals(that.replacements);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = clazz.hashCode();
+            result = 31 * result + (unbound ? 1 : 0);
+            result = 31 * result + replacements.hashCode();
+            return result;
+        }
     }
 }
@@ -1,32 +1,46 @@
 package eu.mikroskeem.shuriken.instrumentation.methodreflector;
 
 import eu.mikroskeem.shuriken.common.Ensure;
+import eu.mikroskeem.shuriken.common.SneakyThrow;
 import eu.mikroskeem.shuriken.instrumentation.ClassLoaderTools;
 import eu.mikroskeem.shuriken.instrumentation.ClassTools;
+import eu.mikroskeem.shuriken.reflect.ClassMembers;
 import eu.mikroskeem.shuriken.reflect.ClassWrapper;
 import eu.mikroskeem.shuriken.reflect.Reflect;
-import eu.mikroskeem.shuriken.reflect.wrappers.TypeWrapper;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.ClassRemapper;
+import org.objectweb.asm.commons.SimpleRemapper;
 import org.objectweb.asm.util.CheckClassAdapter;
 import org.objectweb.asm.util.TraceClassVisitor;
 
 import java.io.PrintWriter;
+import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
@@ -36,13 +50,23 @@ import java.util.logging.Logger;
 import static eu.mikroskeem.shuriken.common.Ensure.ensureCondition;
 import static eu.mikroskeem.shuriken.common.Ensure.notNull;
 import static eu.mikroskeem.shuriken.instrumentation.methodreflector.MethodGenerator.OBJECT;
+import static eu.mikroskeem.shuriken.instrumentation.methodreflector.MethodGenerator.generateBulkMethod;
 import static eu.mikroskeem.shuriken.instrumentation.methodreflector.MethodGenerator.generateClassBase;
 import static eu.mikroskeem.shuriken.instrumentation.methodreflector.MethodGenerator.generateConstructorProxy;
 import static eu.mikroskeem.shuriken.instrumentation.methodreflector.MethodGenerator.generateFailedMethod;
+import static eu.mikroskeem.shuriken.instrumentation.methodreflector.MethodGenerator.generateFieldAtomicMethod;
 import static eu.mikroskeem.shuriken.instrumentation.methodreflector.MethodGenerator.generateFieldReadMethod;
 import static eu.mikroskeem.shuriken.instrumentation.methodreflector.MethodGenerator.generateFieldWriteMethod;
+import static eu.mikroskeem.shuriken.instrumentation.methodreflector.MethodGenerator.generateFlyweightClassBase;
+import static eu.mikroskeem.shuriken.instrumentation.methodreflector.MethodGenerator.generateFlyweightFieldMethod;
+import static eu.mikroskeem.shuriken.instrumentation.methodreflector.MethodGenerator.generateLazyClassBase;
+import static eu.mikroskeem.shuriken.instrumentation.methodreflector.MethodGenerator.generateLazyMethod;
 import static eu.mikroskeem.shuriken.instrumentation.methodreflector.MethodGenerator.generateMethodProxy;
+import static eu.mikroskeem.shuriken.instrumentation.methodreflector.MethodGenerator.generateUnsafeFieldReadMethod;
+import static eu.mikroskeem.shuriken.instrumentation.methodreflector.MethodGenerator.generateUnsafeFieldWriteMethod;
+import static eu.mikroskeem.shuriken.instrumentation.methodreflector.MethodGenerator.getHandleDescriptor;
 import static java.util.logging.Level.FINEST;
+import static org.objectweb.asm.Opcodes.ACC_FINAL;
 import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
 import static org.objectweb.asm.Opcodes.ACC_SUPER;
 import static org.objectweb.asm.Opcodes.V1_8;
@@ -53,34 +77,219 @@ import static org.objectweb.asm.Opcodes.V1_8;
  */
 @SuppressWarnings("unused")
 final class MethodReflectorFactory {
-    private static final Map<Class<?>, AtomicInteger> COUNTER = new WeakHashMap<>(); /* <Interface Class, Used count> */
+    private static final ClassValue<AtomicInteger> COUNTER = new ClassValue<AtomicInteger>() { /* <Interface Class, Used count> */
+        @Override
+        protected AtomicInteger computeValue(Class<?> type) {
+            return new AtomicInteger(0);
+        }
+    };
     @Nullable private static final Class<?> magicAccessor;
     @Nullable private static final Type magicAccessorType;
+    @Nullable private static final MethodHandle privateLookupIn;
+    @Nullable private static final MethodHandle lookupDefineClass;
+    @Nullable private static final MethodHandle defineHiddenClassWithClassData;
+    @Nullable private static final Object nestmateClassOptions;
     private final static Logger log = Logger.getLogger(MethodReflectorFactory.class.getName());
     private final GeneratedClassLoader GCL = new GeneratedClassLoader(MethodReflectorFactory.class.getClassLoader());
+
+    /*
+     * <Target class loader, <Interface class loader, Generated class loader>>. Interface class loader is null when
+     * interface is visible from target class loader. Reflector classes keep their loader alive, so values are weak as well
+     */
+    private final Map<ClassLoader, Map<ClassLoader, WeakReference<GeneratedClassLoader>>> generatedClassLoaders = new WeakHashMap<>();
     private final MethodHandles.Lookup mhLookup = MethodHandles.lookup();
 
     @Nullable private PrintWriter traceClassOutput = null;
+    @Nullable private volatile ReflectorCache cache = null;
 
     void setTraceClassOutput(@Nullable PrintWriter traceClassOutput) {
         this.traceClassOutput = traceClassOutput;
     }
 
+    void setCacheDirectory(@Nullable Path cacheDirectory) {
+        this.cache = cacheDirectory != null ? new ReflectorCache(cacheDirectory) : null;
+    }
+
+    @Nullable
+    Path getCacheDirectory() {
+        ReflectorCache cache = this.cache;
+        return cache != null ? cache.getDirectory() : null;
+    }
+
     @NotNull
-    @Contract("null, null, null -> fail")
-    <T> T generateReflector(ClassWrapper<?> target, Class<T> intf, Map<String, String> replacements) {
+    @Contract("null, null, null, _ -> fail")
+    GeneratedReflector generateReflector(Class<?> target, Class<?> intf, Map<String, String> replacements, boolean unbound) {
         Ensure.notNull(target, "Target class must not be null!");
         Ensure.notNull(intf, "Interface must not be null!");
 
+        /* Use reflector implemented by annotation processor, if present */
+        GeneratedReflector precompiled = findPrecompiled(target, intf, unbound);
+        if(precompiled != null) return precompiled;
+
+        /* Lazily linked reflectors resolve their targets on first invocation */
+        if(intf.isAnnotationPresent(LazyReflector.class))
+            return generateLazyReflector(target, intf, replacements, unbound);
+
+        /* Try to define reflector as hidden nestmate of target class (Java 16+) or into its package (Java 9+) first */
+        MethodHandles.Lookup nestmateLookup = getNestmateLookup(target, intf);
+
+        /* Look up persistent cache. Tracing and metrics are set up during generation, so skip it in debug and metrics mode */
+        ReflectorCache cache = MethodReflector.DEBUG || MethodReflector.METRICS ? null : this.cache;
+        String cacheKey = cache != null ? cache.computeKey(target, intf, replacements, unbound, magicAccessor != null) : null;
+        if(cacheKey != null) {
+            GeneratedReflector cached = loadCached(cache, cacheKey, target, intf, nestmateLookup);
+            if(cached != null) return cached;
+        }
+
+        if(nestmateLookup != null) {
+            try {
+                return generateReflector(target, intf, replacements, unbound, nestmateLookup, cacheKey);
+            } catch (IllegalAccessException | IllegalArgumentException | LinkageError e) {
+                log.log(Level.FINE, "Failed to define reflector for {0} as nestmate of {1}, falling back to MethodHandles: {2}",
+                        new Object[] { intf, target, e });
+            }
+        }
+
+        try {
+            return generateReflector(target, intf, replacements, unbound, null, cacheKey);
+        } catch (IllegalAccessException e) {
+            SneakyThrow.throwException(e);
+            return null; // Unreachable
+        }
+    }
+
+    /* Generates reflector class, where every method is linked on first invocation, see LazyReflectorLinker */
+    @NotNull
+    private GeneratedReflector generateLazyReflector(Class<?> target, Class<?> intf, Map<String, String> replacements, boolean unbound) {
+        long startTime = System.nanoTime();
+        String reflectorClassName = generateName(target, 0, intf);
+        Type reflectorClassType = Type.getType("L" + reflectorClassName.replace('.', '/') + ";");
+
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+        ClassVisitor classWriter = MethodReflector.DEBUG ?
+                new CheckClassAdapter(traceClassOutput != null ? new TraceClassVisitor(cw, traceClassOutput) : cw, false)
+            :
+                cw;
+        classWriter.visit(V1_8, ACC_PUBLIC + ACC_FINAL + ACC_SUPER, reflectorClassType.getInternalName(), null, OBJECT.getInternalName(),
+                new String[] { Type.getInternalName(intf) });
+        generateLazyClassBase(classWriter, reflectorClassType, unbound);
+        for(Method interfaceMethod : intf.getMethods()) {
+            if(Modifier.isStatic(interfaceMethod.getModifiers())) continue;
+
+            /* Bulk loops are generated right away, their element method invocations are linked lazily */
+            Method elementMethod = findLazyBulkElementMethod(intf, interfaceMethod, unbound);
+            if(elementMethod != null) {
+                log.log(FINEST, "Method {0} invokes {1} in bulk", new Object[]{ interfaceMethod, elementMethod });
+                generateBulkMethod(classWriter, interfaceMethod, elementMethod, reflectorClassType);
+                continue;
+            }
+            log.log(FINEST, "Generating lazily linked interface method {0}", interfaceMethod);
+            generateLazyMethod(classWriter, interfaceMethod, reflectorClassType);
+        }
+        classWriter.visitEnd();
+
+        /* Define class and hand linkage information over to it */
+        byte[] classData = cw.toByteArray();
+        Class<?> reflector = getGeneratedClassLoader(target, intf).defineClass(reflectorClassName, classData);
+        try {
+            Field linkageField = reflector.getDeclaredField(MethodGenerator.LINKAGEF);
+            linkageField.setAccessible(true);
+            linkageField.set(null, new LazyReflectorLinker.Linkage(target, intf, replacements, unbound));
+        } catch (ReflectiveOperationException e) {
+            SneakyThrow.throwException(e);
+        }
+        return new GeneratedReflector(reflector, 0, new ReflectorInfo(reflector, target, intf, ReflectorInfo.Source.LAZY,
+                classData.length, System.nanoTime() - startTime, 0, Collections.emptyList()));
+    }
+
+    /* Generates flyweight class for given interface, see FlyweightReflector */
+    @NotNull
+    @Contract("null -> fail")
+    Class<?> generateFlyweight(Class<?> intf) {
+        Flyweight flyweight = notNull(intf, "Interface must not be null!").getAnnotation(Flyweight.class);
+        ensureCondition(flyweight != null, "Interface " + intf + " is not annotated with @Flyweight!");
+        int stride = flyweight.value();
+        ensureCondition(stride > 0, "Flyweight element size must be positive!");
+
+        String flyweightClassName = MethodReflector.class.getName() + ".$Flyweight$" + getClassName(intf.getName()) + "$" +
+                COUNTER.get(intf).getAndIncrement();
+        Type flyweightClassType = Type.getType("L" + flyweightClassName.replace('.', '/') + ";");
+
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+        ClassVisitor classWriter = MethodReflector.DEBUG ?
+                new CheckClassAdapter(traceClassOutput != null ? new TraceClassVisitor(cw, traceClassOutput) : cw, false)
+            :
+                cw;
+        classWriter.visit(V1_8, ACC_PUBLIC + ACC_FINAL + ACC_SUPER, flyweightClassType.getInternalName(), null, OBJECT.getInternalName(),
+                new String[] { Type.getInternalName(intf) });
+        generateFlyweightClassBase(classWriter, flyweightClassType);
+        for(Method interfaceMethod : intf.getMethods()) {
+            if(Modifier.isStatic(interfaceMethod.getModifiers()) || interfaceMethod.isDefault()) continue;
+            FlyweightField field = interfaceMethod.getAnnotation(FlyweightField.class);
+            ensureCondition(field != null, "Flyweight interface method " + interfaceMethod + " is not annotated with @FlyweightField!");
+
+            /* Getter takes index, setter takes index and value */
+            Class<?>[] parameters = interfaceMethod.getParameterTypes();
+            boolean setter = interfaceMethod.getReturnType() == void.class;
+            Class<?> valueType = setter ? (parameters.length == 2 ? parameters[1] : void.class) : interfaceMethod.getReturnType();
+            ensureCondition(parameters.length == (setter ? 2 : 1) && (parameters[0] == int.class || parameters[0] == long.class),
+                    "Flyweight method " + interfaceMethod + " must take int or long index" + (setter ? " and value" : "") + "!");
+            ensureCondition(valueType.isPrimitive() && valueType != void.class,
+                    "Flyweight method " + interfaceMethod + " value type must be primitive!");
+            ensureCondition(field.value() >= 0 && field.value() + getPrimitiveSize(valueType) <= stride,
+                    "Flyweight method " + interfaceMethod + " field does not fit into element!");
+
+            log.log(FINEST, "Generating flyweight method {0}", interfaceMethod);
+            generateFlyweightFieldMethod(classWriter, interfaceMethod, flyweightClassType, stride, field.value(), field.isVolatile());
+        }
+        classWriter.visitEnd();
+
+        return getGeneratedClassLoader(intf, intf).defineClass(flyweightClassName, cw.toByteArray());
+    }
+
+    /* Finds reflector class implemented ahead of time, see ReflectorTarget */
+    @Nullable
+    private static GeneratedReflector findPrecompiled(Class<?> target, Class<?> intf, boolean unbound) {
+        ReflectorTarget reflectorTarget = intf.getAnnotation(ReflectorTarget.class);
+        if(reflectorTarget == null || reflectorTarget.unbound() != unbound) return null;
+        try {
+            if(reflectorTarget.value() != target) return null;
+            Class<?> reflectorClass = Class.forName(intf.getName() + ReflectorTarget.PRECOMPILED_SUFFIX, true, intf.getClassLoader());
+            if(!intf.isAssignableFrom(reflectorClass) || reflectorClass.getConstructors().length != 1) {
+                log.log(Level.WARNING, "Ignoring invalid precompiled reflector class {0}", reflectorClass);
+                return null;
+            }
+
+            /* Precompiled reflector constructor takes target class instance, if it's needed */
+            int reflectorFlags = reflectorClass.getConstructors()[0].getParameterCount() == 1 ? Magic.REFLECTOR_CLASS_USE_INSTANCE : 0;
+            log.log(FINEST, "Using precompiled reflector class {0}", reflectorClass);
+            return new GeneratedReflector(reflectorClass, reflectorFlags, new ReflectorInfo(reflectorClass, target, intf,
+                    ReflectorInfo.Source.PRECOMPILED, -1, 0, 0, Collections.emptyList()));
+        } catch (ClassNotFoundException | TypeNotPresentException e) {
+            return null;
+        }
+    }
+
+    @NotNull
+    private GeneratedReflector generateReflector(Class<?> target, Class<?> intf, Map<String, String> replacements, boolean unbound,
+                                                 @Nullable MethodHandles.Lookup nestmateLookup, @Nullable String cacheKey)
+            throws IllegalAccessException {
+        long startTime = System.nanoTime();
         List<MethodHandle> methodHandles = new ArrayList<>();
+        List<HandleRecipe> handleRecipes = new ArrayList<>();
+        List<ReflectorInfo.MethodInfo> methodInfos = new ArrayList<>();
 
         /* Reflector proxy class flags */
         int reflectorFlags = 0;
-        reflectorFlags |= getTargetModifiers(target);
+        if(nestmateLookup != null) reflectorFlags |= getTargetPackageAccess();
+        reflectorFlags |= getTargetModifiers(target, reflectorFlags);
 
-        Type targetClass = Type.getType(target.getWrappedClass());
+        Type targetClass = Type.getType(target);
         Type interfaceClass = Type.getType(intf);
 
+        /* MethodHandles are adapted into types which reflector class resolves, see MethodGenerator#getHandleDescriptor */
+        ClassLoader typeLoader = getTypeLoader(target, intf, nestmateLookup);
+
         String reflectorClassName = generateName(target, reflectorFlags, intf);
         Type reflectorClassType = Type.getType("L" + reflectorClassName.replace('.', '/') + ";");
 
@@ -92,8 +301,13 @@ final class MethodReflectorFactory {
             :
                 cw;
 
+        /* Wrap methods with invocation counters, if requested */
+        MetricsClassVisitor metricsVisitor = null;
+        if(MethodReflector.METRICS)
+            classWriter = metricsVisitor = new MetricsClassVisitor(classWriter, reflectorClassType);
+
         /* Start generating new class */
-        classWriter.visit(V1_8, ACC_PUBLIC + ACC_SUPER,
+        classWriter.visit(V1_8, ACC_PUBLIC + ACC_FINAL + ACC_SUPER,
                 reflectorClassType.getInternalName(),
                 null,
                 (magicAccessor != null ? magicAccessorType : OBJECT).getInternalName(),
@@ -105,6 +319,7 @@ final class MethodReflectorFactory {
         /* Iterate over interface class methods */
         for (Method interfaceMethod : intf.getMethods()) {
             int methodFlags = reflectorFlags;
+            int receiverArgs = 0; /* Unbound reflector methods take target instance as first argument */
             log.log(FINEST, "Processing interface method {0}", interfaceMethod);
             Type interfaceReturnType = Type.getReturnType(interfaceMethod);
             Type[] interfaceMethodParameters = Type.getArgumentTypes(interfaceMethod);
@@ -117,6 +332,9 @@ final class MethodReflectorFactory {
 
             /* Method invoker specific */
             Type targetInterface = null;
+
+            /* Field accessor specific */
+            Field unsafeField = null;
             //</editor-fold>
 
             /* Check for annotations */
@@ -125,19 +343,36 @@ final class MethodReflectorFactory {
             TargetMethod tMI = null;
             TargetFieldGetter fGI = null;
             TargetFieldSetter fSI = null;
+            TargetFieldAtomic fAI = null;
             TargetConstructor tCI = null;
+            Bulk bI = null;
             annotationChecking: {
                 if(interfaceMethod.getAnnotations().length < 1)
                     break annotationChecking;
                 fGI = interfaceMethod.getAnnotation(TargetFieldGetter.class);
                 fSI = interfaceMethod.getAnnotation(TargetFieldSetter.class);
+                fAI = interfaceMethod.getAnnotation(TargetFieldAtomic.class);
                 tMI = interfaceMethod.getAnnotation(TargetMethod.class);
                 tCI = interfaceMethod.getAnnotation(TargetConstructor.class);
+                bI = interfaceMethod.getAnnotation(Bulk.class);
                 String ANNOTATION_ERROR = "Interface method can only have one target or field annotation! ";
                 if(fGI != null) { /*ensureCondition(!hasAnnotation, ANNOTATION_ERROR + interfaceMethod);*/ hasAnnotation = true; }
                 if(fSI != null) { ensureCondition(!hasAnnotation, ANNOTATION_ERROR + interfaceMethod); hasAnnotation = true; }
+                if(fAI != null) { ensureCondition(!hasAnnotation, ANNOTATION_ERROR + interfaceMethod); hasAnnotation = true; }
                 if(tMI != null) { ensureCondition(!hasAnnotation, ANNOTATION_ERROR + interfaceMethod); hasAnnotation = true; }
                 if(tCI != null) { ensureCondition(!hasAnnotation, ANNOTATION_ERROR + interfaceMethod); hasAnnotation = true; }
+                if(bI != null) { ensureCondition(!hasAnnotation, ANNOTATION_ERROR + interfaceMethod); hasAnnotation = true; }
+            }
+            //</editor-fold>
+
+            //<editor-fold desc="Bulk method">
+            if(bI != null) {
+                /* Element method does the actual work, metrics are collected there as well */
+                Method elementMethod = findBulkElementMethod(intf, interfaceMethod, bI.value(), unbound);
+                log.log(FINEST, "Method {0} invokes {1} in bulk", new Object[]{ interfaceMethod, elementMethod });
+                generateBulkMethod(classWriter, interfaceMethod, elementMethod, reflectorClassType);
+                methodInfos.add(ReflectorInfo.MethodInfo.bulk(interfaceMethod, methodFlags));
+                continue;
             }
             //</editor-fold>
 
@@ -173,22 +408,22 @@ final class MethodReflectorFactory {
                             //</editor-fold>
 
                             //<editor-fold desc="Constructor finding">
-                            Constructor<?> targetConstructor = findConstructor(target.getWrappedClass(), targetParameters);
+                            Constructor<?> targetConstructor = findConstructor(target, targetParameters);
                             if(targetConstructor == null) {
                                 if(interfaceMethod.isDefault()) {
                                     log.log(Level.FINE, "Could not find target constructor for interface method: {0} {1}, but interface default is present.",
-                                            new Object[] { target.getWrappedClass(), Arrays.toString(targetParameters) });
+                                            new Object[] { target, Arrays.toString(targetParameters) });
                                     continue;
                                 }
                                 log.log(Level.WARNING, "Could not find target constructor for interface method: {0} {1}",
-                                        new Object[] { target.getWrappedClass(), Arrays.toString(targetParameters) });
+                                        new Object[] { target, Arrays.toString(targetParameters) });
                                 break methodGenerator;
                             }
                             //</editor-fold>
 
                             /* ** Gather required information */
                             //<editor-fold desc="RETURN_TYPE_PUBLIC flag">
-                            if(isAccessible(target.getWrappedClass())) {
+                            if(isAccessible(target, target, methodFlags)) {
                                 log.log(FINEST, "Constructable class {0} is public", targetConstructor);
                                 methodFlags |= Magic.RETURN_TYPE_PUBLIC;
                             } else {
@@ -197,6 +432,7 @@ final class MethodReflectorFactory {
                             //</editor-fold>
 
                             //<editor-fold desc="DREFLECTOR_METHOD_USE_METHODHANDLE flag">
+                            methodFlags = checkNestmateAccess(target, targetConstructor, targetConstructor.getParameterTypes(), methodFlags);
                             if(Modifier.isPublic(targetConstructor.getModifiers())) {
                                 log.log(FINEST, "Target constructor {0} is public", targetConstructor);
                             } else {
@@ -207,11 +443,12 @@ final class MethodReflectorFactory {
                             //</editor-fold>
 
                             //<editor-fold desc="Constructor method handle instance fetching">
-                            if((methodFlags & Magic.REFLECTOR_METHOD_USE_METHODHANDLE) != 0 && (reflectorFlags & Magic.USES_MAGIC_ACCESSOR) == 0) {
+                            if((methodFlags & Magic.REFLECTOR_METHOD_USE_METHODHANDLE) != 0 && (methodFlags & Magic.DIRECT_ACCESS) == 0) {
                                 try {
-                                    if(!targetConstructor.isAccessible()) targetConstructor.setAccessible(true);
-                                    MethodHandle methodHandle = mhLookup.unreflectConstructor(targetConstructor);
-                                    methodHandles.add(methodHandle);
+                                    HandleRecipe handleRecipe = HandleRecipe.constructor(targetConstructor)
+                                            .withType(getHandleDescriptor(interfaceMethod, targetClass, methodFlags));
+                                    methodHandles.add(handleRecipe.bind(mhLookup, target.getClassLoader(), typeLoader));
+                                    handleRecipes.add(handleRecipe);
                                 } catch (IllegalAccessException e) {
                                     log.log(Level.SEVERE, "Failed to unreflect target {0}: {1}", new Object[] { targetConstructor, e.getMessage() });
                                     break methodGenerator;
@@ -239,17 +476,21 @@ final class MethodReflectorFactory {
                                 log.log(FINEST, "Method {0} targets field {1} setter", new Object[]{ interfaceMethod, targetName });
                                 ensureCondition(!interfaceReturnType.equals(Type.VOID_TYPE),
                                         "Getters can't return void type! " + interfaceMethod);
-                                ensureCondition(interfaceMethodParameters.length == 0,
-                                        "Getters can't take any arguments! " + interfaceMethod);
+                                if(unbound && interfaceMethodParameters.length == 1) receiverArgs = 1;
+                                ensureCondition(interfaceMethodParameters.length == receiverArgs,
+                                        (unbound ? "Unbound getters can only take target instance as an argument! " :
+                                                "Getters can't take any arguments! ") + interfaceMethod);
                                 targetParameters = new Type[0];
                                 targetReturnType = nullOr(replacePlaceholders(fieldTypeString, replacements), Type::getType, interfaceReturnType);
                             } else if((methodFlags & Magic.FIELD_SETTER) != 0) {
                                 log.log(FINEST, "Method {0} targets field {1} getter", new Object[]{ interfaceMethod, targetName });
                                 ensureCondition(interfaceReturnType.equals(Type.VOID_TYPE),
                                         "Setters can only return void type! " + interfaceMethod);
-                                ensureCondition(interfaceMethodParameters.length == 1,
-                                        "Setters can only take one argument! " + interfaceMethod);
-                                targetParameters = new Type[] { nullOr(replacePlaceholders(fieldTypeString, replacements), Type::getType, interfaceMethodParameters[0]) };
+                                if(unbound && interfaceMethodParameters.length == 2) receiverArgs = 1;
+                                ensureCondition(interfaceMethodParameters.length == 1 + receiverArgs,
+                                        (unbound ? "Unbound setters can only take target instance and one argument! " :
+                                                "Setters can only take one argument! ") + interfaceMethod);
+                                targetParameters = new Type[] { nullOr(replacePlaceholders(fieldTypeString, replacements), Type::getType, interfaceMethodParameters[receiverArgs]) };
                                 targetReturnType = Type.VOID_TYPE;
                             } else {
                                 throw new IllegalStateException("Should not reach here");
@@ -258,21 +499,22 @@ final class MethodReflectorFactory {
 
                             //<editor-fold desc="Field finding">
                             Type fieldType = (methodFlags & Magic.FIELD_GETTER) != 0 ? targetReturnType : targetParameters[0];
-                            Field targetField = findField(target.getWrappedClass(), targetName, fieldType);
+                            Field targetField = findField(target, targetName, fieldType);
                             if(targetField == null) {
                                 if(interfaceMethod.isDefault()) {
                                     log.log(Level.FINE, "Could not find target field for interface method: {0} {1} {2}, but interface default is present.",
-                                            new Object[] { target.getWrappedClass(), targetName, fieldType });
+                                            new Object[] { target, targetName, fieldType });
                                     continue;
                                 }
                                 log.log(Level.WARNING, "Could not find target field for interface method: {0} {1} {2}",
-                                        new Object[] { target.getWrappedClass(), targetName, fieldType });
+                                        new Object[] { target, targetName, fieldType });
                                 break methodGenerator;
                             }
                             //</editor-fold>
 
                             /* ** Gather required information */
                             //<editor-fold desc="REFLECTOR_METHOD_USE_METHODHANDLE flag">
+                            methodFlags = checkNestmateAccess(target, targetField, new Class<?>[] { targetField.getType() }, methodFlags);
                             if(Modifier.isPublic(targetField.getModifiers())) {
                                 log.log(FINEST, "Target field {0} is public", targetField);
                             } else {
@@ -282,35 +524,39 @@ final class MethodReflectorFactory {
                             }
 
                             /* Special case for final setter fields */
-                            if((methodFlags & Magic.FIELD_SETTER) != 0 && Modifier.isFinal(targetField.getModifiers())) {
-                                log.log(FINEST, "Target field {0} is final, removing final modifier and using MethodHandle", targetField);
-
-                                /* Remove final modifier */
-                                int modifiers = targetField.getModifiers();
-                                Reflect.wrapInstance(targetField).getField("modifiers", int.class)
-                                        .ifPresent(fw -> fw.write(modifiers & ~Modifier.FINAL));
+                            if((methodFlags & Magic.FIELD_SETTER) != 0 && isFinal(targetField)) {
+                                /* Field is written through Unsafe if possible, otherwise final modifier is removed when binding MethodHandle, see HandleRecipe */
+                                log.log(FINEST, "Target field {0} is final, using Unsafe or MethodHandle", targetField);
 
                                 methodFlags |= Magic.REFLECTOR_METHOD_USE_METHODHANDLE;
                                 reflectorFlags |= Magic.REFLECTOR_CLASS_USE_METHODHANDLE;
 
-                                // Remove magic accessor flag from method flags, as it won't work with final fields
-                                methodFlags &= ~Magic.USES_MAGIC_ACCESSOR;
+                                // Remove magic accessor and nestmate flags from method flags, as they won't work with final fields
+                                methodFlags &= ~Magic.DIRECT_ACCESS;
                             }
                             //</editor-fold>
 
                             //<editor-fold desc="REFLECTOR_METHOD_USE_INSTANCE flag">
+                            if(unbound) {
+                                ensureCondition(Modifier.isStatic(targetField.getModifiers()) == (receiverArgs == 0),
+                                        (receiverArgs == 0 ? "Target field is not static, unbound accessor must take target instance as first argument! " :
+                                                "Target field is static, unbound accessor must not take target instance! ") + interfaceMethod);
+                            }
                             if(!Modifier.isStatic(targetField.getModifiers())) {
                                 log.log(FINEST, "Target field {0} is not static, using class instance", targetField);
                                 methodFlags |= Magic.REFLECTOR_METHOD_USE_INSTANCE;
-                                reflectorFlags |= Magic.REFLECTOR_CLASS_USE_INSTANCE;
+                                if(unbound)
+                                    methodFlags |= Magic.REFLECTOR_METHOD_UNBOUND;
+                                else
+                                    reflectorFlags |= Magic.REFLECTOR_CLASS_USE_INSTANCE;
                             }
                             //</editor-fold>
 
                             //<editor-fold desc="REFLECTOR_METHOD_USE_METHODHANDLE flag, but checking target type access">
-                            if(isAccessible(targetField.getType())) {
+                            if(isAccessible(targetField.getType(), target, methodFlags)) {
                                 log.log(FINEST, "Target field {0} type {1} is public", new Object[]{ targetField, targetField.getType() });
                                 methodFlags |= Magic.RETURN_TYPE_PUBLIC;
-                            } else if((methodFlags & Magic.USES_MAGIC_ACCESSOR) == 0) {
+                            } else if((methodFlags & Magic.DIRECT_ACCESS) == 0) {
                                 log.log(FINEST, "Target field {0} type {1} is not public, using MethodHandle", new Object[]{ targetField, targetField.getType() });
                                 if((methodFlags & Magic.FIELD_GETTER) != 0)
                                     targetReturnType = OBJECT;
@@ -321,21 +567,39 @@ final class MethodReflectorFactory {
                             }
                             //</editor-fold>
 
+                            //<editor-fold desc="FIELD_UNSAFE flag">
+                            if((methodFlags & Magic.REFLECTOR_METHOD_USE_METHODHANDLE) != 0 && (methodFlags & Magic.DIRECT_ACCESS) == 0
+                                    && canUseUnsafe(methodFlags)) {
+                                log.log(FINEST, "Target field {0} is accessed through Unsafe", targetField);
+                                methodFlags |= Magic.FIELD_UNSAFE;
+                                reflectorFlags |= Magic.REFLECTOR_CLASS_USE_UNSAFE;
+                                unsafeField = targetField;
+                                if((methodFlags & Magic.REFLECTOR_METHOD_USE_INSTANCE) != 0) {
+                                    methodFlags &= ~Magic.REFLECTOR_METHOD_USE_METHODHANDLE;
+                                } else {
+                                    /* Static field base is handed over as constant MethodHandle */
+                                    methodHandles.add(MethodHandles.constant(Object.class, UnsafeFields.getStaticBase(targetField)));
+                                }
+                            }
+                            //</editor-fold>
+
                             //<editor-fold desc="Field method handle instance fetching">
-                            if((methodFlags & Magic.REFLECTOR_METHOD_USE_METHODHANDLE) != 0 && (methodFlags & Magic.USES_MAGIC_ACCESSOR) == 0) {
+                            if((methodFlags & Magic.REFLECTOR_METHOD_USE_METHODHANDLE) != 0 && (methodFlags & Magic.DIRECT_ACCESS) == 0
+                                    && (methodFlags & Magic.FIELD_UNSAFE) == 0) {
                                 try {
-                                    if(!targetField.isAccessible()) targetField.setAccessible(true);
-                                    MethodHandle methodHandle;
+                                    HandleRecipe handleRecipe;
 
                                     if((methodFlags & Magic.FIELD_GETTER) != 0) {
-                                        methodHandle = mhLookup.unreflectGetter(targetField);
+                                        handleRecipe = HandleRecipe.field(targetField, false);
                                     } else if((methodFlags & Magic.FIELD_SETTER) != 0) {
-                                        methodHandle = mhLookup.unreflectSetter(targetField);
+                                        handleRecipe = HandleRecipe.field(targetField, true);
                                     } else {
                                         throw new IllegalStateException("Should not reach here");
                                     }
 
-                                    methodHandles.add(methodHandle);
+                                    handleRecipe = handleRecipe.withType(getHandleDescriptor(interfaceMethod, targetClass, methodFlags));
+                                    methodHandles.add(handleRecipe.bind(mhLookup, target.getClassLoader(), typeLoader));
+                                    handleRecipes.add(handleRecipe);
                                 } catch (IllegalAccessException e) {
                                     log.log(Level.SEVERE, "Failed to unreflect target {0}: {1}", new Object[] { targetField, e.getMessage() });
                                     break methodGenerator;
@@ -350,6 +614,92 @@ final class MethodReflectorFactory {
                         }
                         //</editor-fold>
 
+                        //<editor-fold desc="Atomic field operation">
+                        if(fAI != null) {
+                            //<editor-fold desc="Atomic field operation target configuring">
+                            methodFlags |= Magic.FIELD_ATOMIC;
+                            TargetFieldAtomic.Operation operation = fAI.operation();
+                            targetName = replacePlaceholders(fAI.value(), replacements);
+                            ensureCondition(targetName != null && !targetName.isEmpty(), "Field name shouldn't be null or empty!");
+                            log.log(FINEST, "Method {0} targets field {1} atomic operation {2}", new Object[]{ interfaceMethod, targetName, operation });
+
+                            if(unbound && interfaceMethodParameters.length == operation.getArguments() + 1) receiverArgs = 1;
+                            ensureCondition(interfaceMethodParameters.length == operation.getArguments() + receiverArgs,
+                                    "Atomic operation " + operation + " takes " + operation.getArguments() + " argument(s)" +
+                                            (unbound ? " after target instance! " : "! ") + interfaceMethod);
+                            if(operation.returnsField()) {
+                                ensureCondition(!interfaceReturnType.equals(Type.VOID_TYPE),
+                                        "Atomic operation " + operation + " can't return void type! " + interfaceMethod);
+                            } else if(operation == TargetFieldAtomic.Operation.COMPARE_AND_SET) {
+                                ensureCondition(interfaceReturnType.equals(Type.BOOLEAN_TYPE),
+                                        "Atomic operation " + operation + " can only return boolean type! " + interfaceMethod);
+                            } else {
+                                ensureCondition(interfaceReturnType.equals(Type.VOID_TYPE),
+                                        "Atomic operation " + operation + " can only return void type! " + interfaceMethod);
+                            }
+                            targetParameters = Arrays.copyOfRange(interfaceMethodParameters, receiverArgs, interfaceMethodParameters.length);
+                            targetReturnType = interfaceReturnType;
+                            //</editor-fold>
+
+                            //<editor-fold desc="Field finding">
+                            Type fieldType = nullOr(replacePlaceholders(fAI.type().isEmpty() ? null : fAI.type(), replacements), Type::getType,
+                                    operation.returnsField() ? interfaceReturnType : targetParameters[0]);
+                            Field targetField = findField(target, targetName, fieldType);
+                            if(targetField == null) {
+                                if(interfaceMethod.isDefault()) {
+                                    log.log(Level.FINE, "Could not find target field for interface method: {0} {1} {2}, but interface default is present.",
+                                            new Object[] { target, targetName, fieldType });
+                                    continue;
+                                }
+                                log.log(Level.WARNING, "Could not find target field for interface method: {0} {1} {2}",
+                                        new Object[] { target, targetName, fieldType });
+                                break methodGenerator;
+                            }
+                            //</editor-fold>
+
+                            /* ** Gather required information */
+                            //<editor-fold desc="REFLECTOR_METHOD_USE_METHODHANDLE flag">
+                            /* Atomic operations are only available through VarHandles or Unsafe */
+                            methodFlags |= Magic.REFLECTOR_METHOD_USE_METHODHANDLE;
+                            reflectorFlags |= Magic.REFLECTOR_CLASS_USE_METHODHANDLE;
+                            methodFlags &= ~Magic.DIRECT_ACCESS;
+                            //</editor-fold>
+
+                            //<editor-fold desc="REFLECTOR_METHOD_USE_INSTANCE flag">
+                            if(unbound) {
+                                ensureCondition(Modifier.isStatic(targetField.getModifiers()) == (receiverArgs == 0),
+                                        (receiverArgs == 0 ? "Target field is not static, unbound accessor must take target instance as first argument! " :
+                                                "Target field is static, unbound accessor must not take target instance! ") + interfaceMethod);
+                            }
+                            if(!Modifier.isStatic(targetField.getModifiers())) {
+                                log.log(FINEST, "Target field {0} is not static, using class instance", targetField);
+                                methodFlags |= Magic.REFLECTOR_METHOD_USE_INSTANCE;
+                                if(unbound)
+                                    methodFlags |= Magic.REFLECTOR_METHOD_UNBOUND;
+                                else
+                                    reflectorFlags |= Magic.REFLECTOR_CLASS_USE_INSTANCE;
+                            }
+                            //</editor-fold>
+
+                            //<editor-fold desc="Atomic operation method handle instance fetching">
+                            try {
+                                HandleRecipe handleRecipe = HandleRecipe.fieldAtomic(targetField, operation)
+                                        .withType(getHandleDescriptor(interfaceMethod, targetClass, methodFlags));
+                                methodHandles.add(handleRecipe.bind(mhLookup, target.getClassLoader(), typeLoader));
+                                handleRecipes.add(handleRecipe);
+                            } catch (IllegalAccessException e) {
+                                log.log(Level.SEVERE, "Failed to unreflect target {0}: {1}", new Object[] { targetField, e.getMessage() });
+                                break methodGenerator;
+                            } catch (Exception e) {
+                                log.log(Level.WARNING, "Failed to generate method", e);
+                                break methodGenerator;
+                            }
+                            //</editor-fold>
+
+                            break annotationProcessing;
+                        }
+                        //</editor-fold>
+
                         /* Should not reach here */
                         throw new IllegalStateException("Should not reach here");
                     }
@@ -369,20 +719,44 @@ final class MethodReflectorFactory {
                     //</editor-fold>
 
                     //<editor-fold desc="Target method finding">
-                    Method targetMethod = findMethod(target.getWrappedClass(), targetName, targetParameters, targetReturnType);
+                    Method targetMethod;
+                    if(unbound) {
+                        /* Figure out whether interface method takes target instance as first argument */
+                        boolean descGiven = tMI != null && !tMI.desc().isEmpty();
+                        targetMethod = null;
+                        if(interfaceMethodParameters.length > 0 && (!descGiven || targetParameters.length == interfaceMethodParameters.length - 1)) {
+                            Type[] receiverParameters = descGiven ? targetParameters :
+                                    Arrays.copyOfRange(targetParameters, 1, targetParameters.length);
+                            targetMethod = findMethod(target, targetName, receiverParameters, targetReturnType);
+                            if(targetMethod != null && !Modifier.isStatic(targetMethod.getModifiers())) {
+                                receiverArgs = 1;
+                                targetParameters = receiverParameters;
+                            } else {
+                                targetMethod = null;
+                            }
+                        }
+                        if(targetMethod == null && targetParameters.length == interfaceMethodParameters.length) {
+                            targetMethod = findMethod(target, targetName, targetParameters, targetReturnType);
+                            if(targetMethod != null && !Modifier.isStatic(targetMethod.getModifiers()))
+                                targetMethod = null;
+                        }
+                    } else {
+                        targetMethod = findMethod(target, targetName, targetParameters, targetReturnType);
+                    }
                     if(targetMethod == null) {
                         if(interfaceMethod.isDefault()) {
                             log.log(Level.FINE, "Could not find target method for interface method: {0} {1} {2} {3}, but interface default is present.",
-                                    new Object[] { target.getWrappedClass(), targetReturnType, targetName, Arrays.toString(targetParameters) });
+                                    new Object[] { target, targetReturnType, targetName, Arrays.toString(targetParameters) });
                             continue;
                         }
                         log.log(Level.WARNING, "Could not find target method for interface method: {0} {1} {2} {3}",
-                                new Object[] { target.getWrappedClass(), targetReturnType, targetName, Arrays.toString(targetParameters) });
+                                new Object[] { target, targetReturnType, targetName, Arrays.toString(targetParameters) });
                         break methodGenerator;
                     }
                     //</editor-fold>
 
                     //<editor-fold desc="REFLECTOR_METHOD_USE_METHODHANDLE flag">
+                    methodFlags = checkNestmateAccess(target, targetMethod, targetMethod.getParameterTypes(), methodFlags);
                     if(Modifier.isPublic(targetMethod.getModifiers())) {
                         /* Check if we can use INVOKEINTERFACE */
                         log.log(FINEST, "Target method {0} is public", targetMethod);
@@ -401,7 +775,7 @@ final class MethodReflectorFactory {
                     //</editor-fold>
 
                     //<editor-fold desc="RETURN_TYPE_PUBLIC flag (else -> REFLECTOR_CLASS_USE_METHODHANDLE)">
-                    if(isAccessible(targetMethod.getReturnType())) {
+                    if(isAccessible(targetMethod.getReturnType(), target, methodFlags)) {
                         log.log(FINEST, "Target method {0} return type {1} is public", new Object[]{ targetMethod, targetMethod.getReturnType() });
                         methodFlags |= Magic.RETURN_TYPE_PUBLIC;
                     } else {
@@ -415,16 +789,20 @@ final class MethodReflectorFactory {
                     if(!Modifier.isStatic(targetMethod.getModifiers())) {
                         log.log(FINEST, "Target method {0} is not static, using class instance", targetMethod);
                         methodFlags |= Magic.REFLECTOR_METHOD_USE_INSTANCE;
-                        reflectorFlags |= Magic.REFLECTOR_CLASS_USE_INSTANCE;
+                        if(unbound)
+                            methodFlags |= Magic.REFLECTOR_METHOD_UNBOUND;
+                        else
+                            reflectorFlags |= Magic.REFLECTOR_CLASS_USE_INSTANCE;
                     }
                     //</editor-fold>
 
                     //<editor-fold desc="Method handle instance fetching">
-                    if((methodFlags & Magic.REFLECTOR_METHOD_USE_METHODHANDLE) != 0 && (methodFlags & Magic.USES_MAGIC_ACCESSOR) == 0) {
+                    if((methodFlags & Magic.REFLECTOR_METHOD_USE_METHODHANDLE) != 0 && (methodFlags & Magic.DIRECT_ACCESS) == 0) {
                         try {
-                            if(!targetMethod.isAccessible()) targetMethod.setAccessible(true);
-                            MethodHandle methodHandle = mhLookup.unreflect(targetMethod);
-                            methodHandles.add(methodHandle);
+                            HandleRecipe handleRecipe = HandleRecipe.method(targetMethod)
+                                    .withType(getHandleDescriptor(interfaceMethod, targetClass, methodFlags));
+                            methodHandles.add(handleRecipe.bind(mhLookup, target.getClassLoader(), typeLoader));
+                            handleRecipes.add(handleRecipe);
                         } catch (IllegalAccessException e) {
                             log.log(Level.SEVERE, "Failed to unreflect target {0}: {1}", new Object[] { targetMethod, e.getMessage() });
                             break methodGenerator;
@@ -440,15 +818,26 @@ final class MethodReflectorFactory {
                 //</editor-fold>
 
                 //<editor-fold desc="Method bytecode generation">
+                if(metricsVisitor != null) metricsVisitor.instrument(interfaceMethod, methodFlags);
+                methodInfos.add(ReflectorInfo.MethodInfo.of(interfaceMethod, methodFlags));
                 if((methodFlags & Magic.CTOR_INVOKER) != 0) {
                     generateConstructorProxy(classWriter, interfaceMethod, reflectorClassType, targetClass, targetParameters, methodFlags, methodHandles.size() - 1);
                     continue;
+                } else if((methodFlags & Magic.FIELD_UNSAFE) != 0) {
+                    if((methodFlags & Magic.FIELD_GETTER) != 0)
+                        generateUnsafeFieldReadMethod(classWriter, interfaceMethod, reflectorClassType, targetClass, unsafeField, methodFlags, methodHandles.size() - 1);
+                    else
+                        generateUnsafeFieldWriteMethod(classWriter, interfaceMethod, reflectorClassType, targetClass, unsafeField, methodFlags, methodHandles.size() - 1);
+                    continue;
                 } else if((methodFlags & Magic.FIELD_GETTER) != 0) {
                     generateFieldReadMethod(classWriter, interfaceMethod, reflectorClassType, targetClass, targetReturnType, targetName, methodFlags, methodHandles.size() - 1);
                     continue;
                 } else if((methodFlags & Magic.FIELD_SETTER) != 0) {
                     generateFieldWriteMethod(classWriter, interfaceMethod, reflectorClassType, targetClass, targetParameters[0], targetName, methodFlags, methodHandles.size() - 1);
                     continue;
+                } else if((methodFlags & Magic.FIELD_ATOMIC) != 0) {
+                    generateFieldAtomicMethod(classWriter, interfaceMethod, reflectorClassType, targetClass, methodFlags, methodHandles.size() - 1);
+                    continue;
                 } else /* Method reflector */ {
                     generateMethodProxy(classWriter, interfaceMethod, reflectorClassType, targetClass, targetInterface, targetName, targetParameters, targetReturnType, methodFlags, methodHandles.size() -1);
                     continue;
@@ -460,48 +849,253 @@ final class MethodReflectorFactory {
             /* Fall-through */
             if(!interfaceMethod.isDefault()) {
                 generateFailedMethod(classWriter, interfaceMethod, "Failed to generate implementation for method: " + interfaceMethod);
+                methodInfos.add(ReflectorInfo.MethodInfo.failed(interfaceMethod));
             }
         }
 
-        //<editor-fold desc="Reflector class base generation and instantiation">
-        /* Do validation */
-        if((reflectorFlags & Magic.REFLECTOR_CLASS_USE_INSTANCE) != 0)
-            ensureCondition(target.getClassInstance() != null, "Interface targets instance methods, but class instance is not present in ClassWrapper!");
-
+        //<editor-fold desc="Reflector class base generation and definition">
         /* Generate constructor & fields */
         Type superClass = (reflectorFlags & Magic.USES_MAGIC_ACCESSOR) != 0 ? magicAccessorType : OBJECT;
-        generateClassBase(classWriter, superClass, reflectorFlags, reflectorClassType, targetClass);
+        generateClassBase(classWriter, superClass, reflectorFlags, reflectorClassType, targetClass, methodHandles.size());
 
         /* Load class into memory */
         classWriter.visitEnd();
         byte[] classData = cw.toByteArray();
-        ClassWrapper<?> reflector = Reflect.wrapClass(GCL.defineClass(reflectorClassName, classData));
-
-        /* Construct reflector */
-        //<editor-fold desc="Argument configuration">
-        List<TypeWrapper> ctorParams = new ArrayList<>();
-        if((reflectorFlags & Magic.REFLECTOR_CLASS_USE_INSTANCE) != 0) {
-            if((reflectorFlags & Magic.TARGET_CLASS_VISIBILITY_PUBLIC) != 0) {
-                ctorParams.add(TypeWrapper.of(target.getWrappedClass(), target.getClassInstance()));
-            } else {
-                ctorParams.add(TypeWrapper.of(Object.class, target.getClassInstance()));
+        MethodHandle[] handles = methodHandles.toArray(new MethodHandle[methodHandles.size()]);
+        Class<?> reflector = defineReflector(target, intf, reflectorClassName, reflectorFlags, classData, handles, nestmateLookup);
+        ReflectorMetrics metrics = metricsVisitor != null ? metricsVisitor.bind(reflector, target, intf) : null;
+        //</editor-fold>
+
+        /* Store into persistent cache. Unsafe field offsets are only valid in current VM, so such reflectors are not stored */
+        ReflectorCache cache = this.cache;
+        if(cache != null && cacheKey != null && (reflectorFlags & Magic.REFLECTOR_CLASS_USE_UNSAFE) == 0)
+            cache.store(cacheKey, new ReflectorCache.Entry(reflectorClassName, reflectorFlags, classData, handleRecipes));
+
+        return new GeneratedReflector(reflector, reflectorFlags, metrics, new ReflectorInfo(reflector, target, intf,
+                ReflectorInfo.Source.GENERATED, classData.length, System.nanoTime() - startTime, handles.length, methodInfos));
+    }
+
+    /* Loads reflector class from persistent cache */
+    @Nullable
+    private GeneratedReflector loadCached(ReflectorCache cache, String cacheKey, Class<?> target, Class<?> intf,
+                                          @Nullable MethodHandles.Lookup nestmateLookup) {
+        long startTime = System.nanoTime();
+        ReflectorCache.Entry entry = cache.load(cacheKey);
+        if(entry == null) return null;
+
+        /* Reflectors in target package can't be defined without private lookup on target class, nor using other mechanism */
+        int packageAccess = entry.flags & Magic.IN_TARGET_PACKAGE;
+        if(packageAccess != 0 && (nestmateLookup == null || packageAccess != getTargetPackageAccess())) return null;
+        if(packageAccess == 0) nestmateLookup = null;
+
+        try {
+            ClassLoader typeLoader = getTypeLoader(target, intf, nestmateLookup);
+            MethodHandle[] handles = new MethodHandle[entry.recipes.size()];
+            for(int i = 0; i < handles.length; i++)
+                handles[i] = entry.recipes.get(i).bind(mhLookup, target.getClassLoader(), typeLoader);
+
+            /* Saved name might be taken by reflectors generated in this VM already, so cached class gets new name */
+            String reflectorClassName = generateName(target, entry.flags, intf);
+            byte[] classData = renameClass(entry.classData, entry.className, reflectorClassName);
+
+            Class<?> reflector = defineReflector(target, intf, reflectorClassName, entry.flags, classData, handles, nestmateLookup);
+            log.log(Level.FINE, "Loaded reflector {0} from cache as {1}", new Object[] { entry.className, reflectorClassName });
+            return new GeneratedReflector(reflector, entry.flags, new ReflectorInfo(reflector, target, intf, ReflectorInfo.Source.CACHED,
+                    classData.length, System.nanoTime() - startTime, handles.length, Collections.emptyList()));
+        } catch (ReflectiveOperationException | LinkageError | IllegalStateException | IllegalArgumentException |
+                TypeNotPresentException | WrongMethodTypeException e) {
+            log.log(Level.FINE, "Could not use cached reflector {0}, regenerating: {1}", new Object[] { entry.className, e });
+            return null;
+        }
+    }
+
+    /* Renames class in given class data */
+    @NotNull
+    private static byte[] renameClass(byte[] classData, String oldName, String newName) {
+        ClassWriter cw = new ClassWriter(0);
+        new ClassReader(classData).accept(new ClassRemapper(cw,
+                new SimpleRemapper(oldName.replace('.', '/'), newName.replace('.', '/'))), 0);
+        return cw.toByteArray();
+    }
+
+    /* Defines reflector class and initializes it */
+    @NotNull
+    private Class<?> defineReflector(Class<?> target, Class<?> intf, String reflectorClassName, int reflectorFlags, byte[] classData, MethodHandle[] handles,
+                                     @Nullable MethodHandles.Lookup nestmateLookup) throws IllegalAccessException {
+        Class<?> reflector;
+        if(nestmateLookup != null && (reflectorFlags & Magic.USES_NESTMATE_ACCESS) != 0) {
+            /* Hidden class gets its MethodHandles through class data */
+            reflector = defineHiddenNestmate(nestmateLookup, classData, handles);
+        } else {
+            reflector = nestmateLookup != null ?
+                    defineInTargetPackage(nestmateLookup, classData)
+                    :
+                    getGeneratedClassLoader(target, intf).defineClass(reflectorClassName, classData);
+
+            /* Hand MethodHandles over to static initializer and initialize class */
+            if((reflectorFlags & Magic.REFLECTOR_CLASS_USE_METHODHANDLE) != 0)
+                ReflectorClassData.put(reflector, handles);
+            try {
+                Class.forName(reflector.getName(), true, reflector.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                SneakyThrow.throwException(e);
             }
         }
-        if((reflectorFlags & Magic.REFLECTOR_CLASS_USE_METHODHANDLE) != 0)
-            ctorParams.add(TypeWrapper.of(methodHandles.toArray(new MethodHandle[methodHandles.size()])));
-        //</editor-fold>
+        return reflector;
+    }
 
-        @SuppressWarnings("unchecked")
-        T reflectorInstance = (T) reflector.construct(ctorParams.toArray(new TypeWrapper[ctorParams.size()])).getClassInstance();
-        //</editor-fold>
+    /* Gets class loader, which resolves types like reflector class does */
+    @NotNull
+    private ClassLoader getTypeLoader(Class<?> target, Class<?> intf, @Nullable MethodHandles.Lookup nestmateLookup) {
+        /* Reflectors in target package are defined into target class loader, which is never bootstrap one */
+        return nestmateLookup != null ? target.getClassLoader() : getGeneratedClassLoader(target, intf);
+    }
+
+    /*
+     * Gets class loader for reflector classes, which sees both target class and interface. Target class loader is
+     * always its parent, so public targets can be linked directly
+     */
+    @NotNull
+    private GeneratedClassLoader getGeneratedClassLoader(Class<?> target, Class<?> intf) {
+        ClassLoader targetLoader = target.getClassLoader();
+        ClassLoader factoryLoader = MethodReflectorFactory.class.getClassLoader();
+
+        if((targetLoader == null || targetLoader == factoryLoader) && isVisible(intf, factoryLoader)) return GCL;
+
+        /* Interface class loader is needed only if interface can't be seen through target class loader */
+        ClassLoader intfLoader = isVisible(intf, targetLoader) ? null : intf.getClassLoader();
+
+        synchronized (generatedClassLoaders) {
+            Map<ClassLoader, WeakReference<GeneratedClassLoader>> byInterfaceLoader =
+                    generatedClassLoaders.computeIfAbsent(targetLoader, k -> new WeakHashMap<>());
+            WeakReference<GeneratedClassLoader> reference = byInterfaceLoader.get(intfLoader);
+            GeneratedClassLoader classLoader = reference != null ? reference.get() : null;
+            if(classLoader == null) {
+                log.log(FINEST, "Creating generated class loader for {0} and {1}", new Object[] { targetLoader, intfLoader });
+                classLoader = intfLoader != null ?
+                        new GeneratedClassLoader(targetLoader, intfLoader, factoryLoader)
+                        :
+                        new GeneratedClassLoader(targetLoader, factoryLoader);
+                byInterfaceLoader.put(intfLoader, new WeakReference<>(classLoader));
+            }
+
+            /* Target class loader might see different classes under interface's names */
+            if(intfLoader != null) {
+                classLoader.pin(intf);
+                for(Method interfaceMethod : intf.getMethods()) {
+                    if(!isVisible(interfaceMethod.getReturnType(), targetLoader)) classLoader.pin(interfaceMethod.getReturnType());
+                    for(Class<?> parameterType : interfaceMethod.getParameterTypes())
+                        if(!isVisible(parameterType, targetLoader)) classLoader.pin(parameterType);
+                }
+            }
+            return classLoader;
+        }
+    }
 
-        return notNull(reflectorInstance, "Reflector instance must not be null!");
+    @Contract("null, _ -> fail")
+    private int getTargetModifiers(Class<?> clazz, int flags) {
+        return isAccessible(clazz, clazz, flags) ? Magic.TARGET_CLASS_VISIBILITY_PUBLIC : Magic.TARGET_CLASS_VISIBILITY_PRIVATE;
     }
 
-    @Contract("null -> fail")
-    private int getTargetModifiers(ClassWrapper<?> classWrapper) {
-        int modifiers = classWrapper.getWrappedClass().getModifiers();
-        return Modifier.isPublic(modifiers) ? Magic.TARGET_CLASS_VISIBILITY_PUBLIC : Magic.TARGET_CLASS_VISIBILITY_PRIVATE;
+    /* Gets private lookup on target class, if reflector can be defined as its hidden nestmate or into its package */
+    @Nullable
+    private MethodHandles.Lookup getNestmateLookup(Class<?> target, Class<?> intf) {
+        if(privateLookupIn == null || getTargetPackageAccess() == 0) return null;
+        if(target.isInterface() || target.isArray() || target.isPrimitive()) return null;
+
+        /* Reflector is defined in target class loader, so it must see interface and its signature types */
+        ClassLoader targetLoader = target.getClassLoader();
+        if(targetLoader == null || !isVisible(intf, targetLoader)) return null;
+        if(MethodReflector.METRICS && !isVisible(ReflectorMetrics.class, targetLoader)) return null;
+
+        /* Reflectors which are not hidden classes get their MethodHandles through ReflectorClassData */
+        if(defineHiddenClassWithClassData == null && !isVisible(ReflectorClassData.class, targetLoader)) return null;
+        for(Method interfaceMethod : intf.getMethods()) {
+            if(!isVisible(interfaceMethod.getReturnType(), targetLoader)) return null;
+            for(Class<?> parameterType : interfaceMethod.getParameterTypes())
+                if(!isVisible(parameterType, targetLoader)) return null;
+        }
+
+        try {
+            return (MethodHandles.Lookup) privateLookupIn.invokeExact(target, mhLookup);
+        } catch (Throwable e) {
+            log.log(Level.FINE, "Could not get private lookup on {0}: {1}", new Object[] { target, e });
+            return null;
+        }
+    }
+
+    /* Defines class as hidden nestmate, with given MethodHandles as class data */
+    @NotNull
+    private static Class<?> defineHiddenNestmate(MethodHandles.Lookup lookup, byte[] classData, MethodHandle[] handles) throws IllegalAccessException {
+        try {
+            MethodHandles.Lookup hiddenLookup = (MethodHandles.Lookup) notNull(defineHiddenClassWithClassData, "Hidden classes are not supported!")
+                    .invoke(lookup, classData, (Object) handles, true, nestmateClassOptions);
+            return hiddenLookup.lookupClass();
+        } catch (IllegalAccessException | LinkageError | RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            SneakyThrow.throwException(e);
+            return null; // Unreachable
+        }
+    }
+
+    /* Gets flag describing how reflectors are defined into target class package, or 0 if it's not supported */
+    @Contract(pure = true)
+    private static int getTargetPackageAccess() {
+        if(defineHiddenClassWithClassData != null) return Magic.USES_NESTMATE_ACCESS;
+        if(lookupDefineClass != null) return Magic.USES_PACKAGE_ACCESS;
+        return 0;
+    }
+
+    /* Defines class into lookup class package, see Lookup#defineClass */
+    @NotNull
+    private static Class<?> defineInTargetPackage(MethodHandles.Lookup lookup, byte[] classData) throws IllegalAccessException {
+        try {
+            return (Class<?>) notNull(lookupDefineClass, "Lookup#defineClass is not supported!").invokeExact(lookup, classData);
+        } catch (IllegalAccessException | LinkageError | RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            SneakyThrow.throwException(e);
+            return null; // Unreachable
+        }
+    }
+
+    /* Checks if field accessor can use Unsafe instead of MethodHandle, see UnsafeFields */
+    @Contract(pure = true)
+    private static boolean canUseUnsafe(int methodFlags) {
+        if(!UnsafeFields.isAvailable()) return false;
+
+        /* Unsafe does not check types, so generated code must be able to cast unbound instance and stored value */
+        if((methodFlags & Magic.REFLECTOR_METHOD_UNBOUND) != 0 && (methodFlags & Magic.TARGET_CLASS_VISIBILITY_PUBLIC) == 0)
+            return false;
+        return (methodFlags & Magic.FIELD_SETTER) == 0 || (methodFlags & Magic.RETURN_TYPE_PUBLIC) != 0;
+    }
+
+    /* Removes nestmate and package access flags from method flags, if target can't be accessed directly from target class package */
+    private static int checkNestmateAccess(Class<?> target, Member member, Class<?>[] types, int methodFlags) {
+        if((methodFlags & Magic.IN_TARGET_PACKAGE) == 0) return methodFlags;
+
+        boolean accessible;
+        int modifiers = member.getModifiers();
+        Class<?> declaringClass = member.getDeclaringClass();
+        if(Modifier.isPublic(modifiers)) {
+            accessible = true;
+        } else if(Modifier.isPrivate(modifiers)) {
+            /* Only nestmates can access private members */
+            accessible = (methodFlags & Magic.USES_NESTMATE_ACCESS) != 0 && declaringClass == target;
+        } else {
+            /* Package-private or protected, reflector is not a subclass */
+            accessible = isSamePackage(declaringClass, target);
+        }
+
+        /* Generated code casts arguments to target types */
+        for(Class<?> type : types) accessible &= isAccessible(type, target, methodFlags);
+
+        if(!accessible) {
+            log.log(FINEST, "Target {0} is not accessible from target package, using MethodHandle", member);
+            methodFlags &= ~Magic.IN_TARGET_PACKAGE;
+        }
+        return methodFlags;
     }
 
     @Contract("_, null, null -> fail")
@@ -513,22 +1107,37 @@ final class MethodReflectorFactory {
 
     @NotNull
     @Contract("null, _, null -> fail")
-    private String generateName(ClassWrapper<?> target, int flags, Class<?> intf) {
+    private String generateName(Class<?> target, int flags, Class<?> intf) {
         notNull(target, "Target class must not be null!");
         notNull(intf, "Interface class must not be null!");
 
         StringBuilder classNameBuilder = new StringBuilder();
-        classNameBuilder.append(MethodReflector.class.getName());
-        classNameBuilder.append('.');
+        if((flags & Magic.IN_TARGET_PACKAGE) != 0) {
+            /* Hidden and Lookup#defineClass defined classes must be in same package as their lookup class */
+            String packageName = getPackageName(target);
+            if(!packageName.isEmpty()) classNameBuilder.append(packageName).append('.');
+            classNameBuilder.append(MethodReflector.class.getSimpleName());
+        } else {
+            classNameBuilder.append(MethodReflector.class.getName());
+            classNameBuilder.append('.');
+        }
         classNameBuilder.append("$Target$");
-        classNameBuilder.append(getClassName(target.getWrappedClass().getName()));
+        classNameBuilder.append(getClassName(target.getName()));
         classNameBuilder.append('$');
         classNameBuilder.append(getClassName(intf.getName()));
         classNameBuilder.append('$');
-        classNameBuilder.append(COUNTER.computeIfAbsent(intf, k -> new AtomicInteger(0)).getAndIncrement());
+        classNameBuilder.append(COUNTER.get(intf).getAndIncrement());
         return classNameBuilder.toString();
     }
 
+    /* Gets primitive type size in bytes */
+    private static int getPrimitiveSize(Class<?> type) {
+        if(type == long.class || type == double.class) return 8;
+        if(type == int.class || type == float.class) return 4;
+        if(type == short.class || type == char.class) return 2;
+        return 1;
+    }
+
     /* Gets either of string value from annotations */
     @Nullable
     @Contract("!null, null, null -> fail")
@@ -546,11 +1155,43 @@ final class MethodReflectorFactory {
     }
 
     /* Checks if class is accessible as publicly or from package */
-    @Contract("null -> fail")
-    private static boolean isAccessible(Class<?> clazz) {
+    @Contract("null, null, _ -> fail")
+    private static boolean isAccessible(Class<?> clazz, Class<?> target, int flags) {
         int modifiers = clazz.getModifiers();
         /* Check if class is public */
-        return Modifier.isPublic(modifiers);
+        if(Modifier.isPublic(modifiers)) return true;
+
+        /* Nestmates and package reflectors live in target class package */
+        if((flags & Magic.IN_TARGET_PACKAGE) == 0) return false;
+        while(clazz.isArray()) clazz = clazz.getComponentType();
+        return isSamePackage(clazz, target);
+    }
+
+    /* Checks if classes are in same runtime package */
+    @Contract("null, null -> fail")
+    private static boolean isSamePackage(Class<?> one, Class<?> two) {
+        return one.getClassLoader() == two.getClassLoader() && getPackageName(one).equals(getPackageName(two));
+    }
+
+    /* Checks if class loader resolves given class to the same class */
+    @Contract("null, null -> fail")
+    static boolean isVisible(Class<?> clazz, @Nullable ClassLoader classLoader) {
+        while(clazz.isArray()) clazz = clazz.getComponentType();
+        if(clazz.isPrimitive()) return true;
+        try {
+            return Class.forName(clazz.getName(), false, classLoader) == clazz;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /* Gets package name from class */
+    @NotNull
+    @Contract("null -> fail")
+    private static String getPackageName(Class<?> clazz) {
+        String name = clazz.getName();
+        int lastDot = name.lastIndexOf('.');
+        return lastDot != -1 ? name.substring(0, lastDot) : "";
     }
 
     /* Gets class name from full class name */
@@ -562,11 +1203,24 @@ final class MethodReflectorFactory {
 
     /* Replace placeholders in string */
     @Contract("_, null -> fail; null, _ -> null")
-    private String replacePlaceholders(String source, Map<String, String> replacements) {
+    static String replacePlaceholders(String source, Map<String, String> replacements) {
         Ensure.notNull(replacements, "Replacements map shouldn't be null!");
         if(source == null) return null;
 
-        /* Find placeholders */
+        /* Replace placeholders */
+        String replaced = source;
+        for(String placeholder: findPlaceholders(source)) {
+            String value = replacements.get(placeholder);
+            if(value != null) replaced = replaced.replace("{" + placeholder + "}", value);
+        }
+
+        return replaced;
+    }
+
+    /* Finds placeholders in string */
+    @NotNull
+    @Contract("null -> fail")
+    private static List<String> findPlaceholders(String source) {
         List<String> foundPlaceholders = new ArrayList<>();
         StringBuilder lastPlaceholder = null;
         for(char c: source.toCharArray()) {
@@ -579,78 +1233,99 @@ final class MethodReflectorFactory {
                 lastPlaceholder = null;
             }
         }
+        return foundPlaceholders;
+    }
 
-        /* Amazing hack, wow */
-        String[] a = new String[] { source };
-
-        /* Replace placeholders */
-        for(String placeholder: foundPlaceholders) {
-            replacements.computeIfPresent(placeholder, (k, value) -> {
-                a[0] = a[0].replace("{" + k + "}", value);
-                return value;
-            });
+    /* Finds placeholders used in interface method annotations */
+    @NotNull
+    @Contract("null -> fail")
+    static Set<String> findPlaceholders(Class<?> intf) {
+        Set<String> placeholders = new HashSet<>();
+        for(Method interfaceMethod: intf.getMethods()) {
+            for(Annotation annotation: interfaceMethod.getAnnotations()) {
+                for(Method value: annotation.annotationType().getDeclaredMethods()) {
+                    if(value.getReturnType() != String.class || value.getParameterCount() != 0) continue;
+                    try {
+                        placeholders.addAll(findPlaceholders((String) value.invoke(annotation)));
+                    } catch (ReflectiveOperationException e) {
+                        SneakyThrow.throwException(e);
+                    }
+                }
+            }
         }
-
-        return a[0];
+        return placeholders;
     }
 
 
     //<editor-fold desc="Target method/field/constructor finder utilities">
-    /* Finds declared method by name, parameters and return type. Probably inefficient as fuck */
+    /* Finds method by name, parameters and return type from target class hierarchy */
     @Nullable
-    private static Method findMethod(Class<?> clazz, String methodName, Type[] params, Type returnType) {
-        Class<?> scanClass = clazz;
-        Method method = null;
-        /* Scan superclasses */
-        do {
-            method = Arrays.stream(scanClass.getDeclaredMethods())
-                    .filter(m ->
-                            methodName.equals(m.getName()) &&
-                                    Arrays.equals(Type.getArgumentTypes(m), params) &&
-                                    Type.getType(m.getReturnType()).equals(returnType)
-                    )
-                    .findFirst().orElse(null);
-        } while (method == null && (scanClass = scanClass.getSuperclass()) != null);
-        if(method != null) return method;
-
-        /* No interfaces to scan :( */
-        if(clazz.getInterfaces().length == 0) return null;
-
-        /* Scan interfaces */
-        int i = 0;
-        scanClass = clazz.getInterfaces()[i];
-        do {
-            method = Arrays.stream(scanClass.getDeclaredMethods())
-                    .filter(m ->
-                            methodName.equals(m.getName()) &&
-                                    Arrays.equals(Type.getArgumentTypes(m), params) &&
-                                    Type.getType(m.getReturnType()).equals(returnType) &&
-                                    (m.isDefault() || Modifier.isStatic(m.getModifiers()))
-                    )
-                    .findFirst().orElse(null);
-            i++;
-        } while(method == null && i < scanClass.getInterfaces().length &&
-                (scanClass = scanClass.getInterfaces()[i]) != null);
-        return method;
+    static Method findMethod(Class<?> clazz, String methodName, Type[] params, Type returnType) {
+        return ClassMembers.of(clazz).getMethod(methodName, Type.getMethodDescriptor(returnType, params));
     }
 
     /* Finds field */
     @Nullable
-    private static Field findField(Class<?> clazz, String fieldName, Type fieldType) {
-        return Arrays.stream(clazz.getDeclaredFields()).filter(field ->
-                field.getName().equals(fieldName)
-                        && Type.getType(field.getType()).equals(fieldType))
-                .findFirst()
-                .orElse(null);
+    static Field findField(Class<?> clazz, String fieldName, Type fieldType) {
+        return ClassMembers.of(clazz).getField(fieldName, fieldType.getDescriptor());
+    }
+
+    /* Checks if field is final. Looks at fresh copy of the field, as shared fields may have been modified to allow writing */
+    static boolean isFinal(Field field) {
+        try {
+            return Modifier.isFinal(field.getDeclaringClass().getDeclaredField(field.getName()).getModifiers());
+        } catch (NoSuchFieldException e) {
+            return Modifier.isFinal(field.getModifiers());
+        }
     }
 
     /* Finds constructor */
     @Nullable
-    private static Constructor<?> findConstructor(Class<?> clazz, Type[] parameters) {
-        return Arrays.stream(clazz.getDeclaredConstructors())
-                .filter(c -> Arrays.equals(Type.getType(c).getArgumentTypes(), parameters))
-                .findFirst()
-                .orElse(null);
+    static Constructor<?> findConstructor(Class<?> clazz, Type[] parameters) {
+        return ClassMembers.of(clazz).getConstructor(Type.getMethodDescriptor(Type.VOID_TYPE, parameters));
+    }
+
+    /* Finds and validates element method of bulk method, see Bulk */
+    @NotNull
+    @Contract("null, null, null, _ -> fail")
+    static Method findBulkElementMethod(Class<?> intf, Method bulkMethod, String elementName, boolean unbound) {
+        Class<?>[] parameters = bulkMethod.getParameterTypes();
+        ensureCondition(unbound, "Bulk methods are only supported by unbound reflectors! " + bulkMethod);
+        ensureCondition(bulkMethod.getReturnType() == void.class, "Bulk methods can only return void type! " + bulkMethod);
+        ensureCondition(parameters.length == 1 || parameters.length == 2,
+                "Bulk methods can only take target instances and output array! " + bulkMethod);
+        ensureCondition(parameters[0] == List.class || (parameters[0].isArray() && !parameters[0].getComponentType().isPrimitive()),
+                "Bulk methods must take target instances as object array or List! " + bulkMethod);
+        ensureCondition(parameters.length == 1 || parameters[1].isArray(), "Bulk method output must be an array! " + bulkMethod);
+
+        Class<?> targetType = parameters[0].isArray() ? parameters[0].getComponentType() : Object.class;
+        Class<?> outputType = parameters.length == 2 ? parameters[1].getComponentType() : void.class;
+        for(Method elementMethod : intf.getMethods()) {
+            if(!elementMethod.getName().equals(elementName) || Modifier.isStatic(elementMethod.getModifiers())) continue;
+            if(elementMethod.getParameterCount() != 1 || elementMethod.getReturnType() != outputType) continue;
+            if(elementMethod.getAnnotation(Bulk.class) != null) continue;
+
+            /* Array elements must be assignable, List elements are cast */
+            Class<?> elementType = elementMethod.getParameterTypes()[0];
+            if(parameters[0].isArray() ? !elementType.isAssignableFrom(targetType) :
+                    elementType.isPrimitive() || !Modifier.isPublic(elementType.getModifiers()))
+                continue;
+            return elementMethod;
+        }
+        throw new IllegalStateException("Could not find element method " + elementName + " taking target instance and returning " +
+                outputType.getName() + " for bulk method! " + bulkMethod);
+    }
+
+    /* Finds element method of lazy reflector bulk method, invalid ones are reported by LazyReflectorLinker on first invocation */
+    @Nullable
+    private static Method findLazyBulkElementMethod(Class<?> intf, Method interfaceMethod, boolean unbound) {
+        Bulk bI = interfaceMethod.getAnnotation(Bulk.class);
+        if(bI == null) return null;
+        try {
+            return findBulkElementMethod(intf, interfaceMethod, bI.value(), unbound);
+        } catch (IllegalStateException e) {
+            return null;
+        }
     }
     //</editor-fold>
 
@@ -688,5 +1363,49 @@ final class MethodReflectorFactory {
         }
         magicAccessorType = magicAccessor != null ? Type.getType(magicAccessor) : null;
         //</editor-fold>
+
+        //<editor-fold desc="Look up private lookup and class definition API">
+        MethodHandle thePrivateLookupIn = null;
+        MethodHandle theLookupDefineClass = null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+
+            // Lookup privateLookupIn(Class<?>, Lookup), Java 9+
+            thePrivateLookupIn = lookup.findStatic(MethodHandles.class, "privateLookupIn",
+                    MethodType.methodType(MethodHandles.Lookup.class, Class.class, MethodHandles.Lookup.class));
+
+            // Class<?> Lookup.defineClass(byte[]), Java 9+
+            theLookupDefineClass = lookup.findVirtual(MethodHandles.Lookup.class, "defineClass",
+                    MethodType.methodType(Class.class, byte[].class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            // Private lookups are not supported
+            thePrivateLookupIn = null;
+            theLookupDefineClass = null;
+        }
+        privateLookupIn = thePrivateLookupIn;
+        lookupDefineClass = theLookupDefineClass;
+        //</editor-fold>
+
+        //<editor-fold desc="Look up hidden class API">
+        MethodHandle theDefineHiddenClassWithClassData = null;
+        Object theNestmateClassOptions = null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> classOptionClass = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+            Object classOptions = Array.newInstance(classOptionClass, 1);
+            Array.set(classOptions, 0, classOptionClass.getField("NESTMATE").get(null));
+
+            // Lookup Lookup.defineHiddenClassWithClassData(byte[], Object, boolean, ClassOption...), Java 16+
+            theDefineHiddenClassWithClassData = lookup.findVirtual(MethodHandles.Lookup.class, "defineHiddenClassWithClassData",
+                    MethodType.methodType(MethodHandles.Lookup.class, byte[].class, Object.class, boolean.class, classOptions.getClass()))
+                    .asFixedArity();
+            theNestmateClassOptions = classOptions;
+        } catch (ClassNotFoundException | NoSuchMethodException | NoSuchFieldException | IllegalAccessException e) {
+            // Hidden classes are not supported
+            theDefineHiddenClassWithClassData = null;
+        }
+        defineHiddenClassWithClassData = theDefineHiddenClassWithClassData;
+        nestmateClassOptions = theNestmateClassOptions;
+        //</editor-fold>
     }
 }
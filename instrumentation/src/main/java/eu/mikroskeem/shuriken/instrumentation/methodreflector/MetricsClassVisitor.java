@@ -0,0 +1,107 @@
+package eu.mikroskeem.shuriken.instrumentation.methodreflector;
+
+import eu.mikroskeem.shuriken.common.SneakyThrow;
+import org.jetbrains.annotations.NotNull;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.AdviceAdapter;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.objectweb.asm.Opcodes.ACC_PRIVATE;
+import static org.objectweb.asm.Opcodes.ACC_STATIC;
+import static org.objectweb.asm.Opcodes.ACC_SYNTHETIC;
+import static org.objectweb.asm.Opcodes.ASM5;
+import static org.objectweb.asm.Opcodes.ATHROW;
+
+
+/**
+ * Wraps generated reflector methods with invocation counters, see {@link ReflectorMetrics}
+ *
+ * @author Mark Vainomaa
+ */
+final class MetricsClassVisitor extends ClassVisitor {
+    final static String METRICSF = "metrics";
+    private final static Type METRICS = Type.getType(ReflectorMetrics.class);
+    private final static org.objectweb.asm.commons.Method ENTER = new org.objectweb.asm.commons.Method("enter",
+            Type.LONG_TYPE, new Type[] { Type.INT_TYPE });
+    private final static org.objectweb.asm.commons.Method EXIT = new org.objectweb.asm.commons.Method("exit",
+            Type.VOID_TYPE, new Type[] { Type.INT_TYPE, Type.LONG_TYPE });
+
+    private final Type reflectorClass;
+    private final String reflectorName;
+
+    /* <Method name + descriptor, Metrics index> */
+    private final Map<String, Integer> pendingMethods = new HashMap<>();
+    private final List<ReflectorMetrics.MethodMetrics> methods = new ArrayList<>();
+
+    MetricsClassVisitor(ClassVisitor cv, Type reflectorClass) {
+        super(ASM5, cv);
+        this.reflectorClass = reflectorClass;
+        this.reflectorName = reflectorClass.getClassName();
+    }
+
+    /* Marks interface method to be instrumented, must be invoked before method is generated */
+    void instrument(Method interfaceMethod, int methodFlags) {
+        String method = interfaceMethod.getName() + Type.getMethodDescriptor(interfaceMethod);
+        pendingMethods.put(method, methods.size());
+        methods.add(new ReflectorMetrics.MethodMetrics(reflectorName, method, methodFlags));
+    }
+
+    /* Hands metrics over to defined reflector class */
+    @NotNull
+    ReflectorMetrics bind(Class<?> reflector, Class<?> target, Class<?> intf) {
+        ReflectorMetrics metrics = new ReflectorMetrics(reflectorName, target, intf, MethodReflector.METRICS_SAMPLE_INTERVAL, methods);
+        try {
+            Field metricsField = reflector.getDeclaredField(METRICSF);
+            metricsField.setAccessible(true);
+            metricsField.set(null, metrics);
+        } catch (ReflectiveOperationException e) {
+            SneakyThrow.throwException(e);
+        }
+        ReflectorMetrics.register(reflector, metrics);
+        return metrics;
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+        MethodVisitor mv = super.visitMethod(access, name, desc, signature, exceptions);
+        Integer index = pendingMethods.remove(name + desc);
+        if(index == null) return mv;
+
+        return new AdviceAdapter(ASM5, mv, access, name, desc) {
+            private int startLocal;
+
+            @Override
+            protected void onMethodEnter() {
+                getStatic(reflectorClass, METRICSF, METRICS);
+                push(index);
+                invokeVirtual(METRICS, ENTER);
+                startLocal = newLocal(Type.LONG_TYPE);
+                storeLocal(startLocal);
+            }
+
+            @Override
+            protected void onMethodExit(int opcode) {
+                /* Failed invocations are only counted, timing them would need an exception handler */
+                if(opcode == ATHROW) return;
+                getStatic(reflectorClass, METRICSF, METRICS);
+                push(index);
+                loadLocal(startLocal);
+                invokeVirtual(METRICS, EXIT);
+            }
+        };
+    }
+
+    @Override
+    public void visitEnd() {
+        super.visitField(ACC_PRIVATE | ACC_STATIC | ACC_SYNTHETIC, METRICSF, METRICS.getDescriptor(), null, null).visitEnd();
+        super.visitEnd();
+    }
+}
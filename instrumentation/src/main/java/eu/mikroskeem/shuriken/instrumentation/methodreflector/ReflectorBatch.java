@@ -0,0 +1,155 @@
+package eu.mikroskeem.shuriken.instrumentation.methodreflector;
+
+import eu.mikroskeem.shuriken.common.Ensure;
+import eu.mikroskeem.shuriken.reflect.ClassWrapper;
+import eu.mikroskeem.shuriken.reflect.Reflect;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+
+/**
+ * Batch of reflectors to generate in background, e.g. while rest of the application is initializing.
+ *
+ * Every reflector of batch is generated in parallel on given {@link Executor}, or on
+ * {@link ForkJoinPool#commonPool()} by default. Generated reflector classes end up in same cache as ones generated
+ * by {@link MethodReflector#newInstance(ClassWrapper, Class)}, so reflectors requested later on are not generated again.
+ * Same target class and interface pair requested concurrently is generated only once.
+ *
+ * @author Mark Vainomaa
+ */
+public final class ReflectorBatch {
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Adds reflector to batch
+     *
+     * @param targetClass Target class to target
+     * @param itf Interface which calls will be delegated to target class
+     * @return This {@link ReflectorBatch}
+     * @see MethodReflector#newInstance(ClassWrapper, Class)
+     */
+    @NotNull
+    @Contract("null, null -> fail")
+    public ReflectorBatch add(ClassWrapper<?> targetClass, Class<?> itf) {
+        entries.add(new Entry(Ensure.notNull(targetClass, "Target class shouldn't be null!"),
+                Ensure.notNull(itf, "Interface class shoudln't be null!"), false));
+        return this;
+    }
+
+    /**
+     * Adds unbound reflector to batch
+     *
+     * @param targetClass Target class to target
+     * @param itf Interface which calls will be delegated to target class
+     * @return This {@link ReflectorBatch}
+     * @see MethodReflector#newUnboundInstance(ClassWrapper, Class)
+     */
+    @NotNull
+    @Contract("null, null -> fail")
+    public ReflectorBatch addUnbound(ClassWrapper<?> targetClass, Class<?> itf) {
+        entries.add(new Entry(Ensure.notNull(targetClass, "Target class shouldn't be null!"),
+                Ensure.notNull(itf, "Interface class shoudln't be null!"), true));
+        return this;
+    }
+
+    /**
+     * Adds unbound reflector to batch
+     *
+     * @param targetClass Target class to target
+     * @param itf Interface which calls will be delegated to target class
+     * @return This {@link ReflectorBatch}
+     * @see MethodReflector#newUnboundInstance(Class, Class)
+     */
+    @NotNull
+    @Contract("null, null -> fail")
+    public ReflectorBatch addUnbound(Class<?> targetClass, Class<?> itf) {
+        return addUnbound(Reflect.wrapClass(Ensure.notNull(targetClass, "Target class shouldn't be null!")), itf);
+    }
+
+    /**
+     * Gets count of reflectors in this batch
+     *
+     * @return Reflector count
+     */
+    @Contract(pure = true)
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Generates all reflectors of this batch on {@link ForkJoinPool#commonPool()}
+     *
+     * @return Future of generated reflectors, in same order as they were added
+     * @see #generate(Executor)
+     */
+    @NotNull
+    public CompletableFuture<List<MethodReflector<?>>> generate() {
+        return generate(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Generates all reflectors of this batch on given executor. Batch can be modified and generated again afterwards,
+     * already generated reflector classes are reused then.
+     *
+     * Returned future completes exceptionally with first generation failure, if any reflector fails to generate.
+     * Use {@link #generateEach(Executor)} to handle failures separately.
+     *
+     * @param executor Executor to generate reflectors on
+     * @return Future of generated reflectors, in same order as they were added
+     */
+    @NotNull
+    @Contract("null -> fail")
+    public CompletableFuture<List<MethodReflector<?>>> generate(Executor executor) {
+        List<CompletableFuture<MethodReflector<?>>> futures = generateEach(executor);
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).thenApply(v -> {
+            List<MethodReflector<?>> reflectors = new ArrayList<>(futures.size());
+            for(CompletableFuture<MethodReflector<?>> future : futures) reflectors.add(future.join());
+            return reflectors;
+        });
+    }
+
+    /**
+     * Generates all reflectors of this batch on given executor, each one separately
+     *
+     * @param executor Executor to generate reflectors on
+     * @return List of reflector futures, in same order as they were added
+     */
+    @NotNull
+    @Contract("null -> fail")
+    public List<CompletableFuture<MethodReflector<?>>> generateEach(Executor executor) {
+        Ensure.notNull(executor, "Executor shouldn't be null!");
+        List<CompletableFuture<MethodReflector<?>>> futures = new ArrayList<>(entries.size());
+        for(Entry entry : new ArrayList<>(entries))
+            futures.add(CompletableFuture.supplyAsync(entry::generate, executor));
+        return futures;
+    }
+
+    @Override
+    public String toString() {
+        return "ReflectorBatch{size=" + entries.size() + "}";
+    }
+
+    /* Single reflector of batch */
+    private static final class Entry {
+        private final ClassWrapper<?> targetClass;
+        private final Class<?> itf;
+        private final boolean unbound;
+
+        Entry(ClassWrapper<?> targetClass, Class<?> itf, boolean unbound) {
+            this.targetClass = targetClass;
+            this.itf = itf;
+            this.unbound = unbound;
+        }
+
+        @NotNull
+        MethodReflector<?> generate() {
+            return unbound ? MethodReflector.newUnboundInstance(targetClass, itf) : MethodReflector.newInstance(targetClass, itf);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package eu.mikroskeem.shuriken.instrumentation.methodreflector;
+
+import eu.mikroskeem.shuriken.common.Ensure;
+import eu.mikroskeem.shuriken.instrumentation.ClassTools;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Persistent cache of generated reflector classes.
+ *
+ * Stores generated class bytes along with {@link HandleRecipe}s, keyed by hash of target class, interface,
+ * placeholder replacements and generator version and classes
+ *
+ * @author Mark Vainomaa
+ */
+final class ReflectorCache {
+    private final static int MAGIC = 0x53484b52; // SHKR
+    private final static int FORMAT_VERSION = 2;
+    private final static Logger log = Logger.getLogger(ReflectorCache.class.getName());
+
+    /* Bump on any change to generated code shape or to contracts it relies on, e.g. class data layout */
+    private final static int GENERATOR_VERSION = 1;
+
+    /* Classes which shape generated reflectors, or which generated reflectors depend on */
+    private final static Class<?>[] GENERATOR_CLASSES = new Class<?>[] {
+            MethodReflectorFactory.class, MethodGenerator.class, Magic.class, HandleRecipe.class,
+            AtomicFieldHandles.class, UnsafeFields.class, ReflectorClassData.class, MetricsClassVisitor.class
+    };
+
+    /* Changes when generator itself or the running JVM changes */
+    @Nullable private static volatile byte[] generatorFingerprint = null;
+
+    private final Path directory;
+
+    ReflectorCache(Path directory) {
+        this.directory = Ensure.notNull(directory, "Cache directory shouldn't be null!");
+    }
+
+    @NotNull
+    @Contract(pure = true)
+    Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Computes cache key for reflector
+     *
+     * @return Cache key, or null if class bytes of target or interface are not available
+     */
+    @Nullable
+    String computeKey(Class<?> target, Class<?> intf, Map<String, String> replacements, boolean unbound, boolean magicAccessor) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(getGeneratorFingerprint());
+            digest.update((byte) (unbound ? 1 : 0));
+            digest.update((byte) (magicAccessor ? 1 : 0));
+
+            /* Target class and its hierarchy, as target members are looked up from there */
+            for(Class<?> clazz = target; clazz != null && clazz.getClassLoader() != null; clazz = clazz.getSuperclass()) {
+                if(!updateClass(digest, clazz)) return null;
+                for(Class<?> itf : clazz.getInterfaces())
+                    if(itf.getClassLoader() != null && !updateClass(digest, itf)) return null;
+            }
+            if(!updateClass(digest, intf)) return null;
+
+            /* Placeholder replacements, sorted */
+            for(Map.Entry<String, String> entry : new TreeMap<>(replacements).entrySet()) {
+                digest.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(entry.getValue().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+
+            return toHex(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            log.log(Level.FINE, "Failed to compute cache key for {0} {1}: {2}", new Object[] { target, intf, e });
+            return null;
+        }
+    }
+
+    /**
+     * Loads cache entry
+     *
+     * @param key Cache key
+     * @return Cache entry, or null if not present or unreadable
+     */
+    @Nullable
+    Entry load(String key) {
+        Path file = directory.resolve(key + ".bin");
+        if(!Files.isRegularFile(file)) return null;
+        try(DataInputStream input = new DataInputStream(Files.newInputStream(file))) {
+            if(input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) return null;
+            String className = input.readUTF();
+            int flags = input.readInt();
+            byte[] classData = new byte[input.readInt()];
+            input.readFully(classData);
+            int recipeCount = input.readInt();
+            List<HandleRecipe> recipes = new ArrayList<>(recipeCount);
+            for(int i = 0; i < recipeCount; i++)
+                recipes.add(HandleRecipe.read(input));
+            return new Entry(className, flags, classData, recipes);
+        } catch (IOException | RuntimeException e) {
+            log.log(Level.WARNING, "Failed to read reflector cache entry " + file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores cache entry. Failures are only logged
+     *
+     * @param key Cache key
+     * @param entry Cache entry
+     */
+    void store(String key, Entry entry) {
+        Path file = directory.resolve(key + ".bin");
+        try {
+            Files.createDirectories(directory);
+            Path tempFile = Files.createTempFile(directory, key, ".tmp");
+            try(DataOutputStream output = new DataOutputStream(Files.newOutputStream(tempFile))) {
+                output.writeInt(MAGIC);
+                output.writeInt(FORMAT_VERSION);
+                output.writeUTF(entry.className);
+                output.writeInt(entry.flags);
+                output.writeInt(entry.classData.length);
+                output.write(entry.classData);
+                output.writeInt(entry.recipes.size());
+                for(HandleRecipe recipe : entry.recipes)
+                    recipe.write(output);
+            }
+
+            /* Other JVMs might be reading the same directory */
+            try {
+                Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Failed to write reflector cache entry " + file, e);
+        }
+    }
+
+    /* Feeds class bytes into digest */
+    private static boolean updateClass(MessageDigest digest, Class<?> clazz) throws IOException {
+        byte[] classData = readClass(clazz);
+        if(classData == null) return false;
+        digest.update(clazz.getName().getBytes(StandardCharsets.UTF_8));
+        digest.update(classData);
+        return true;
+    }
+
+    /* Reads class bytes from its class loader */
+    @Nullable
+    private static byte[] readClass(Class<?> clazz) throws IOException {
+        ClassLoader classLoader = clazz.getClassLoader();
+        String resourcePath = ClassTools.getClassResourcePath(clazz.getName());
+        try(InputStream input = classLoader != null ? classLoader.getResourceAsStream(resourcePath) :
+                ClassLoader.getSystemResourceAsStream(resourcePath)) {
+            if(input == null) return null;
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while((read = input.read(buffer)) != -1)
+                output.write(buffer, 0, read);
+            return output.toByteArray();
+        }
+    }
+
+    @NotNull
+    private static byte[] getGeneratorFingerprint() throws IOException, NoSuchAlgorithmException {
+        byte[] fingerprint = generatorFingerprint;
+        if(fingerprint == null) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(System.getProperty("java.vm.name", "").getBytes(StandardCharsets.UTF_8));
+            digest.update(System.getProperty("java.version", "").getBytes(StandardCharsets.UTF_8));
+            digest.update(Integer.toString(GENERATOR_VERSION).getBytes(StandardCharsets.UTF_8));
+            for(Class<?> clazz : GENERATOR_CLASSES) {
+                if(!updateClass(digest, clazz)) throw new IOException("Could not read generator class " + clazz);
+            }
+            generatorFingerprint = fingerprint = digest.digest();
+        }
+        return fingerprint;
+    }
+
+    @NotNull
+    private static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for(byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+            builder.append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Cached reflector class
+     */
+    static final class Entry {
+        final String className;
+        final int flags;
+        final byte[] classData;
+        final List<HandleRecipe> recipes;
+
+        Entry(String className, int flags, byte[] classData, List<HandleRecipe> recipes) {
+            this.className = className;
+            this.flags = flags;
+            this.classData = classData;
+            this.recipes = Collections.unmodifiableList(recipes);
+        }
+    }
+}
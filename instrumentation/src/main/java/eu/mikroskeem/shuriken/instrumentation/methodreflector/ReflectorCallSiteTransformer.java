@@ -0,0 +1,120 @@
+package eu.mikroskeem.shuriken.instrumentation.methodreflector;
+
+import eu.mikroskeem.shuriken.common.Ensure;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.Instrumentation;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
+import java.security.ProtectionDomain;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static eu.mikroskeem.shuriken.instrumentation.bytecode.BytecodeManipulation.findInstructions;
+import static eu.mikroskeem.shuriken.instrumentation.bytecode.BytecodeManipulation.rerouteMethodInvocationDynamic;
+import static eu.mikroskeem.shuriken.instrumentation.bytecode.ClassManipulation.readClass;
+import static java.util.logging.Level.FINEST;
+import static org.objectweb.asm.Opcodes.H_INVOKESTATIC;
+import static org.objectweb.asm.Opcodes.INVOKEINTERFACE;
+import static org.objectweb.asm.Opcodes.V1_7;
+
+
+/**
+ * Class file transformer, which devirtualizes reflector interface invocations in selected consumer classes.
+ *
+ * Every {@code invokeinterface} on given reflector interfaces is rewritten into {@code invokedynamic} call site,
+ * which invokes generated reflector class directly, see {@link ReflectorCallSites}. Register it using
+ * {@link Instrumentation#addTransformer(ClassFileTransformer)} from Java agent, e.g. one built with
+ * {@link eu.mikroskeem.shuriken.instrumentation.runtime.AgentFactory}, before consumer classes are loaded.
+ *
+ * Consumer classes must be able to see Shuriken, and be at least Java 7 class files.
+ *
+ * @author Mark Vainomaa
+ */
+public final class ReflectorCallSiteTransformer implements ClassFileTransformer {
+    private final static Logger log = Logger.getLogger(ReflectorCallSiteTransformer.class.getName());
+    private final static Handle BOOTSTRAP = new Handle(H_INVOKESTATIC, Type.getInternalName(ReflectorCallSites.class), "bootstrap",
+            Type.getMethodDescriptor(Type.getType(CallSite.class), Type.getType(MethodHandles.Lookup.class),
+                    Type.getType(String.class), Type.getType(MethodType.class)), false);
+
+    private final Predicate<String> consumerFilter;
+    private final Set<String> interfaces;
+
+    /**
+     * Constructs new call site transformer
+     *
+     * @param consumerFilter Predicate testing class names (like {@code foo.bar.Baz}) to transform
+     * @param interfaces Reflector interfaces which invocations to devirtualize
+     */
+    public ReflectorCallSiteTransformer(Predicate<String> consumerFilter, Collection<Class<?>> interfaces) {
+        this.consumerFilter = Ensure.notNull(consumerFilter, "Consumer filter shouldn't be null!");
+        Set<String> interfaceNames = new HashSet<>();
+        for(Class<?> itf : Ensure.notNull(interfaces, "Interfaces shouldn't be null!")) {
+            Ensure.ensureCondition(Modifier.isInterface(itf.getModifiers()), itf + " should be interface!");
+            interfaceNames.add(Type.getInternalName(itf));
+        }
+        this.interfaces = Collections.unmodifiableSet(interfaceNames);
+    }
+
+    @Nullable
+    @Override
+    public byte[] transform(@Nullable ClassLoader loader, @Nullable String className, @Nullable Class<?> classBeingRedefined,
+                            @Nullable ProtectionDomain protectionDomain, byte[] classfileBuffer) {
+        if(className == null || !consumerFilter.test(className.replace('/', '.')) || !isShurikenVisible(loader))
+            return null;
+
+        try {
+            ClassNode node = readClass(classfileBuffer);
+            if((node.version & 0xFFFF) < V1_7) {
+                log.log(Level.FINE, "Not transforming {0}, invokedynamic requires Java 7 class file", className);
+                return null;
+            }
+
+            boolean transformed = false;
+            for(MethodNode method : node.methods) {
+                List<MethodInsnNode> invocations = findInstructions(method.instructions, MethodInsnNode.class,
+                        insn -> insn.getOpcode() == INVOKEINTERFACE && interfaces.contains(insn.owner));
+                for(MethodInsnNode invocation : invocations) {
+                    log.log(FINEST, "Devirtualizing {0}.{1} call in {2}.{3}",
+                            new Object[] { invocation.owner, invocation.name, className, method.name });
+                    rerouteMethodInvocationDynamic(method.instructions, invocation, BOOTSTRAP);
+                    transformed = true;
+                }
+            }
+            if(!transformed) return null;
+
+            /* Stack shape stays the same, so existing frames are still valid */
+            ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+            node.accept(cw);
+            return cw.toByteArray();
+        } catch (Throwable e) {
+            log.log(Level.WARNING, "Failed to transform " + className, e);
+            return null;
+        }
+    }
+
+    /* Checks if transformed class is able to link against ReflectorCallSites */
+    private static boolean isShurikenVisible(@Nullable ClassLoader loader) {
+        try {
+            return Class.forName(ReflectorCallSites.class.getName(), false, loader) == ReflectorCallSites.class;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package eu.mikroskeem.shuriken.instrumentation.methodreflector;
+
+import eu.mikroskeem.shuriken.common.SneakyThrow;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.lang.invoke.MethodType.methodType;
+import static java.util.logging.Level.FINEST;
+
+
+/**
+ * Links reflector interface call sites rewritten by {@link ReflectorCallSiteTransformer}.
+ *
+ * Every call site caches up to {@value #MAX_RECEIVERS} reflector classes it has seen. Cached reflector classes are
+ * invoked directly behind exact class check, so interface dispatch is gone. If more reflector classes show up,
+ * call site falls back to plain interface invocation for good.
+ *
+ * This class is public only because transformed classes live in other class loaders, do not use it directly.
+ *
+ * @author Mark Vainomaa
+ */
+public final class ReflectorCallSites {
+    private final static Logger log = Logger.getLogger(ReflectorCallSites.class.getName());
+    private final static MethodHandles.Lookup mhLookup = MethodHandles.lookup();
+    private final static MethodHandle RELINK;
+    private final static MethodHandle IS_CLASS;
+
+    /** Maximum count of reflector classes single call site invokes directly */
+    public final static int MAX_RECEIVERS = 4;
+
+    private ReflectorCallSites() {
+        throw new RuntimeException("No ReflectorCallSites instance for you!");
+    }
+
+    /**
+     * Bootstrap method for rewritten reflector interface call sites
+     *
+     * @param caller Caller class lookup
+     * @param name Interface method name
+     * @param type Call site type, interface followed by interface method parameters
+     * @return Inline caching call site
+     * @throws ReflectiveOperationException If interface method could not be accessed
+     */
+    @NotNull
+    public static CallSite bootstrap(MethodHandles.Lookup caller, String name, MethodType type) throws ReflectiveOperationException {
+        MethodHandle interfaceHandle = caller.findVirtual(type.parameterType(0), name, type.dropParameterTypes(0, 1));
+        return new InlineCacheCallSite(name, type, interfaceHandle.asType(type));
+    }
+
+    /* Checks if instance is exactly of given class */
+    private static boolean isClass(Class<?> clazz, Object instance) {
+        return instance != null && instance.getClass() == clazz;
+    }
+
+    /* Call site which links itself against receiver classes it sees */
+    static final class InlineCacheCallSite extends MutableCallSite {
+        private final String name;
+        private final MethodHandle interfaceHandle;
+        private int receivers = 0;
+
+        InlineCacheCallSite(String name, MethodType type, MethodHandle interfaceHandle) {
+            super(type);
+            this.name = name;
+            this.interfaceHandle = interfaceHandle;
+            setTarget(RELINK.bindTo(this).asCollector(Object[].class, type.parameterCount()).asType(type));
+        }
+
+        /* Invoked when none of the cached receiver classes match */
+        Object relink(Object[] args) throws Throwable {
+            Object receiver = args[0];
+            if(receiver == null) return interfaceHandle.invokeWithArguments(args); /* Throws NPE like interface call does */
+
+            MethodHandle target;
+            synchronized (this) {
+                if(receivers < MAX_RECEIVERS) {
+                    receivers++;
+                    Class<?> receiverClass = receiver.getClass();
+                    target = findDirect(receiverClass);
+                    MethodHandle test = MethodHandles.dropArguments(
+                            IS_CLASS.bindTo(receiverClass).asType(methodType(boolean.class, type().parameterType(0))),
+                            1, type().dropParameterTypes(0, 1).parameterList());
+                    setTarget(MethodHandles.guardWithTest(test, target, getTarget()));
+                    log.log(FINEST, "Linked {0} call site to {1}", new Object[] { name, receiverClass });
+                } else {
+                    target = interfaceHandle;
+                    setTarget(interfaceHandle);
+                    log.log(Level.FINE, "{0} call site has seen more than {1} receiver classes, using interface dispatch",
+                            new Object[] { name, MAX_RECEIVERS });
+                }
+            }
+            return target.invokeWithArguments(args);
+        }
+
+        /* Finds method directly on receiver class, falling back to interface dispatch if it's not accessible */
+        @NotNull
+        private MethodHandle findDirect(Class<?> receiverClass) {
+            try {
+                return mhLookup.findVirtual(receiverClass, name, type().dropParameterTypes(0, 1)).asType(type());
+            } catch (ReflectiveOperationException | IllegalArgumentException e) {
+                log.log(FINEST, "Could not access {0} on {1} directly: {2}", new Object[] { name, receiverClass, e });
+                return interfaceHandle;
+            }
+        }
+    }
+
+    static {
+        try {
+            RELINK = mhLookup.findVirtual(InlineCacheCallSite.class, "relink", methodType(Object.class, Object[].class));
+            IS_CLASS = mhLookup.findStatic(ReflectorCallSites.class, "isClass", methodType(boolean.class, Class.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            SneakyThrow.throwException(e);
+            throw new IllegalStateException(e); // Unreachable
+        }
+    }
+}
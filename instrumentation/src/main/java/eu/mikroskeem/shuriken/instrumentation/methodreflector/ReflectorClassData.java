@@ -0,0 +1,45 @@
+package eu.mikroskeem.shuriken.instrumentation.methodreflector;
+
+import eu.mikroskeem.shuriken.common.Ensure;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Holds {@link MethodHandle}s for generated reflector classes until their static initializer picks them up.
+ *
+ * This class is public only because generated reflector classes live in other class loader, do not use it directly.
+ *
+ * @author Mark Vainomaa
+ */
+public final class ReflectorClassData {
+    private final static Map<Class<?>, MethodHandle[]> pendingClassData = new ConcurrentHashMap<>();
+
+    private ReflectorClassData() {
+        throw new RuntimeException("No ReflectorClassData instance for you!");
+    }
+
+    /* Registers MethodHandles for reflector class, must be done before class initialization */
+    @Contract("null, null -> fail")
+    static void put(Class<?> reflectorClass, MethodHandle[] methodHandles) {
+        Ensure.ensureCondition(pendingClassData.putIfAbsent(reflectorClass, methodHandles) == null,
+                "Class data is already registered for " + reflectorClass);
+    }
+
+    /**
+     * Takes MethodHandles registered for reflector class. Invoked from generated reflector static initializer,
+     * and works only once per class.
+     *
+     * @param reflectorClass Reflector class
+     * @return Array of {@link MethodHandle}s
+     */
+    @NotNull
+    @Contract("null -> fail")
+    public static MethodHandle[] take(Class<?> reflectorClass) {
+        return Ensure.notNull(pendingClassData.remove(reflectorClass), "No class data present for " + reflectorClass);
+    }
+}
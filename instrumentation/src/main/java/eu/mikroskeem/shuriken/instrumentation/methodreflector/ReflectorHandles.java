@@ -0,0 +1,65 @@
+package eu.mikroskeem.shuriken.instrumentation.methodreflector;
+
+import eu.mikroskeem.shuriken.common.Ensure;
+import eu.mikroskeem.shuriken.common.SneakyThrow;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+
+/**
+ * {@link MethodHandle} support for precompiled reflector classes, see {@link ReflectorTarget}.
+ *
+ * Not meant to be used directly, precompiled reflectors use this to access members which are not accessible
+ * from source code.
+ *
+ * @author Mark Vainomaa
+ */
+public final class ReflectorHandles {
+    /** Target is method */
+    public final static int METHOD = HandleRecipe.METHOD;
+
+    /** Target is constructor */
+    public final static int CONSTRUCTOR = HandleRecipe.CONSTRUCTOR;
+
+    /** Target is field, and handle should get its value */
+    public final static int FIELD_GETTER = HandleRecipe.FIELD_GETTER;
+
+    /** Target is field, and handle should set its value */
+    public final static int FIELD_SETTER = HandleRecipe.FIELD_SETTER;
+
+    private final static MethodHandles.Lookup mhLookup = MethodHandles.lookup();
+
+    private ReflectorHandles() {
+        throw new RuntimeException("No ReflectorHandles instance for you!");
+    }
+
+    /**
+     * Gets {@link MethodHandle} for target member, adapted to given type
+     *
+     * @param targetClass Target class, used to resolve owner class
+     * @param kind Target kind, see constants in this class
+     * @param owner Binary name of class declaring target member
+     * @param name Target member name, or <pre>&lt;init&gt;</pre> for constructors
+     * @param descriptor Target method or field descriptor
+     * @param type Type to adapt handle to
+     * @return Instance of {@link MethodHandle}
+     */
+    @NotNull
+    @Contract("null, _, _, _, _, _ -> fail")
+    public static MethodHandle bind(Class<?> targetClass, int kind, String owner, String name, String descriptor, MethodType type) {
+        Ensure.notNull(targetClass, "Target class shouldn't be null!");
+        Ensure.ensureCondition(kind >= METHOD && kind <= FIELD_SETTER, "Invalid target kind: " + kind);
+        try {
+            return HandleRecipe.of(kind, owner, name, descriptor)
+                    .bind(mhLookup, targetClass.getClassLoader())
+                    .asType(type);
+        } catch (ReflectiveOperationException e) {
+            SneakyThrow.throwException(e);
+            return null; // Unreachable
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package eu.mikroskeem.shuriken.instrumentation.methodreflector;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.Type;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+
+/**
+ * Generation report of reflector class. Report is collected for every reflector class, regardless of
+ * {@link MethodReflector#DEBUG} or {@link MethodReflector#METRICS}, and can be exported as JSON to spot reflectors
+ * falling back to slower strategies.
+ *
+ * @author Mark Vainomaa
+ */
+public final class ReflectorInfo {
+    /* <Reflector class, Info>. Info holds only names, so reflector classes can be unloaded */
+    private final static Map<Class<?>, ReflectorInfo> allInfos = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final String reflectorName;
+    private final String targetName;
+    private final String interfaceName;
+    private final String classLoaderName;
+    private final Source source;
+    private final int bytecodeSize;
+    private final long generationNanos;
+    private final int methodHandles;
+    private final MethodInfo[] methods;
+
+    ReflectorInfo(Class<?> reflector, Class<?> target, Class<?> intf, Source source, int bytecodeSize, long generationNanos,
+                  int methodHandles, List<MethodInfo> methods) {
+        this.reflectorName = reflector.getName();
+        this.targetName = target.getName();
+        this.interfaceName = intf.getName();
+        this.classLoaderName = String.valueOf(reflector.getClassLoader());
+        this.source = source;
+        this.bytecodeSize = bytecodeSize;
+        this.generationNanos = generationNanos;
+        this.methodHandles = methodHandles;
+        this.methods = methods.toArray(new MethodInfo[methods.size()]);
+    }
+
+    /**
+     * Gets reports of every reflector class which is currently loaded
+     *
+     * @return List of {@link ReflectorInfo}
+     */
+    @NotNull
+    public static List<ReflectorInfo> getAll() {
+        synchronized (allInfos) {
+            return new ArrayList<>(allInfos.values());
+        }
+    }
+
+    /**
+     * Exports reports of every reflector class which is currently loaded as JSON array
+     *
+     * @return JSON array of reflector reports
+     * @see #toJson()
+     */
+    @NotNull
+    public static String exportJson() {
+        StringBuilder sb = new StringBuilder("[");
+        for(ReflectorInfo info : getAll()) {
+            if(sb.length() > 1) sb.append(',');
+            info.appendJson(sb);
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Gets reflector class name
+     *
+     * @return Reflector class name
+     */
+    @NotNull
+    @Contract(pure = true)
+    public String getReflectorName() {
+        return reflectorName;
+    }
+
+    /**
+     * Gets target class name
+     *
+     * @return Target class name
+     */
+    @NotNull
+    @Contract(pure = true)
+    public String getTargetName() {
+        return targetName;
+    }
+
+    /**
+     * Gets interface class name
+     *
+     * @return Interface class name
+     */
+    @NotNull
+    @Contract(pure = true)
+    public String getInterfaceName() {
+        return interfaceName;
+    }
+
+    /**
+     * Gets description of class loader which defined reflector class
+     *
+     * @return Defining class loader description, {@code "null"} for bootstrap class loader
+     */
+    @NotNull
+    @Contract(pure = true)
+    public String getClassLoaderName() {
+        return classLoaderName;
+    }
+
+    /**
+     * Gets where reflector class came from
+     *
+     * @return Reflector class source
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Source getSource() {
+        return source;
+    }
+
+    /**
+     * Gets size of reflector class file. Metaspace usage of reflector class is roughly proportional to it
+     *
+     * @return Class file size in bytes, or -1 if reflector class was precompiled
+     */
+    @Contract(pure = true)
+    public int getBytecodeSize() {
+        return bytecodeSize;
+    }
+
+    /**
+     * Gets time spent on generating and defining reflector class
+     *
+     * @return Generation time in nanoseconds
+     */
+    @Contract(pure = true)
+    public long getGenerationNanos() {
+        return generationNanos;
+    }
+
+    /**
+     * Gets count of {@link java.lang.invoke.MethodHandle}s reflector class holds
+     *
+     * @return MethodHandle count
+     */
+    @Contract(pure = true)
+    public int getMethodHandles() {
+        return methodHandles;
+    }
+
+    /**
+     * Gets reports of interface methods. Only available for {@link Source#GENERATED} reflectors, as others
+     * are not resolved method by method
+     *
+     * @return Unmodifiable list of {@link MethodInfo}
+     */
+    @NotNull
+    public List<MethodInfo> getMethods() {
+        return Collections.unmodifiableList(Arrays.asList(methods));
+    }
+
+    /**
+     * Exports this report as JSON object
+     *
+     * @return JSON object
+     */
+    @NotNull
+    public String toJson() {
+        return appendJson(new StringBuilder()).toString();
+    }
+
+    /* Registers report of defined reflector class */
+    static void register(Class<?> reflectorClass, ReflectorInfo info) {
+        allInfos.put(reflectorClass, info);
+    }
+
+    @NotNull
+    private StringBuilder appendJson(StringBuilder sb) {
+        sb.append("{\"reflector\":"); appendString(sb, reflectorName);
+        sb.append(",\"target\":"); appendString(sb, targetName);
+        sb.append(",\"interface\":"); appendString(sb, interfaceName);
+        sb.append(",\"classLoader\":"); appendString(sb, classLoaderName);
+        sb.append(",\"source\":"); appendString(sb, source.name());
+        sb.append(",\"bytecodeSize\":").append(bytecodeSize);
+        sb.append(",\"generationNanos\":").append(generationNanos);
+        sb.append(",\"methodHandles\":").append(methodHandles);
+        sb.append(",\"methods\":[");
+        for(int i = 0; i < methods.length; i++) {
+            if(i > 0) sb.append(',');
+            methods[i].appendJson(sb);
+        }
+        return sb.append("]}");
+    }
+
+    /* Appends quoted and escaped JSON string */
+    private static void appendString(StringBuilder sb, @Nullable String value) {
+        if(value == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch(c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if(c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+    @Override
+    public String toString() {
+        return "ReflectorInfo{reflector=" + reflectorName + ", target=" + targetName + ", interface=" + interfaceName +
+                ", source=" + source + ", bytecodeSize=" + bytecodeSize + ", methods=" + methods.length + "}";
+    }
+
+    /**
+     * Where reflector class came from
+     */
+    public enum Source {
+        /** Reflector class was generated */
+        GENERATED,
+
+        /** Reflector class was loaded from persistent cache, see {@link MethodReflector#setCacheDirectory(java.nio.file.Path)} */
+        CACHED,
+
+        /** Reflector class links its methods on first invocation, see {@link LazyReflector} */
+        LAZY,
+
+        /** Reflector class was implemented by annotation processor, see {@link ReflectorTarget} */
+        PRECOMPILED
+    }
+
+    /**
+     * Generation report of single interface method
+     */
+    public static final class MethodInfo {
+        private final String method;
+        private final int flags;
+        @Nullable private final ReflectorMetrics.Strategy strategy;
+
+        MethodInfo(String method, int flags, @Nullable ReflectorMetrics.Strategy strategy) {
+            this.method = method;
+            this.flags = flags;
+            this.strategy = strategy;
+        }
+
+        /**
+         * Gets interface method name and descriptor
+         *
+         * @return Interface method name and descriptor
+         */
+        @NotNull
+        @Contract(pure = true)
+        public String getMethod() {
+            return method;
+        }
+
+        /**
+         * Gets resolved invocation strategy
+         *
+         * @return Invocation strategy, or null if method does not invoke target directly, e.g. {@link Bulk} method
+         *         or method which failed to generate
+         */
+        @Nullable
+        @Contract(pure = true)
+        public ReflectorMetrics.Strategy getStrategy() {
+            return strategy;
+        }
+
+        /**
+         * Gets whether generating implementation for this method failed. Such method throws on invocation
+         *
+         * @return Whether method failed to generate
+         */
+        @Contract(pure = true)
+        public boolean isFailed() {
+            return flags == -1;
+        }
+
+        /**
+         * Gets raw generator flags of this method, useful for debugging only
+         *
+         * @return Generator flags, or -1 if method failed to generate
+         */
+        @Contract(pure = true)
+        public int getFlags() {
+            return flags;
+        }
+
+        /* Creates report of generated method */
+        @NotNull
+        static MethodInfo of(Method interfaceMethod, int methodFlags) {
+            return new MethodInfo(getName(interfaceMethod), methodFlags, ReflectorMetrics.Strategy.of(methodFlags));
+        }
+
+        /* Creates report of bulk method, which only invokes other reflector method */
+        @NotNull
+        static MethodInfo bulk(Method interfaceMethod, int methodFlags) {
+            return new MethodInfo(getName(interfaceMethod), methodFlags, null);
+        }
+
+        /* Creates report of method which failed to generate */
+        @NotNull
+        static MethodInfo failed(Method interfaceMethod) {
+            return new MethodInfo(getName(interfaceMethod), -1, null);
+        }
+
+        @NotNull
+        private static String getName(Method interfaceMethod) {
+            return interfaceMethod.getName() + Type.getMethodDescriptor(interfaceMethod);
+        }
+
+        private void appendJson(StringBuilder sb) {
+            sb.append("{\"method\":"); appendString(sb, method);
+            sb.append(",\"strategy\":"); appendString(sb, strategy != null ? strategy.name() : null);
+            sb.append(",\"failed\":").append(isFailed());
+            sb.append(",\"flags\":").append(flags).append('}');
+        }
+
+        @Override
+        public String toString() {
+            return "MethodInfo{method=" + method + ", strategy=" + strategy + ", failed=" + isFailed() + "}";
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package eu.mikroskeem.shuriken.instrumentation.methodreflector;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Invocation metrics of generated reflector class, collected when {@link MethodReflector#METRICS} is enabled
+ * during reflector generation.
+ *
+ * All metrics are exposed through JMX as well, see {@link ReflectorMetricsMXBean}.
+ *
+ * This class is public also because generated reflector classes live in other class loader.
+ *
+ * @author Mark Vainomaa
+ */
+public final class ReflectorMetrics {
+    private final static Logger log = Logger.getLogger(ReflectorMetrics.class.getName());
+
+    /** JMX object name, under which metrics of all reflectors are registered */
+    public final static String OBJECT_NAME = "eu.mikroskeem.shuriken:type=ReflectorMetrics";
+
+    /* <Reflector class, Metrics>. Metrics hold only names, so reflector classes can be unloaded */
+    private final static Map<Class<?>, ReflectorMetrics> allMetrics = Collections.synchronizedMap(new WeakHashMap<>());
+    private static volatile boolean mxBeanRegistered = false;
+
+    private final String reflectorName;
+    private final String targetName;
+    private final String interfaceName;
+    private final int sampleInterval;
+    private final MethodMetrics[] methods;
+
+    ReflectorMetrics(String reflectorName, Class<?> target, Class<?> intf, int sampleInterval, List<MethodMetrics> methods) {
+        this.reflectorName = reflectorName;
+        this.targetName = target.getName();
+        this.interfaceName = intf.getName();
+        this.sampleInterval = sampleInterval;
+        this.methods = methods.toArray(new MethodMetrics[methods.size()]);
+    }
+
+    /**
+     * Gets metrics of every reflector class generated with metrics enabled
+     *
+     * @return List of {@link ReflectorMetrics}
+     */
+    @NotNull
+    public static List<ReflectorMetrics> getAll() {
+        synchronized (allMetrics) {
+            return new ArrayList<>(allMetrics.values());
+        }
+    }
+
+    /**
+     * Gets reflector class name
+     *
+     * @return Reflector class name
+     */
+    @NotNull
+    @Contract(pure = true)
+    public String getReflectorName() {
+        return reflectorName;
+    }
+
+    /**
+     * Gets target class name
+     *
+     * @return Target class name
+     */
+    @NotNull
+    @Contract(pure = true)
+    public String getTargetName() {
+        return targetName;
+    }
+
+    /**
+     * Gets interface class name
+     *
+     * @return Interface class name
+     */
+    @NotNull
+    @Contract(pure = true)
+    public String getInterfaceName() {
+        return interfaceName;
+    }
+
+    /**
+     * Gets metrics of every instrumented interface method
+     *
+     * @return Unmodifiable list of {@link MethodMetrics}
+     */
+    @NotNull
+    public List<MethodMetrics> getMethods() {
+        return Collections.unmodifiableList(Arrays.asList(methods));
+    }
+
+    /**
+     * Resets all counters of this reflector
+     */
+    public void reset() {
+        for(MethodMetrics method : methods) method.reset();
+    }
+
+    /**
+     * Records interface method invocation. Invoked from generated reflector methods, do not use it directly.
+     *
+     * @param index Interface method index
+     * @return Start time if this invocation is sampled, 0 otherwise
+     */
+    public long enter(int index) {
+        methods[index].calls.increment();
+        if(sampleInterval > 0 && (sampleInterval == 1 || ThreadLocalRandom.current().nextInt(sampleInterval) == 0))
+            return System.nanoTime();
+        return 0;
+    }
+
+    /**
+     * Records sampled invocation time. Invoked from generated reflector methods, do not use it directly.
+     *
+     * @param index Interface method index
+     * @param start Value returned by {@link #enter(int)}
+     */
+    public void exit(int index, long start) {
+        if(start == 0) return;
+        MethodMetrics method = methods[index];
+        method.sampledCalls.increment();
+        method.sampledNanos.add(System.nanoTime() - start);
+    }
+
+    /* Registers metrics of defined reflector class */
+    static void register(Class<?> reflectorClass, ReflectorMetrics metrics) {
+        allMetrics.put(reflectorClass, metrics);
+        if(mxBeanRegistered) return;
+        synchronized (ReflectorMetrics.class) {
+            if(mxBeanRegistered) return;
+            mxBeanRegistered = true;
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new MXBeanImpl(), new ObjectName(OBJECT_NAME));
+            } catch (JMException | SecurityException e) {
+                log.log(Level.FINE, "Failed to register reflector metrics MXBean: {0}", e);
+            }
+        }
+    }
+
+    /**
+     * Invocation strategy of reflector method, resolved during generation
+     */
+    public enum Strategy {
+        /** Target is invoked directly */
+        DIRECT,
+
+        /** Target is invoked directly, access checks are skipped with magic accessor */
+        MAGIC_ACCESSOR,
+
+        /** Target is invoked directly from hidden nestmate of target class */
+        NESTMATE,
+
+        /** Target is invoked directly from class defined into target class package */
+        TARGET_PACKAGE,
+
+        /** Target is invoked through pre-adapted {@link java.lang.invoke.MethodHandle} with {@link java.lang.invoke.MethodHandle#invokeExact(Object...)} */
+        METHODHANDLE_EXACT,
+
+        /** Field is accessed through {@code sun.misc.Unsafe} with constant field offset */
+        UNSAFE;
+
+        /* Resolves strategy from reflector method flags, mirroring MethodGenerator */
+        @NotNull
+        static Strategy of(int flags) {
+            if((flags & Magic.FIELD_UNSAFE) != 0) return UNSAFE;
+            if((flags & Magic.REFLECTOR_METHOD_USE_METHODHANDLE) != 0 && (flags & Magic.DIRECT_ACCESS) == 0)
+                return METHODHANDLE_EXACT;
+            if((flags & Magic.USES_NESTMATE_ACCESS) != 0) return NESTMATE;
+            if((flags & Magic.USES_PACKAGE_ACCESS) != 0) return TARGET_PACKAGE;
+            if((flags & Magic.USES_MAGIC_ACCESSOR) != 0) return MAGIC_ACCESSOR;
+            return DIRECT;
+        }
+    }
+
+    /**
+     * Invocation metrics of single interface method
+     */
+    public static final class MethodMetrics {
+        private final String reflectorName;
+        private final String method;
+        private final int flags;
+        private final Strategy strategy;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder sampledCalls = new LongAdder();
+        private final LongAdder sampledNanos = new LongAdder();
+
+        MethodMetrics(String reflectorName, String method, int flags) {
+            this.reflectorName = reflectorName;
+            this.method = method;
+            this.flags = flags;
+            this.strategy = Strategy.of(flags);
+        }
+
+        /**
+         * Gets reflector class name
+         *
+         * @return Reflector class name
+         */
+        @NotNull
+        @Contract(pure = true)
+        public String getReflectorName() {
+            return reflectorName;
+        }
+
+        /**
+         * Gets interface method name and descriptor
+         *
+         * @return Interface method name and descriptor
+         */
+        @NotNull
+        @Contract(pure = true)
+        public String getMethod() {
+            return method;
+        }
+
+        /**
+         * Gets resolved invocation strategy
+         *
+         * @return Invocation strategy
+         */
+        @NotNull
+        @Contract(pure = true)
+        public Strategy getStrategy() {
+            return strategy;
+        }
+
+        /**
+         * Gets raw generator flags of this method, useful for debugging only
+         *
+         * @return Generator flags
+         */
+        @Contract(pure = true)
+        public int getFlags() {
+            return flags;
+        }
+
+        /**
+         * Gets invocation count
+         *
+         * @return Invocation count
+         */
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        /**
+         * Gets count of invocations which were timed
+         *
+         * @return Sampled invocation count
+         */
+        public long getSampledCalls() {
+            return sampledCalls.sum();
+        }
+
+        /**
+         * Gets total time spent in timed invocations, in nanoseconds
+         *
+         * @return Total sampled time
+         */
+        public long getSampledNanos() {
+            return sampledNanos.sum();
+        }
+
+        /**
+         * Gets average time of timed invocations, in nanoseconds
+         *
+         * @return Average invocation time, or 0 if no invocations were timed
+         */
+        public long getAverageNanos() {
+            long sampled = sampledCalls.sum();
+            return sampled != 0 ? sampledNanos.sum() / sampled : 0;
+        }
+
+        void reset() {
+            calls.reset();
+            sampledCalls.reset();
+            sampledNanos.reset();
+        }
+
+        @Override
+        public String toString() {
+            return "MethodMetrics{reflector=" + reflectorName + ", method=" + method + ", strategy=" + strategy +
+                    ", calls=" + getCalls() + ", averageNanos=" + getAverageNanos() + "}";
+        }
+    }
+
+    /* Exposes metrics of all reflectors */
+    private static final class MXBeanImpl implements ReflectorMetricsMXBean {
+        @Override
+        public List<MethodMetrics> getMethods() {
+            List<MethodMetrics> methods = new ArrayList<>();
+            for(ReflectorMetrics metrics : getAll())
+                Collections.addAll(methods, metrics.methods);
+            return methods;
+        }
+
+        @Override
+        public void reset() {
+            for(ReflectorMetrics metrics : getAll())
+                metrics.reset();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package eu.mikroskeem.shuriken.instrumentation.methodreflector;
+
+import java.util.List;
+
+
+/**
+ * JMX view of reflector invocation metrics, registered as {@value ReflectorMetrics#OBJECT_NAME}
+ *
+ * @author Mark Vainomaa
+ */
+public interface ReflectorMetricsMXBean {
+    /**
+     * Gets metrics of every instrumented interface method of every reflector
+     *
+     * @return List of {@link ReflectorMetrics.MethodMetrics}
+     */
+    List<ReflectorMetrics.MethodMetrics> getMethods();
+
+    /**
+     * Resets all counters
+     */
+    void reset();
+}
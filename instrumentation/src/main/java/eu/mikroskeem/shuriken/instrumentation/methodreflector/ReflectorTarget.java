@@ -0,0 +1,40 @@
+package eu.mikroskeem.shuriken.instrumentation.methodreflector;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * Annotation to mark reflector interface target class, which is known at compile time.
+ *
+ * Reflector interfaces marked with this annotation are implemented ahead of time by Shuriken annotation processor
+ * (<pre>shuriken.processor</pre>), and {@link MethodReflector} will use precompiled implementation instead of
+ * generating one at runtime. Interfaces using placeholders are not processed.
+ *
+ * @author Mark Vainomaa
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ReflectorTarget {
+    /**
+     * Suffix which is appended to interface binary name to get precompiled reflector class name
+     */
+    String PRECOMPILED_SUFFIX = "$$ShurikenReflector";
+
+    /**
+     * Target class
+     *
+     * @return Target class
+     */
+    Class<?> value();
+
+    /**
+     * Whether precompiled reflector is unbound
+     *
+     * @return Whether precompiled reflector is unbound
+     * @see MethodReflector#newUnboundInstance(Class, Class)
+     */
+    boolean unbound() default false;
+}
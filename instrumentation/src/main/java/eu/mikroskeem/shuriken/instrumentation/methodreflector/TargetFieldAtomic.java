@@ -0,0 +1,106 @@
+package eu.mikroskeem.shuriken.instrumentation.methodreflector;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * Annotation to mark atomic field operation. Operations follow {@code java.lang.invoke.VarHandle} semantics, and are
+ * backed by VarHandles on Java 9+ and by {@code sun.misc.Unsafe} on Java 8.
+ *
+ * Interface method signature depends on operation, see {@link Operation}. Unbound reflectors take target instance
+ * as first argument, like with {@link TargetFieldGetter} and {@link TargetFieldSetter}.
+ *
+ * @author Mark Vainomaa
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface TargetFieldAtomic {
+    /**
+     * Target field name. Required for atomic operation to work
+     *
+     * @return Target field name
+     */
+    String value();
+
+    /**
+     * Operation to do on field
+     *
+     * @return Field operation
+     */
+    Operation operation();
+
+    /**
+     * Field type, like <pre>Ljava/lang/String;</pre>
+     *
+     * Useful for non-public classes. Use {@link Object} in place of field types in
+     * interface method if defined.
+     *
+     * @return Field type descriptor
+     * @see org.objectweb.asm.Type
+     */
+    String type() default "";
+
+    /**
+     * Atomic field operations. {@code T} stands for field type
+     */
+    enum Operation {
+        /** Reads field with volatile semantics, {@code T get()} */
+        GET_VOLATILE(0, true),
+
+        /** Writes field with volatile semantics, {@code void set(T value)} */
+        SET_VOLATILE(1, false),
+
+        /** Reads field with acquire semantics, {@code T get()} */
+        GET_ACQUIRE(0, true),
+
+        /** Writes field with release semantics, {@code void set(T value)} */
+        SET_RELEASE(1, false),
+
+        /** Sets field to new value if it equals to expected one, {@code boolean compareAndSet(T expected, T value)} */
+        COMPARE_AND_SET(2, false),
+
+        /** Sets field to new value and returns previous one, {@code T getAndSet(T value)} */
+        GET_AND_SET(1, true),
+
+        /** Adds delta to numeric field and returns previous value, {@code T getAndAdd(T delta)} */
+        GET_AND_ADD(1, true);
+
+        private final int arguments;
+        private final boolean returnsField;
+
+        Operation(int arguments, boolean returnsField) {
+            this.arguments = arguments;
+            this.returnsField = returnsField;
+        }
+
+        /**
+         * Gets count of field type arguments, which operation takes
+         *
+         * @return Argument count
+         */
+        public int getArguments() {
+            return arguments;
+        }
+
+        /**
+         * Gets whether operation returns field value
+         *
+         * @return Whether operation returns field value
+         */
+        public boolean returnsField() {
+            return returnsField;
+        }
+
+        /**
+         * Gets whether operation modifies field
+         *
+         * @return Whether operation modifies field
+         */
+        public boolean isWrite() {
+            return this != GET_VOLATILE && this != GET_ACQUIRE;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package eu.mikroskeem.shuriken.instrumentation.methodreflector;
+
+import eu.mikroskeem.shuriken.common.SneakyThrow;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.Type;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.Buffer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Field offset lookup through {@code sun.misc.Unsafe}
+ *
+ * Field offsets are resolved once, when reflector is generated, and get embedded into reflector class as constants.
+ * Reflector methods then call {@code Unsafe.getInt}/{@code Unsafe.putObject} style intrinsics directly, which
+ * works on final and non-public fields without touching {@link Field} modifiers.
+ *
+ * @author Mark Vainomaa
+ */
+final class UnsafeFields {
+    private final static Logger log = Logger.getLogger(UnsafeFields.class.getName());
+
+    /* Unsafe type and its instance field, used by generated reflector classes */
+    final static Type UNSAFE = Type.getObjectType("sun/misc/Unsafe");
+    final static String THE_UNSAFE = "theUnsafe";
+
+    @Nullable private static final Object unsafe;
+    @Nullable private static final Method objectFieldOffset;
+    @Nullable private static final Method staticFieldOffset;
+    @Nullable private static final Method staticFieldBase;
+    @Nullable private static final Method getLong;
+
+    /* Base offset of byte array elements, and offset of direct buffer address field */
+    private static final long byteArrayBaseOffset;
+    private static final long bufferAddressOffset;
+
+    /**
+     * Checks if Unsafe is available
+     *
+     * @return Whether Unsafe is available or not
+     */
+    @Contract(pure = true)
+    static boolean isAvailable() {
+        return unsafe != null;
+    }
+
+    /**
+     * Gets Unsafe instance
+     *
+     * @return Unsafe instance, or null if it is not available
+     */
+    @Nullable
+    static Object getUnsafe() {
+        return unsafe;
+    }
+
+    /**
+     * Gets field offset, either in object or in static field base
+     *
+     * @param field Target field
+     * @return Field offset
+     */
+    @Contract("null -> fail")
+    static long getOffset(Field field) {
+        return (long) invoke(Modifier.isStatic(field.getModifiers()) ? staticFieldOffset : objectFieldOffset, field);
+    }
+
+    /**
+     * Gets static field base object, which is used instead of instance to access static fields
+     *
+     * @param field Target static field
+     * @return Static field base
+     */
+    @NotNull
+    @Contract("null -> fail")
+    static Object getStaticBase(Field field) {
+        /* Unsafe accesses don't initialize declaring class like getstatic/putstatic would */
+        Class<?> declaringClass = field.getDeclaringClass();
+        try {
+            Class.forName(declaringClass.getName(), true, declaringClass.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            SneakyThrow.throwException(e);
+        }
+        return invoke(staticFieldBase, field);
+    }
+
+    /**
+     * Gets Unsafe accessor method name for given field type, e.g. {@code getInt} or {@code putObjectVolatile}
+     *
+     * @param prefix Accessor prefix, {@code get} or {@code put}
+     * @param field Target field
+     * @return Accessor method name
+     */
+    @NotNull
+    @Contract("null, null -> fail")
+    static String getAccessorName(String prefix, Field field) {
+        return getAccessorName(prefix, field.getType(), Modifier.isVolatile(field.getModifiers()));
+    }
+
+    /**
+     * Gets Unsafe accessor method name for given value type
+     *
+     * @param prefix Accessor prefix, {@code get} or {@code put}
+     * @param type Value type
+     * @param isVolatile Whether accessor should have volatile semantics
+     * @return Accessor method name
+     */
+    @NotNull
+    @Contract("null, null, _ -> fail")
+    static String getAccessorName(String prefix, Class<?> type, boolean isVolatile) {
+        String typeName = type.isPrimitive() ?
+                Character.toUpperCase(type.getName().charAt(0)) + type.getName().substring(1) : "Object";
+        return prefix + typeName + (isVolatile ? "Volatile" : "");
+    }
+
+    /**
+     * Gets offset of first {@code byte[]} element, to be used with array as base object
+     *
+     * @return Byte array base offset
+     */
+    static long getByteArrayBaseOffset() {
+        if(unsafe == null) throw new IllegalStateException("Unsafe is not available");
+        return byteArrayBaseOffset;
+    }
+
+    /**
+     * Gets native memory address of direct buffer
+     *
+     * @param buffer Direct buffer
+     * @return Buffer memory address
+     */
+    @Contract("null -> fail")
+    static long getDirectBufferAddress(Buffer buffer) {
+        if(!buffer.isDirect()) throw new IllegalArgumentException("Buffer is not direct");
+        if(getLong == null) throw new IllegalStateException("Unsafe is not available");
+        try {
+            return (long) getLong.invoke(unsafe, buffer, bufferAddressOffset);
+        } catch (ReflectiveOperationException e) {
+            SneakyThrow.throwException(e);
+            return 0; // Unreachable
+        }
+    }
+
+    /**
+     * Gets type what Unsafe accessors use for given field type. Reference fields are erased into {@link Object}
+     *
+     * @param field Target field
+     * @return Accessor value type
+     */
+    @NotNull
+    @Contract("null -> fail")
+    static Type getAccessorType(Field field) {
+        return field.getType().isPrimitive() ? Type.getType(field.getType()) : MethodGenerator.OBJECT;
+    }
+
+    /* Invokes Unsafe method */
+    @NotNull
+    private static Object invoke(@Nullable Method method, Field field) {
+        if(method == null) throw new IllegalStateException("Unsafe is not available");
+        try {
+            return method.invoke(unsafe, field);
+        } catch (ReflectiveOperationException e) {
+            SneakyThrow.throwException(e);
+            return null; // Unreachable
+        }
+    }
+
+    static {
+        Object theUnsafe;
+        Method theObjectFieldOffset;
+        Method theStaticFieldOffset;
+        Method theStaticFieldBase;
+        Method theGetLong;
+        long theByteArrayBaseOffset;
+        long theBufferAddressOffset;
+        try {
+            Class<?> unsafeClass = Class.forName(UNSAFE.getClassName());
+            Field unsafeField = unsafeClass.getDeclaredField(THE_UNSAFE);
+            unsafeField.setAccessible(true);
+            theUnsafe = unsafeField.get(null);
+            theObjectFieldOffset = unsafeClass.getMethod("objectFieldOffset", Field.class);
+            theStaticFieldOffset = unsafeClass.getMethod("staticFieldOffset", Field.class);
+            theStaticFieldBase = unsafeClass.getMethod("staticFieldBase", Field.class);
+            theGetLong = unsafeClass.getMethod("getLong", Object.class, long.class);
+            theByteArrayBaseOffset = (int) unsafeClass.getMethod("arrayBaseOffset", Class.class).invoke(theUnsafe, byte[].class);
+            theBufferAddressOffset = (long) theObjectFieldOffset.invoke(theUnsafe, Buffer.class.getDeclaredField("address"));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.log(Level.FINE, "Unsafe is not available: {0}", e);
+            theUnsafe = null;
+            theObjectFieldOffset = null;
+            theStaticFieldOffset = null;
+            theStaticFieldBase = null;
+            theGetLong = null;
+            theByteArrayBaseOffset = 0;
+            theBufferAddressOffset = 0;
+        }
+        unsafe = theUnsafe;
+        objectFieldOffset = theObjectFieldOffset;
+        staticFieldOffset = theStaticFieldOffset;
+        staticFieldBase = theStaticFieldBase;
+        getLong = theGetLong;
+        byteArrayBaseOffset = theByteArrayBaseOffset;
+        bufferAddressOffset = theBufferAddressOffset;
+    }
+}
@@ -0,0 +1,97 @@
+package eu.mikroskeem.benchmark.shuriken.instrumentation;
+
+import eu.mikroskeem.benchmark.shuriken.instrumentation.testclasses.TestClass;
+import eu.mikroskeem.shuriken.instrumentation.ClassTools;
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.MethodReflector;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures reflector class generation time. Every invocation targets freshly defined copy of
+ * {@link TestClass}, so generated reflectors are never reused
+ *
+ * @author Mark Vainomaa
+ */
+public class GenerationBenchmark {
+    @Test
+    public void launchBenchmark() throws Exception {
+        Options opt = new OptionsBuilder()
+                .include(this.getClass().getName() + ".*")
+                .warmupTime(TimeValue.seconds(5))
+                .warmupIterations(2)
+                .measurementTime(TimeValue.seconds(1))
+                .measurementIterations(10)
+                .threads(1)
+                .forks(2)
+                .shouldFailOnError(true)
+                .shouldDoGC(true)
+                .build();
+
+        Runner runner = new Runner(opt);
+        runner.run();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void testDefineTarget(TargetBench bench, Blackhole blackhole) {
+        blackhole.consume(bench.defineTarget());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void testGenerateReflector(TargetBench bench, Blackhole blackhole) {
+        Class<?> target = bench.defineTarget();
+        blackhole.consume(MethodReflector.newUnboundInstance(target, TestClassReflector.class).getReflector());
+    }
+
+    @State(Scope.Benchmark)
+    public static class TargetBench {
+        byte[] targetClassData;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            String resourcePath = ClassTools.getClassResourcePath(TestClass.class.getName());
+            try(InputStream input = TestClass.class.getClassLoader().getResourceAsStream(resourcePath)) {
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                int read;
+                while((read = input.read(buffer)) != -1)
+                    output.write(buffer, 0, read);
+                targetClassData = output.toByteArray();
+            }
+        }
+
+        /* Defines new copy of target class in its own class loader */
+        Class<?> defineTarget() {
+            return new TargetClassLoader().define(TestClass.class.getName(), targetClassData);
+        }
+    }
+
+    private static class TargetClassLoader extends ClassLoader {
+        TargetClassLoader() {
+            super(GenerationBenchmark.class.getClassLoader());
+        }
+
+        Class<?> define(String name, byte[] data) {
+            return defineClass(name, data, 0, data.length);
+        }
+    }
+
+    public interface TestClassReflector {
+        String a(Object instance);
+        String b(Object instance);
+    }
+}
@@ -1,7 +1,10 @@
 package eu.mikroskeem.benchmark.shuriken.instrumentation;
 
 import eu.mikroskeem.benchmark.shuriken.instrumentation.testclasses.TestClass;
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.Bulk;
 import eu.mikroskeem.shuriken.instrumentation.methodreflector.MethodReflector;
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.TargetFieldGetter;
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.TargetMethod;
 import eu.mikroskeem.shuriken.reflect.ClassWrapper;
 import eu.mikroskeem.shuriken.reflect.Reflect;
 import org.junit.jupiter.api.Test;
@@ -58,6 +61,38 @@ public class InvocationBenchmark {
         blackhole.consume(mhBench.reflectorImpl.b());
     }
 
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void testMethodReflectorPrivateTarget(MethodReflectorPrivateBench privateBench, Blackhole blackhole) {
+        blackhole.consume(privateBench.reflectorImpl.c(privateBench.argument));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void testMethodReflectorPrivateReturn(MethodReflectorPrivateBench privateBench, Blackhole blackhole) {
+        blackhole.consume(privateBench.reflectorImpl.d());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void testMethodReflectorElementLoop(MethodReflectorBulkBench bulkBench, Blackhole blackhole) {
+        TestClass[] instances = bulkBench.instances;
+        int[] out = bulkBench.out;
+        for(int i = 0; i < instances.length; i++) out[i] = bulkBench.reflectorImpl.getE(instances[i]);
+        blackhole.consume(out);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void testMethodReflectorBulk(MethodReflectorBulkBench bulkBench, Blackhole blackhole) {
+        bulkBench.reflectorImpl.getE(bulkBench.instances, bulkBench.out);
+        blackhole.consume(bulkBench.out);
+    }
+
     @Benchmark
     @BenchmarkMode(Mode.Throughput)
     @OutputTimeUnit(TimeUnit.MILLISECONDS)
@@ -103,6 +138,36 @@ public class InvocationBenchmark {
         }
     }
 
+    @State(Scope.Benchmark)
+    public static class MethodReflectorPrivateBench {
+        ClassWrapper<?> tc;
+        MethodReflector<PrivateTestClassReflector> reflector;
+        PrivateTestClassReflector reflectorImpl;
+        int argument = 1;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            tc = Reflect.getClassThrows("eu.mikroskeem.benchmark.shuriken.instrumentation.testclasses.PrivateTestClass").construct();
+            reflector = MethodReflector.newInstance(tc, PrivateTestClassReflector.class);
+            reflectorImpl = reflector.getReflector();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class MethodReflectorBulkBench {
+        MethodReflector<BulkTestClassReflector> reflector;
+        BulkTestClassReflector reflectorImpl;
+        TestClass[] instances = new TestClass[10000];
+        int[] out = new int[instances.length];
+
+        @Setup(Level.Trial)
+        public void setup() {
+            for(int i = 0; i < instances.length; i++) instances[i] = new TestClass();
+            reflector = MethodReflector.newUnboundInstance(TestClass.class, BulkTestClassReflector.class);
+            reflectorImpl = reflector.getReflector();
+        }
+    }
+
     @State(Scope.Benchmark)
     public static class NativeBench {
         TestClass tc;
@@ -117,4 +182,14 @@ public class InvocationBenchmark {
         String a();
         String b();
     }
+
+    public interface BulkTestClassReflector {
+        @TargetFieldGetter("e") int getE(TestClass instance);
+        @Bulk("getE") void getE(TestClass[] instances, int[] out);
+    }
+
+    public interface PrivateTestClassReflector {
+        int c(int a);
+        @TargetMethod(desc = "()Leu/mikroskeem/benchmark/shuriken/instrumentation/testclasses/PrivateTestClass$Value;") Object d();
+    }
 }
@@ -0,0 +1,21 @@
+package eu.mikroskeem.benchmark.shuriken.instrumentation.testclasses;
+
+/**
+ * Target class which is not accessible from reflector, so its methods are invoked through MethodHandles
+ * with erased types
+ *
+ * @author Mark Vainomaa
+ */
+class PrivateTestClass {
+    private final Value value = new Value();
+
+    private int c(int a) {
+        return a + 1;
+    }
+
+    private Value d() {
+        return value;
+    }
+
+    static class Value {}
+}
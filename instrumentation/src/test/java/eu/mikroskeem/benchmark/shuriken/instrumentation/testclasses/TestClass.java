@@ -4,6 +4,8 @@ package eu.mikroskeem.benchmark.shuriken.instrumentation.testclasses;
  * @author Mark Vainomaa
  */
 public class TestClass {
+    private int e = 1;
+
     public String a() {
         return "a";
     }
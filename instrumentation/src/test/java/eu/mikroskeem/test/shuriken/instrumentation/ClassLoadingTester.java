@@ -54,4 +54,22 @@ public class ClassLoadingTester {
         Assertions.assertTrue(testFieldOptional.isPresent(), "Test field is not present!");
         Assertions.assertEquals("hey", testFieldOptional.get().read(), "Test field content didn't match!");
     }
+
+    @Test
+    public void testClassLoadingAfterLookupMiss() throws Exception {
+        SimpleClassLoader simpleClassLoader = new SimpleClassLoader(ClassLoader.getSystemClassLoader());
+
+        String className = getClass().getPackage().getName()+".GeneratedLookupMissClass";
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(V1_8, ACC_PUBLIC + ACC_SUPER, className.replace('.', '/'), null, Type.getInternalName(Object.class), null);
+        cw.visitEnd();
+
+        /* Miss gets cached, but defining class must invalidate it */
+        Assertions.assertFalse(Reflect.getClass(className, simpleClassLoader).isPresent());
+        Class<?> generated = ClassLoaderTools.defineClass(simpleClassLoader, className, cw.toByteArray());
+        Assertions.assertNotNull(generated, "Class didn't load!");
+        Optional<ClassWrapper<?>> found = Reflect.getClass(className, simpleClassLoader);
+        Assertions.assertTrue(found.isPresent(), "Class isn't present in classloader after defining it!");
+        Assertions.assertSame(generated, found.get().getWrappedClass());
+    }
 }
@@ -0,0 +1,168 @@
+package eu.mikroskeem.test.shuriken.instrumentation;
+
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.Flyweight;
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.FlyweightField;
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.FlyweightReflector;
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.MethodReflector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * @author Mark Vainomaa
+ */
+public class FlyweightReflectorTester {
+    @BeforeAll
+    public static void setupMethodReflector() {
+        MethodReflector.DEBUG = true;
+    }
+
+    @AfterAll
+    public static void cleanMethodReflector() {
+        MethodReflector.DEBUG = false;
+    }
+
+    @Test
+    public void testDirectBufferFlyweight() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(FlyweightReflector.getStride(Entity.class) * 100);
+        FlyweightReflector<Entity> reflector = FlyweightReflector.newInstance(buffer, Entity.class);
+        Assertions.assertEquals(100, reflector.getCount());
+        fillAndCheck(reflector.getReflector(), 100);
+    }
+
+    @Test
+    public void testHeapBufferFlyweight() {
+        /* Elements start from buffer position */
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 24 * 10 + 7).order(ByteOrder.nativeOrder());
+        buffer.position(4);
+        FlyweightReflector<Entity> reflector = FlyweightReflector.newInstance(buffer, Entity.class);
+        Assertions.assertEquals(10, reflector.getCount());
+        Entity entity = reflector.getReflector();
+        fillAndCheck(entity, 10);
+
+        /* Values are stored in native byte order */
+        Assertions.assertEquals(entity.getId(3), buffer.getInt(4 + 24 * 3));
+        Assertions.assertEquals(entity.getValue(3), buffer.getDouble(4 + 24 * 3 + 8));
+        Assertions.assertEquals(0, buffer.getInt(0));
+    }
+
+    @Test
+    public void testMappedFileFlyweight() throws Exception {
+        Path file = Files.createTempFile("shuriken-flyweight", ".bin");
+        try {
+            try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, 24 * 50);
+                fillAndCheck(FlyweightReflector.newInstance(mapped, Entity.class).getReflector(), 50);
+                mapped.force();
+            }
+
+            /* Data ends up in file */
+            try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, 24 * 50);
+                Assertions.assertEquals(10, mapped.order(ByteOrder.nativeOrder()).getInt(24 * 10));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testNativeMemoryFlyweight() throws Exception {
+        Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+        Field unsafeField = unsafeClass.getDeclaredField("theUnsafe");
+        unsafeField.setAccessible(true);
+        Object unsafe = unsafeField.get(null);
+        Method allocateMemory = unsafeClass.getMethod("allocateMemory", long.class);
+        Method freeMemory = unsafeClass.getMethod("freeMemory", long.class);
+
+        long address = (long) allocateMemory.invoke(unsafe, 24L * 20);
+        try {
+            fillAndCheck(FlyweightReflector.newInstance(address, 20, Entity.class).getReflector(), 20);
+        } finally {
+            freeMemory.invoke(unsafe, address);
+        }
+    }
+
+    @Test
+    public void testFlyweightBounds() {
+        Entity entity = FlyweightReflector.newInstance(ByteBuffer.allocate(24 * 2), Entity.class).getReflector();
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> entity.getId(2));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> entity.setId(-1, 1));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> entity.getFlags(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void testInvalidFlyweights() {
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> FlyweightReflector.newInstance(ByteBuffer.allocate(16), NotFlyweight.class));
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> FlyweightReflector.newInstance(ByteBuffer.allocate(16), OverflowingFlyweight.class));
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> FlyweightReflector.newInstance(ByteBuffer.allocate(16), ReferenceFlyweight.class));
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> FlyweightReflector.newInstance(ByteBuffer.allocate(48).asReadOnlyBuffer(), Entity.class));
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> FlyweightReflector.newInstance(ByteBuffer.allocate(16), EmptyFlyweight.class));
+        Assertions.assertThrows(IllegalStateException.class, () -> FlyweightReflector.getStride(EmptyFlyweight.class));
+    }
+
+    private static void fillAndCheck(Entity entity, int count) {
+        for(int i = 0; i < count; i++) {
+            entity.setId(i, i);
+            entity.setValue(i, i * 0.5);
+            entity.setFlags(i, (byte) (i & 0x7F));
+            entity.setActive(i, i % 2 == 0);
+            entity.setTick(i, i * 1000L);
+        }
+        for(int i = 0; i < count; i++) {
+            Assertions.assertEquals(i, entity.getId(i));
+            Assertions.assertEquals(i * 0.5, entity.getValue(i));
+            Assertions.assertEquals((byte) (i & 0x7F), entity.getFlags(i));
+            Assertions.assertEquals(i % 2 == 0, entity.isActive(i));
+            Assertions.assertEquals(i * 1000L, entity.getTick(i));
+        }
+    }
+
+    @Flyweight(24)
+    public interface Entity {
+        @FlyweightField(0) int getId(long index);
+        @FlyweightField(0) void setId(long index, int id);
+        @FlyweightField(4) byte getFlags(int index);
+        @FlyweightField(4) void setFlags(int index, byte flags);
+        @FlyweightField(5) boolean isActive(long index);
+        @FlyweightField(5) void setActive(long index, boolean active);
+        @FlyweightField(8) double getValue(long index);
+        @FlyweightField(8) void setValue(long index, double value);
+        @FlyweightField(value = 16, isVolatile = true) long getTick(long index);
+        @FlyweightField(value = 16, isVolatile = true) void setTick(long index, long tick);
+    }
+
+    public interface NotFlyweight {
+        @FlyweightField(0) int getId(long index);
+    }
+
+    @Flyweight(8)
+    public interface OverflowingFlyweight {
+        @FlyweightField(4) long getId(long index);
+    }
+
+    @Flyweight(8)
+    public interface ReferenceFlyweight {
+        @FlyweightField(0) String getName(long index);
+    }
+
+    @Flyweight(0)
+    public interface EmptyFlyweight {}
+}
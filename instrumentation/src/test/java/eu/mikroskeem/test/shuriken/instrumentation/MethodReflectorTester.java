@@ -1,7 +1,17 @@
 package eu.mikroskeem.test.shuriken.instrumentation;
 
+import eu.mikroskeem.shuriken.instrumentation.bytecode.BytecodeManipulation;
+import eu.mikroskeem.shuriken.instrumentation.bytecode.ClassManipulation;
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.Bulk;
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.LazyReflector;
 import eu.mikroskeem.shuriken.instrumentation.methodreflector.MethodReflector;
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.ReflectorBatch;
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.ReflectorCallSiteTransformer;
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.ReflectorCallSites;
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.ReflectorInfo;
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.ReflectorMetrics;
 import eu.mikroskeem.shuriken.instrumentation.methodreflector.TargetConstructor;
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.TargetFieldAtomic;
 import eu.mikroskeem.shuriken.instrumentation.methodreflector.TargetFieldGetter;
 import eu.mikroskeem.shuriken.instrumentation.methodreflector.TargetFieldSetter;
 import eu.mikroskeem.shuriken.instrumentation.methodreflector.TargetMethod;
@@ -10,6 +20,10 @@ import eu.mikroskeem.shuriken.reflect.Reflect;
 import eu.mikroskeem.shuriken.reflect.wrappers.TypeWrapper;
 import eu.mikroskeem.test.shuriken.instrumentation.testclasses.TestClass;
 import eu.mikroskeem.test.shuriken.instrumentation.testclasses.TestClass12;
+import eu.mikroskeem.test.shuriken.instrumentation.testclasses.TestClass14;
+import eu.mikroskeem.test.shuriken.instrumentation.testclasses.TestClass15;
+import eu.mikroskeem.test.shuriken.instrumentation.testclasses.TestClass16;
+import eu.mikroskeem.test.shuriken.instrumentation.testclasses.TestClass17;
 import eu.mikroskeem.test.shuriken.instrumentation.testclasses.TestClass3;
 import eu.mikroskeem.test.shuriken.instrumentation.testclasses.TestClass4;
 import eu.mikroskeem.test.shuriken.instrumentation.testclasses.TestClass5;
@@ -17,16 +31,58 @@ import eu.mikroskeem.test.shuriken.instrumentation.testclasses.TestClass6;
 import eu.mikroskeem.test.shuriken.instrumentation.testclasses.TestClass7;
 import eu.mikroskeem.test.shuriken.instrumentation.testclasses.TestClass8;
 import eu.mikroskeem.test.shuriken.instrumentation.testclasses.TestClass9;
+import eu.mikroskeem.test.shuriken.instrumentation.testclasses.TestTransformable6;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
-
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static eu.mikroskeem.shuriken.instrumentation.methodreflector.MethodReflector.newInstance;
+import static eu.mikroskeem.shuriken.instrumentation.methodreflector.MethodReflector.newUnboundInstance;
+import static eu.mikroskeem.shuriken.instrumentation.methodreflector.TargetFieldAtomic.Operation.COMPARE_AND_SET;
+import static eu.mikroskeem.shuriken.instrumentation.methodreflector.TargetFieldAtomic.Operation.GET_ACQUIRE;
+import static eu.mikroskeem.shuriken.instrumentation.methodreflector.TargetFieldAtomic.Operation.GET_AND_ADD;
+import static eu.mikroskeem.shuriken.instrumentation.methodreflector.TargetFieldAtomic.Operation.GET_AND_SET;
+import static eu.mikroskeem.shuriken.instrumentation.methodreflector.TargetFieldAtomic.Operation.GET_VOLATILE;
+import static eu.mikroskeem.shuriken.instrumentation.methodreflector.TargetFieldAtomic.Operation.SET_RELEASE;
+import static eu.mikroskeem.shuriken.instrumentation.methodreflector.TargetFieldAtomic.Operation.SET_VOLATILE;
 import static eu.mikroskeem.shuriken.reflect.Reflect.wrapClass;
 import static eu.mikroskeem.shuriken.reflect.Reflect.wrapInstance;
 import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_METHOD;
@@ -322,6 +378,747 @@ public class MethodReflectorTester {
         Assertions.assertEquals(tc.getWrappedClass(), tc12Ref2.getClass());
     }
 
+    @Test
+    public void testUnboundMethodReflector() {
+        MethodReflector<TestClass4UnboundReflector> reflector = newUnboundInstance(TestClass4.class, TestClass4UnboundReflector.class);
+        Assertions.assertTrue(reflector.isUnbound());
+        Assertions.assertEquals(reflector, newUnboundInstance(TestClass4.class, TestClass4UnboundReflector.class));
+        Assertions.assertSame(reflector.getReflector(), newUnboundInstance(TestClass4.class, TestClass4UnboundReflector.class).getReflector());
+
+        TestClass4UnboundReflector reflectorImpl = reflector.getReflector();
+        TestClass4 first = new TestClass4();
+        TestClass4 second = new TestClass4();
+        ClassWrapper<TestClass4> tc = wrapInstance(first);
+        Assertions.assertEquals(tc.invokeMethod("a", String.class), reflectorImpl.a(first));
+        Assertions.assertEquals(tc.invokeMethod("a", String.class), reflectorImpl.a(second));
+        Assertions.assertEquals(tc.invokeMethod("b", int.class).intValue(), reflectorImpl.b(second));
+        reflectorImpl.c(first);
+        Assertions.assertEquals(tc.invokeMethod("d", char.class).charValue(), reflectorImpl.d(first));
+        Assertions.assertEquals("", reflectorImpl.e(3, "a", 'a'));
+    }
+
+    @Test
+    public void testUnboundFieldMethodReflector() {
+        MethodReflector<TestClass6UnboundReflector> reflector = newUnboundInstance(TestClass6.class, TestClass6UnboundReflector.class);
+
+        TestClass6UnboundReflector reflectorImpl = reflector.getReflector();
+        TestClass6 first = new TestClass6();
+        TestClass6 second = new TestClass6();
+        Assertions.assertEquals("abcdef", reflectorImpl.getA(first));
+        Assertions.assertEquals("c", reflectorImpl.getB());
+
+        reflectorImpl.setD(first, "j");
+        Assertions.assertEquals("j", reflectorImpl.getD(first));
+        Assertions.assertEquals("e", reflectorImpl.getD(second));
+    }
+
+    @Test
+    public void testUnboundReflectionOnNonPublicClass() {
+        ClassWrapper<?> tc = Reflect.getClass(TestClass9.class.getPackage().getName() + ".TestClass10").orElse(null);
+        MethodReflector<TestClass10UnboundReflector> reflector = newUnboundInstance(tc, TestClass10UnboundReflector.class);
+
+        TestClass10UnboundReflector reflectorImpl = reflector.getReflector();
+        Object first = Reflect.wrapClass(tc.getWrappedClass()).construct().getClassInstance();
+        Object second = Reflect.wrapClass(tc.getWrappedClass()).construct().getClassInstance();
+        reflectorImpl.setA(first, "b");
+        Assertions.assertEquals("b", reflectorImpl.getA(first));
+        Assertions.assertEquals("a", reflectorImpl.getA(second));
+        Assertions.assertNotNull(reflectorImpl.getTC11(first));
+        Assertions.assertNotEquals(reflectorImpl.getTC11(first), reflectorImpl.getTC11(second));
+    }
+
+    @Test
+    public void testAtomicFieldMethodReflector() throws Exception {
+        ClassWrapper<TestClass15> tc = wrapClass(TestClass15.class).construct();
+        MethodReflector<TestClass15Reflector> reflector = newInstance(tc, TestClass15Reflector.class);
+        TestClass15Reflector reflectorImpl = reflector.getReflector();
+
+        Assertions.assertEquals(0, reflectorImpl.getAndAddCounter(5));
+        Assertions.assertEquals(5, reflectorImpl.getCounter());
+
+        Assertions.assertTrue(reflectorImpl.compareAndSetState("a", "b"));
+        Assertions.assertFalse(reflectorImpl.compareAndSetState("a", "c"));
+        Assertions.assertEquals("b", reflectorImpl.getAndSetState("d"));
+        Assertions.assertEquals("d", tc.getField("state", String.class).get().read());
+
+        reflectorImpl.setTotalRelease(10L);
+        Assertions.assertEquals(10L, reflectorImpl.getAndAddTotal(5L));
+        Assertions.assertEquals(15L, reflectorImpl.getTotalAcquire());
+        reflectorImpl.setTotal(1L);
+        Assertions.assertEquals(1L, (long) tc.getField("total", long.class).get().read());
+
+        Assertions.assertEquals(0, reflectorImpl.getAndSetInstances(3));
+        Assertions.assertEquals(3, (int) wrapClass(TestClass15.class).getField("instances", int.class).get().read());
+
+        /* Atomic operations are not available on final fields */
+        Assertions.assertThrows(RuntimeException.class, () -> reflectorImpl.setConstant(2));
+
+        /* Concurrent updates don't get lost */
+        int threads = 4;
+        int increments = 10000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for(int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    for(int j = 0; j < increments; j++) reflectorImpl.getAndAddCounter(1);
+                }));
+            }
+            for(Future<?> future : futures) future.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        Assertions.assertEquals(5 + threads * increments, reflectorImpl.getCounter());
+    }
+
+    @Test
+    public void testUnboundAtomicFieldMethodReflector() {
+        MethodReflector<TestClass15UnboundReflector> reflector = newUnboundInstance(TestClass15.class, TestClass15UnboundReflector.class);
+        TestClass15UnboundReflector reflectorImpl = reflector.getReflector();
+        TestClass15 first = new TestClass15();
+        TestClass15 second = new TestClass15();
+
+        Assertions.assertTrue(reflectorImpl.compareAndSetCounter(first, 0, 2));
+        Assertions.assertEquals(2, reflectorImpl.getCounter(first));
+        Assertions.assertEquals(0, reflectorImpl.getCounter(second));
+        Assertions.assertThrows(NullPointerException.class, () -> reflectorImpl.getCounter(null));
+    }
+
+    @Test
+    public void testFinalAndPrivateFieldMethodReflector() {
+        ClassWrapper<TestClass16> tc = wrapClass(TestClass16.class).construct();
+        MethodReflector<TestClass16Reflector> reflector = newInstance(tc, TestClass16Reflector.class);
+        TestClass16Reflector reflectorImpl = reflector.getReflector();
+
+        reflectorImpl.setA(10);
+        Assertions.assertEquals(10, reflectorImpl.getA());
+        reflectorImpl.setB(20L);
+        Assertions.assertEquals(20L, reflectorImpl.getB());
+        reflectorImpl.setC("foo");
+        Assertions.assertEquals("foo", reflectorImpl.getC());
+        reflectorImpl.setD('x');
+        Assertions.assertEquals('x', reflectorImpl.getD());
+        Assertions.assertThrows(ClassCastException.class, () -> reflectorImpl.setD("x"));
+        Assertions.assertEquals('x', reflectorImpl.getD());
+
+        Assertions.assertEquals(5, reflectorImpl.getE());
+        reflectorImpl.setE(6);
+        Assertions.assertEquals(6, reflectorImpl.getE());
+    }
+
+    @Test
+    public void testUnboundFinalFieldMethodReflector() {
+        MethodReflector<TestClass16UnboundReflector> reflector = newUnboundInstance(TestClass16.class, TestClass16UnboundReflector.class);
+        TestClass16UnboundReflector reflectorImpl = reflector.getReflector();
+        TestClass16 first = new TestClass16();
+        TestClass16 second = new TestClass16();
+
+        reflectorImpl.setC(first, "bar");
+        Assertions.assertEquals("bar", reflectorImpl.getC(first));
+        Assertions.assertEquals("c", reflectorImpl.getC(second));
+        Assertions.assertThrows(NullPointerException.class, () -> reflectorImpl.getC(null));
+        Assertions.assertThrows(NullPointerException.class, () -> reflectorImpl.setC(null, "baz"));
+    }
+
+    @Test
+    public void testFinalFieldSetterAfterClassWrapperRead() {
+        /* Reading final field through ClassWrapper must not affect how reflectors see the field */
+        ClassWrapper<TestClass17> tc = wrapInstance(new TestClass17());
+        Assertions.assertEquals("a", tc.getField("fin", String.class).get().read());
+
+        MethodReflector<TestClass17Reflector> reflector = newInstance(tc, TestClass17Reflector.class);
+        ReflectorInfo.MethodInfo setter = reflector.getInfo().getMethods().stream()
+                .filter(m -> m.getMethod().equals("setFin(Ljava/lang/String;)V"))
+                .findFirst().orElseThrow(AssertionError::new);
+        Assertions.assertNotEquals(ReflectorMetrics.Strategy.MAGIC_ACCESSOR, setter.getStrategy());
+        Assertions.assertNotEquals(ReflectorMetrics.Strategy.NESTMATE, setter.getStrategy());
+
+        TestClass17Reflector reflectorImpl = reflector.getReflector();
+        reflectorImpl.setFin("b");
+        Assertions.assertEquals("b", reflectorImpl.getFin());
+        Assertions.assertEquals("b", tc.getField("fin", String.class).get().read());
+    }
+
+    @Test
+    public void testBulkMethodReflector() {
+        testBulkMethodReflector(newUnboundInstance(TestClass16.class, TestClass16BulkReflector.class).getReflector());
+    }
+
+    @Test
+    public void testLazyBulkMethodReflector() {
+        testBulkMethodReflector(newUnboundInstance(TestClass16.class, TestClass16LazyBulkReflector.class).getReflector());
+    }
+
+    private void testBulkMethodReflector(TestClass16BulkReflector reflectorImpl) {
+        TestClass16[] instances = new TestClass16[100];
+        for(int i = 0; i < instances.length; i++) instances[i] = new TestClass16(i);
+
+        int[] values = new int[instances.length];
+        reflectorImpl.getA(instances, values);
+        for(int i = 0; i < values.length; i++) Assertions.assertEquals(i, values[i]);
+
+        String[] strings = new String[instances.length];
+        reflectorImpl.getC(Arrays.asList(instances), strings);
+        for(int i = 0; i < strings.length; i++) Assertions.assertEquals("c" + i, strings[i]);
+
+        reflectorImpl.call(instances);
+        reflectorImpl.call(Arrays.asList(instances).subList(0, 10));
+        Assertions.assertEquals(2, reflectorImpl.getCalls(instances[0]));
+        Assertions.assertEquals(1, reflectorImpl.getCalls(instances[10]));
+
+        /* Empty input does nothing, too short output fails */
+        reflectorImpl.getA(new TestClass16[0], new int[0]);
+        Assertions.assertThrows(ArrayIndexOutOfBoundsException.class, () -> reflectorImpl.getA(instances, new int[1]));
+        Assertions.assertThrows(NullPointerException.class, () -> reflectorImpl.getA(new TestClass16[1], new int[1]));
+    }
+
+    @Test
+    public void testLazyBulkMethodReflectorMatchesEager() {
+        TestClass16BulkReflector eager = newUnboundInstance(TestClass16.class, TestClass16BulkReflector.class).getReflector();
+        TestClass16BulkReflector lazy = newUnboundInstance(TestClass16.class, TestClass16LazyBulkReflector.class).getReflector();
+        TestClass16[] instances = new TestClass16[50];
+        for(int i = 0; i < instances.length; i++) instances[i] = i % 2 == 0 ? new TestClass16(i) : new TestClass16();
+
+        int[] eagerInts = new int[instances.length], lazyInts = new int[instances.length];
+        eager.getA(instances, eagerInts);
+        lazy.getA(instances, lazyInts);
+        Assertions.assertArrayEquals(eagerInts, lazyInts);
+
+        long[] eagerLongs = new long[instances.length], lazyLongs = new long[instances.length];
+        eager.getB(instances, eagerLongs);
+        lazy.getB(instances, lazyLongs);
+        Assertions.assertArrayEquals(eagerLongs, lazyLongs);
+
+        char[] eagerChars = new char[instances.length], lazyChars = new char[instances.length];
+        eager.getD(Arrays.asList(instances), eagerChars);
+        lazy.getD(Arrays.asList(instances), lazyChars);
+        Assertions.assertArrayEquals(eagerChars, lazyChars);
+    }
+
+    @Test
+    public void testInvalidBulkMethodReflector() {
+        Assertions.assertThrows(IllegalStateException.class, () ->
+                newUnboundInstance(TestClass16.class, TestClass16InvalidBulkReflector.class));
+
+        /* Lazy reflectors report invalid bulk methods on first invocation */
+        TestClass16InvalidBulkReflector lazy = newUnboundInstance(TestClass16.class, TestClass16LazyInvalidBulkReflector.class).getReflector();
+        BootstrapMethodError e = Assertions.assertThrows(BootstrapMethodError.class, () -> lazy.getA(new TestClass16[0], new long[0]));
+        Assertions.assertTrue(e.getCause() instanceof IllegalStateException, "Linking should fail with IllegalStateException");
+    }
+
+    @Test
+    public void testConcurrentMethodReflectorGeneration() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Class<?>>> futures = new ArrayList<>();
+            for(int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return newUnboundInstance(TestClass4.class, TestClass4ConcurrentReflector.class).getReflector().getClass();
+                }));
+            }
+            start.countDown();
+
+            Class<?> reflectorClass = futures.get(0).get();
+            for(Future<Class<?>> future : futures)
+                Assertions.assertSame(reflectorClass, future.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testReflectorBatchGeneration() throws Exception {
+        ClassWrapper<TestClass16> tc = wrapClass(TestClass16.class).construct();
+        List<MethodReflector<?>> reflectors = new ReflectorBatch()
+                .add(tc, TestClass16Reflector.class)
+                .addUnbound(TestClass16.class, TestClass16UnboundReflector.class)
+                .addUnbound(TestClass15.class, TestClass15UnboundReflector.class)
+                .addUnbound(TestClass4.class, TestClass4ConcurrentReflector.class)
+                .generate()
+                .get(30, TimeUnit.SECONDS);
+        Assertions.assertEquals(4, reflectors.size());
+
+        /* Reflectors are returned in order, and already generated reflector classes are reused afterwards */
+        TestClass16Reflector boundReflector = (TestClass16Reflector) reflectors.get(0).getReflector();
+        boundReflector.setA(7);
+        Assertions.assertEquals(7, boundReflector.getA());
+        Assertions.assertSame(reflectors.get(1).getReflector().getClass(),
+                newUnboundInstance(TestClass16.class, TestClass16UnboundReflector.class).getReflector().getClass());
+        Assertions.assertSame(reflectors.get(3).getReflector().getClass(),
+                newUnboundInstance(TestClass4.class, TestClass4ConcurrentReflector.class).getReflector().getClass());
+
+        /* Failures don't affect other reflectors of batch */
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<CompletableFuture<MethodReflector<?>>> futures = new ReflectorBatch()
+                    .addUnbound(TestClass15.class, TestClass15UnboundReflector.class)
+                    .addUnbound(TestClass15.class, TestClass15.class)
+                    .generateEach(executor);
+            Assertions.assertSame(reflectors.get(2).getReflector().getClass(),
+                    futures.get(0).get(30, TimeUnit.SECONDS).getReflector().getClass());
+            ExecutionException e = Assertions.assertThrows(ExecutionException.class,
+                    () -> futures.get(1).get(30, TimeUnit.SECONDS));
+            Assertions.assertTrue(e.getCause() instanceof IllegalStateException);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testReflectorInfo() {
+        MethodReflector<TestClass16InfoReflector> reflector = newUnboundInstance(TestClass16.class, TestClass16InfoReflector.class);
+        ReflectorInfo info = reflector.getInfo();
+        Assertions.assertEquals(reflector.getReflector().getClass().getName(), info.getReflectorName());
+        Assertions.assertEquals(TestClass16.class.getName(), info.getTargetName());
+        Assertions.assertEquals(TestClass16InfoReflector.class.getName(), info.getInterfaceName());
+        Assertions.assertEquals(ReflectorInfo.Source.GENERATED, info.getSource());
+        Assertions.assertTrue(info.getBytecodeSize() > 0);
+        Assertions.assertTrue(info.getGenerationNanos() > 0);
+
+        /* Every interface method is reported */
+        Map<String, ReflectorInfo.MethodInfo> methods = new HashMap<>();
+        for(ReflectorInfo.MethodInfo method : info.getMethods()) methods.put(method.getMethod(), method);
+        Assertions.assertEquals(3, methods.size());
+        ReflectorInfo.MethodInfo getter = methods.get("getA(L" + TestClass16.class.getName().replace('.', '/') + ";)I");
+        Assertions.assertNotNull(getter.getStrategy());
+        Assertions.assertFalse(getter.isFailed());
+        ReflectorInfo.MethodInfo bulk = methods.get("getA([L" + TestClass16.class.getName().replace('.', '/') + ";[I)V");
+        Assertions.assertNull(bulk.getStrategy());
+        Assertions.assertFalse(bulk.isFailed());
+        ReflectorInfo.MethodInfo missing = methods.get("getMissing(Ljava/lang/Object;)I");
+        Assertions.assertNull(missing.getStrategy());
+        Assertions.assertTrue(missing.isFailed());
+
+        /* Report is registered and exported */
+        Assertions.assertTrue(ReflectorInfo.getAll().contains(info));
+        String json = ReflectorInfo.exportJson();
+        Assertions.assertTrue(json.startsWith("[") && json.endsWith("]"));
+        Assertions.assertTrue(json.contains(info.toJson()));
+        Assertions.assertTrue(info.toJson().contains("\"source\":\"GENERATED\""));
+        Assertions.assertTrue(info.toJson().contains("\"failed\":true"));
+    }
+
+    @Test
+    public void testNestmateMethodReflector() throws Exception {
+        Method isHidden;
+        try {
+            isHidden = Class.class.getMethod("isHidden");
+            MethodHandles.Lookup.class.getMethod("defineHiddenClassWithClassData", byte[].class, Object.class,
+                    boolean.class, Class.forName("[Ljava.lang.invoke.MethodHandles$Lookup$ClassOption;"));
+        } catch (NoSuchMethodException | ClassNotFoundException e) {
+            isHidden = null;
+        }
+        Assumptions.assumeTrue(isHidden != null, "Hidden classes are not supported");
+
+        MethodReflector<TestClass4UnboundReflector> reflector = newUnboundInstance(TestClass4.class, TestClass4UnboundReflector.class);
+        Class<?> reflectorClass = reflector.getReflector().getClass();
+        Assertions.assertTrue((Boolean) isHidden.invoke(reflectorClass));
+        Assertions.assertEquals(TestClass4.class, Class.class.getMethod("getNestHost").invoke(reflectorClass));
+        Assertions.assertEquals(0, reflectorClass.getDeclaredFields().length, "Nestmate reflector should not use MethodHandles");
+        Assertions.assertEquals("", reflector.getReflector().a(new TestClass4()));
+    }
+
+    @Test
+    public void testPackageMethodReflector() throws Exception {
+        boolean packageAccess = false;
+        try {
+            MethodHandles.Lookup.class.getMethod("defineClass", byte[].class);
+            packageAccess = true;
+            Class.class.getMethod("isHidden");
+            packageAccess = false; /* Hidden nestmates are used instead */
+        } catch (NoSuchMethodException e) {
+            /* Either not supported, or hidden classes are not supported */
+        }
+        Assumptions.assumeTrue(packageAccess, "Lookup#defineClass is not supported or hidden classes are used instead");
+
+        MethodReflector<TestClass4UnboundReflector> reflector = newUnboundInstance(TestClass4.class, TestClass4UnboundReflector.class);
+        Class<?> reflectorClass = reflector.getReflector().getClass();
+        Assertions.assertEquals(TestClass4.class.getClassLoader(), reflectorClass.getClassLoader());
+        Assertions.assertEquals(TestClass4.class.getPackage().getName(), reflectorClass.getPackage().getName());
+
+        /* Package-private and public members are accessed directly, private ones through MethodHandles */
+        Map<String, ReflectorMetrics.Strategy> strategies = new HashMap<>();
+        for(ReflectorInfo.MethodInfo method : reflector.getInfo().getMethods())
+            strategies.put(method.getMethod().substring(0, method.getMethod().indexOf('(')), method.getStrategy());
+        Assertions.assertEquals(ReflectorMetrics.Strategy.TARGET_PACKAGE, strategies.get("b"));
+        Assertions.assertEquals(ReflectorMetrics.Strategy.TARGET_PACKAGE, strategies.get("d"));
+        Assertions.assertEquals(ReflectorMetrics.Strategy.METHODHANDLE_EXACT, strategies.get("a"));
+
+        TestClass4 instance = new TestClass4();
+        Assertions.assertEquals("", reflector.getReflector().a(instance));
+        Assertions.assertEquals(0, reflector.getReflector().b(instance));
+        Assertions.assertEquals('a', reflector.getReflector().d(instance));
+        Assertions.assertEquals("", reflector.getReflector().e(1, "", 'c'));
+    }
+
+    @Test
+    public void testPersistentReflectorCache() throws Exception {
+        Path cacheDirectory = Files.createTempDirectory("shuriken-reflector-cache");
+        MethodReflector.DEBUG = false;
+        MethodReflector.setCacheDirectory(cacheDirectory);
+        try {
+            MethodReflector<TestClass4CachedReflector> reflector = newUnboundInstance(TestClass4.class, TestClass4CachedReflector.class);
+            Assertions.assertEquals("", reflector.getReflector().a(new TestClass4()));
+            try(Stream<Path> files = Files.list(cacheDirectory)) {
+                Assertions.assertEquals(1, files.filter(f -> f.toString().endsWith(".bin")).count());
+            }
+
+            /* Fresh factory should pick reflector class up from cache instead of generating new one */
+            Object generated = generateReflector(newFactory(cacheDirectory), TestClass4.class, TestClass4CachedReflector.class, true);
+            Assertions.assertEquals(ReflectorInfo.Source.CACHED, getSource(generated));
+            TestClass4CachedReflector cached = (TestClass4CachedReflector) newReflectorInstance(generated);
+
+            Assertions.assertNotSame(reflector.getReflector().getClass(), cached.getClass());
+            Assertions.assertNotEquals(reflector.getReflector().getClass().getName(), cached.getClass().getName(),
+                    "Cached reflector class should get new name");
+            Assertions.assertEquals("", cached.a(new TestClass4()));
+        } finally {
+            MethodReflector.setCacheDirectory(null);
+            MethodReflector.DEBUG = true;
+            try(Stream<Path> files = Files.list(cacheDirectory)) {
+                for(Path file : (Iterable<Path>) files::iterator) Files.delete(file);
+            }
+            Files.delete(cacheDirectory);
+        }
+    }
+
+    @Test
+    public void testPersistentReflectorCacheNewVariant() throws Exception {
+        Path cacheDirectory = Files.createTempDirectory("shuriken-reflector-cache");
+        MethodReflector.DEBUG = false;
+        try {
+            /* Bound reflector gets stored into cache */
+            IsolatedClassLoader first = new IsolatedClassLoader();
+            generateReflector(newFactory(cacheDirectory), first.define(TestClass3.class), first.define(TestClass3CachedReflector.class), false);
+
+            /* Same classes in fresh class loader, like after restart. Bound reflector comes from cache, unbound one is generated */
+            IsolatedClassLoader second = new IsolatedClassLoader();
+            Class<?> target = second.define(TestClass3.class);
+            Class<?> intf = second.define(TestClass3CachedReflector.class);
+            Object factory = newFactory(cacheDirectory);
+            Object generatedBound = generateReflector(factory, target, intf, false);
+            Object generatedUnbound = generateReflector(factory, target, intf, true);
+            Assertions.assertEquals(ReflectorInfo.Source.CACHED, getSource(generatedBound));
+            Assertions.assertEquals(ReflectorInfo.Source.GENERATED, getSource(generatedUnbound));
+
+            Object bound = newReflectorInstance(generatedBound);
+            Object unbound = newReflectorInstance(generatedUnbound);
+            Assertions.assertNotEquals(bound.getClass(), unbound.getClass());
+            Assertions.assertEquals("", intf.getMethod("a").invoke(bound));
+            Assertions.assertEquals(0, intf.getMethod("b").invoke(unbound));
+        } finally {
+            MethodReflector.DEBUG = true;
+            try(Stream<Path> files = Files.list(cacheDirectory)) {
+                for(Path file : (Iterable<Path>) files::iterator) Files.delete(file);
+            }
+            Files.delete(cacheDirectory);
+        }
+    }
+
+    @Test
+    public void testLazyMethodReflector() {
+        TestClass4 instance = new TestClass4();
+        MethodReflector<TestClass4LazyReflector> reflector = newInstance(wrapInstance(instance), TestClass4LazyReflector.class);
+
+        /* Targets are resolved on first invocation, so missing target fails only when called */
+        TestClass4LazyReflector reflectorImpl = reflector.getReflector();
+        ClassWrapper<TestClass4> tc = wrapInstance(instance);
+        Assertions.assertEquals(tc.invokeMethod("a", String.class), reflectorImpl.a());
+        Assertions.assertEquals(tc.invokeMethod("b", int.class).intValue(), reflectorImpl.b());
+        reflectorImpl.c();
+        Assertions.assertEquals(tc.invokeMethod("d", char.class).charValue(), reflectorImpl.d());
+        Assertions.assertEquals("", reflectorImpl.e(3, "a", 'a'));
+        Assertions.assertEquals("default", reflectorImpl.f());
+        Assertions.assertThrows(RuntimeException.class, reflectorImpl::g);
+
+        /* Linked call sites stay usable */
+        Assertions.assertEquals(tc.invokeMethod("a", String.class), reflectorImpl.a());
+        Assertions.assertThrows(RuntimeException.class, reflectorImpl::g);
+    }
+
+    @Test
+    public void testLazyMethodReflectorWithoutInstance() {
+        MethodReflector<TestClass4LazyReflector> reflector = newInstance(wrapClass(TestClass4.class), TestClass4LazyReflector.class);
+
+        TestClass4LazyReflector reflectorImpl = reflector.getReflector();
+        Assertions.assertEquals("", reflectorImpl.e(3, "a", 'a'));
+        Assertions.assertThrows(IllegalStateException.class, reflectorImpl::a);
+    }
+
+    @Test
+    public void testLazyFieldAndConstructorReflector() {
+        ClassWrapper<TestClass6> tc = wrapClass(TestClass6.class).construct();
+        TestClass6LazyReflector reflectorImpl = newInstance(tc, TestClass6LazyReflector.class).getReflector();
+        Assertions.assertEquals("abcdef", reflectorImpl.getA());
+        Assertions.assertEquals("c", reflectorImpl.getB());
+        reflectorImpl.setD("j");
+        Assertions.assertEquals("j", reflectorImpl.getD());
+
+        TestClass7LazyReflector constructorImpl = newInstance(wrapClass(TestClass7.class), TestClass7LazyReflector.class).getReflector();
+        Assertions.assertEquals(TestClass7.class, constructorImpl.New().getClass());
+        Assertions.assertEquals(TestClass7.class, constructorImpl.New('a', -1).getClass());
+
+        TestClass6LazyUnboundReflector unboundImpl = newUnboundInstance(TestClass6.class, TestClass6LazyUnboundReflector.class).getReflector();
+        TestClass6 first = new TestClass6();
+        unboundImpl.setD(first, "k");
+        Assertions.assertEquals("k", unboundImpl.getD(first));
+        Assertions.assertEquals("abcdef", unboundImpl.getA(first));
+    }
+
+    @Test
+    public void testReflectorMetrics() throws Exception {
+        boolean metricsEnabled = MethodReflector.METRICS;
+        int sampleInterval = MethodReflector.METRICS_SAMPLE_INTERVAL;
+        MethodReflector.METRICS = true;
+        MethodReflector.METRICS_SAMPLE_INTERVAL = 1;
+        try {
+            MethodReflector<TestClass4MetricsReflector> reflector = newInstance(wrapInstance(new TestClass4()), TestClass4MetricsReflector.class);
+            TestClass4MetricsReflector reflectorImpl = reflector.getReflector();
+            Assertions.assertEquals("", reflectorImpl.a());
+            Assertions.assertEquals("", reflectorImpl.a());
+            reflectorImpl.c();
+            Assertions.assertThrows(RuntimeException.class, reflectorImpl::g);
+
+            ReflectorMetrics metrics = reflector.getMetrics();
+            Assertions.assertNotNull(metrics, "Reflector should have metrics");
+            Assertions.assertEquals(TestClass4.class.getName(), metrics.getTargetName());
+            Assertions.assertTrue(ReflectorMetrics.getAll().contains(metrics));
+
+            /* Methods without target are not instrumented */
+            Assertions.assertEquals(2, metrics.getMethods().size());
+            ReflectorMetrics.MethodMetrics a = getMethodMetrics(metrics, "a()Ljava/lang/String;");
+            ReflectorMetrics.MethodMetrics c = getMethodMetrics(metrics, "c()V");
+            Assertions.assertEquals(2, a.getCalls());
+            Assertions.assertEquals(2, a.getSampledCalls());
+            Assertions.assertEquals(1, c.getCalls());
+            Assertions.assertNotNull(a.getStrategy());
+
+            /* Metrics are exposed through JMX */
+            CompositeData[] methods = (CompositeData[]) ManagementFactory.getPlatformMBeanServer()
+                    .getAttribute(new ObjectName(ReflectorMetrics.OBJECT_NAME), "Methods");
+            Assertions.assertTrue(Stream.of(methods).anyMatch(method ->
+                    metrics.getReflectorName().equals(method.get("reflectorName")) &&
+                            "a()Ljava/lang/String;".equals(method.get("method")) &&
+                            ((Long) method.get("calls")) == 2L &&
+                            a.getStrategy().name().equals(method.get("strategy"))));
+
+            metrics.reset();
+            Assertions.assertEquals(0, a.getCalls());
+        } finally {
+            MethodReflector.METRICS = metricsEnabled;
+            MethodReflector.METRICS_SAMPLE_INTERVAL = sampleInterval;
+        }
+
+        /* Reflectors generated without metrics don't have them */
+        Assertions.assertNull(newInstance(wrapInstance(new TestClass4()), TestClass4NoMetricsReflector.class).getMetrics());
+    }
+
+    @Test
+    public void testReflectorClassUnloading() throws Exception {
+        WeakReference<ClassLoader> classLoader = generateIsolatedReflector();
+        for(int i = 0; i < 50 && classLoader.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        Assertions.assertNull(classLoader.get(), "Target class loader should be collected along with its reflector classes");
+    }
+
+    /* Kept in separate method, so nothing stays referenced from test method stack frame */
+    private static WeakReference<ClassLoader> generateIsolatedReflector() throws Exception {
+        IsolatedClassLoader classLoader = new IsolatedClassLoader();
+        Class<?> target = classLoader.define(TestClass14.class);
+        Assertions.assertNotEquals(TestClass14.class, target);
+
+        TestClass14Reflector reflectorImpl = newInstance(wrapInstance(target.newInstance()), TestClass14Reflector.class).getReflector();
+        Assertions.assertEquals("a", reflectorImpl.a());
+        Assertions.assertEquals("b", reflectorImpl.b());
+        Assertions.assertNotEquals(MethodReflector.class.getClassLoader(), reflectorImpl.getClass().getClassLoader(),
+                "Reflector class should not be defined in Shuriken's class loader");
+        return new WeakReference<>(classLoader);
+    }
+
+    @Test
+    public void testInterfaceClassLoaderUnloading() throws Exception {
+        WeakReference<ClassLoader> classLoader = generatePluginReflector();
+        for(int i = 0; i < 50 && classLoader.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        Assertions.assertNull(classLoader.get(), "Interface class loader should be collected along with its reflector classes");
+    }
+
+    /* Like plugin, which reflects class from parent class loader. Kept in separate method, so nothing stays referenced from test method stack frame */
+    private static WeakReference<ClassLoader> generatePluginReflector() throws Exception {
+        IsolatedClassLoader classLoader = new IsolatedClassLoader();
+        Class<?> intf = classLoader.define(TestClass14Reflector.class);
+        Assertions.assertNotEquals(TestClass14Reflector.class, intf);
+
+        Object reflectorImpl = newInstance(wrapInstance(new TestClass14()), intf).getReflector();
+        Assertions.assertEquals("a", intf.getMethod("a").invoke(reflectorImpl));
+        Assertions.assertEquals("b", intf.getMethod("b").invoke(reflectorImpl));
+        return new WeakReference<>(classLoader);
+    }
+
+    @Test
+    public void testBridgedInterfaceClassLoaderUnloading() throws Exception {
+        /* Neither class loader sees classes of the other, target class stays alive */
+        URL testClasses = MethodReflectorTester.class.getProtectionDomain().getCodeSource().getLocation();
+        try(URLClassLoader targetLoader = new URLClassLoader(new URL[] { testClasses }, null)) {
+            Class<?> target = targetLoader.loadClass(TestClass14.class.getName());
+            WeakReference<ClassLoader> classLoader = generateBridgedReflector(target, testClasses);
+            for(int i = 0; i < 50 && classLoader.get() != null; i++) {
+                System.gc();
+                Thread.sleep(20);
+            }
+            Assertions.assertNull(classLoader.get(), "Target class should not keep interface class loader alive");
+            Assertions.assertNotEquals(TestClass14.class, target);
+        }
+    }
+
+    /* Kept in separate method, so nothing stays referenced from test method stack frame */
+    private static WeakReference<ClassLoader> generateBridgedReflector(Class<?> target, URL testClasses) throws Exception {
+        URLClassLoader classLoader = new URLClassLoader(new URL[] { testClasses }, null);
+        Class<?> intf = classLoader.loadClass(TestClass14Reflector.class.getName());
+        Assertions.assertNotEquals(TestClass14Reflector.class, intf);
+
+        Object reflectorImpl = newInstance(wrapInstance(target.newInstance()), intf).getReflector();
+        Assertions.assertEquals("a", intf.getMethod("a").invoke(reflectorImpl));
+        Assertions.assertEquals("b", intf.getMethod("b").invoke(reflectorImpl));
+        classLoader.close();
+        return new WeakReference<>(classLoader);
+    }
+
+    @Test
+    public void testReflectorBridgingClassLoaders() throws Exception {
+        /* Neither class loader sees classes of the other */
+        Class<?> target = new IsolatedClassLoader().define(TestClass14.class);
+        Class<?> intf = new IsolatedClassLoader().define(TestClass14Reflector.class);
+        Assertions.assertNotEquals(TestClass14Reflector.class, intf);
+
+        Object reflectorImpl = newInstance(wrapInstance(target.newInstance()), intf).getReflector();
+        Assertions.assertTrue(intf.isInstance(reflectorImpl));
+        Assertions.assertEquals("a", intf.getMethod("a").invoke(reflectorImpl));
+        Assertions.assertEquals("b", intf.getMethod("b").invoke(reflectorImpl));
+    }
+
+    @Test
+    public void testReflectorCallSiteTransformer() throws Exception {
+        ReflectorCallSiteTransformer transformer = new ReflectorCallSiteTransformer(
+                name -> name.equals(TestTransformable6.class.getName()),
+                Collections.singletonList(TestTransformable6.Reflector.class));
+        String consumerName = Type.getInternalName(TestTransformable6.class);
+        Assertions.assertNull(transformer.transform(getClass().getClassLoader(), Type.getInternalName(TestClass16.class),
+                null, null, readClassData(TestClass16.class)));
+
+        /* Interface invocations are replaced with invokedynamic */
+        byte[] transformed = transformer.transform(getClass().getClassLoader(), consumerName, null, null,
+                readClassData(TestTransformable6.class));
+        Assertions.assertNotNull(transformed);
+        ClassNode consumerNode = ClassManipulation.readClass(transformed);
+        int invokeDynamics = 0;
+        for(MethodNode method : consumerNode.methods) {
+            Assertions.assertTrue(BytecodeManipulation.findInstructions(method.instructions, MethodInsnNode.class,
+                    insn -> insn.owner.equals(Type.getInternalName(TestTransformable6.Reflector.class))).isEmpty());
+            invokeDynamics += BytecodeManipulation.findInstructions(method.instructions, InvokeDynamicInsnNode.class, insn -> true).size();
+        }
+        Assertions.assertEquals(3, invokeDynamics);
+
+        Class<?> consumer = new IsolatedClassLoader().define(TestTransformable6.class.getName(), transformed);
+        Method getA = consumer.getMethod("getA", TestTransformable6.Reflector.class);
+        Method getAC = consumer.getMethod("getAC", TestTransformable6.Reflector.class);
+
+        /* Same reflector class is invoked directly */
+        for(int i = 0; i < 10; i++) {
+            TestTransformable6.Reflector reflectorImpl = newInstance(wrapInstance(new TestClass16(i)), TestTransformable6.Reflector.class).getReflector();
+            Assertions.assertEquals(i, getA.invoke(null, reflectorImpl));
+            Assertions.assertEquals("c" + i + i, getAC.invoke(null, reflectorImpl));
+        }
+
+        /* Call sites keep working after seeing more reflector classes than they cache */
+        for(int i = 0; i < ReflectorCallSites.MAX_RECEIVERS + 2; i++) {
+            Class<?> target = new IsolatedClassLoader().define(TestClass16.class);
+            TestTransformable6.Reflector reflectorImpl = newInstance(wrapInstance(target.newInstance()), TestTransformable6.Reflector.class).getReflector();
+            Assertions.assertEquals(1, getA.invoke(null, reflectorImpl));
+            Assertions.assertEquals("c1", getAC.invoke(null, reflectorImpl));
+        }
+        TestTransformable6.Reflector reflectorImpl = newInstance(wrapInstance(new TestClass16(3)), TestTransformable6.Reflector.class).getReflector();
+        Assertions.assertEquals(3, getA.invoke(null, reflectorImpl));
+
+        /* Null receiver throws like interface invocation does */
+        InvocationTargetException e = Assertions.assertThrows(InvocationTargetException.class,
+                () -> getA.invoke(null, (Object) null));
+        Assertions.assertTrue(e.getCause() instanceof NullPointerException);
+    }
+
+    /* Creates new MethodReflectorFactory instance, which uses given cache directory */
+    private static Object newFactory(Path cacheDirectory) throws Exception {
+        Class<?> factoryClass = Class.forName(MethodReflector.class.getPackage().getName() + ".MethodReflectorFactory");
+        Constructor<?> factoryConstructor = factoryClass.getDeclaredConstructor();
+        factoryConstructor.setAccessible(true);
+        Object factory = factoryConstructor.newInstance();
+        Method setCacheDirectory = factoryClass.getDeclaredMethod("setCacheDirectory", Path.class);
+        setCacheDirectory.setAccessible(true);
+        setCacheDirectory.invoke(factory, cacheDirectory);
+        return factory;
+    }
+
+    /* Generates reflector using given factory */
+    private static Object generateReflector(Object factory, Class<?> target, Class<?> intf, boolean unbound) throws Exception {
+        Method generateReflector = factory.getClass().getDeclaredMethod("generateReflector", Class.class, Class.class, Map.class, boolean.class);
+        generateReflector.setAccessible(true);
+        return generateReflector.invoke(factory, target, intf, Collections.emptyMap(), unbound);
+    }
+
+    /* Creates instance of generated reflector without target instance */
+    private static Object newReflectorInstance(Object generated) throws Exception {
+        Method newInstance = generated.getClass().getDeclaredMethod("newInstance", Object.class);
+        newInstance.setAccessible(true);
+        return newInstance.invoke(generated, (Object) null);
+    }
+
+    /* Gets source of generated reflector */
+    private static ReflectorInfo.Source getSource(Object generated) throws Exception {
+        Method getInfo = generated.getClass().getDeclaredMethod("getInfo");
+        getInfo.setAccessible(true);
+        return ((ReflectorInfo) getInfo.invoke(generated)).getSource();
+    }
+
+    /* Reads class file of given class */
+    private static byte[] readClassData(Class<?> clazz) throws Exception {
+        String resourcePath = clazz.getName().replace('.', '/') + ".class";
+        try(InputStream input = MethodReflectorTester.class.getClassLoader().getResourceAsStream(resourcePath)) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while((read = input.read(buffer)) != -1)
+                output.write(buffer, 0, read);
+            return output.toByteArray();
+        }
+    }
+
+    /* Defines own copies of given classes */
+    private static class IsolatedClassLoader extends ClassLoader {
+        IsolatedClassLoader() {
+            super(MethodReflectorTester.class.getClassLoader());
+        }
+
+        Class<?> define(Class<?> clazz) throws Exception {
+            return define(clazz.getName(), readClassData(clazz));
+        }
+
+        Class<?> define(String name, byte[] data) {
+            return defineClass(name, data, 0, data.length);
+        }
+    }
+
+    private static ReflectorMetrics.MethodMetrics getMethodMetrics(ReflectorMetrics metrics, String method) {
+        return metrics.getMethods().stream().filter(m -> m.getMethod().equals(method)).findFirst()
+                .orElseThrow(() -> new AssertionError("No metrics for " + method));
+    }
+
     public interface DummyInterface {}
     public interface DummyInterface2 {}
 
@@ -411,6 +1208,114 @@ public class MethodReflectorTester {
         @TargetConstructor(desc = "()" + TC11Type) Object New();
     }
 
+    public interface TestClass4UnboundReflector {
+        String a(TestClass4 instance);
+        int b(Object instance);
+        void c(TestClass4 instance);
+        char d(TestClass4 instance);
+        String e(int a, String b, char c);
+    }
+
+    public interface TestClass4ConcurrentReflector {
+        String a(TestClass4 instance);
+    }
+
+    public interface TestClass3CachedReflector {
+        String a();
+        int b();
+    }
+
+    public interface TestClass4CachedReflector {
+        String a(TestClass4 instance);
+    }
+
+    public interface TestClass6UnboundReflector {
+        @TargetFieldGetter("a") String getA(Object instance);
+        @TargetFieldGetter("b") String getB();
+
+        @TargetFieldGetter("d") String getD(TestClass6 instance);
+        @TargetFieldSetter("d") void setD(TestClass6 instance, String d);
+    }
+
+    public interface TestClass15Reflector {
+        @TargetFieldAtomic(value = "counter", operation = GET_VOLATILE) int getCounter();
+        @TargetFieldAtomic(value = "counter", operation = GET_AND_ADD) int getAndAddCounter(int delta);
+        @TargetFieldAtomic(value = "state", operation = COMPARE_AND_SET) boolean compareAndSetState(String expected, String value);
+        @TargetFieldAtomic(value = "state", operation = GET_AND_SET) String getAndSetState(String value);
+        @TargetFieldAtomic(value = "total", operation = SET_RELEASE) void setTotalRelease(long value);
+        @TargetFieldAtomic(value = "total", operation = GET_ACQUIRE) long getTotalAcquire();
+        @TargetFieldAtomic(value = "total", operation = GET_AND_ADD) long getAndAddTotal(long delta);
+        @TargetFieldAtomic(value = "total", operation = SET_VOLATILE) void setTotal(long value);
+        @TargetFieldAtomic(value = "instances", operation = GET_AND_SET) int getAndSetInstances(int value);
+        @TargetFieldAtomic(value = "constant", operation = SET_VOLATILE) void setConstant(int value);
+    }
+
+    public interface TestClass15UnboundReflector {
+        @TargetFieldAtomic(value = "counter", operation = GET_VOLATILE) int getCounter(TestClass15 instance);
+        @TargetFieldAtomic(value = "counter", operation = COMPARE_AND_SET) boolean compareAndSetCounter(TestClass15 instance, int expected, int value);
+    }
+
+    public interface TestClass16Reflector {
+        @TargetFieldGetter("a") int getA();
+        @TargetFieldSetter("a") void setA(int a);
+        @TargetFieldGetter("b") long getB();
+        @TargetFieldSetter("b") void setB(long b);
+        @TargetFieldGetter("c") String getC();
+        @TargetFieldSetter("c") void setC(String c);
+        @TargetFieldGetter(value = "d", type = "C") Object getD();
+        @TargetFieldSetter(value = "d", type = "C") void setD(Object d);
+        @TargetFieldGetter("e") int getE();
+        @TargetFieldSetter("e") void setE(int e);
+    }
+
+    public interface TestClass17Reflector {
+        @TargetFieldGetter("fin") String getFin();
+        @TargetFieldSetter("fin") void setFin(String fin);
+    }
+
+    public interface TestClass16UnboundReflector {
+        @TargetFieldGetter("c") String getC(TestClass16 instance);
+        @TargetFieldSetter("c") void setC(TestClass16 instance, String c);
+    }
+
+    public interface TestClass16BulkReflector {
+        @TargetFieldGetter("a") int getA(TestClass16 instance);
+        @TargetFieldGetter("b") long getB(TestClass16 instance);
+        @TargetFieldGetter("c") String getC(Object instance);
+        @TargetFieldGetter("d") char getD(TestClass16 instance);
+        @TargetFieldGetter("calls") int getCalls(TestClass16 instance);
+        @TargetMethod("call") void call(TestClass16 instance);
+        @Bulk("getA") void getA(TestClass16[] instances, int[] out);
+        @Bulk("getB") void getB(TestClass16[] instances, long[] out);
+        @Bulk("getD") void getD(List<TestClass16> instances, char[] out);
+        @Bulk("getC") void getC(List<TestClass16> instances, String[] out);
+        @Bulk("call") void call(TestClass16[] instances);
+        @Bulk("call") void call(List<TestClass16> instances);
+    }
+
+    @LazyReflector
+    public interface TestClass16LazyBulkReflector extends TestClass16BulkReflector {}
+
+    public interface TestClass16InvalidBulkReflector {
+        @TargetFieldGetter("a") int getA(TestClass16 instance);
+        @Bulk("getA") void getA(TestClass16[] instances, long[] out);
+    }
+
+    @LazyReflector
+    public interface TestClass16LazyInvalidBulkReflector extends TestClass16InvalidBulkReflector {}
+
+    public interface TestClass16InfoReflector {
+        @TargetFieldGetter("a") int getA(TestClass16 instance);
+        @TargetFieldGetter("missing") int getMissing(Object instance);
+        @Bulk("getA") void getA(TestClass16[] instances, int[] out);
+    }
+
+    public interface TestClass10UnboundReflector {
+        @TargetFieldGetter("a") String getA(Object instance);
+        @TargetFieldSetter("a") void setA(Object instance, String a);
+        @TargetMethod(value = "b", desc = "()"+TC11Type) Object getTC11(Object instance);
+    }
+
     public interface TestClass12PlaceholderReflector {
         /* Note: target return type isn't checked on constructor invokers */
         @TargetConstructor(desc = "(){tc12}") Object New();
@@ -418,4 +1323,51 @@ public class MethodReflectorTester {
 
         @TargetMethod(desc = "({tc7}){tc12}") TestClass12 a(Object a);
     }
+
+    @LazyReflector
+    public interface TestClass4LazyReflector {
+        String a();
+        int b();
+        void c();
+        char d();
+        String e(int a, String b, char c);
+        default String f() { return "default"; }
+        String g();
+    }
+
+    @LazyReflector
+    public interface TestClass6LazyReflector {
+        @TargetFieldGetter("a") String getA();
+        @TargetFieldGetter("b") String getB();
+        @TargetFieldGetter("d") String getD();
+        @TargetFieldSetter("d") void setD(String d);
+    }
+
+    @LazyReflector
+    public interface TestClass6LazyUnboundReflector {
+        @TargetFieldGetter("a") String getA(Object instance);
+        @TargetFieldGetter("d") String getD(TestClass6 instance);
+        @TargetFieldSetter("d") void setD(TestClass6 instance, String d);
+    }
+
+    @LazyReflector
+    public interface TestClass7LazyReflector {
+        @TargetConstructor TestClass7 New();
+        @TargetConstructor TestClass7 New(char c, int i);
+    }
+
+    public interface TestClass4MetricsReflector {
+        String a();
+        void c();
+        void g();
+    }
+
+    public interface TestClass14Reflector {
+        String a();
+        String b();
+    }
+
+    public interface TestClass4NoMetricsReflector {
+        String a();
+    }
 }
@@ -3,6 +3,7 @@ package eu.mikroskeem.test.shuriken.instrumentation;
 import eu.mikroskeem.shuriken.common.ToURL;
 import eu.mikroskeem.shuriken.instrumentation.ClassLoaderTools;
 import eu.mikroskeem.shuriken.instrumentation.methodreflector.MethodReflector;
+import eu.mikroskeem.shuriken.reflect.Reflect;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
@@ -43,8 +44,10 @@ public class URLClassLoaderToolsTester {
         Assertions.assertThrows(IllegalStateException.class, () ->
                 uclTools.addURL(new URL("https://mikroskeem.eu/stuff/fernflower.jar"))
         );
+        Assertions.assertFalse(Reflect.getClass("org.aopalliance.aop.Advice", ucl).isPresent());
         uclTools.addURL(ToURL.to(downloadTestJar()));
         uclTools.resetCache();
+        Assertions.assertTrue(Reflect.getClass("org.aopalliance.aop.Advice", ucl).isPresent());
     }
 
 
@@ -0,0 +1,9 @@
+package eu.mikroskeem.test.shuriken.instrumentation.testclasses;
+
+/**
+ * @author Mark Vainomaa
+ */
+public class TestClass14 {
+    private String a() { return "a"; }
+    public String b() { return "b"; }
+}
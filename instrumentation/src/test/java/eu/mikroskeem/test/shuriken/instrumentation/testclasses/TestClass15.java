@@ -0,0 +1,12 @@
+package eu.mikroskeem.test.shuriken.instrumentation.testclasses;
+
+/**
+ * @author Mark Vainomaa
+ */
+public class TestClass15 {
+    private int counter = 0;
+    private long total = 0;
+    private String state = "a";
+    private static int instances = 0;
+    private final int constant = 1;
+}
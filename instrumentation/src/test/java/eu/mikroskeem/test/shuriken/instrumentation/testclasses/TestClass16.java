@@ -0,0 +1,31 @@
+package eu.mikroskeem.test.shuriken.instrumentation.testclasses;
+
+/**
+ * @author Mark Vainomaa
+ */
+public class TestClass16 {
+    private final int a;
+    private final long b;
+    private final String c;
+    private final char d;
+    private static volatile int e = 5;
+    private int calls = 0;
+
+    public TestClass16() {
+        this.a = 1;
+        this.b = 2L;
+        this.c = "c";
+        this.d = 'd';
+    }
+
+    public TestClass16(int a) {
+        this.a = a;
+        this.b = 2L;
+        this.c = "c" + a;
+        this.d = 'd';
+    }
+
+    private void call() {
+        calls++;
+    }
+}
@@ -0,0 +1,12 @@
+package eu.mikroskeem.test.shuriken.instrumentation.testclasses;
+
+/**
+ * @author Mark Vainomaa
+ */
+public class TestClass17 {
+    private final String fin;
+
+    public TestClass17() {
+        this.fin = "a";
+    }
+}
@@ -0,0 +1,21 @@
+package eu.mikroskeem.test.shuriken.instrumentation.testclasses;
+
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.TargetFieldGetter;
+
+/**
+ * @author Mark Vainomaa
+ */
+public class TestTransformable6 {
+    public static int getA(Reflector reflector) {
+        return reflector.getA();
+    }
+
+    public static String getAC(Reflector reflector) {
+        return reflector.getC() + reflector.getA();
+    }
+
+    public interface Reflector {
+        @TargetFieldGetter("a") int getA();
+        @TargetFieldGetter("c") String getC();
+    }
+}
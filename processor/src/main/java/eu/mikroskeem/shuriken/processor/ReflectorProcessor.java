@@ -0,0 +1,142 @@
+package eu.mikroskeem.shuriken.processor;
+
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.ReflectorTarget;
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.TargetConstructor;
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.TargetFieldAtomic;
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.TargetFieldGetter;
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.TargetFieldSetter;
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.TargetMethod;
+import org.jetbrains.annotations.Nullable;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+
+
+/**
+ * Annotation processor, which implements reflector interfaces marked with {@link ReflectorTarget} ahead of time,
+ * so {@link eu.mikroskeem.shuriken.instrumentation.methodreflector.MethodReflector} does not need to generate them
+ * at runtime
+ *
+ * @author Mark Vainomaa
+ */
+@SupportedAnnotationTypes("eu.mikroskeem.shuriken.instrumentation.methodreflector.ReflectorTarget")
+public final class ReflectorProcessor extends AbstractProcessor {
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for(Element element : roundEnv.getElementsAnnotatedWith(ReflectorTarget.class)) {
+            if(element.getKind() != ElementKind.INTERFACE) {
+                error(element, "@ReflectorTarget can only be used on interfaces!");
+                continue;
+            }
+            TypeElement interfaceElement = (TypeElement) element;
+            if(!interfaceElement.getModifiers().contains(Modifier.PUBLIC)) {
+                error(element, "Reflector interface must be public!");
+                continue;
+            }
+
+            /* Interfaces using placeholders are implemented at runtime */
+            if(usesPlaceholders(interfaceElement)) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                        "Reflector interface uses placeholders, not implementing it ahead of time", element);
+                continue;
+            }
+
+            /* Atomic field operations need VarHandles or Unsafe, which are only looked up at runtime */
+            if(usesAtomicFields(interfaceElement)) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                        "Reflector interface uses atomic field operations, not implementing it ahead of time", element);
+                continue;
+            }
+
+            ReflectorTarget reflectorTarget = interfaceElement.getAnnotation(ReflectorTarget.class);
+            TypeElement targetElement = getTargetElement(reflectorTarget);
+            if(targetElement == null) {
+                error(element, "@ReflectorTarget value must be a class or an interface!");
+                continue;
+            }
+
+            ReflectorSourceGenerator generator = new ReflectorSourceGenerator(processingEnv, interfaceElement, targetElement,
+                    reflectorTarget.unbound());
+            String source = generator.generate();
+            if(source == null) continue;
+
+            try {
+                JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(generator.getReflectorClassName(), interfaceElement);
+                try(Writer writer = sourceFile.openWriter()) {
+                    writer.write(source);
+                }
+            } catch (IOException e) {
+                error(element, "Failed to write reflector source: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /* Gets target class element from annotation, class values are not available during processing */
+    @Nullable
+    private static TypeElement getTargetElement(ReflectorTarget reflectorTarget) {
+        TypeMirror targetType;
+        try {
+            reflectorTarget.value();
+            return null; // Class is already compiled and loaded, which should not happen
+        } catch (MirroredTypeException e) {
+            targetType = e.getTypeMirror();
+        }
+        if(targetType.getKind() != TypeKind.DECLARED) return null;
+        return (TypeElement) ((DeclaredType) targetType).asElement();
+    }
+
+    /* Checks if any of reflector annotations contain placeholders */
+    private boolean usesPlaceholders(TypeElement interfaceElement) {
+        for(ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(interfaceElement))) {
+            TargetMethod tMI = method.getAnnotation(TargetMethod.class);
+            TargetFieldGetter fGI = method.getAnnotation(TargetFieldGetter.class);
+            TargetFieldSetter fSI = method.getAnnotation(TargetFieldSetter.class);
+            TargetConstructor tCI = method.getAnnotation(TargetConstructor.class);
+            if(tMI != null && (hasPlaceholder(tMI.value()) || hasPlaceholder(tMI.desc()))) return true;
+            if(fGI != null && (hasPlaceholder(fGI.value()) || hasPlaceholder(fGI.type()))) return true;
+            if(fSI != null && (hasPlaceholder(fSI.value()) || hasPlaceholder(fSI.type()))) return true;
+            if(tCI != null && hasPlaceholder(tCI.desc())) return true;
+        }
+        return false;
+    }
+
+    /* Checks if any of interface methods does atomic field operations */
+    private boolean usesAtomicFields(TypeElement interfaceElement) {
+        for(ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(interfaceElement))) {
+            if(method.getAnnotation(TargetFieldAtomic.class) != null) return true;
+        }
+        return false;
+    }
+
+    private static boolean hasPlaceholder(String value) {
+        int start = value.indexOf('{');
+        return start != -1 && value.indexOf('}', start) != -1;
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
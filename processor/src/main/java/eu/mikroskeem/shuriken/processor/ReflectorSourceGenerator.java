@@ -0,0 +1,638 @@
+package eu.mikroskeem.shuriken.processor;
+
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.Bulk;
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.ReflectorTarget;
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.TargetConstructor;
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.TargetFieldGetter;
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.TargetFieldSetter;
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.TargetMethod;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Generates reflector class source for single reflector interface.
+ *
+ * Follows the same rules as runtime reflector generator does. Accessible targets are invoked directly,
+ * everything else goes through static final {@link java.lang.invoke.MethodHandle} fields.
+ *
+ * @author Mark Vainomaa
+ */
+final class ReflectorSourceGenerator {
+    private final static String HANDLES = "eu.mikroskeem.shuriken.instrumentation.methodreflector.ReflectorHandles";
+    private final static String SNEAKY_THROW = "eu.mikroskeem.shuriken.common.SneakyThrow";
+    private final static String METHOD_HANDLE = "java.lang.invoke.MethodHandle";
+    private final static String METHOD_TYPE = "java.lang.invoke.MethodType";
+    private final static String OBJECT_DESC = "Ljava/lang/Object;";
+
+    private final Types types;
+    private final Elements elements;
+    private final Messager messager;
+    private final TypeElement interfaceElement;
+    private final TypeElement targetElement;
+    private final boolean unbound;
+
+    private final String packageName;
+    private final String simpleClassName;
+    private final String targetName;
+
+    private final StringBuilder handleFields = new StringBuilder();
+    private final StringBuilder methods = new StringBuilder();
+    private int handleCount = 0;
+    private boolean usesInstance = false;
+    private boolean failed = false;
+    private boolean unresolved = false;
+
+    ReflectorSourceGenerator(ProcessingEnvironment processingEnv, TypeElement interfaceElement, TypeElement targetElement, boolean unbound) {
+        this.types = processingEnv.getTypeUtils();
+        this.elements = processingEnv.getElementUtils();
+        this.messager = processingEnv.getMessager();
+        this.interfaceElement = interfaceElement;
+        this.targetElement = targetElement;
+        this.unbound = unbound;
+
+        /* Nested interfaces get top level reflector class with binary name as prefix */
+        this.packageName = elements.getPackageOf(interfaceElement).getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(interfaceElement).toString();
+        this.simpleClassName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+                + ReflectorTarget.PRECOMPILED_SUFFIX;
+        this.targetName = targetElement.getQualifiedName().toString();
+    }
+
+    /**
+     * Gets generated reflector class name
+     *
+     * @return Reflector class name
+     */
+    @NotNull
+    String getReflectorClassName() {
+        return packageName.isEmpty() ? simpleClassName : packageName + "." + simpleClassName;
+    }
+
+    /**
+     * Generates reflector class source
+     *
+     * @return Reflector class source, or null if interface had errors or targets which could not be resolved
+     */
+    @Nullable
+    String generate() {
+        if(!isAccessible(targetElement)) {
+            error(interfaceElement, "Target class is not accessible from reflector interface package!");
+            return null;
+        }
+
+        for(ExecutableElement interfaceMethod : ElementFilter.methodsIn(elements.getAllMembers(interfaceElement))) {
+            if(interfaceMethod.getEnclosingElement().getKind() != ElementKind.INTERFACE) continue;
+            if(interfaceMethod.getModifiers().contains(Modifier.STATIC) || interfaceMethod.getModifiers().contains(Modifier.PRIVATE)) continue;
+            generateMethod(interfaceMethod);
+        }
+        if(failed || unresolved) return null;
+
+        StringBuilder source = new StringBuilder();
+        if(!packageName.isEmpty()) source.append("package ").append(packageName).append(";\n\n");
+        source.append("/* Generated by Shuriken annotation processor, do not edit */\n");
+        source.append("@SuppressWarnings({\"rawtypes\", \"unchecked\"})\n");
+        source.append("public final class ").append(simpleClassName)
+                .append(" implements ").append(interfaceElement.getQualifiedName()).append(" {\n");
+        source.append(handleFields);
+        if(handleCount > 0) source.append("\n");
+        if(usesInstance) {
+            source.append("    private final ").append(targetName).append(" ref;\n\n");
+            source.append("    public ").append(simpleClassName).append("(").append(targetName).append(" ref) {\n");
+            source.append("        this.ref = ref;\n");
+            source.append("    }\n");
+        } else {
+            source.append("    public ").append(simpleClassName).append("() {}\n");
+        }
+        source.append(methods);
+        source.append("}\n");
+        return source.toString();
+    }
+
+    //<editor-fold desc="Method generation">
+    private void generateMethod(ExecutableElement interfaceMethod) {
+        ExecutableType methodType = (ExecutableType) types.asMemberOf((DeclaredType) interfaceElement.asType(), interfaceMethod);
+        List<TypeMirror> parameters = new ArrayList<>();
+        for(TypeMirror parameter : methodType.getParameterTypes())
+            parameters.add(types.erasure(parameter));
+        TypeMirror returnType = types.erasure(methodType.getReturnType());
+
+        TargetMethod tMI = interfaceMethod.getAnnotation(TargetMethod.class);
+        TargetFieldGetter fGI = interfaceMethod.getAnnotation(TargetFieldGetter.class);
+        TargetFieldSetter fSI = interfaceMethod.getAnnotation(TargetFieldSetter.class);
+        TargetConstructor tCI = interfaceMethod.getAnnotation(TargetConstructor.class);
+        Bulk bI = interfaceMethod.getAnnotation(Bulk.class);
+        int annotationCount = (tMI != null ? 1 : 0) + (fGI != null ? 1 : 0) + (fSI != null ? 1 : 0) + (tCI != null ? 1 : 0) + (bI != null ? 1 : 0);
+        if(annotationCount > 1) {
+            error(interfaceMethod, "Interface method can only have one target or field annotation!");
+            return;
+        }
+
+        String body;
+        if(bI != null)
+            body = generateBulkMethod(interfaceMethod, bI, parameters, returnType);
+        else if(tCI != null)
+            body = generateConstructorInvoker(interfaceMethod, tCI, parameters, returnType);
+        else if(fGI != null || fSI != null)
+            body = generateFieldAccessor(interfaceMethod, fGI, fSI, parameters, returnType);
+        else
+            body = generateMethodInvoker(interfaceMethod, tMI, parameters, returnType);
+        if(failed) return;
+
+        if(body == null) {
+            /* Interface default will be used */
+            if(interfaceMethod.getModifiers().contains(Modifier.DEFAULT)) return;
+
+            /* Target may exist at runtime, so leave whole interface to runtime generator */
+            messager.printMessage(Diagnostic.Kind.WARNING,
+                    "Could not find target for interface method, not implementing reflector interface ahead of time", interfaceMethod);
+            unresolved = true;
+            return;
+        }
+
+        methods.append("\n    @Override\n    public ").append(typeName(returnType)).append(" ")
+                .append(interfaceMethod.getSimpleName()).append("(");
+        for(int i = 0; i < parameters.size(); i++) {
+            if(i > 0) methods.append(", ");
+            methods.append(typeName(parameters.get(i))).append(" arg").append(i);
+        }
+        methods.append(") {\n").append(body).append("    }\n");
+    }
+
+    @Nullable
+    private String generateConstructorInvoker(ExecutableElement interfaceMethod, TargetConstructor tCI,
+                                              List<TypeMirror> parameters, TypeMirror returnType) {
+        List<String> targetParameters = descriptors(parameters);
+        String targetReturnType = descriptor(returnType);
+        if(!tCI.desc().isEmpty()) {
+            targetParameters = argumentDescriptors(tCI.desc());
+            targetReturnType = returnDescriptor(tCI.desc());
+        }
+        if(OBJECT_DESC.equals(targetReturnType)) {
+            error(interfaceMethod, "Please override constructor descriptor in annotation, or change method return type!");
+            return null;
+        }
+
+        ExecutableElement targetConstructor = null;
+        for(ExecutableElement constructor : ElementFilter.constructorsIn(targetElement.getEnclosedElements())) {
+            if(descriptors(erasedParameters(constructor)).equals(targetParameters)) {
+                targetConstructor = constructor;
+                break;
+            }
+        }
+        if(targetConstructor == null) return null;
+
+        List<TypeMirror> constructorParameters = erasedParameters(targetConstructor);
+        boolean direct = isAccessible(targetConstructor)
+                && !targetElement.getModifiers().contains(Modifier.ABSTRACT)
+                && isAssignable(parameters, 0, constructorParameters)
+                && isReturnAssignable(types.erasure(targetElement.asType()), returnType);
+        if(direct) {
+            String expression = "new " + targetName + "(" + arguments(0, parameters.size()) + ")";
+            return wrap(statement(returnType, expression), !targetConstructor.getThrownTypes().isEmpty());
+        }
+
+        String handle = addHandle("CONSTRUCTOR", targetElement, "<init>", methodDescriptor(targetConstructor),
+                returnType, null, parameters, 0);
+        return wrap(statement(returnType, invokeExact(handle, returnType, null, 0, parameters.size())), true);
+    }
+
+    @Nullable
+    private String generateFieldAccessor(ExecutableElement interfaceMethod, @Nullable TargetFieldGetter fGI, @Nullable TargetFieldSetter fSI,
+                                         List<TypeMirror> parameters, TypeMirror returnType) {
+        boolean getter = fGI != null;
+        String fieldName = getter ? fGI.value() : fSI.value();
+        String fieldTypeString = getter ? fGI.type() : fSI.type();
+        if(fieldName.isEmpty()) {
+            error(interfaceMethod, "Field name shouldn't be null or empty!");
+            return null;
+        }
+
+        int receiverArgs = 0;
+        String fieldType;
+        if(getter) {
+            if(returnType.getKind() == TypeKind.VOID) {
+                error(interfaceMethod, "Getters can't return void type!");
+                return null;
+            }
+            if(unbound && parameters.size() == 1) receiverArgs = 1;
+            if(parameters.size() != receiverArgs) {
+                error(interfaceMethod, unbound ? "Unbound getters can only take target instance as an argument!" :
+                        "Getters can't take any arguments!");
+                return null;
+            }
+            fieldType = fieldTypeString.isEmpty() ? descriptor(returnType) : fieldTypeString;
+        } else {
+            if(returnType.getKind() != TypeKind.VOID) {
+                error(interfaceMethod, "Setters can only return void type!");
+                return null;
+            }
+            if(unbound && parameters.size() == 2) receiverArgs = 1;
+            if(parameters.size() != 1 + receiverArgs) {
+                error(interfaceMethod, unbound ? "Unbound setters can only take target instance and one argument!" :
+                        "Setters can only take one argument!");
+                return null;
+            }
+            fieldType = fieldTypeString.isEmpty() ? descriptor(parameters.get(receiverArgs)) : fieldTypeString;
+        }
+
+        VariableElement targetField = findField(targetElement, fieldName, fieldType);
+        if(targetField == null) return null;
+
+        boolean isStatic = targetField.getModifiers().contains(Modifier.STATIC);
+        if(unbound && isStatic != (receiverArgs == 0)) {
+            error(interfaceMethod, receiverArgs == 0 ? "Target field is not static, unbound accessor must take target instance as first argument!" :
+                    "Target field is static, unbound accessor must not take target instance!");
+            return null;
+        }
+        if(!isStatic && !unbound) usesInstance = true;
+
+        TypeMirror targetFieldType = types.erasure(targetField.asType());
+        String receiver = isStatic ? null : receiver();
+        boolean direct = isAccessible(targetField) && (getter ?
+                isReturnAssignable(targetFieldType, returnType) :
+                !targetField.getModifiers().contains(Modifier.FINAL) && types.isAssignable(parameters.get(receiverArgs), targetFieldType));
+        if(direct) {
+            String access = (isStatic ? targetName : "((" + targetName + ") " + receiver + ")") + "." + fieldName;
+            return getter ? "        return " + access + ";\n" : "        " + access + " = arg" + receiverArgs + ";\n";
+        }
+
+        String handle = addHandle(getter ? "FIELD_GETTER" : "FIELD_SETTER", (TypeElement) targetField.getEnclosingElement(),
+                fieldName, descriptor(targetFieldType),
+                returnType, isStatic ? null : receiverType(parameters), parameters, receiverArgs);
+        return wrap(statement(returnType, invokeExact(handle, returnType, receiver, receiverArgs, parameters.size())), true);
+    }
+
+    @Nullable
+    private String generateBulkMethod(ExecutableElement interfaceMethod, Bulk bI, List<TypeMirror> parameters, TypeMirror returnType) {
+        if(!unbound) {
+            error(interfaceMethod, "Bulk methods are only supported by unbound reflectors!");
+            return null;
+        }
+        TypeMirror listType = types.erasure(elements.getTypeElement(List.class.getName()).asType());
+        boolean isList = !parameters.isEmpty() && types.isSameType(parameters.get(0), listType);
+        if(returnType.getKind() != TypeKind.VOID || parameters.isEmpty() || parameters.size() > 2
+                || (!isList && (parameters.get(0).getKind() != TypeKind.ARRAY || ((ArrayType) parameters.get(0)).getComponentType().getKind().isPrimitive()))
+                || (parameters.size() == 2 && parameters.get(1).getKind() != TypeKind.ARRAY)) {
+            error(interfaceMethod, "Bulk methods must return void and take target instances as object array or List, and optionally an output array!");
+            return null;
+        }
+
+        /* Find element method, following the same rules as runtime generator */
+        TypeMirror targetType = isList ? elements.getTypeElement(Object.class.getName()).asType() : ((ArrayType) parameters.get(0)).getComponentType();
+        TypeMirror outputType = parameters.size() == 2 ? ((ArrayType) parameters.get(1)).getComponentType() : null;
+        ExecutableElement elementMethod = null;
+        for(ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(interfaceElement))) {
+            if(!method.getSimpleName().contentEquals(bI.value()) || method.getModifiers().contains(Modifier.STATIC)) continue;
+            if(method.getParameters().size() != 1 || method.getAnnotation(Bulk.class) != null) continue;
+            TypeMirror elementReturnType = types.erasure(method.getReturnType());
+            if(outputType != null ? !types.isSameType(elementReturnType, outputType) : elementReturnType.getKind() != TypeKind.VOID) continue;
+            TypeMirror elementType = types.erasure(method.getParameters().get(0).asType());
+            if(isList ? elementType.getKind().isPrimitive() || !isAccessible(types.asElement(elementType)) : !types.isAssignable(targetType, elementType))
+                continue;
+            elementMethod = method;
+            break;
+        }
+        if(elementMethod == null) {
+            error(interfaceMethod, "Could not find element method " + bI.value() + " taking target instance for bulk method!");
+            return null;
+        }
+
+        TypeMirror elementType = types.erasure(elementMethod.getParameters().get(0).asType());
+        String target = isList ? "(" + typeName(elementType) + ") arg0.get(i)" : "arg0[i]";
+        return "        int count = arg0." + (isList ? "size()" : "length") + ";\n"
+                + "        for(int i = 0; i < count; i++) {\n"
+                + "            " + (outputType != null ? "arg1[i] = " : "") + "this." + elementMethod.getSimpleName() + "(" + target + ");\n"
+                + "        }\n";
+    }
+
+    @Nullable
+    private String generateMethodInvoker(ExecutableElement interfaceMethod, @Nullable TargetMethod tMI,
+                                         List<TypeMirror> parameters, TypeMirror returnType) {
+        String targetMethodName = interfaceMethod.getSimpleName().toString();
+        List<String> targetParameters = descriptors(parameters);
+        String targetReturnType = descriptor(returnType);
+        boolean descGiven = tMI != null && !tMI.desc().isEmpty();
+        if(tMI != null) {
+            targetMethodName = tMI.value().isEmpty() ? targetMethodName : tMI.value();
+            if(descGiven) {
+                targetParameters = argumentDescriptors(tMI.desc());
+                targetReturnType = returnDescriptor(tMI.desc());
+            }
+        }
+
+        ExecutableElement targetMethod;
+        int receiverArgs = 0;
+        if(unbound) {
+            /* Figure out whether interface method takes target instance as first argument */
+            targetMethod = null;
+            if(parameters.size() > 0 && (!descGiven || targetParameters.size() == parameters.size() - 1)) {
+                List<String> receiverParameters = descGiven ? targetParameters : targetParameters.subList(1, targetParameters.size());
+                targetMethod = findMethod(targetMethodName, receiverParameters, targetReturnType);
+                if(targetMethod != null && !targetMethod.getModifiers().contains(Modifier.STATIC))
+                    receiverArgs = 1;
+                else
+                    targetMethod = null;
+            }
+            if(targetMethod == null && targetParameters.size() == parameters.size()) {
+                targetMethod = findMethod(targetMethodName, targetParameters, targetReturnType);
+                if(targetMethod != null && !targetMethod.getModifiers().contains(Modifier.STATIC))
+                    targetMethod = null;
+            }
+        } else {
+            targetMethod = findMethod(targetMethodName, targetParameters, targetReturnType);
+        }
+        if(targetMethod == null) return null;
+
+        boolean isStatic = targetMethod.getModifiers().contains(Modifier.STATIC);
+        if(!isStatic && !unbound) usesInstance = true;
+
+        String receiver = isStatic ? null : receiver();
+        TypeElement declaringElement = (TypeElement) targetMethod.getEnclosingElement();
+        boolean direct = isAccessible(targetMethod)
+                && isAssignable(parameters, receiverArgs, erasedParameters(targetMethod))
+                && isReturnAssignable(types.erasure(targetMethod.getReturnType()), returnType);
+        if(direct) {
+            String expression = (isStatic ? declaringElement.getQualifiedName().toString() : "((" + targetName + ") " + receiver + ")")
+                    + "." + targetMethod.getSimpleName() + "(" + arguments(receiverArgs, parameters.size()) + ")";
+            return wrap(statement(returnType, expression), !targetMethod.getThrownTypes().isEmpty());
+        }
+
+        String handle = addHandle("METHOD", declaringElement, targetMethod.getSimpleName().toString(), methodDescriptor(targetMethod),
+                returnType, isStatic ? null : receiverType(parameters), parameters, receiverArgs);
+        return wrap(statement(returnType, invokeExact(handle, returnType, receiver, receiverArgs, parameters.size())), true);
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="Source generation utilities">
+    /* Adds static final MethodHandle field, adapted to interface method type */
+    @NotNull
+    private String addHandle(String kind, TypeElement owner, String name, String descriptor,
+                             TypeMirror returnType, @Nullable TypeMirror receiverType, List<TypeMirror> parameters, int argOffset) {
+        String handle = "MH_" + handleCount++;
+        StringBuilder methodType = new StringBuilder(METHOD_TYPE).append(".methodType(").append(typeName(returnType)).append(".class");
+        if(receiverType != null) methodType.append(", ").append(typeName(receiverType)).append(".class");
+        for(int i = argOffset; i < parameters.size(); i++)
+            methodType.append(", ").append(typeName(parameters.get(i))).append(".class");
+        methodType.append(")");
+
+        handleFields.append("    private static final ").append(METHOD_HANDLE).append(" ").append(handle).append(" = ")
+                .append(HANDLES).append(".bind(").append(targetName).append(".class, ")
+                .append(HANDLES).append(".").append(kind).append(", \"")
+                .append(escape(elements.getBinaryName(owner).toString())).append("\", \"")
+                .append(escape(name)).append("\", \"")
+                .append(escape(descriptor)).append("\", ")
+                .append(methodType).append(");\n");
+        return handle;
+    }
+
+    /* Invokes handle with exactly the same type as it was adapted to */
+    @NotNull
+    private static String invokeExact(String handle, TypeMirror returnType, @Nullable String receiver, int argOffset, int parameterCount) {
+        StringBuilder expression = new StringBuilder();
+        if(returnType.getKind() != TypeKind.VOID) expression.append("(").append(typeName(returnType)).append(") ");
+        expression.append(handle).append(".invokeExact(");
+        if(receiver != null) {
+            expression.append(receiver);
+            if(argOffset < parameterCount) expression.append(", ");
+        }
+        expression.append(arguments(argOffset, parameterCount)).append(")");
+        return expression.toString();
+    }
+
+    @NotNull
+    private String receiver() {
+        return unbound ? "arg0" : "this.ref";
+    }
+
+    @NotNull
+    private TypeMirror receiverType(List<TypeMirror> parameters) {
+        return unbound ? parameters.get(0) : types.erasure(targetElement.asType());
+    }
+
+    @NotNull
+    private static String arguments(int from, int to) {
+        StringBuilder arguments = new StringBuilder();
+        for(int i = from; i < to; i++) {
+            if(i > from) arguments.append(", ");
+            arguments.append("arg").append(i);
+        }
+        return arguments.toString();
+    }
+
+    @NotNull
+    private static String statement(TypeMirror returnType, String expression) {
+        return returnType.getKind() == TypeKind.VOID ? "        " + expression + ";\n" : "        return " + expression + ";\n";
+    }
+
+    /* Wraps statement into try-catch, so checked exceptions get rethrown as-is */
+    @NotNull
+    private static String wrap(String statement, boolean catching) {
+        if(!catching) return statement;
+        return "        try {\n    " + statement
+                + "        } catch (Throwable e) {\n"
+                + "            " + SNEAKY_THROW + ".throwException(e);\n"
+                + "            throw new AssertionError(e);\n"
+                + "        }\n";
+    }
+
+    @NotNull
+    private static String typeName(TypeMirror type) {
+        switch (type.getKind()) {
+            case ARRAY:
+                return typeName(((ArrayType) type).getComponentType()) + "[]";
+            case DECLARED:
+                return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+            default:
+                return type.getKind().isPrimitive() || type.getKind() == TypeKind.VOID ?
+                        type.getKind().name().toLowerCase() : type.toString();
+        }
+    }
+
+    @NotNull
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="Target finding & access utilities">
+    /* Finds method by name, parameters and return type, in the same order as ClassMembers does */
+    @Nullable
+    private ExecutableElement findMethod(String name, List<String> parameters, String returnType) {
+        /* Scan superclasses */
+        for(TypeElement scanElement = targetElement; scanElement != null; scanElement = superclassOf(scanElement)) {
+            ExecutableElement method = findDeclaredMethod(scanElement, name, parameters, returnType);
+            if(method != null) return method;
+        }
+
+        /* Scan interfaces of superclasses and their superinterfaces */
+        return findInterfaceMethod(targetElement, name, parameters, returnType);
+    }
+
+    /* Interface methods are only inherited when they have an implementation */
+    @Nullable
+    private ExecutableElement findInterfaceMethod(TypeElement element, String name, List<String> parameters, String returnType) {
+        TypeElement superclass = superclassOf(element);
+        if(superclass != null) {
+            ExecutableElement method = findInterfaceMethod(superclass, name, parameters, returnType);
+            if(method != null) return method;
+        }
+        for(TypeMirror interfaceType : element.getInterfaces()) {
+            TypeElement interfaceElement = (TypeElement) types.asElement(interfaceType);
+            ExecutableElement method = findDeclaredMethod(interfaceElement, name, parameters, returnType);
+            if(method == null) method = findInterfaceMethod(interfaceElement, name, parameters, returnType);
+            else if(method.getModifiers().contains(Modifier.ABSTRACT)) continue;
+            if(method != null) return method;
+        }
+        return null;
+    }
+
+    @Nullable
+    private ExecutableElement findDeclaredMethod(TypeElement scanElement, String name, List<String> parameters, String returnType) {
+        for(ExecutableElement method : ElementFilter.methodsIn(scanElement.getEnclosedElements())) {
+            if(method.getSimpleName().contentEquals(name)
+                    && descriptors(erasedParameters(method)).equals(parameters)
+                    && descriptor(method.getReturnType()).equals(returnType))
+                return method;
+        }
+        return null;
+    }
+
+    /* Finds field by name and type descriptor, in the same order as ClassMembers does */
+    @Nullable
+    private VariableElement findField(TypeElement element, String name, String descriptor) {
+        for(VariableElement field : ElementFilter.fieldsIn(element.getEnclosedElements())) {
+            if(field.getSimpleName().contentEquals(name) && descriptor(field.asType()).equals(descriptor))
+                return field;
+        }
+        TypeElement superclass = superclassOf(element);
+        VariableElement field = superclass != null ? findField(superclass, name, descriptor) : null;
+        for(int i = 0; field == null && i < element.getInterfaces().size(); i++)
+            field = findField((TypeElement) types.asElement(element.getInterfaces().get(i)), name, descriptor);
+        return field;
+    }
+
+    @Nullable
+    private TypeElement superclassOf(TypeElement element) {
+        TypeMirror superclass = element.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) types.asElement(superclass) : null;
+    }
+
+    /* Checks if element and its enclosing classes are accessible from reflector class */
+    private boolean isAccessible(Element element) {
+        for(Element scanElement = element; scanElement != null && scanElement.getKind() != ElementKind.PACKAGE;
+                scanElement = scanElement.getEnclosingElement()) {
+            if(scanElement.getModifiers().contains(Modifier.PRIVATE)) return false;
+            if(!scanElement.getModifiers().contains(Modifier.PUBLIC)
+                    && !elements.getPackageOf(scanElement).getQualifiedName().contentEquals(packageName))
+                return false;
+        }
+        return true;
+    }
+
+    private boolean isAssignable(List<TypeMirror> from, int fromOffset, List<TypeMirror> to) {
+        if(from.size() - fromOffset != to.size()) return false;
+        for(int i = 0; i < to.size(); i++) {
+            if(!types.isAssignable(from.get(i + fromOffset), to.get(i))) return false;
+        }
+        return true;
+    }
+
+    private boolean isReturnAssignable(TypeMirror targetType, TypeMirror interfaceType) {
+        return interfaceType.getKind() == TypeKind.VOID || targetType.getKind() != TypeKind.VOID && types.isAssignable(targetType, interfaceType);
+    }
+
+    @NotNull
+    private List<TypeMirror> erasedParameters(ExecutableElement method) {
+        List<TypeMirror> parameters = new ArrayList<>();
+        for(VariableElement parameter : method.getParameters())
+            parameters.add(types.erasure(parameter.asType()));
+        return parameters;
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="Descriptor utilities">
+    @NotNull
+    private List<String> descriptors(List<TypeMirror> types) {
+        List<String> descriptors = new ArrayList<>(types.size());
+        for(TypeMirror type : types)
+            descriptors.add(descriptor(type));
+        return descriptors;
+    }
+
+    @NotNull
+    private String methodDescriptor(ExecutableElement method) {
+        StringBuilder descriptor = new StringBuilder("(");
+        for(TypeMirror parameter : erasedParameters(method))
+            descriptor.append(descriptor(parameter));
+        descriptor.append(")");
+        descriptor.append(method.getKind() == ElementKind.CONSTRUCTOR ? "V" : descriptor(method.getReturnType()));
+        return descriptor.toString();
+    }
+
+    @NotNull
+    private String descriptor(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN: return "Z";
+            case BYTE: return "B";
+            case CHAR: return "C";
+            case SHORT: return "S";
+            case INT: return "I";
+            case LONG: return "J";
+            case FLOAT: return "F";
+            case DOUBLE: return "D";
+            case VOID: return "V";
+            case ARRAY:
+                return "[" + descriptor(((ArrayType) type).getComponentType());
+            case DECLARED:
+                return "L" + elements.getBinaryName((TypeElement) ((DeclaredType) type).asElement()).toString().replace('.', '/') + ";";
+            default:
+                return descriptor(types.erasure(type));
+        }
+    }
+
+    /* Splits method descriptor argument types */
+    @NotNull
+    private static List<String> argumentDescriptors(String methodDescriptor) {
+        List<String> arguments = new ArrayList<>();
+        int index = 1;
+        while(methodDescriptor.charAt(index) != ')') {
+            int start = index;
+            while(methodDescriptor.charAt(index) == '[') index++;
+            if(methodDescriptor.charAt(index) == 'L') index = methodDescriptor.indexOf(';', index);
+            arguments.add(methodDescriptor.substring(start, ++index));
+        }
+        return arguments;
+    }
+
+    @NotNull
+    private static String returnDescriptor(String methodDescriptor) {
+        return methodDescriptor.substring(methodDescriptor.indexOf(')') + 1);
+    }
+    //</editor-fold>
+
+    private void error(Element element, String message) {
+        failed = true;
+        messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,6 @@
+/**
+ * Annotation processor, which implements MethodReflector interfaces ahead of time
+ *
+ * @author Mark Vainomaa
+ */
+package eu.mikroskeem.shuriken.processor;
@@ -0,0 +1,247 @@
+package eu.mikroskeem.test.shuriken.processor;
+
+import eu.mikroskeem.shuriken.common.SneakyThrow;
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.MethodReflector;
+import eu.mikroskeem.shuriken.instrumentation.methodreflector.ReflectorTarget;
+import eu.mikroskeem.shuriken.processor.ReflectorProcessor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static eu.mikroskeem.shuriken.reflect.Reflect.wrapClass;
+import static eu.mikroskeem.shuriken.reflect.Reflect.wrapInstance;
+
+
+/**
+ * @author Mark Vainomaa
+ */
+public class ReflectorProcessorTester {
+    private final static String PACKAGE = "eu.mikroskeem.test.shuriken.processor.generated";
+
+    private final static String TARGET_SOURCE = "package " + PACKAGE + ";\n" +
+            "public class Target {\n" +
+            "    private String secret = \"hidden\";\n" +
+            "    public int counter = 1;\n" +
+            "    private Target() {}\n" +
+            "    public Target(int counter) { this.counter = counter; }\n" +
+            "    public String hello(String name) { return \"Hello, \" + name; }\n" +
+            "    private static int add(int a, int b) { return a + b; }\n" +
+            "    private String secret(String prefix) throws Exception { return prefix + secret; }\n" +
+            "}\n";
+
+    private final static String REFLECTOR_SOURCE = "package " + PACKAGE + ";\n" +
+            "import eu.mikroskeem.shuriken.instrumentation.methodreflector.*;\n" +
+            "@ReflectorTarget(Target.class)\n" +
+            "public interface TargetReflector {\n" +
+            "    String hello(String name);\n" +
+            "    int add(int a, int b);\n" +
+            "    @TargetMethod(\"secret\") String getSecret(String prefix);\n" +
+            "    @TargetFieldGetter(\"secret\") String getSecret();\n" +
+            "    @TargetFieldSetter(\"secret\") void setSecret(String secret);\n" +
+            "    @TargetFieldGetter(\"counter\") int getCounter();\n" +
+            "    @TargetFieldSetter(\"counter\") void setCounter(int counter);\n" +
+            "    @TargetConstructor Target create();\n" +
+            "    @TargetConstructor Target create(int counter);\n" +
+            "    default String missing() { return \"default\"; }\n" +
+            "}\n";
+
+    private final static String UNBOUND_REFLECTOR_SOURCE = "package " + PACKAGE + ";\n" +
+            "import eu.mikroskeem.shuriken.instrumentation.methodreflector.*;\n" +
+            "@ReflectorTarget(value = Target.class, unbound = true)\n" +
+            "public interface UnboundTargetReflector {\n" +
+            "    String hello(Target target, String name);\n" +
+            "    int add(int a, int b);\n" +
+            "    @TargetFieldGetter(\"secret\") String getSecret(Object target);\n" +
+            "    @TargetFieldGetter(\"counter\") int getCounter(Target target);\n" +
+            "    @Bulk(\"getCounter\") void getCounters(Target[] targets, int[] out);\n" +
+            "    @Bulk(\"getSecret\") void getSecrets(java.util.List<Target> targets, String[] out);\n" +
+            "}\n";
+
+    private final static String PLACEHOLDER_REFLECTOR_SOURCE = "package " + PACKAGE + ";\n" +
+            "import eu.mikroskeem.shuriken.instrumentation.methodreflector.*;\n" +
+            "@ReflectorTarget(Target.class)\n" +
+            "public interface PlaceholderReflector {\n" +
+            "    @TargetMethod(\"{method}\") String hello(String name);\n" +
+            "}\n";
+
+    private final static String BASE_SOURCE = "package " + PACKAGE + ";\n" +
+            "public class Base implements PoliteGreeter {\n" +
+            "    private String baseSecret = \"base\";\n" +
+            "    int level = 3;\n" +
+            "}\n";
+
+    private final static String GREETER_SOURCE = "package " + PACKAGE + ";\n" +
+            "interface Greeter {\n" +
+            "    default String greet(String name) { return \"Greetings, \" + name; }\n" +
+            "}\n";
+
+    private final static String POLITE_GREETER_SOURCE = "package " + PACKAGE + ";\n" +
+            "public interface PoliteGreeter extends Greeter {}\n";
+
+    private final static String CHILD_SOURCE = "package " + PACKAGE + ";\n" +
+            "public class Child extends Base {}\n";
+
+    private final static String CHILD_REFLECTOR_SOURCE = "package " + PACKAGE + ";\n" +
+            "import eu.mikroskeem.shuriken.instrumentation.methodreflector.*;\n" +
+            "@ReflectorTarget(Child.class)\n" +
+            "public interface ChildReflector {\n" +
+            "    @TargetFieldGetter(\"baseSecret\") String getBaseSecret();\n" +
+            "    @TargetFieldSetter(\"baseSecret\") void setBaseSecret(String baseSecret);\n" +
+            "    @TargetFieldGetter(\"level\") int getLevel();\n" +
+            "    String greet(String name);\n" +
+            "}\n";
+
+    private final static String MISSING_REFLECTOR_SOURCE = "package " + PACKAGE + ";\n" +
+            "import eu.mikroskeem.shuriken.instrumentation.methodreflector.*;\n" +
+            "@ReflectorTarget(Child.class)\n" +
+            "public interface MissingReflector {\n" +
+            "    String greet(String name);\n" +
+            "    @TargetFieldGetter(\"missing\") String getMissing();\n" +
+            "}\n";
+
+    @Test
+    public void testPrecompiledReflectors() throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assumptions.assumeTrue(compiler != null, "Java compiler is not available");
+
+        Path outputDirectory = Files.createTempDirectory("shuriken-processor");
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        List<JavaFileObject> sources = Arrays.asList(
+                new StringSource("Target", TARGET_SOURCE),
+                new StringSource("TargetReflector", REFLECTOR_SOURCE),
+                new StringSource("UnboundTargetReflector", UNBOUND_REFLECTOR_SOURCE),
+                new StringSource("PlaceholderReflector", PLACEHOLDER_REFLECTOR_SOURCE),
+                new StringSource("Base", BASE_SOURCE),
+                new StringSource("Greeter", GREETER_SOURCE),
+                new StringSource("PoliteGreeter", POLITE_GREETER_SOURCE),
+                new StringSource("Child", CHILD_SOURCE),
+                new StringSource("ChildReflector", CHILD_REFLECTOR_SOURCE),
+                new StringSource("MissingReflector", MISSING_REFLECTOR_SOURCE)
+        );
+        List<String> options = Arrays.asList(
+                "-d", outputDirectory.toString(),
+                "-s", outputDirectory.toString(),
+                "-classpath", getLocation(ReflectorTarget.class) + File.pathSeparator + getLocation(SneakyThrow.class)
+        );
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics, options, null, sources);
+        task.setProcessors(Collections.singletonList(new ReflectorProcessor()));
+        boolean success = task.call();
+        for(Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            Assertions.assertNotEquals(Diagnostic.Kind.ERROR, diagnostic.getKind(), diagnostic.toString());
+        }
+        Assertions.assertTrue(success, "Compilation should succeed");
+
+        Path packageDirectory = outputDirectory.resolve(PACKAGE.replace('.', '/'));
+        Assertions.assertTrue(Files.exists(packageDirectory.resolve("TargetReflector" + ReflectorTarget.PRECOMPILED_SUFFIX + ".java")));
+        Assertions.assertTrue(Files.exists(packageDirectory.resolve("UnboundTargetReflector" + ReflectorTarget.PRECOMPILED_SUFFIX + ".java")));
+        Assertions.assertFalse(Files.exists(packageDirectory.resolve("PlaceholderReflector" + ReflectorTarget.PRECOMPILED_SUFFIX + ".java")),
+                "Interfaces using placeholders should not be processed");
+        Assertions.assertTrue(Files.exists(packageDirectory.resolve("ChildReflector" + ReflectorTarget.PRECOMPILED_SUFFIX + ".java")));
+        Assertions.assertFalse(Files.exists(packageDirectory.resolve("MissingReflector" + ReflectorTarget.PRECOMPILED_SUFFIX + ".java")),
+                "Interfaces with unresolved targets should be left to runtime generator");
+
+        try(URLClassLoader classLoader = new URLClassLoader(new URL[] { outputDirectory.toUri().toURL() }, getClass().getClassLoader())) {
+            Class<?> targetClass = Class.forName(PACKAGE + ".Target", true, classLoader);
+            Class<?> reflectorInterface = Class.forName(PACKAGE + ".TargetReflector", true, classLoader);
+            Class<?> unboundReflectorInterface = Class.forName(PACKAGE + ".UnboundTargetReflector", true, classLoader);
+            Object target = targetClass.getConstructor(int.class).newInstance(5);
+
+            /* Bound reflector */
+            Object reflector = MethodReflector.newInstance(wrapInstance(target), reflectorInterface).getReflector();
+            Assertions.assertEquals(reflectorInterface.getName() + ReflectorTarget.PRECOMPILED_SUFFIX, reflector.getClass().getName());
+            Assertions.assertEquals("Hello, world", invoke(reflector, "hello", "world"));
+            Assertions.assertEquals(3, invoke(reflector, "add", 1, 2));
+            Assertions.assertEquals("hidden", invoke(reflector, "getSecret"));
+            Assertions.assertEquals("not hidden", invoke(reflector, "getSecret", "not "));
+            invoke(reflector, "setSecret", "revealed");
+            Assertions.assertEquals("revealed", invoke(reflector, "getSecret"));
+            Assertions.assertEquals(5, invoke(reflector, "getCounter"));
+            invoke(reflector, "setCounter", 10);
+            Assertions.assertEquals(10, invoke(reflector, "getCounter"));
+            Assertions.assertEquals("default", invoke(reflector, "missing"));
+
+            Object created = invoke(reflector, "create");
+            Assertions.assertEquals(1, targetClass.getField("counter").get(created));
+            Object createdWithCounter = reflectorInterface.getMethod("create", int.class).invoke(reflector, 42);
+            Assertions.assertEquals(42, targetClass.getField("counter").get(createdWithCounter));
+
+            /* Unbound reflector */
+            Object unboundReflector = MethodReflector.newUnboundInstance(wrapClass(targetClass), unboundReflectorInterface).getReflector();
+            Assertions.assertEquals(unboundReflectorInterface.getName() + ReflectorTarget.PRECOMPILED_SUFFIX, unboundReflector.getClass().getName());
+            Assertions.assertEquals("Hello, unbound", unboundReflectorInterface.getMethod("hello", targetClass, String.class)
+                    .invoke(unboundReflector, target, "unbound"));
+            Assertions.assertEquals(7, invoke(unboundReflector, "add", 3, 4));
+            Assertions.assertEquals("revealed", unboundReflectorInterface.getMethod("getSecret", Object.class).invoke(unboundReflector, target));
+
+            Object targets = java.lang.reflect.Array.newInstance(targetClass, 2);
+            java.lang.reflect.Array.set(targets, 0, target);
+            java.lang.reflect.Array.set(targets, 1, targetClass.getConstructor(int.class).newInstance(6));
+            int[] counters = new int[2];
+            invoke(unboundReflector, "getCounters", targets, counters);
+            Assertions.assertArrayEquals(new int[] { 10, 6 }, counters);
+            String[] secrets = new String[2];
+            invoke(unboundReflector, "getSecrets", Arrays.asList((Object[]) targets), secrets);
+            Assertions.assertArrayEquals(new String[] { "revealed", "hidden" }, secrets);
+
+            /* Inherited field and superinterface method */
+            Class<?> childClass = Class.forName(PACKAGE + ".Child", true, classLoader);
+            Class<?> childReflectorInterface = Class.forName(PACKAGE + ".ChildReflector", true, classLoader);
+            Object childReflector = MethodReflector.newInstance(wrapInstance(childClass.newInstance()), childReflectorInterface).getReflector();
+            Assertions.assertEquals(childReflectorInterface.getName() + ReflectorTarget.PRECOMPILED_SUFFIX, childReflector.getClass().getName());
+            Assertions.assertEquals("base", invoke(childReflector, "getBaseSecret"));
+            invoke(childReflector, "setBaseSecret", "changed");
+            Assertions.assertEquals("changed", invoke(childReflector, "getBaseSecret"));
+            Assertions.assertEquals(3, invoke(childReflector, "getLevel"));
+            Assertions.assertEquals("Greetings, child", invoke(childReflector, "greet", "child"));
+
+            /* Runtime generator handles interface which couldn't be implemented ahead of time */
+            Class<?> missingReflectorInterface = Class.forName(PACKAGE + ".MissingReflector", true, classLoader);
+            Object missingReflector = MethodReflector.newInstance(wrapInstance(childClass.newInstance()), missingReflectorInterface).getReflector();
+            Assertions.assertNotEquals(missingReflectorInterface.getName() + ReflectorTarget.PRECOMPILED_SUFFIX, missingReflector.getClass().getName());
+            Assertions.assertEquals("Greetings, runtime", invoke(missingReflector, "greet", "runtime"));
+        }
+    }
+
+    private static Object invoke(Object reflector, String name, Object... args) throws Exception {
+        for(java.lang.reflect.Method method : reflector.getClass().getInterfaces()[0].getMethods()) {
+            if(method.getName().equals(name) && method.getParameterCount() == args.length)
+                return method.invoke(reflector, args);
+        }
+        throw new NoSuchMethodException(name);
+    }
+
+    private static String getLocation(Class<?> clazz) throws Exception {
+        return Paths.get(clazz.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+    }
+
+    private static class StringSource extends SimpleJavaFileObject {
+        private final String source;
+
+        StringSource(String name, String source) {
+            super(URI.create("string:///" + PACKAGE.replace('.', '/') + "/" + name + Kind.SOURCE.extension), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package eu.mikroskeem.shuriken.reflect;
+
+/**
+ * {@link FieldWrapper} of {@code boolean} field, which reads and writes field value without boxing
+ *
+ * @author Mark Vainomaa
+ * @see ClassWrapper#getBooleanField(String)
+ */
+public interface BooleanFieldWrapper extends FieldWrapper<Boolean> {
+    /**
+     * Reads value from field
+     * Throws {@link IllegalAccessException} if field reading fails
+     *
+     * @return Field value
+     */
+    boolean readBoolean();
+
+    /**
+     * Writes value to field
+     * Throws {@link IllegalAccessException} if field writing fails
+     *
+     * @param value Field new value
+     */
+    void writeBoolean(boolean value);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    default Boolean read() {
+        return readBoolean();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    default void write(Boolean value) {
+        writeBoolean(value);
+    }
+}
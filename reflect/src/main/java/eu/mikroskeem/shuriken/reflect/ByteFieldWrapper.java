@@ -0,0 +1,41 @@
+package eu.mikroskeem.shuriken.reflect;
+
+/**
+ * {@link FieldWrapper} of {@code byte} field, which reads and writes field value without boxing
+ *
+ * @author Mark Vainomaa
+ * @see ClassWrapper#getByteField(String)
+ */
+public interface ByteFieldWrapper extends FieldWrapper<Byte> {
+    /**
+     * Reads value from field
+     * Throws {@link IllegalAccessException} if field reading fails
+     *
+     * @return Field value
+     */
+    byte readByte();
+
+    /**
+     * Writes value to field
+     * Throws {@link IllegalAccessException} if field writing fails
+     *
+     * @param value Field new value
+     */
+    void writeByte(byte value);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    default Byte read() {
+        return readByte();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    default void write(Byte value) {
+        writeByte(value);
+    }
+}
@@ -0,0 +1,41 @@
+package eu.mikroskeem.shuriken.reflect;
+
+/**
+ * {@link FieldWrapper} of {@code char} field, which reads and writes field value without boxing
+ *
+ * @author Mark Vainomaa
+ * @see ClassWrapper#getCharField(String)
+ */
+public interface CharFieldWrapper extends FieldWrapper<Character> {
+    /**
+     * Reads value from field
+     * Throws {@link IllegalAccessException} if field reading fails
+     *
+     * @return Field value
+     */
+    char readChar();
+
+    /**
+     * Writes value to field
+     * Throws {@link IllegalAccessException} if field writing fails
+     *
+     * @param value Field new value
+     */
+    void writeChar(char value);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    default Character read() {
+        return readChar();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    default void write(Character value) {
+        writeChar(value);
+    }
+}
@@ -0,0 +1,113 @@
+package eu.mikroskeem.shuriken.reflect;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class lookup cache, used by {@link Reflect#getClass(String, ClassLoader)}.
+ *
+ * Lookups are cached per class loader, both found classes and misses. Class loaders are referenced weakly,
+ * and found classes are referenced through {@link WeakReference}s, so cache does not keep class loaders alive.
+ * Class loaders may gain new classes without Shuriken knowing about it (e.g. plugin class loaders delegating to
+ * sibling class loaders), so cached misses expire after {@code shuriken.reflect.classMissExpiry} milliseconds
+ * (1000 by default). Known changes invalidate cached misses immediately, see {@link #invalidate(ClassLoader)}.
+ *
+ * @author Mark Vainomaa
+ */
+final class ClassLookupCache {
+    /* How long class lookup misses are cached */
+    private final static long MISS_EXPIRY_NANOS = TimeUnit.MILLISECONDS.toNanos(
+            Long.getLong("shuriken.reflect.classMissExpiry", 1000));
+
+    /* <Class loader, <Class name, WeakReference<Class<?>> or Miss>> */
+    private final static Map<ClassLoader, Map<String, Object>> CACHE = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /* Incremented on every invalidation, so lookups racing with it won't cache stale misses */
+    private static volatile int generation = 0;
+
+    private ClassLookupCache() {
+        throw new RuntimeException("No ClassLookupCache instance for you!");
+    }
+
+    /**
+     * Finds class by name, initializing it
+     *
+     * @param name Class name
+     * @param classLoader Class loader where class should be looked, or null for bootstrap class loader
+     * @return Found class, or null if class wasn't found
+     */
+    @Nullable
+    @Contract("null, _ -> fail")
+    @SuppressWarnings("unchecked")
+    static Class<?> findClass(String name, @Nullable ClassLoader classLoader) {
+        Map<String, Object> entries = getEntries(classLoader);
+        Object entry = entries.get(name);
+        if(entry instanceof Miss) {
+            if(!((Miss) entry).isExpired()) return null;
+        } else if(entry != null) {
+            Class<?> clazz = ((WeakReference<Class<?>>) entry).get();
+            if(clazz != null) return clazz;
+        }
+
+        /* Look class up and cache the result */
+        int currentGeneration = generation;
+        Class<?> clazz = Reflect.Utils.classForName(name, true, classLoader);
+        if(clazz != null) {
+            entries.put(name, new WeakReference<>(clazz));
+        } else {
+            /* Checked under the same lock as invalidation, so miss can't be cached right after invalidation */
+            synchronized (CACHE) {
+                if(currentGeneration == generation) entries.put(name, new Miss());
+            }
+        }
+        return clazz;
+    }
+
+    /**
+     * Invalidates cached misses of given class loader and its child class loaders
+     *
+     * @param classLoader Class loader, or null to invalidate cached misses of all class loaders
+     */
+    static void invalidate(@Nullable ClassLoader classLoader) {
+        synchronized (CACHE) {
+            generation++;
+            CACHE.forEach((loader, entries) -> {
+                if(classLoader == null || isSameOrChild(loader, classLoader))
+                    entries.values().removeIf(entry -> entry instanceof Miss);
+            });
+        }
+    }
+
+    /* Gets cache entries of given class loader */
+    @NotNull
+    private static Map<String, Object> getEntries(@Nullable ClassLoader classLoader) {
+        synchronized (CACHE) {
+            return CACHE.computeIfAbsent(classLoader, k -> new ConcurrentHashMap<>());
+        }
+    }
+
+    /* Checks if given class loader is same as or delegates to given parent */
+    private static boolean isSameOrChild(@Nullable ClassLoader classLoader, ClassLoader parent) {
+        for(ClassLoader current = classLoader; current != null; current = current.getParent()) {
+            if(current == parent) return true;
+        }
+        return false;
+    }
+
+    /* Marks class which was not found */
+    private static final class Miss {
+        private final long expiresAt = System.nanoTime() + MISS_EXPIRY_NANOS;
+
+        boolean isExpired() {
+            return System.nanoTime() - expiresAt >= 0;
+        }
+    }
+}
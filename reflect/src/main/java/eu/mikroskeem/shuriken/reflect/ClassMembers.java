@@ -0,0 +1,257 @@
+package eu.mikroskeem.shuriken.reflect;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Member index of a class, keyed by member name and JVM descriptor.
+ *
+ * Index is built once per class and shared by everyone asking for it. It is tied to the class
+ * using {@link ClassValue}, so it does not keep class loaders alive.
+ *
+ * Hierarchy lookups prefer class own members first, then superclass members, and then non-abstract
+ * members of implemented interfaces.
+ *
+ * @author Mark Vainomaa
+ */
+public final class ClassMembers {
+    private final static ClassValue<ClassMembers> MEMBERS = new ClassValue<ClassMembers>() {
+        @Override
+        protected ClassMembers computeValue(Class<?> type) {
+            return new ClassMembers(type);
+        }
+    };
+
+    private final Class<?> clazz;
+    private final List<Method> declaredMethods;
+    private final List<Field> declaredFields;
+    private final List<Constructor<?>> declaredConstructors;
+
+    /* Key is member name followed by descriptor */
+    private final Map<String, Method> classMethods = new LinkedHashMap<>();
+    private final Map<String, Method> methods;
+    private final Map<String, Field> fields = new LinkedHashMap<>();
+    private final Map<String, Constructor<?>> constructors = new HashMap<>();
+
+    /* Member lists by name, in lookup order */
+    private final Map<String, List<Method>> methodsByName = new HashMap<>();
+    private final Map<String, List<Field>> fieldsByName = new HashMap<>();
+
+    private ClassMembers(Class<?> clazz) {
+        this.clazz = clazz;
+        this.declaredMethods = Collections.unmodifiableList(Arrays.asList(clazz.getDeclaredMethods()));
+        this.declaredFields = Collections.unmodifiableList(Arrays.asList(clazz.getDeclaredFields()));
+        this.declaredConstructors = Collections.unmodifiableList(Arrays.asList(clazz.getDeclaredConstructors()));
+
+        /* Class own members, then superclass members */
+        Class<?> superClass = clazz.getSuperclass();
+        ClassMembers superMembers = superClass != null ? of(superClass) : null;
+        for(Method method : declaredMethods)
+            classMethods.putIfAbsent(method.getName() + getMethodDescriptor(method), method);
+        if(superMembers != null)
+            superMembers.classMethods.forEach(classMethods::putIfAbsent);
+
+        /* Interface methods come last, as class methods always win over them */
+        this.methods = new LinkedHashMap<>(classMethods);
+        if(superMembers != null)
+            superMembers.methods.forEach(this::putInterfaceMethod);
+        for(Class<?> itf : clazz.getInterfaces())
+            of(itf).methods.forEach(this::putInterfaceMethod);
+
+        /* Fields, in the same order */
+        for(Field field : declaredFields)
+            fields.putIfAbsent(field.getName() + ':' + getDescriptor(field.getType()), field);
+        if(superMembers != null)
+            superMembers.fields.forEach(fields::putIfAbsent);
+        for(Class<?> itf : clazz.getInterfaces())
+            of(itf).fields.forEach(fields::putIfAbsent);
+
+        for(Constructor<?> constructor : declaredConstructors)
+            constructors.put(getMethodDescriptor(void.class, constructor.getParameterTypes()), constructor);
+
+        methods.values().forEach(m -> methodsByName.computeIfAbsent(m.getName(), k -> new ArrayList<>(1)).add(m));
+        fields.values().forEach(f -> fieldsByName.computeIfAbsent(f.getName(), k -> new ArrayList<>(1)).add(f));
+    }
+
+    /**
+     * Gets member index of given class
+     *
+     * @param clazz Class
+     * @return Instance of {@link ClassMembers}
+     */
+    @NotNull
+    public static ClassMembers of(@NotNull Class<?> clazz) {
+        return MEMBERS.get(clazz);
+    }
+
+    /**
+     * Gets indexed class
+     *
+     * @return Indexed class
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Class<?> getIndexedClass() {
+        return clazz;
+    }
+
+    /**
+     * Finds method from class hierarchy
+     *
+     * @param name Method name
+     * @param descriptor Method descriptor, e.g. {@code (Ljava/lang/String;)V}
+     * @return Instance of {@link Method}, or null if not found
+     */
+    @Nullable
+    public Method getMethod(@NotNull String name, @NotNull String descriptor) {
+        return methods.get(name + descriptor);
+    }
+
+    /**
+     * Finds field from class hierarchy
+     *
+     * @param name Field name
+     * @param descriptor Field type descriptor, e.g. {@code Ljava/lang/String;}
+     * @return Instance of {@link Field}, or null if not found
+     */
+    @Nullable
+    public Field getField(@NotNull String name, @NotNull String descriptor) {
+        return fields.get(name + ':' + descriptor);
+    }
+
+    /**
+     * Finds declared constructor
+     *
+     * @param descriptor Constructor descriptor, e.g. {@code (I)V}
+     * @return Instance of {@link Constructor}, or null if not found
+     */
+    @Nullable
+    public Constructor<?> getConstructor(@NotNull String descriptor) {
+        return constructors.get(descriptor);
+    }
+
+    /**
+     * Gets methods with given name from class hierarchy, in lookup order
+     *
+     * @param name Method name
+     * @return Unmodifiable list of methods
+     */
+    @NotNull
+    public List<Method> getMethods(@NotNull String name) {
+        return Collections.unmodifiableList(methodsByName.getOrDefault(name, Collections.emptyList()));
+    }
+
+    /**
+     * Gets fields with given name from class hierarchy, in lookup order
+     *
+     * @param name Field name
+     * @return Unmodifiable list of fields
+     */
+    @NotNull
+    public List<Field> getFields(@NotNull String name) {
+        return Collections.unmodifiableList(fieldsByName.getOrDefault(name, Collections.emptyList()));
+    }
+
+    /**
+     * Gets methods declared in indexed class
+     *
+     * @return Unmodifiable list of methods
+     */
+    @NotNull
+    @Contract(pure = true)
+    public List<Method> getDeclaredMethods() {
+        return declaredMethods;
+    }
+
+    /**
+     * Gets fields declared in indexed class
+     *
+     * @return Unmodifiable list of fields
+     */
+    @NotNull
+    @Contract(pure = true)
+    public List<Field> getDeclaredFields() {
+        return declaredFields;
+    }
+
+    /**
+     * Gets constructors declared in indexed class
+     *
+     * @return Unmodifiable list of constructors
+     */
+    @NotNull
+    @Contract(pure = true)
+    public List<Constructor<?>> getDeclaredConstructors() {
+        return declaredConstructors;
+    }
+
+    /* Interface methods are only inherited when they have an implementation */
+    private void putInterfaceMethod(String key, Method method) {
+        if(!method.getDeclaringClass().isInterface() || !Modifier.isAbstract(method.getModifiers()))
+            methods.putIfAbsent(key, method);
+    }
+
+    //<editor-fold desc="Descriptors">
+    /**
+     * Gets JVM type descriptor of given class
+     *
+     * @param clazz Class
+     * @return Type descriptor
+     */
+    @NotNull
+    public static String getDescriptor(@NotNull Class<?> clazz) {
+        if(clazz.isPrimitive()) {
+            if(clazz == int.class) return "I";
+            if(clazz == void.class) return "V";
+            if(clazz == boolean.class) return "Z";
+            if(clazz == byte.class) return "B";
+            if(clazz == char.class) return "C";
+            if(clazz == short.class) return "S";
+            if(clazz == double.class) return "D";
+            if(clazz == float.class) return "F";
+            return "J";
+        }
+        if(clazz.isArray()) return clazz.getName().replace('.', '/');
+        return "L" + clazz.getName().replace('.', '/') + ";";
+    }
+
+    /**
+     * Gets JVM method descriptor
+     *
+     * @param returnType Method return type
+     * @param parameterTypes Method parameter types
+     * @return Method descriptor
+     */
+    @NotNull
+    public static String getMethodDescriptor(@NotNull Class<?> returnType, @NotNull Class<?>... parameterTypes) {
+        StringBuilder builder = new StringBuilder("(");
+        for(Class<?> parameterType : parameterTypes)
+            builder.append(getDescriptor(parameterType));
+        return builder.append(')').append(getDescriptor(returnType)).toString();
+    }
+
+    /**
+     * Gets JVM method descriptor of given method
+     *
+     * @param method Method
+     * @return Method descriptor
+     */
+    @NotNull
+    public static String getMethodDescriptor(@NotNull Method method) {
+        return getMethodDescriptor(method.getReturnType(), method.getParameterTypes());
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,318 @@
+package eu.mikroskeem.shuriken.reflect;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Accessible member lookup tables of a class, shared by every {@link ClassWrapper} of that class.
+ *
+ * Tables are built once per class and tied to it using {@link ClassValue}, so wrapping a class or
+ * an instance does not walk class members again. Members are made accessible while building tables.
+ * Tables hold own copies of members, so members shared through {@link ClassMembers} are never modified.
+ *
+ * @author Mark Vainomaa
+ */
+final class ClassMetadata {
+    private final static ClassValue<ClassMetadata> METADATA = new ClassValue<ClassMetadata>() {
+        @Override
+        protected ClassMetadata computeValue(Class<?> type) {
+            return new ClassMetadata(type);
+        }
+    };
+
+    private final Class<?> clazz;
+
+    /* Declared members, including extra entries with boxed type for primitive members */
+    private final Map<MethodInfo, Method> methods;
+    private final Map<FieldInfo, Field> fields;
+
+    /* Members found from class hierarchy, resolved lazily. Class hierarchy never changes, so misses are cached as empty */
+    private final Map<MethodInfo, Optional<Method>> resolvedMethods = new ConcurrentHashMap<>();
+    private final Map<FieldInfo, Optional<Field>> resolvedFields = new ConcurrentHashMap<>();
+
+    /* Method invokers and field accessors, created on first use */
+    private final Map<MethodInfo, MethodInvoker<?>> invokers = new ConcurrentHashMap<>();
+    private final Map<FieldInfo, FieldAccessor<?>> accessors = new ConcurrentHashMap<>();
+
+    private ClassMetadata(Class<?> clazz) {
+        this.clazz = clazz;
+
+        /* Build method table */
+        Map<MethodInfo, Method> methods = new LinkedHashMap<>();
+        Map<MethodInfo, Method> extraMethods = new LinkedHashMap<>();
+        for(Method declaredMethod : clazz.getDeclaredMethods()) {
+            Method method = Reflect.Utils.setMethodAccessible(declaredMethod);
+            if(method == null) continue;
+            if(method.getReturnType().isPrimitive()) {
+                extraMethods.put(new MethodInfo(
+                        method.getName(),
+                        PrimitiveType.ensureBoxed(method.getReturnType()),
+                        method.getParameterTypes()
+                ), method);
+            }
+            methods.put(MethodInfo.of(method), method);
+        }
+        extraMethods.forEach(methods::putIfAbsent);
+        this.methods = Collections.unmodifiableMap(methods);
+
+        /* Build field table */
+        Map<FieldInfo, Field> fields = new LinkedHashMap<>();
+        Map<FieldInfo, Field> extraFields = new LinkedHashMap<>();
+        for(Field declaredField : clazz.getDeclaredFields()) {
+            Field field = Reflect.Utils.setFieldAccessible(declaredField);
+            if(field == null) continue;
+            if(field.getType().isPrimitive()) {
+                extraFields.put(new FieldInfo(field.getName(), PrimitiveType.ensureBoxed(field.getType())), field);
+            }
+            fields.put(FieldInfo.of(field), field);
+        }
+        extraFields.forEach(fields::putIfAbsent);
+        this.fields = Collections.unmodifiableMap(fields);
+    }
+
+    /**
+     * Gets metadata of given class
+     *
+     * @param clazz Class
+     * @return Instance of {@link ClassMetadata}
+     */
+    @NotNull
+    @Contract("null -> fail")
+    static ClassMetadata of(Class<?> clazz) {
+        return METADATA.get(clazz);
+    }
+
+    /**
+     * Gets declared fields, keyed by name and type
+     *
+     * @return Unmodifiable map of declared fields
+     */
+    @NotNull
+    @Contract(pure = true)
+    Map<FieldInfo, Field> getFields() {
+        return fields;
+    }
+
+    /**
+     * Finds accessible method from class or its superclasses
+     *
+     * @param methodInfo Method name, return type and parameter types
+     * @return Method, or null if not found
+     */
+    @Nullable
+    Method findMethod(MethodInfo methodInfo) {
+        Method method = methods.get(methodInfo);
+        return method != null ? method : resolvedMethods.computeIfAbsent(methodInfo,
+                info -> Optional.ofNullable(findDeclaredMethod(info))).orElse(null);
+    }
+
+    /**
+     * Finds accessible field from class or its superclasses
+     *
+     * @param fieldInfo Field name and type
+     * @return Field, or null if not found
+     */
+    @Nullable
+    Field findField(FieldInfo fieldInfo) {
+        Field field = fields.get(fieldInfo);
+        return field != null ? field : resolvedFields.computeIfAbsent(fieldInfo,
+                info -> Optional.ofNullable(findDeclaredField(info))).orElse(null);
+    }
+
+    /**
+     * Gets invoker of method from class or its superclasses
+     *
+     * @param methodInfo Method name, return type and parameter types
+     * @return Shared {@link MethodInvoker}, or null if method was not found
+     */
+    @Nullable
+    MethodInvoker<?> getInvoker(MethodInfo methodInfo) {
+        MethodInvoker<?> invoker = invokers.get(methodInfo);
+        if(invoker != null) return invoker;
+        Method method = findMethod(methodInfo);
+        if(method == null) return null;
+        invoker = MethodInvoker.of(method);
+        MethodInvoker<?> existing = invokers.putIfAbsent(methodInfo, invoker);
+        return existing != null ? existing : invoker;
+    }
+
+    /**
+     * Gets accessor of field from class or its superclasses
+     *
+     * @param fieldInfo Field name and type
+     * @return Shared {@link FieldAccessor}, or null if field was not found
+     */
+    @Nullable
+    FieldAccessor<?> getAccessor(FieldInfo fieldInfo) {
+        FieldAccessor<?> accessor = accessors.get(fieldInfo);
+        if(accessor != null) return accessor;
+        Field field = findField(fieldInfo);
+        if(field == null) return null;
+
+        /* Not using computeIfAbsent here, as creating accessor may look up other accessors of this class */
+        accessor = FieldAccessor.of(field, fieldInfo.fieldType);
+        FieldAccessor<?> existing = accessors.putIfAbsent(fieldInfo, accessor);
+        return existing != null ? existing : accessor;
+    }
+
+    /* Finds declared method from given class and its superclasses */
+    @Nullable
+    private Method findDeclaredMethod(MethodInfo methodInfo) {
+        Method theMethod = ClassMembers.of(clazz).getMethods(methodInfo.methodName).stream()
+                .filter(m -> {
+                    if(Arrays.equals(m.getParameterTypes(), methodInfo.params)) {
+                        if(m.getReturnType() != Object.class) {
+                            Class<?> theReturn = methodInfo.returnType;
+                            Class<?> theMethodReturn = m.getReturnType();
+                            if(theReturn.isPrimitive()) {
+                                theReturn = PrimitiveType.getBoxed(theReturn);
+                            }
+                            if(theMethodReturn.isPrimitive()) {
+                                theMethodReturn = PrimitiveType.getBoxed(theMethodReturn);
+                            }
+                            return theReturn == theMethodReturn;
+                        } else {
+                            return true;
+                        }
+                    }
+                    return false;
+                })
+                .findFirst().orElse(null);
+        return Reflect.Utils.setMethodAccessible(copyOf(theMethod));
+    }
+
+    /* Finds declared field from given class and its superclasses */
+    @Nullable
+    private Field findDeclaredField(FieldInfo fieldInfo) {
+        Field field = ClassMembers.of(clazz).getFields(fieldInfo.fieldName).stream()
+                .filter(f -> fieldInfo.fieldType == Object.class || f.getType() == fieldInfo.fieldType)
+                .findFirst().orElse(null);
+        return Reflect.Utils.setFieldAccessible(copyOf(field));
+    }
+
+    /* Copies shared method, so making it accessible won't affect other users */
+    @Nullable
+    private static Method copyOf(@Nullable Method method) {
+        if(method == null) return null;
+        for(Method declaredMethod : method.getDeclaringClass().getDeclaredMethods()) {
+            if(declaredMethod.equals(method)) return declaredMethod;
+        }
+        return null;
+    }
+
+    /* Copies shared field, so making it accessible won't affect other users */
+    @Nullable
+    private static Field copyOf(@Nullable Field field) {
+        if(field == null) return null;
+        try {
+            return field.getDeclaringClass().getDeclaredField(field.getName());
+        } catch (NoSuchFieldException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ClassMetadata{class=" + clazz.getName() + ", methods=" + methods.size() + ", fields=" + fields.size() + '}';
+    }
+
+    /* Method info, used as lookup key */
+    static final class MethodInfo {
+        MethodInfo(@NotNull String methodName, @NotNull Class<?> returnType,
+                   @NotNull Class<?>[] params) {
+            this.methodName = methodName;
+            this.returnType = returnType;
+            this.params = params;
+        }
+
+        final String methodName;
+        final Class<?> returnType;
+        final Class<?>[] params;
+
+        static MethodInfo of(Method method) {
+            return new MethodInfo(method.getName(),
+                    method.getReturnType(), method.getParameterTypes());
+        }
+
+        @Override
+        public int hashCode() {
+            int result = methodName.hashCode();
+            result = 31 * result + returnType.hashCode();
+            result = 31 * result + Arrays.hashCode(params);
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o)
+                return true;
+            if(o == null || getClass() != o.getClass())
+                return false;
+
+            MethodInfo that = (MethodInfo) o;
+
+            if(!methodName.equals(that.methodName))
+                return false;
+            if(!returnType.equals(that.returnType))
+                return false;
+            return Arrays.equals(params, that.params);
+        }
+
+        @Override
+        public String toString() {
+            return "MethodInfo{methodName='" + methodName + '\'' + ", " +
+                    "returnType=" + returnType + ", params=" + Arrays.toString(params) + '}';
+        }
+    }
+
+    /* Field info, used as lookup key */
+    static final class FieldInfo {
+        final String fieldName;
+        final Class<?> fieldType;
+
+        FieldInfo(@NotNull String fieldName, @NotNull Class<?> fieldType) {
+            this.fieldName = fieldName;
+            this.fieldType = fieldType;
+        }
+
+        static FieldInfo of(Field field) {
+            return new FieldInfo(field.getName(), field.getType());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o)
+                return true;
+            if(o == null || getClass() != o.getClass())
+                return false;
+
+            FieldInfo fieldInfo = (FieldInfo) o;
+
+            if(!fieldName.equals(fieldInfo.fieldName))
+                return false;
+            return fieldType.equals(fieldInfo.fieldType);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = fieldName.hashCode();
+            result = 31 * result + fieldType.hashCode();
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "FieldInfo{" + "fieldName='" + fieldName + '\'' + ", fieldType=" + fieldType + '}';
+        }
+    }
+}
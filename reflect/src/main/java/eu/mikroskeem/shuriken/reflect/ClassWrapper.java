@@ -1,15 +1,19 @@
 package eu.mikroskeem.shuriken.reflect;
 
+import eu.mikroskeem.shuriken.reflect.ClassMetadata.FieldInfo;
+import eu.mikroskeem.shuriken.reflect.ClassMetadata.MethodInfo;
 import eu.mikroskeem.shuriken.reflect.wrappers.TypeWrapper;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
-import java.util.*;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -20,65 +24,17 @@ import java.util.stream.Collectors;
  * @author Mark Vainomaa
  */
 public final class ClassWrapper<T> {
-    /* Method cache */
-    private final Map<MethodInfo, Integer> METHOD_INDEX = new HashMap<>();
-    private final Map<Integer, Method> METHOD_CACHE = new HashMap<>();
+    /* Shared member lookup tables */
+    private final ClassMetadata metadata;
 
-    /* Field cache */
-    private final Map<FieldInfo, Integer> FIELD_INDEX = new HashMap<>();
-    private final Map<Integer, Field> FIELD_CACHE = new HashMap<>();
-    private final Map<Integer, FieldWrapper<?>> FIELDWRAPPER_CACHE = new HashMap<>();
+    /* Field wrappers bound to this wrapper, allocated on first use */
+    private Map<FieldInfo, FieldWrapper<?>> fieldWrappers = null;
 
     /* Private constructor */
     private ClassWrapper(Class<T> wrappedClass) {
         if(wrappedClass == null) throw new IllegalStateException("Wrapped class shouldn't be null!");
         this.wrappedClass = wrappedClass;
-
-        /* Build method cache */
-        Method[] declaredMethods = wrappedClass.getDeclaredMethods();
-        Map<MethodInfo, Method> extraMethods = new HashMap<>();
-        for (int i = 0; i <= declaredMethods.length-1; i++) {
-            Method method = Reflect.Utils.setMethodAccessible(declaredMethods[i]);
-            if(method == null) continue;
-            if(method.getReturnType().isPrimitive()) {
-                MethodInfo nonPrimitiveMethodInfo = new MethodInfo(
-                        method.getName(),
-                        PrimitiveType.ensureBoxed(method.getReturnType()),
-                        method.getParameterTypes()
-                );
-                extraMethods.put(nonPrimitiveMethodInfo, method);
-            }
-            METHOD_INDEX.put(MethodInfo.of(method), i);
-            METHOD_CACHE.put(i, method);
-        }
-        extraMethods.forEach((i, m) -> {
-            int index = METHOD_INDEX.size();
-            METHOD_INDEX.put(i, index);
-            METHOD_CACHE.put(index, m);
-        });
-
-        /* Build field cache */
-        Field[] declaredFields = wrappedClass.getDeclaredFields();
-        Map<FieldInfo, Field> extraFields = new HashMap<>();
-        for (int i = 0; i <= declaredFields.length-1; i++) {
-            Field field = Reflect.Utils.setFieldAccessible(declaredFields[i]);
-            if(field == null) continue;
-            if(field.getType().isPrimitive()) {
-                FieldInfo nonPrimitiveFieldInfo = new FieldInfo(
-                        field.getName(),
-                        PrimitiveType.ensureBoxed(field.getType())
-                );
-                extraFields.put(nonPrimitiveFieldInfo, field);
-            }
-            FieldInfo fieldInfo = FieldInfo.of(field);
-            FIELD_INDEX.put(fieldInfo, i);
-            FIELD_CACHE.put(i, field);
-        }
-        extraFields.forEach((i, f) -> {
-            int index = FIELD_INDEX.size();
-            FIELD_INDEX.put(i, index);
-            FIELD_CACHE.put(index, f);
-        });
+        this.metadata = ClassMetadata.of(wrappedClass);
     }
 
     private final Class<T> wrappedClass;
@@ -155,7 +111,8 @@ public final class ClassWrapper<T> {
     }
 
     /**
-     * Get class field
+     * Get class field. If given type is primitive, returned wrapper is primitive specialized one,
+     * like {@link IntFieldWrapper}
      *
      * @param fieldName Field's name
      * @param type Field's type class
@@ -169,18 +126,13 @@ public final class ClassWrapper<T> {
         if(fieldName == null) throw new IllegalStateException("Field name shouldn't be null!");
         if(type == null) throw new IllegalStateException("Field type shouldn't be null!");
 
-        /* Try to find cached field */
+        /* Find field */
         FieldInfo fieldInfo = new FieldInfo(fieldName, type);
-
-        /* Get field */
-        Integer found = FIELD_INDEX.get(fieldInfo);
-        Field[] field = new Field[] { found != null ? FIELD_CACHE.get(found) : null };
-        field[0] = field[0] != null ? field[0] : findDeclaredField(fieldName, type);
-        if(field[0] == null) return Optional.empty();
+        FieldAccessor<?> accessor = metadata.getAccessor(fieldInfo);
+        if(accessor == null) return Optional.empty();
 
         /* Wrap field */
-        return Optional.of((FieldWrapper<V>)FIELDWRAPPER_CACHE.computeIfAbsent(found,
-                k -> MethodHandleFieldWrapper.of(this, field[0], type)));
+        return Optional.of((FieldWrapper<V>) getFieldWrappers().computeIfAbsent(fieldInfo, k -> wrapField(accessor)));
     }
 
     /**
@@ -195,15 +147,216 @@ public final class ClassWrapper<T> {
         return getField(fieldName, type.getWrappedClass());
     }
 
+    //<editor-fold desc="Primitive fields">
+    /**
+     * Get class {@code boolean} field, which can be read and written without boxing
+     *
+     * @param fieldName Field's name
+     * @return {@link BooleanFieldWrapper} object or empty, if field wasn't found
+     */
+    @Contract("null -> fail")
+    public Optional<BooleanFieldWrapper> getBooleanField(String fieldName) {
+        return getField(fieldName, boolean.class).map(BooleanFieldWrapper.class::cast);
+    }
+
+    /**
+     * Get class {@code byte} field, which can be read and written without boxing
+     *
+     * @param fieldName Field's name
+     * @return {@link ByteFieldWrapper} object or empty, if field wasn't found
+     */
+    @Contract("null -> fail")
+    public Optional<ByteFieldWrapper> getByteField(String fieldName) {
+        return getField(fieldName, byte.class).map(ByteFieldWrapper.class::cast);
+    }
+
+    /**
+     * Get class {@code char} field, which can be read and written without boxing
+     *
+     * @param fieldName Field's name
+     * @return {@link CharFieldWrapper} object or empty, if field wasn't found
+     */
+    @Contract("null -> fail")
+    public Optional<CharFieldWrapper> getCharField(String fieldName) {
+        return getField(fieldName, char.class).map(CharFieldWrapper.class::cast);
+    }
+
+    /**
+     * Get class {@code short} field, which can be read and written without boxing
+     *
+     * @param fieldName Field's name
+     * @return {@link ShortFieldWrapper} object or empty, if field wasn't found
+     */
+    @Contract("null -> fail")
+    public Optional<ShortFieldWrapper> getShortField(String fieldName) {
+        return getField(fieldName, short.class).map(ShortFieldWrapper.class::cast);
+    }
+
+    /**
+     * Get class {@code int} field, which can be read and written without boxing
+     *
+     * @param fieldName Field's name
+     * @return {@link IntFieldWrapper} object or empty, if field wasn't found
+     */
+    @Contract("null -> fail")
+    public Optional<IntFieldWrapper> getIntField(String fieldName) {
+        return getField(fieldName, int.class).map(IntFieldWrapper.class::cast);
+    }
+
+    /**
+     * Get class {@code long} field, which can be read and written without boxing
+     *
+     * @param fieldName Field's name
+     * @return {@link LongFieldWrapper} object or empty, if field wasn't found
+     */
+    @Contract("null -> fail")
+    public Optional<LongFieldWrapper> getLongField(String fieldName) {
+        return getField(fieldName, long.class).map(LongFieldWrapper.class::cast);
+    }
+
+    /**
+     * Get class {@code float} field, which can be read and written without boxing
+     *
+     * @param fieldName Field's name
+     * @return {@link FloatFieldWrapper} object or empty, if field wasn't found
+     */
+    @Contract("null -> fail")
+    public Optional<FloatFieldWrapper> getFloatField(String fieldName) {
+        return getField(fieldName, float.class).map(FloatFieldWrapper.class::cast);
+    }
+
+    /**
+     * Get class {@code double} field, which can be read and written without boxing
+     *
+     * @param fieldName Field's name
+     * @return {@link DoubleFieldWrapper} object or empty, if field wasn't found
+     */
+    @Contract("null -> fail")
+    public Optional<DoubleFieldWrapper> getDoubleField(String fieldName) {
+        return getField(fieldName, double.class).map(DoubleFieldWrapper.class::cast);
+    }
+    //</editor-fold>
+
+    /**
+     * Get class field accessor. Accessor is not bound to this wrapper's instance, but takes target instance
+     * on every access instead, and is shared between all wrappers of this class. If given type is primitive,
+     * returned accessor is primitive specialized one, like {@link FieldAccessor.OfInt}
+     *
+     * @param fieldName Field's name
+     * @param type Field's type class
+     * @param <V> Field's type
+     * @return {@link FieldAccessor} object or empty, if field wasn't found
+     */
+    @Contract("null, null -> fail")
+    @SuppressWarnings("unchecked")
+    public <V> Optional<FieldAccessor<V>> getFieldAccessor(String fieldName, Class<V> type) {
+        /* Check arguments */
+        if(fieldName == null) throw new IllegalStateException("Field name shouldn't be null!");
+        if(type == null) throw new IllegalStateException("Field type shouldn't be null!");
+
+        return Optional.ofNullable((FieldAccessor<V>) metadata.getAccessor(new FieldInfo(fieldName, type)));
+    }
+
+    //<editor-fold desc="Primitive field accessors">
+    /**
+     * Get accessor of class {@code boolean} field, which reads and writes field value without boxing
+     *
+     * @param fieldName Field's name
+     * @return {@link FieldAccessor.OfBoolean} object or empty, if field wasn't found
+     */
+    @Contract("null -> fail")
+    public Optional<FieldAccessor.OfBoolean> getBooleanFieldAccessor(String fieldName) {
+        return getFieldAccessor(fieldName, boolean.class).map(FieldAccessor.OfBoolean.class::cast);
+    }
+
+    /**
+     * Get accessor of class {@code byte} field, which reads and writes field value without boxing
+     *
+     * @param fieldName Field's name
+     * @return {@link FieldAccessor.OfByte} object or empty, if field wasn't found
+     */
+    @Contract("null -> fail")
+    public Optional<FieldAccessor.OfByte> getByteFieldAccessor(String fieldName) {
+        return getFieldAccessor(fieldName, byte.class).map(FieldAccessor.OfByte.class::cast);
+    }
+
+    /**
+     * Get accessor of class {@code char} field, which reads and writes field value without boxing
+     *
+     * @param fieldName Field's name
+     * @return {@link FieldAccessor.OfChar} object or empty, if field wasn't found
+     */
+    @Contract("null -> fail")
+    public Optional<FieldAccessor.OfChar> getCharFieldAccessor(String fieldName) {
+        return getFieldAccessor(fieldName, char.class).map(FieldAccessor.OfChar.class::cast);
+    }
+
+    /**
+     * Get accessor of class {@code short} field, which reads and writes field value without boxing
+     *
+     * @param fieldName Field's name
+     * @return {@link FieldAccessor.OfShort} object or empty, if field wasn't found
+     */
+    @Contract("null -> fail")
+    public Optional<FieldAccessor.OfShort> getShortFieldAccessor(String fieldName) {
+        return getFieldAccessor(fieldName, short.class).map(FieldAccessor.OfShort.class::cast);
+    }
+
+    /**
+     * Get accessor of class {@code int} field, which reads and writes field value without boxing
+     *
+     * @param fieldName Field's name
+     * @return {@link FieldAccessor.OfInt} object or empty, if field wasn't found
+     */
+    @Contract("null -> fail")
+    public Optional<FieldAccessor.OfInt> getIntFieldAccessor(String fieldName) {
+        return getFieldAccessor(fieldName, int.class).map(FieldAccessor.OfInt.class::cast);
+    }
+
+    /**
+     * Get accessor of class {@code long} field, which reads and writes field value without boxing
+     *
+     * @param fieldName Field's name
+     * @return {@link FieldAccessor.OfLong} object or empty, if field wasn't found
+     */
+    @Contract("null -> fail")
+    public Optional<FieldAccessor.OfLong> getLongFieldAccessor(String fieldName) {
+        return getFieldAccessor(fieldName, long.class).map(FieldAccessor.OfLong.class::cast);
+    }
+
+    /**
+     * Get accessor of class {@code float} field, which reads and writes field value without boxing
+     *
+     * @param fieldName Field's name
+     * @return {@link FieldAccessor.OfFloat} object or empty, if field wasn't found
+     */
+    @Contract("null -> fail")
+    public Optional<FieldAccessor.OfFloat> getFloatFieldAccessor(String fieldName) {
+        return getFieldAccessor(fieldName, float.class).map(FieldAccessor.OfFloat.class::cast);
+    }
+
+    /**
+     * Get accessor of class {@code double} field, which reads and writes field value without boxing
+     *
+     * @param fieldName Field's name
+     * @return {@link FieldAccessor.OfDouble} object or empty, if field wasn't found
+     */
+    @Contract("null -> fail")
+    public Optional<FieldAccessor.OfDouble> getDoubleFieldAccessor(String fieldName) {
+        return getFieldAccessor(fieldName, double.class).map(FieldAccessor.OfDouble.class::cast);
+    }
+    //</editor-fold>
+
     /**
      * Get all available fields in class
      *
      * @return List of fields
      */
     public List<FieldWrapper<?>> getFields() {
-        return FIELD_INDEX.values().stream()
-                .map(index -> FIELDWRAPPER_CACHE.computeIfAbsent(index, k ->
-                        MethodHandleFieldWrapper.of(this, FIELD_CACHE.get(index))))
+        Map<FieldInfo, FieldWrapper<?>> fieldWrappers = getFieldWrappers();
+        return metadata.getFields().entrySet().stream()
+                .map(entry -> fieldWrappers.computeIfAbsent(entry.getKey(), k ->
+                        wrapField(metadata.getAccessor(FieldInfo.of(entry.getValue())))))
                 .collect(Collectors.toList());
     }
 
@@ -228,13 +381,9 @@ public final class ClassWrapper<T> {
         Class<?>[] tArgs = Reflect.Utils.getAllClasses(args);
         Object[] mArgs = Reflect.Utils.getAllObjects(args);
 
-        /* Try to find cached method */
-        MethodInfo methodInfo = new MethodInfo(methodName, returnType, tArgs);
-
         /* Find method */
-        Integer found = METHOD_INDEX.get(methodInfo);
-        Method method = found != null ? METHOD_CACHE.get(found) : null;
-        method = method != null ? method : findDeclaredMethod(methodName, returnType, tArgs);
+        Method method = metadata.findMethod(new MethodInfo(methodName, returnType, tArgs));
+        if(method == null) Reflect.Utils.throwException(new NoSuchMethodException(methodName));
 
         /* Do method modifier checks */
         if(!Modifier.isStatic(method.getModifiers()) && getClassInstance() == null) {
@@ -242,12 +391,9 @@ public final class ClassWrapper<T> {
         }
 
         /* Check return type */
-        Class<?> returnTypeClazz = method.getReturnType();
-        if(returnTypeClazz.isPrimitive()) {
-            returnType = PrimitiveType.getBoxed(returnTypeClazz);
-        } else if(method.getReturnType() != returnType) {
-            throw new IllegalStateException("Method return type didn't match! Expected: " + returnType +
-                    ", got: " + method.getReturnType());
+        checkReturnType(method, returnType);
+        if(method.getReturnType().isPrimitive()) {
+            returnType = PrimitiveType.getBoxed(method.getReturnType());
         }
 
         /* Invoke */
@@ -264,6 +410,36 @@ public final class ClassWrapper<T> {
         return null;
     }
 
+    /**
+     * Resolves method and returns reusable invoker for it. Invoker is not bound to this wrapper's instance,
+     * and can be used with any instance of wrapped class
+     * <br>
+     * Throws {@link NoSuchMethodException} if method wasn't found
+     *
+     * @param methodName Method name
+     * @param returnType Method's return type class
+     * @param paramTypes Method's parameter types
+     * @param <V> Method's return type
+     * @return Instance of {@link MethodInvoker}
+     * @see MethodInvoker
+     */
+    @NotNull
+    @Contract("null, null, _ -> fail")
+    @SuppressWarnings("unchecked")
+    public <V> MethodInvoker<V> method(String methodName, Class<V> returnType, Class<?>... paramTypes) {
+        /* Check arguments */
+        if(methodName == null) throw new IllegalStateException("Method name shouldn't be null!");
+        if(returnType == null) throw new IllegalStateException("Method return type shouldn't be null!");
+
+        /* Find method */
+        MethodInvoker<V> invoker = (MethodInvoker<V>) metadata.getInvoker(new MethodInfo(methodName, returnType, paramTypes.clone()));
+        if(invoker == null) Reflect.Utils.throwException(new NoSuchMethodException(methodName));
+
+        /* Check return type */
+        checkReturnType(invoker.getMethod(), returnType);
+        return invoker;
+    }
+
     @Override
     public int hashCode() {
         int result = 61;
@@ -280,141 +456,25 @@ public final class ClassWrapper<T> {
         );
     }
 
-    /* Finds declared method from given class and its superclasses */
-    @NotNull
-    private Method findDeclaredMethod(String methodName, Class<?> returnType, Class<?>[] params) {
-        Class<?> cls = wrappedClass;
-        Method theMethod;
-        do {
-            theMethod = Arrays.stream(cls.getDeclaredMethods())
-                    .filter(m -> {
-                        if(methodName.equals(m.getName())) {
-                            if(Arrays.equals(m.getParameterTypes(), params)) {
-                                if(m.getReturnType() != Object.class) {
-                                    Class<?> theReturn = returnType;
-                                    Class<?> theMethodReturn = m.getReturnType();
-                                    if(theReturn.isPrimitive()) {
-                                        theReturn = PrimitiveType.getBoxed(theReturn);
-                                    }
-                                    if(theMethodReturn.isPrimitive()) {
-                                        theMethodReturn = PrimitiveType.getBoxed(theMethodReturn);
-                                    }
-                                    return theReturn == theMethodReturn;
-                                } else {
-                                    return true;
-                                }
-                            }
-                        }
-                        return false;
-                    })
-                    .findFirst().orElse(null);
-        } while (theMethod == null && (cls = cls.getSuperclass()) != null);
-        theMethod = Reflect.Utils.setMethodAccessible(theMethod);
-        if(theMethod == null) Reflect.Utils.throwException(new NoSuchMethodException(methodName));
-        return theMethod;
-    }
-
-    /* Finds declared field from given class and its superclasses */
-    @Nullable
-    private Field findDeclaredField(String fieldName, Class<?> type) {
-        Class<?> cls = wrappedClass;
-        Field field;
-        do {
-            field = Arrays.stream(cls.getDeclaredFields())
-                    .filter(f -> fieldName.equals(f.getName()) && (type == Object.class || f.getType() == type))
-                    .findFirst().orElse(null);
-        } while (field == null && (cls = cls.getSuperclass()) != null);
-        field = Reflect.Utils.setFieldAccessible(field);
-        return field;
-    }
-
-    /* Method info, used in cache */
-    private static class MethodInfo {
-        MethodInfo(@NotNull String methodName, @NotNull Class<?> returnType,
-                   @NotNull Class<?>[] params) {
-            this.methodName = methodName;
-            this.returnType = returnType;
-            this.params = params;
-        }
-
-        final String methodName;
-        final Class<?> returnType;
-        final Class<?>[] params;
-
-        static MethodInfo of(Method method) {
-            return new MethodInfo(method.getName(),
-                    method.getReturnType(), method.getParameterTypes());
-        }
-
-        @Override
-        public int hashCode() {
-            int result = methodName.hashCode();
-            result = 31 * result + returnType.hashCode();
-            result = 31 * result + Arrays.hashCode(params);
-            return result;
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            if(this == o)
-                return true;
-            if(o == null || getClass() != o.getClass())
-                return false;
-
-            MethodInfo that = (MethodInfo) o;
-
-            if(!methodName.equals(that.methodName))
-                return false;
-            if(!returnType.equals(that.returnType))
-                return false;
-            return Arrays.equals(params, that.params);
-        }
-
-        @Override
-        public String toString() {
-            return "MethodInfo{methodName='" + methodName + '\'' + ", " +
-                    "returnType=" + returnType + ", params=" + Arrays.toString(params) + '}';
+    /* Checks if method return type matches with expected one. Primitive return types are not checked */
+    private static void checkReturnType(Method method, Class<?> returnType) {
+        if(!method.getReturnType().isPrimitive() && method.getReturnType() != returnType) {
+            throw new IllegalStateException("Method return type didn't match! Expected: " + returnType +
+                    ", got: " + method.getReturnType());
         }
     }
 
-    /* Field info, used in cache */
-    private static class FieldInfo {
-        final String fieldName;
-        final Class<?> fieldType;
-
-        FieldInfo(@NotNull String fieldName, @NotNull Class<?> fieldType) {
-            this.fieldName = fieldName;
-            this.fieldType = fieldType;
-        }
-
-        static FieldInfo of(Field field) {
-            return new FieldInfo(field.getName(), field.getType());
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            if(this == o)
-                return true;
-            if(o == null || getClass() != o.getClass())
-                return false;
-
-            FieldInfo fieldInfo = (FieldInfo) o;
-
-            if(!fieldName.equals(fieldInfo.fieldName))
-                return false;
-            return fieldType.equals(fieldInfo.fieldType);
-        }
-
-        @Override
-        public int hashCode() {
-            int result = fieldName.hashCode();
-            result = 31 * result + fieldType.hashCode();
-            return result;
-        }
+    /* Wraps field, primitive fields get specialized wrappers */
+    @NotNull
+    private FieldWrapper<?> wrapField(FieldAccessor<?> accessor) {
+        return accessor.getType().isPrimitive() ?
+                PrimitiveFieldWrappers.of(this, accessor) : MethodHandleFieldWrapper.of(this, accessor);
+    }
 
-        @Override
-        public String toString() {
-            return "FieldInfo{" + "fieldName='" + fieldName + '\'' + ", fieldType=" + fieldType + '}';
-        }
+    /* Gets field wrapper cache of this wrapper */
+    @NotNull
+    private Map<FieldInfo, FieldWrapper<?>> getFieldWrappers() {
+        if(fieldWrappers == null) fieldWrappers = new HashMap<>();
+        return fieldWrappers;
     }
 }
@@ -0,0 +1,41 @@
+package eu.mikroskeem.shuriken.reflect;
+
+/**
+ * {@link FieldWrapper} of {@code double} field, which reads and writes field value without boxing
+ *
+ * @author Mark Vainomaa
+ * @see ClassWrapper#getDoubleField(String)
+ */
+public interface DoubleFieldWrapper extends FieldWrapper<Double> {
+    /**
+     * Reads value from field
+     * Throws {@link IllegalAccessException} if field reading fails
+     *
+     * @return Field value
+     */
+    double readDouble();
+
+    /**
+     * Writes value to field
+     * Throws {@link IllegalAccessException} if field writing fails
+     *
+     * @param value Field new value
+     */
+    void writeDouble(double value);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    default Double read() {
+        return readDouble();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    default void write(Double value) {
+        writeDouble(value);
+    }
+}
@@ -0,0 +1,641 @@
+package eu.mikroskeem.shuriken.reflect;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Field accessor, which is not bound to any instance. Target instance is given on every access instead, so
+ * one accessor can be used to access same field on many objects.
+ *
+ * Accessors are resolved once per class and shared between all {@link ClassWrapper}s of that class, they
+ * are safe to use from multiple threads. Getter and setter {@link MethodHandle}s are adapted to take target
+ * as {@link Object} and invoked with {@link MethodHandle#invokeExact(Object...)}. Accessors of primitive fields
+ * are primitive specialized, like {@link OfInt}, and don't box field values.
+ *
+ * Accessing instance field with null target throws {@link NullPointerException}.
+ *
+ * @param <T> Field type
+ * @author Mark Vainomaa
+ * @see ClassWrapper#getFieldAccessor(String, Class)
+ */
+public abstract class FieldAccessor<T> {
+    private final Field field;
+    private final Class<T> type;
+    private final boolean isStatic;
+
+    /* (Object)T and (Object, T)V, target is ignored for static fields. Setter is created on first write */
+    final MethodHandle getter;
+    private volatile MethodHandle setter;
+
+    @SuppressWarnings("unchecked")
+    FieldAccessor(Field field, Class<?> type) throws IllegalAccessException {
+        this.field = field;
+        this.type = (Class<T>) type;
+        this.isStatic = Modifier.isStatic(field.getModifiers());
+
+        /* Allow field access */
+        Reflect.Utils.setFieldAccessible(field);
+
+        /* Set up getter MethodHandle */
+        MethodHandle getter = MethodHandles.lookup().unreflectGetter(field);
+        if(isStatic) getter = MethodHandles.dropArguments(getter, 0, Object.class);
+        this.getter = getter.asType(MethodType.methodType(getHandleType(), Object.class));
+    }
+
+    /**
+     * Creates new field accessor
+     *
+     * @param field Backing field
+     * @param type Field value type. Primitive types get primitive specialized accessor
+     * @param <T> Field type
+     * @return Instance of {@link FieldAccessor}
+     */
+    @NotNull
+    @Contract("null, _ -> fail")
+    @SuppressWarnings("unchecked")
+    static <T> FieldAccessor<T> of(Field field, Class<T> type) {
+        try {
+            return (FieldAccessor<T>) create(field, type);
+        } catch (IllegalAccessException e) {
+            Reflect.Utils.throwException(e);
+        }
+        return null;
+    }
+
+    /* Creates accessor of given type */
+    @NotNull
+    private static FieldAccessor<?> create(Field field, Class<?> type) throws IllegalAccessException {
+        if(type.isPrimitive()) {
+            if(type == boolean.class) return new OfBoolean(field);
+            if(type == byte.class) return new OfByte(field);
+            if(type == char.class) return new OfChar(field);
+            if(type == short.class) return new OfShort(field);
+            if(type == int.class) return new OfInt(field);
+            if(type == long.class) return new OfLong(field);
+            if(type == float.class) return new OfFloat(field);
+            if(type == double.class) return new OfDouble(field);
+        }
+        return new OfObject<>(field, type);
+    }
+
+    /**
+     * Gets setter {@link MethodHandle}, creating it on first use. Final fields are written through private
+     * copy of the field without final modifier, which is not possible on every JVM
+     *
+     * @return Setter {@link MethodHandle}
+     */
+    @NotNull
+    final MethodHandle setter() {
+        MethodHandle setter = this.setter;
+        if(setter != null) return setter;
+
+        try {
+            Field writableField = Reflect.Utils.setFieldAccessible(MethodHandleFieldWrapper.getWritableCopy(field));
+            setter = MethodHandles.lookup().unreflectSetter(writableField);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(String.format("Field '%s' can't be written on this JVM", field), e);
+        }
+        if(isStatic) setter = MethodHandles.dropArguments(setter, 0, Object.class);
+        return this.setter = setter.asType(MethodType.methodType(void.class, Object.class, getHandleType()));
+    }
+
+    /* Type of field values in MethodHandles */
+    @NotNull
+    private Class<?> getHandleType() {
+        return type.isPrimitive() ? type : Object.class;
+    }
+
+    /**
+     * Reads value from field
+     *
+     * @param target Instance to read field from, ignored for static fields
+     * @return Field value
+     */
+    public abstract T read(@Nullable Object target);
+
+    /**
+     * Writes value to field
+     *
+     * @param target Instance to write field to, ignored for static fields
+     * @param value Field new value
+     * <br>
+     * Throws {@link IllegalStateException} if field is final and this JVM does not allow writing it
+     */
+    public abstract void write(@Nullable Object target, T value);
+
+    /**
+     * Gets field name
+     *
+     * @return Field name
+     */
+    @NotNull
+    @Contract(pure = true)
+    public String getName() {
+        return field.getName();
+    }
+
+    /**
+     * Gets field value type
+     *
+     * @return Field value type
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Gets backing {@link Field} instance
+     *
+     * @return Backing {@link Field}
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Field getField() {
+        return field;
+    }
+
+    /**
+     * Whether field is static
+     *
+     * @return true if field is static, false otherwise
+     */
+    @Contract(pure = true)
+    public boolean isStatic() {
+        return isStatic;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{field=" + field + ", type=" + type + '}';
+    }
+
+    /* Accessor of reference field, or primitive field accessed with boxed type */
+    private static final class OfObject<T> extends FieldAccessor<T> {
+        private OfObject(Field field, Class<?> type) throws IllegalAccessException {
+            super(field, type);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T read(@Nullable Object target) {
+            try {
+                return (T) getter.invokeExact(target);
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+            return null;
+        }
+
+        @Override
+        public void write(@Nullable Object target, T value) {
+            try {
+                setter().invokeExact(target, (Object) value);
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+        }
+    }
+
+    //<editor-fold desc="Primitive accessors">
+    /**
+     * Accessor of {@code boolean} field, which reads and writes field value without boxing
+     */
+    public static final class OfBoolean extends FieldAccessor<Boolean> {
+        private OfBoolean(Field field) throws IllegalAccessException {
+            super(field, boolean.class);
+        }
+
+        /**
+         * Reads value from field
+         *
+         * @param target Instance to read field from, ignored for static fields
+         * @return Field value
+         */
+        public boolean readBoolean(@Nullable Object target) {
+            try {
+                return (boolean) getter.invokeExact(target);
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+            return false;
+        }
+
+        /**
+         * Writes value to field
+         *
+         * @param target Instance to write field to, ignored for static fields
+         * @param value Field new value
+         */
+        public void writeBoolean(@Nullable Object target, boolean value) {
+            try {
+                setter().invokeExact(target, value);
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Boolean read(@Nullable Object target) {
+            return readBoolean(target);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(@Nullable Object target, Boolean value) {
+            writeBoolean(target, value);
+        }
+    }
+
+    /**
+     * Accessor of {@code byte} field, which reads and writes field value without boxing
+     */
+    public static final class OfByte extends FieldAccessor<Byte> {
+        private OfByte(Field field) throws IllegalAccessException {
+            super(field, byte.class);
+        }
+
+        /**
+         * Reads value from field
+         *
+         * @param target Instance to read field from, ignored for static fields
+         * @return Field value
+         */
+        public byte readByte(@Nullable Object target) {
+            try {
+                return (byte) getter.invokeExact(target);
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+            return 0;
+        }
+
+        /**
+         * Writes value to field
+         *
+         * @param target Instance to write field to, ignored for static fields
+         * @param value Field new value
+         */
+        public void writeByte(@Nullable Object target, byte value) {
+            try {
+                setter().invokeExact(target, value);
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Byte read(@Nullable Object target) {
+            return readByte(target);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(@Nullable Object target, Byte value) {
+            writeByte(target, value);
+        }
+    }
+
+    /**
+     * Accessor of {@code char} field, which reads and writes field value without boxing
+     */
+    public static final class OfChar extends FieldAccessor<Character> {
+        private OfChar(Field field) throws IllegalAccessException {
+            super(field, char.class);
+        }
+
+        /**
+         * Reads value from field
+         *
+         * @param target Instance to read field from, ignored for static fields
+         * @return Field value
+         */
+        public char readChar(@Nullable Object target) {
+            try {
+                return (char) getter.invokeExact(target);
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+            return 0;
+        }
+
+        /**
+         * Writes value to field
+         *
+         * @param target Instance to write field to, ignored for static fields
+         * @param value Field new value
+         */
+        public void writeChar(@Nullable Object target, char value) {
+            try {
+                setter().invokeExact(target, value);
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Character read(@Nullable Object target) {
+            return readChar(target);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(@Nullable Object target, Character value) {
+            writeChar(target, value);
+        }
+    }
+
+    /**
+     * Accessor of {@code short} field, which reads and writes field value without boxing
+     */
+    public static final class OfShort extends FieldAccessor<Short> {
+        private OfShort(Field field) throws IllegalAccessException {
+            super(field, short.class);
+        }
+
+        /**
+         * Reads value from field
+         *
+         * @param target Instance to read field from, ignored for static fields
+         * @return Field value
+         */
+        public short readShort(@Nullable Object target) {
+            try {
+                return (short) getter.invokeExact(target);
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+            return 0;
+        }
+
+        /**
+         * Writes value to field
+         *
+         * @param target Instance to write field to, ignored for static fields
+         * @param value Field new value
+         */
+        public void writeShort(@Nullable Object target, short value) {
+            try {
+                setter().invokeExact(target, value);
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Short read(@Nullable Object target) {
+            return readShort(target);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(@Nullable Object target, Short value) {
+            writeShort(target, value);
+        }
+    }
+
+    /**
+     * Accessor of {@code int} field, which reads and writes field value without boxing
+     */
+    public static final class OfInt extends FieldAccessor<Integer> {
+        private OfInt(Field field) throws IllegalAccessException {
+            super(field, int.class);
+        }
+
+        /**
+         * Reads value from field
+         *
+         * @param target Instance to read field from, ignored for static fields
+         * @return Field value
+         */
+        public int readInt(@Nullable Object target) {
+            try {
+                return (int) getter.invokeExact(target);
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+            return 0;
+        }
+
+        /**
+         * Writes value to field
+         *
+         * @param target Instance to write field to, ignored for static fields
+         * @param value Field new value
+         */
+        public void writeInt(@Nullable Object target, int value) {
+            try {
+                setter().invokeExact(target, value);
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Integer read(@Nullable Object target) {
+            return readInt(target);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(@Nullable Object target, Integer value) {
+            writeInt(target, value);
+        }
+    }
+
+    /**
+     * Accessor of {@code long} field, which reads and writes field value without boxing
+     */
+    public static final class OfLong extends FieldAccessor<Long> {
+        private OfLong(Field field) throws IllegalAccessException {
+            super(field, long.class);
+        }
+
+        /**
+         * Reads value from field
+         *
+         * @param target Instance to read field from, ignored for static fields
+         * @return Field value
+         */
+        public long readLong(@Nullable Object target) {
+            try {
+                return (long) getter.invokeExact(target);
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+            return 0;
+        }
+
+        /**
+         * Writes value to field
+         *
+         * @param target Instance to write field to, ignored for static fields
+         * @param value Field new value
+         */
+        public void writeLong(@Nullable Object target, long value) {
+            try {
+                setter().invokeExact(target, value);
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Long read(@Nullable Object target) {
+            return readLong(target);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(@Nullable Object target, Long value) {
+            writeLong(target, value);
+        }
+    }
+
+    /**
+     * Accessor of {@code float} field, which reads and writes field value without boxing
+     */
+    public static final class OfFloat extends FieldAccessor<Float> {
+        private OfFloat(Field field) throws IllegalAccessException {
+            super(field, float.class);
+        }
+
+        /**
+         * Reads value from field
+         *
+         * @param target Instance to read field from, ignored for static fields
+         * @return Field value
+         */
+        public float readFloat(@Nullable Object target) {
+            try {
+                return (float) getter.invokeExact(target);
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+            return 0;
+        }
+
+        /**
+         * Writes value to field
+         *
+         * @param target Instance to write field to, ignored for static fields
+         * @param value Field new value
+         */
+        public void writeFloat(@Nullable Object target, float value) {
+            try {
+                setter().invokeExact(target, value);
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Float read(@Nullable Object target) {
+            return readFloat(target);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(@Nullable Object target, Float value) {
+            writeFloat(target, value);
+        }
+    }
+
+    /**
+     * Accessor of {@code double} field, which reads and writes field value without boxing
+     */
+    public static final class OfDouble extends FieldAccessor<Double> {
+        private OfDouble(Field field) throws IllegalAccessException {
+            super(field, double.class);
+        }
+
+        /**
+         * Reads value from field
+         *
+         * @param target Instance to read field from, ignored for static fields
+         * @return Field value
+         */
+        public double readDouble(@Nullable Object target) {
+            try {
+                return (double) getter.invokeExact(target);
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+            return 0;
+        }
+
+        /**
+         * Writes value to field
+         *
+         * @param target Instance to write field to, ignored for static fields
+         * @param value Field new value
+         */
+        public void writeDouble(@Nullable Object target, double value) {
+            try {
+                setter().invokeExact(target, value);
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Double read(@Nullable Object target) {
+            return readDouble(target);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(@Nullable Object target, Double value) {
+            writeDouble(target, value);
+        }
+    }
+    //</editor-fold>
+}
@@ -0,0 +1,41 @@
+package eu.mikroskeem.shuriken.reflect;
+
+/**
+ * {@link FieldWrapper} of {@code float} field, which reads and writes field value without boxing
+ *
+ * @author Mark Vainomaa
+ * @see ClassWrapper#getFloatField(String)
+ */
+public interface FloatFieldWrapper extends FieldWrapper<Float> {
+    /**
+     * Reads value from field
+     * Throws {@link IllegalAccessException} if field reading fails
+     *
+     * @return Field value
+     */
+    float readFloat();
+
+    /**
+     * Writes value to field
+     * Throws {@link IllegalAccessException} if field writing fails
+     *
+     * @param value Field new value
+     */
+    void writeFloat(float value);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    default Float read() {
+        return readFloat();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    default void write(Float value) {
+        writeFloat(value);
+    }
+}
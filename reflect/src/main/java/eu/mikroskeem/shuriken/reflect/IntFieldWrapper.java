@@ -0,0 +1,41 @@
+package eu.mikroskeem.shuriken.reflect;
+
+/**
+ * {@link FieldWrapper} of {@code int} field, which reads and writes field value without boxing
+ *
+ * @author Mark Vainomaa
+ * @see ClassWrapper#getIntField(String)
+ */
+public interface IntFieldWrapper extends FieldWrapper<Integer> {
+    /**
+     * Reads value from field
+     * Throws {@link IllegalAccessException} if field reading fails
+     *
+     * @return Field value
+     */
+    int readInt();
+
+    /**
+     * Writes value to field
+     * Throws {@link IllegalAccessException} if field writing fails
+     *
+     * @param value Field new value
+     */
+    void writeInt(int value);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    default Integer read() {
+        return readInt();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    default void write(Integer value) {
+        writeInt(value);
+    }
+}
@@ -0,0 +1,41 @@
+package eu.mikroskeem.shuriken.reflect;
+
+/**
+ * {@link FieldWrapper} of {@code long} field, which reads and writes field value without boxing
+ *
+ * @author Mark Vainomaa
+ * @see ClassWrapper#getLongField(String)
+ */
+public interface LongFieldWrapper extends FieldWrapper<Long> {
+    /**
+     * Reads value from field
+     * Throws {@link IllegalAccessException} if field reading fails
+     *
+     * @return Field value
+     */
+    long readLong();
+
+    /**
+     * Writes value to field
+     * Throws {@link IllegalAccessException} if field writing fails
+     *
+     * @param value Field new value
+     */
+    void writeLong(long value);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    default Long read() {
+        return readLong();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    default void write(Long value) {
+        writeLong(value);
+    }
+}
@@ -2,15 +2,14 @@ package eu.mikroskeem.shuriken.reflect;
 
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.lang.invoke.MethodHandle;
-import java.lang.invoke.MethodHandles;
-import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 
 /**
- * {@link MethodHandle} based field wrapper
+ * {@link MethodHandle} based field wrapper, which delegates to shared {@link FieldAccessor}
  *
  * @param <T> Field type
  * @author Mark Vainomaa
@@ -18,76 +17,25 @@ import java.lang.reflect.Modifier;
  */
 final class MethodHandleFieldWrapper<T> implements FieldWrapper<T> {
     private final ClassWrapper<?> classWrapper;
-    private final Field field;
-    private final Class<T> type;
-    private final MethodHandle getter;
-    private final MethodHandle setter;
+    private final FieldAccessor<T> accessor;
 
-    private MethodHandleFieldWrapper(ClassWrapper<?> classWrapper, Field field, Class<T> type) throws Throwable {
+    private MethodHandleFieldWrapper(ClassWrapper<?> classWrapper, FieldAccessor<T> accessor) {
         this.classWrapper = classWrapper;
-        this.field = field;
-        this.type = type;
-
-        /* Allow modifying final fields */
-        hackFinalField();
-
-        /* Allow field access */
-        Reflect.Utils.setFieldAccessible(field);
-
-        /* Set up MethodHandles */
-        MethodHandles.Lookup lookup = MethodHandles.lookup();
-        MethodType getterType;
-        MethodType setterType;
-        if(isStatic()) {
-            getterType = MethodType.methodType(type);
-            setterType = MethodType.methodType(void.class, type);
-        } else {
-            getterType = MethodType.methodType(type, classWrapper.getWrappedClass());
-            setterType = MethodType.methodType(void.class, classWrapper.getWrappedClass(), type);
-        }
-        this.getter = lookup.unreflectGetter(field).asType(getterType);
-        this.setter = lookup.unreflectSetter(field).asType(setterType);
+        this.accessor = accessor;
     }
 
     /**
      * Field wrapper
      *
      * @param classWrapper {@link ClassWrapper} instance, where this field is from
-     * @param field Backing field
-     * @param type Field value type
+     * @param accessor Shared accessor of backing field
      * @param <T> Type
      * @return Instance of {@link FieldWrapper}
      */
     @NotNull
-    @Contract("_, !null, !null -> !null")
-    public static <T> MethodHandleFieldWrapper<T> of(ClassWrapper<?> classWrapper, Field field, Class<T> type) {
-        try {
-            return new MethodHandleFieldWrapper<>(classWrapper, field, type);
-        } catch (Throwable t) {
-            Reflect.Utils.throwException(t);
-        }
-        return null;
-    }
-
-    /**
-     * Field wrapper
-     *
-     * @param classWrapper {@link ClassWrapper} instance, where this field is from
-     * @param field Backing field
-
-     * @param <T> Type
-     * @return Instance of FieldWrapper
-     */
-    @NotNull
     @Contract("_, !null -> !null")
-    @SuppressWarnings("unchecked")
-    public static <T> MethodHandleFieldWrapper<T> of(ClassWrapper<?> classWrapper, Field field) {
-        try {
-            return new MethodHandleFieldWrapper<>(classWrapper, field, (Class<T>)field.getType());
-        } catch (Throwable t) {
-            Reflect.Utils.throwException(t);
-        }
-        return null;
+    public static <T> MethodHandleFieldWrapper<T> of(ClassWrapper<?> classWrapper, FieldAccessor<T> accessor) {
+        return new MethodHandleFieldWrapper<>(classWrapper, accessor);
     }
 
     /**
@@ -96,7 +44,7 @@ final class MethodHandleFieldWrapper<T> implements FieldWrapper<T> {
     @Override
     @NotNull
     public String getName() {
-        return field.getName();
+        return accessor.getName();
     }
 
     /**
@@ -112,16 +60,8 @@ final class MethodHandleFieldWrapper<T> implements FieldWrapper<T> {
         return null;
     }
 
-    @SuppressWarnings("unchecked")
     private T read0() throws Throwable {
-        if(isStatic()) {
-            return (T) getter.invoke();
-        } else {
-            Object instance = classWrapper.getClassInstance();
-            if(instance == null)
-                throw new IllegalAccessException(String.format("'%s' requires class instance to be set!", field));
-            return (T) getter.invoke(instance);
-        }
+        return accessor.read(getInstance());
     }
 
     /**
@@ -137,14 +77,17 @@ final class MethodHandleFieldWrapper<T> implements FieldWrapper<T> {
     }
 
     private void write0(T value) throws Throwable {
-        if(isStatic()) {
-            setter.invoke(value);
-        } else {
-            Object instance = classWrapper.getClassInstance();
-            if(instance == null)
-                throw new IllegalAccessException(String.format("'%s' requires class instance to be set!", field));
-            setter.invoke(instance, value);
-        }
+        accessor.write(getInstance(), value);
+    }
+
+    /* Gets instance to access field on, or null for static fields */
+    @Nullable
+    private Object getInstance() throws IllegalAccessException {
+        if(accessor.isStatic()) return null;
+        Object instance = classWrapper.getClassInstance();
+        if(instance == null)
+            throw new IllegalAccessException(String.format("'%s' requires class instance to be set!", getField()));
+        return instance;
     }
 
     /**
@@ -152,7 +95,7 @@ final class MethodHandleFieldWrapper<T> implements FieldWrapper<T> {
      */
     @Override
     public Class<T> getType() {
-        return type;
+        return accessor.getType();
     }
 
     /**
@@ -160,21 +103,40 @@ final class MethodHandleFieldWrapper<T> implements FieldWrapper<T> {
      */
     @Override
     public Field getField() {
-        return field;
+        return accessor.getField();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isStatic() {
+        return accessor.isStatic();
     }
 
     @Override
     public String toString() {
         return String.format(
                 "MethodHandleFieldWrapper{field=%s, type=%s, wrapper=%s}",
-                field, type, classWrapper
+                getField(), getType(), classWrapper
         );
     }
 
-    private void hackFinalField() {
-        int modifiers = getField().getModifiers();
-        if(!Modifier.isFinal(modifiers)) return;
-        Reflect.wrapInstance(getField()).getField("modifiers", int.class)
+    /* Gets private copy of field without final modifier, so it can be written through MethodHandle.
+     * Given field is never modified, as it may be shared with other users */
+    @NotNull
+    static Field getWritableCopy(Field field) {
+        int modifiers = field.getModifiers();
+        if(!Modifier.isFinal(modifiers)) return field;
+        Field copy;
+        try {
+            copy = field.getDeclaringClass().getDeclaredField(field.getName());
+        } catch (NoSuchFieldException e) {
+            Reflect.Utils.throwException(e);
+            return field;
+        }
+        Reflect.wrapInstance(copy).getField("modifiers", int.class)
                 .ifPresent(fw -> fw.write(modifiers & ~Modifier.FINAL));
+        return copy;
     }
 }
@@ -0,0 +1,203 @@
+package eu.mikroskeem.shuriken.reflect;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Resolved method, which can be invoked repeatedly without looking it up again.
+ *
+ * Invoker is backed by {@link MethodHandle}, which is adapted once to take receiver and arguments as
+ * {@link Object}s. Fixed arity {@code invoke} methods call it with {@link MethodHandle#invokeExact(Object...)},
+ * so invocation does not allocate argument arrays, and exceptions thrown by target method are rethrown as-is.
+ * Primitive arguments and return values are still boxed.
+ *
+ * Invoker is not bound to any instance, and is shared between all {@link ClassWrapper}s of the same class.
+ *
+ * @param <R> Method return type
+ * @author Mark Vainomaa
+ * @see ClassWrapper#method(String, Class, Class[])
+ */
+public final class MethodInvoker<R> {
+    private final Method method;
+    private final boolean isStatic;
+    private final int arity;
+
+    /* (Object receiver, Object... arguments)Object */
+    private final MethodHandle handle;
+
+    /* (Object receiver, Object[] arguments)Object */
+    private final MethodHandle spreader;
+
+    private MethodInvoker(Method method) throws IllegalAccessException {
+        this.method = method;
+        this.isStatic = Modifier.isStatic(method.getModifiers());
+        this.arity = method.getParameterCount();
+
+        MethodHandle handle = MethodHandles.lookup().unreflect(method);
+        if(isStatic) handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        this.handle = handle.asType(MethodType.genericMethodType(arity + 1));
+        this.spreader = this.handle.asSpreader(Object[].class, arity);
+    }
+
+    /**
+     * Creates new method invoker
+     *
+     * @param method Accessible method
+     * @param <R> Method return type
+     * @return Instance of {@link MethodInvoker}
+     */
+    @NotNull
+    @Contract("null -> fail")
+    static <R> MethodInvoker<R> of(Method method) {
+        try {
+            return new MethodInvoker<>(method);
+        } catch (IllegalAccessException e) {
+            Reflect.Utils.throwException(e);
+        }
+        return null;
+    }
+
+    /**
+     * Gets backing method
+     *
+     * @return Backing {@link Method}
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * Gets method parameter count
+     *
+     * @return Method parameter count
+     */
+    @Contract(pure = true)
+    public int getArity() {
+        return arity;
+    }
+
+    /**
+     * Whether method is static
+     *
+     * @return true if method is static, false otherwise
+     */
+    @Contract(pure = true)
+    public boolean isStatic() {
+        return isStatic;
+    }
+
+    /**
+     * Invokes method without arguments
+     *
+     * @param receiver Instance to invoke method on, ignored for static methods
+     * @return Method return value, or null if method returns void
+     */
+    @SuppressWarnings("unchecked")
+    public R invoke(@Nullable Object receiver) {
+        checkInvocation(receiver, 0);
+        try {
+            return (R) handle.invokeExact(receiver);
+        } catch (Throwable t) {
+            Reflect.Utils.throwException(t);
+        }
+        return null;
+    }
+
+    /**
+     * Invokes method with one argument
+     *
+     * @param receiver Instance to invoke method on, ignored for static methods
+     * @param a First argument
+     * @return Method return value, or null if method returns void
+     */
+    @SuppressWarnings("unchecked")
+    public R invoke(@Nullable Object receiver, Object a) {
+        checkInvocation(receiver, 1);
+        try {
+            return (R) handle.invokeExact(receiver, a);
+        } catch (Throwable t) {
+            Reflect.Utils.throwException(t);
+        }
+        return null;
+    }
+
+    /**
+     * Invokes method with two arguments
+     *
+     * @param receiver Instance to invoke method on, ignored for static methods
+     * @param a First argument
+     * @param b Second argument
+     * @return Method return value, or null if method returns void
+     */
+    @SuppressWarnings("unchecked")
+    public R invoke(@Nullable Object receiver, Object a, Object b) {
+        checkInvocation(receiver, 2);
+        try {
+            return (R) handle.invokeExact(receiver, a, b);
+        } catch (Throwable t) {
+            Reflect.Utils.throwException(t);
+        }
+        return null;
+    }
+
+    /**
+     * Invokes method with three arguments
+     *
+     * @param receiver Instance to invoke method on, ignored for static methods
+     * @param a First argument
+     * @param b Second argument
+     * @param c Third argument
+     * @return Method return value, or null if method returns void
+     */
+    @SuppressWarnings("unchecked")
+    public R invoke(@Nullable Object receiver, Object a, Object b, Object c) {
+        checkInvocation(receiver, 3);
+        try {
+            return (R) handle.invokeExact(receiver, a, b, c);
+        } catch (Throwable t) {
+            Reflect.Utils.throwException(t);
+        }
+        return null;
+    }
+
+    /**
+     * Invokes method with any amount of arguments. Allocates argument array, prefer fixed arity
+     * {@code invoke} methods when possible
+     *
+     * @param receiver Instance to invoke method on, ignored for static methods
+     * @param args Method arguments
+     * @return Method return value, or null if method returns void
+     */
+    @SuppressWarnings("unchecked")
+    public R invokeWithArguments(@Nullable Object receiver, Object... args) {
+        checkInvocation(receiver, args.length);
+        try {
+            return (R) spreader.invokeExact(receiver, args);
+        } catch (Throwable t) {
+            Reflect.Utils.throwException(t);
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "MethodInvoker{method=" + method + '}';
+    }
+
+    /* Checks receiver and argument count */
+    private void checkInvocation(@Nullable Object receiver, int argumentCount) {
+        if(argumentCount != arity)
+            throw new IllegalArgumentException(String.format("'%s' takes %d argument(s), got %d", method, arity, argumentCount));
+        if(!isStatic && receiver == null)
+            throw new IllegalStateException(String.format("'%s' requires class instance to be set!", method));
+    }
+}
@@ -0,0 +1,294 @@
+package eu.mikroskeem.shuriken.reflect;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Field;
+
+/**
+ * Wrappers of primitive fields, bound to {@link ClassWrapper} instance.
+ *
+ * Field access is delegated to shared primitive specialized {@link FieldAccessor}s, so primitive values are
+ * never boxed.
+ *
+ * @author Mark Vainomaa
+ */
+final class PrimitiveFieldWrappers {
+    private PrimitiveFieldWrappers() {
+        throw new RuntimeException("No PrimitiveFieldWrappers instance for you!");
+    }
+
+    /**
+     * Wraps primitive field
+     *
+     * @param classWrapper {@link ClassWrapper} instance, where this field is from
+     * @param accessor Primitive specialized field accessor
+     * @return Primitive specialized {@link FieldWrapper}
+     */
+    @NotNull
+    @Contract("_, null -> fail")
+    static FieldWrapper<?> of(ClassWrapper<?> classWrapper, FieldAccessor<?> accessor) {
+        if(accessor instanceof FieldAccessor.OfBoolean) return new BooleanWrapper(classWrapper, (FieldAccessor.OfBoolean) accessor);
+        if(accessor instanceof FieldAccessor.OfByte) return new ByteWrapper(classWrapper, (FieldAccessor.OfByte) accessor);
+        if(accessor instanceof FieldAccessor.OfChar) return new CharWrapper(classWrapper, (FieldAccessor.OfChar) accessor);
+        if(accessor instanceof FieldAccessor.OfShort) return new ShortWrapper(classWrapper, (FieldAccessor.OfShort) accessor);
+        if(accessor instanceof FieldAccessor.OfInt) return new IntWrapper(classWrapper, (FieldAccessor.OfInt) accessor);
+        if(accessor instanceof FieldAccessor.OfLong) return new LongWrapper(classWrapper, (FieldAccessor.OfLong) accessor);
+        if(accessor instanceof FieldAccessor.OfFloat) return new FloatWrapper(classWrapper, (FieldAccessor.OfFloat) accessor);
+        if(accessor instanceof FieldAccessor.OfDouble) return new DoubleWrapper(classWrapper, (FieldAccessor.OfDouble) accessor);
+        throw new IllegalArgumentException("Accessor is not primitive: " + accessor);
+    }
+
+    /* Common base of primitive field wrappers */
+    static abstract class Base<T, A extends FieldAccessor<T>> implements FieldWrapper<T> {
+        private final ClassWrapper<?> classWrapper;
+        final A accessor;
+
+        Base(ClassWrapper<?> classWrapper, A accessor) {
+            this.classWrapper = classWrapper;
+            this.accessor = accessor;
+        }
+
+        /* Gets instance to access field on, or null for static fields */
+        @Nullable
+        final Object getInstance() throws IllegalAccessException {
+            if(accessor.isStatic()) return null;
+            Object instance = classWrapper.getClassInstance();
+            if(instance == null)
+                throw new IllegalAccessException(String.format("'%s' requires class instance to be set!", getField()));
+            return instance;
+        }
+
+        @Override
+        @NotNull
+        public String getName() {
+            return accessor.getName();
+        }
+
+        @Override
+        public Class<T> getType() {
+            return accessor.getType();
+        }
+
+        @Override
+        public Field getField() {
+            return accessor.getField();
+        }
+
+        @Override
+        public boolean isStatic() {
+            return accessor.isStatic();
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "%s{field=%s, wrapper=%s}",
+                    getClass().getSimpleName(), getField(), classWrapper
+            );
+        }
+    }
+
+    //<editor-fold desc="Primitive wrappers">
+    static final class BooleanWrapper extends Base<Boolean, FieldAccessor.OfBoolean> implements BooleanFieldWrapper {
+        BooleanWrapper(ClassWrapper<?> classWrapper, FieldAccessor.OfBoolean accessor) {
+            super(classWrapper, accessor);
+        }
+
+        @Override
+        public boolean readBoolean() {
+            try {
+                return accessor.readBoolean(getInstance());
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+            return false;
+        }
+
+        @Override
+        public void writeBoolean(boolean value) {
+            try {
+                accessor.writeBoolean(getInstance(), value);
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+        }
+    }
+
+    static final class ByteWrapper extends Base<Byte, FieldAccessor.OfByte> implements ByteFieldWrapper {
+        ByteWrapper(ClassWrapper<?> classWrapper, FieldAccessor.OfByte accessor) {
+            super(classWrapper, accessor);
+        }
+
+        @Override
+        public byte readByte() {
+            try {
+                return accessor.readByte(getInstance());
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+            return 0;
+        }
+
+        @Override
+        public void writeByte(byte value) {
+            try {
+                accessor.writeByte(getInstance(), value);
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+        }
+    }
+
+    static final class CharWrapper extends Base<Character, FieldAccessor.OfChar> implements CharFieldWrapper {
+        CharWrapper(ClassWrapper<?> classWrapper, FieldAccessor.OfChar accessor) {
+            super(classWrapper, accessor);
+        }
+
+        @Override
+        public char readChar() {
+            try {
+                return accessor.readChar(getInstance());
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+            return 0;
+        }
+
+        @Override
+        public void writeChar(char value) {
+            try {
+                accessor.writeChar(getInstance(), value);
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+        }
+    }
+
+    static final class ShortWrapper extends Base<Short, FieldAccessor.OfShort> implements ShortFieldWrapper {
+        ShortWrapper(ClassWrapper<?> classWrapper, FieldAccessor.OfShort accessor) {
+            super(classWrapper, accessor);
+        }
+
+        @Override
+        public short readShort() {
+            try {
+                return accessor.readShort(getInstance());
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+            return 0;
+        }
+
+        @Override
+        public void writeShort(short value) {
+            try {
+                accessor.writeShort(getInstance(), value);
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+        }
+    }
+
+    static final class IntWrapper extends Base<Integer, FieldAccessor.OfInt> implements IntFieldWrapper {
+        IntWrapper(ClassWrapper<?> classWrapper, FieldAccessor.OfInt accessor) {
+            super(classWrapper, accessor);
+        }
+
+        @Override
+        public int readInt() {
+            try {
+                return accessor.readInt(getInstance());
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+            return 0;
+        }
+
+        @Override
+        public void writeInt(int value) {
+            try {
+                accessor.writeInt(getInstance(), value);
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+        }
+    }
+
+    static final class LongWrapper extends Base<Long, FieldAccessor.OfLong> implements LongFieldWrapper {
+        LongWrapper(ClassWrapper<?> classWrapper, FieldAccessor.OfLong accessor) {
+            super(classWrapper, accessor);
+        }
+
+        @Override
+        public long readLong() {
+            try {
+                return accessor.readLong(getInstance());
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+            return 0;
+        }
+
+        @Override
+        public void writeLong(long value) {
+            try {
+                accessor.writeLong(getInstance(), value);
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+        }
+    }
+
+    static final class FloatWrapper extends Base<Float, FieldAccessor.OfFloat> implements FloatFieldWrapper {
+        FloatWrapper(ClassWrapper<?> classWrapper, FieldAccessor.OfFloat accessor) {
+            super(classWrapper, accessor);
+        }
+
+        @Override
+        public float readFloat() {
+            try {
+                return accessor.readFloat(getInstance());
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+            return 0;
+        }
+
+        @Override
+        public void writeFloat(float value) {
+            try {
+                accessor.writeFloat(getInstance(), value);
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+        }
+    }
+
+    static final class DoubleWrapper extends Base<Double, FieldAccessor.OfDouble> implements DoubleFieldWrapper {
+        DoubleWrapper(ClassWrapper<?> classWrapper, FieldAccessor.OfDouble accessor) {
+            super(classWrapper, accessor);
+        }
+
+        @Override
+        public double readDouble() {
+            try {
+                return accessor.readDouble(getInstance());
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+            return 0;
+        }
+
+        @Override
+        public void writeDouble(double value) {
+            try {
+                accessor.writeDouble(getInstance(), value);
+            } catch (Throwable t) {
+                Reflect.Utils.throwException(t);
+            }
+        }
+    }
+    //</editor-fold>
+}
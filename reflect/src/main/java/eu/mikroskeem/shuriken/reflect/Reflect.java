@@ -8,9 +8,7 @@ import org.jetbrains.annotations.Nullable;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.util.Map;
 import java.util.Optional;
-import java.util.WeakHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -22,9 +20,6 @@ import java.util.stream.Stream;
  * @author Mark Vainomaa
  */
 public class Reflect {
-    /** Wrapped class cache */
-    private final static Map<ClassEntry, Class<?>> FOUND_CLASS_MAP;
-
     /** The instance of {@link sun.misc.Unsafe}. Might be null on unsupported JVMs */
     public final static ClassWrapper<?> THE_UNSAFE;
 
@@ -75,6 +70,10 @@ public class Reflect {
 
     /**
      * Get {@link Class} by name (like <pre>eu.mikroskeem.reflect.Reflect</pre>)
+     * <br>
+     * Lookups are cached per class loader, including classes which weren't found. Cached misses expire after
+     * a second; if class loader gains new classes, they can be invalidated right away with
+     * {@link #invalidateClassCache(ClassLoader)}
      *
      * @param name Class name
      * @param classLoader Classloader where class should be looked
@@ -83,18 +82,7 @@ public class Reflect {
     @Contract("null, _ -> fail")
     public static Optional<ClassWrapper<?>> getClass(String name, ClassLoader classLoader) {
         if(name == null) throw new IllegalStateException("Class name shouldn't be null!");
-        Class<?> found = FOUND_CLASS_MAP.compute(new ClassEntry(name, classLoader), (e, c) -> {
-            Class<?> clazz;
-            if(classLoader != null) {
-                clazz = Reflect.Utils.classForName(name, true, classLoader);
-            } else {
-                clazz = Reflect.Utils.classForName(name);
-            }
-
-            if(clazz != null) e.classLoader = clazz.getClassLoader();
-
-            return clazz;
-        });
+        Class<?> found = ClassLookupCache.findClass(name, classLoader != null ? classLoader : Reflect.class.getClassLoader());
 
         if(found != null) {
             return Optional.of(wrapClass(found));
@@ -138,6 +126,16 @@ public class Reflect {
         });
     }
 
+    /**
+     * Invalidates cached class lookup misses of given class loader and its child class loaders. Should be
+     * invoked when class loader gains new classes, e.g. when URL gets added to {@link java.net.URLClassLoader}
+     *
+     * @param classLoader Class loader, or null to invalidate cached misses of all class loaders
+     */
+    public static void invalidateClassCache(@Nullable ClassLoader classLoader) {
+        ClassLookupCache.invalidate(classLoader);
+    }
+
     /**
      * Construct class with arguments
      *
@@ -173,7 +171,7 @@ public class Reflect {
                 if (!field.isAccessible()) field.setAccessible(true);
                 return field;
             }
-            catch (NullPointerException|SecurityException ignored){}
+            catch (RuntimeException ignored){} /* Includes InaccessibleObjectException on Java 9+ */
             return null;
         }
 
@@ -183,7 +181,7 @@ public class Reflect {
                 if (!constructor.isAccessible()) constructor.setAccessible(true);
                 return constructor;
             }
-            catch (SecurityException ignored){}
+            catch (RuntimeException ignored){} /* Includes InaccessibleObjectException on Java 9+ */
             return null;
         }
 
@@ -193,7 +191,7 @@ public class Reflect {
                 if (!method.isAccessible()) method.setAccessible(true);
                 return method;
             }
-            catch (NullPointerException|SecurityException ignored){}
+            catch (RuntimeException ignored){} /* Includes InaccessibleObjectException on Java 9+ */
             return null;
         }
 
@@ -257,30 +255,7 @@ public class Reflect {
         }
     }
 
-    static class ClassEntry {
-        ClassEntry(@NotNull String className, ClassLoader classLoader) {
-            this.className = className;
-            this.classLoader = classLoader;
-        }
-
-        final String className;
-        ClassLoader classLoader;
-
-        @Override
-        public int hashCode() {
-            int hashCode = className.hashCode() * 11;
-            hashCode = hashCode * (classLoader == null? 1 : classLoader.hashCode());
-            return hashCode;
-        }
-
-        @Override
-        public String toString() {
-            return "ClassEntry{className=" + className + ", classLoader=" + classLoader + "}";
-        }
-    }
-
     static {
-        FOUND_CLASS_MAP = new WeakHashMap<>();
         THE_UNSAFE = Reflect.getClass("sun.misc.Unsafe")
                 .flatMap(u -> u.getField("theUnsafe", Object.class))
                 .map(FieldWrapper::read).map(Reflect::wrapInstance).orElse(null);
@@ -0,0 +1,41 @@
+package eu.mikroskeem.shuriken.reflect;
+
+/**
+ * {@link FieldWrapper} of {@code short} field, which reads and writes field value without boxing
+ *
+ * @author Mark Vainomaa
+ * @see ClassWrapper#getShortField(String)
+ */
+public interface ShortFieldWrapper extends FieldWrapper<Short> {
+    /**
+     * Reads value from field
+     * Throws {@link IllegalAccessException} if field reading fails
+     *
+     * @return Field value
+     */
+    short readShort();
+
+    /**
+     * Writes value to field
+     * Throws {@link IllegalAccessException} if field writing fails
+     *
+     * @param value Field new value
+     */
+    void writeShort(short value);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    default Short read() {
+        return readShort();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    default void write(Short value) {
+        writeShort(value);
+    }
+}
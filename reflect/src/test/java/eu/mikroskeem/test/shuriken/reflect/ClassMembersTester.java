@@ -0,0 +1,122 @@
+package eu.mikroskeem.test.shuriken.reflect;
+
+import eu.mikroskeem.shuriken.reflect.ClassMembers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+
+/**
+ * @author Mark Vainomaa
+ */
+public class ClassMembersTester {
+    @Test
+    public void testDescriptors() {
+        Assertions.assertEquals("I", ClassMembers.getDescriptor(int.class));
+        Assertions.assertEquals("Ljava/lang/String;", ClassMembers.getDescriptor(String.class));
+        Assertions.assertEquals("[[J", ClassMembers.getDescriptor(long[][].class));
+        Assertions.assertEquals("[Ljava/lang/Object;", ClassMembers.getDescriptor(Object[].class));
+        Assertions.assertEquals("(Ljava/lang/String;Z)V", ClassMembers.getMethodDescriptor(void.class, String.class, boolean.class));
+    }
+
+    @Test
+    public void testIndexIsShared() {
+        Assertions.assertSame(ClassMembers.of(Child.class), ClassMembers.of(Child.class));
+        Assertions.assertEquals(Child.class, ClassMembers.of(Child.class).getIndexedClass());
+    }
+
+    @Test
+    public void testHierarchyMethodLookup() throws Exception {
+        ClassMembers members = ClassMembers.of(Child.class);
+
+        /* Overridden method resolves to subclass */
+        Method name = members.getMethod("name", "()Ljava/lang/String;");
+        Assertions.assertNotNull(name);
+        Assertions.assertEquals(Child.class, name.getDeclaringClass());
+
+        /* Inherited method resolves to superclass */
+        Method secret = members.getMethod("secret", "(I)I");
+        Assertions.assertNotNull(secret);
+        Assertions.assertEquals(Parent.class, secret.getDeclaringClass());
+
+        /* Interface default methods are found, abstract ones are not */
+        Method greet = members.getMethod("greet", "()Ljava/lang/String;");
+        Assertions.assertNotNull(greet);
+        Assertions.assertEquals(Greeter.class, greet.getDeclaringClass());
+        Assertions.assertNull(members.getMethod("name", "()Ljava/lang/Object;"));
+
+        Assertions.assertNull(members.getMethod("secret", "(J)I"));
+        Assertions.assertEquals(1, members.getMethods("name").size());
+    }
+
+    @Test
+    public void testHierarchyFieldLookup() throws Exception {
+        ClassMembers members = ClassMembers.of(Child.class);
+
+        /* Hidden field resolves to subclass, but superclass field with other type is still reachable */
+        Field value = members.getField("value", "Ljava/lang/String;");
+        Assertions.assertNotNull(value);
+        Assertions.assertEquals(Child.class, value.getDeclaringClass());
+        Field parentValue = members.getField("value", "I");
+        Assertions.assertNotNull(parentValue);
+        Assertions.assertEquals(Parent.class, parentValue.getDeclaringClass());
+        Assertions.assertEquals(2, members.getFields("value").size());
+        Assertions.assertEquals(Child.class, members.getFields("value").get(0).getDeclaringClass());
+
+        /* Interface constants */
+        Assertions.assertNotNull(members.getField("GREETING", "Ljava/lang/String;"));
+    }
+
+    @Test
+    public void testConstructorLookup() throws Exception {
+        Constructor<?> constructor = ClassMembers.of(Child.class).getConstructor("(Ljava/lang/String;)V");
+        Assertions.assertNotNull(constructor);
+        Assertions.assertEquals(Child.class.getDeclaredConstructor(String.class), constructor);
+
+        /* Constructors are not inherited */
+        Assertions.assertNull(ClassMembers.of(Child.class).getConstructor("(I)V"));
+    }
+
+    public interface Greeter {
+        String GREETING = "Hello";
+
+        String name();
+
+        default String greet() {
+            return GREETING + ", " + name();
+        }
+    }
+
+    public static class Parent {
+        private int value;
+
+        public Parent(int value) {
+            this.value = value;
+        }
+
+        public String name() {
+            return "parent";
+        }
+
+        private int secret(int a) {
+            return a + value;
+        }
+    }
+
+    public static class Child extends Parent implements Greeter {
+        private String value;
+
+        private Child(String value) {
+            super(0);
+            this.value = value;
+        }
+
+        @Override
+        public String name() {
+            return "child";
+        }
+    }
+}
@@ -8,8 +8,16 @@ import eu.mikroskeem.test.shuriken.reflect.classes.TestClassOne;
 import eu.mikroskeem.test.shuriken.reflect.classes.TestClassTwo;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassWriter;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import static eu.mikroskeem.shuriken.reflect.wrappers.TypeWrapper.of;
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.V1_8;
 
 public class ClassWrapperTester {
     @Test
@@ -73,4 +81,66 @@ public class ClassWrapperTester {
         testClass.construct();
         Assertions.assertEquals("bar", field.read());
     }
+
+    @Test
+    public void testInstanceWrappersShareMembers() throws Exception {
+        ClassWrapper<TestClassFive> first = Reflect.wrapInstance(new TestClassFive());
+        ClassWrapper<TestClassFive> second = Reflect.wrapInstance(new TestClassFive());
+        FieldWrapper<String> firstField = first.getField("b", String.class).get();
+        FieldWrapper<String> secondField = second.getField("b", String.class).get();
+        Assertions.assertSame(firstField.getField(), secondField.getField(), "Wrappers should share field lookup");
+        Assertions.assertNotSame(firstField, secondField, "Field wrappers should be bound to their wrapper");
+        Assertions.assertSame(firstField, first.getField("b", String.class).get());
+
+        secondField.write("baz");
+        Assertions.assertEquals("bar", firstField.read());
+        Assertions.assertEquals("baz", secondField.read());
+    }
+
+    @Test
+    public void testClassLookupCache() throws Exception {
+        Assertions.assertSame(Reflect.getClass(TestClassOne.class.getName()).get().getWrappedClass(),
+                Reflect.getClass(TestClassOne.class.getName()).get().getWrappedClass());
+
+        Path directory = Files.createTempDirectory("shuriken-lookup");
+        String className = "eu.mikroskeem.test.shuriken.reflect.generated.LookupTarget";
+        try(URLClassLoader classLoader = new URLClassLoader(new URL[] { directory.toUri().toURL() }, null)) {
+            /* Miss gets cached */
+            Assertions.assertFalse(Reflect.getClass(className, classLoader).isPresent());
+            Path classFile = directory.resolve(className.replace('.', '/') + ".class");
+            Files.createDirectories(classFile.getParent());
+            Files.write(classFile, generateEmptyClass(className));
+            Assertions.assertFalse(Reflect.getClass(className, classLoader).isPresent());
+
+            /* Class is found after invalidation */
+            Reflect.invalidateClassCache(classLoader);
+            ClassWrapper<?> cw = Reflect.getClass(className, classLoader).orElse(null);
+            Assertions.assertNotNull(cw, "Class should be found after invalidation");
+            Assertions.assertSame(classLoader, cw.getWrappedClass().getClassLoader());
+            Assertions.assertFalse(Reflect.getClass(className).isPresent());
+        }
+    }
+
+    @Test
+    public void testClassLookupMissExpiry() throws Exception {
+        Path directory = Files.createTempDirectory("shuriken-lookup");
+        String className = "eu.mikroskeem.test.shuriken.reflect.generated.ExpiringLookupTarget";
+        try(URLClassLoader classLoader = new URLClassLoader(new URL[] { directory.toUri().toURL() }, null)) {
+            /* Class appears without invalidation, cached miss must not hide it forever */
+            Assertions.assertFalse(Reflect.getClass(className, classLoader).isPresent());
+            Path classFile = directory.resolve(className.replace('.', '/') + ".class");
+            Files.createDirectories(classFile.getParent());
+            Files.write(classFile, generateEmptyClass(className));
+
+            Thread.sleep(1100);
+            Assertions.assertTrue(Reflect.getClass(className, classLoader).isPresent(), "Cached miss should expire");
+        }
+    }
+
+    private static byte[] generateEmptyClass(String className) {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(V1_8, ACC_PUBLIC, className.replace('.', '/'), null, "java/lang/Object", null);
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
 }
@@ -166,4 +166,126 @@ public class FieldReflectionTester {
         Assertions.assertEquals(Object.class, field.getType());
         Assertions.assertEquals("foo", field.read());
     }
+
+    @Test
+    public void testPrimitiveFieldWrappers() throws Exception {
+        TestClassNine instance = new TestClassNine();
+        ClassWrapper<TestClassNine> cw = wrapInstance(instance);
+
+        BooleanFieldWrapper a = cw.getBooleanField("a").get();
+        Assertions.assertTrue(a.readBoolean());
+        a.writeBoolean(false);
+        Assertions.assertFalse(a.readBoolean());
+
+        ByteFieldWrapper b = cw.getByteField("b").get();
+        b.writeByte((byte) (b.readByte() + 1));
+        Assertions.assertEquals(3, b.readByte());
+
+        CharFieldWrapper c = cw.getCharField("c").get();
+        Assertions.assertEquals('c', c.readChar());
+
+        ShortFieldWrapper d = cw.getShortField("d").get();
+        Assertions.assertEquals(4, d.readShort());
+
+        IntFieldWrapper e = cw.getIntField("e").get();
+        e.writeInt(e.readInt() * 2);
+        Assertions.assertEquals(10, e.readInt());
+        Assertions.assertEquals(Integer.valueOf(10), e.read());
+        Assertions.assertEquals(int.class, e.getType());
+
+        /* Final field */
+        LongFieldWrapper f = cw.getLongField("f").get();
+        f.writeLong(60L);
+        Assertions.assertEquals(60L, f.readLong());
+        Assertions.assertEquals(60L, instance.getF());
+
+        FloatFieldWrapper g = cw.getFloatField("g").get();
+        Assertions.assertEquals(7F, g.readFloat());
+
+        DoubleFieldWrapper h = cw.getDoubleField("h").get();
+        h.write(16D);
+        Assertions.assertEquals(16D, h.readDouble());
+
+        /* Primitive wrappers are returned for primitive types */
+        Assertions.assertSame(e, cw.getField("e", int.class).get());
+        Assertions.assertFalse(cw.getField("e", Integer.class).get() instanceof IntFieldWrapper);
+        Assertions.assertFalse(cw.getIntField("h").isPresent());
+    }
+
+    @Test
+    public void testStaticPrimitiveFieldWrapper() throws Exception {
+        ClassWrapper<TestClassNine> cw = wrapClass(TestClassNine.class);
+        LongFieldWrapper counter = cw.getLongField("counter").get();
+        Assertions.assertTrue(counter.isStatic());
+        counter.writeLong(counter.readLong() + 1);
+        Assertions.assertEquals(2L, counter.readLong());
+
+        IntFieldWrapper e = cw.getIntField("e").get();
+        Assertions.assertThrows(IllegalAccessException.class, e::readInt);
+    }
+
+    @Test
+    public void testFieldAccessor() throws Exception {
+        ClassWrapper<TestClassNine> cw = wrapClass(TestClassNine.class);
+        TestClassNine[] instances = new TestClassNine[16];
+        for(int i = 0; i < instances.length; i++) instances[i] = new TestClassNine();
+
+        /* One accessor for all instances */
+        FieldAccessor.OfInt e = cw.getIntFieldAccessor("e").get();
+        for(int i = 0; i < instances.length; i++) e.writeInt(instances[i], i);
+        long sum = 0;
+        for(TestClassNine instance : instances) sum += e.readInt(instance);
+        Assertions.assertEquals(120, sum);
+        Assertions.assertEquals(Integer.valueOf(3), e.read(instances[3]));
+
+        /* Accessors are shared, and back field wrappers too */
+        Assertions.assertSame(e, wrapInstance(instances[0]).getIntFieldAccessor("e").get());
+        Assertions.assertEquals(15, wrapInstance(instances[15]).getIntField("e").get().readInt());
+
+        /* Final field */
+        FieldAccessor.OfLong f = cw.getLongFieldAccessor("f").get();
+        f.writeLong(instances[1], 42L);
+        Assertions.assertEquals(42L, instances[1].getF());
+
+        /* Boxed and static access */
+        FieldAccessor<Double> h = cw.getFieldAccessor("h", Double.class).get();
+        Assertions.assertFalse(h instanceof FieldAccessor.OfDouble);
+        h.write(instances[2], 1.5D);
+        Assertions.assertEquals(1.5D, cw.getDoubleFieldAccessor("h").get().readDouble(instances[2]));
+        FieldAccessor.OfLong counter = cw.getLongFieldAccessor("counter").get();
+        Assertions.assertTrue(counter.isStatic());
+        Assertions.assertEquals(counter.readLong(null), counter.readLong(instances[0]));
+
+        /* Invalid usage */
+        Assertions.assertFalse(cw.getFieldAccessor("nope", int.class).isPresent());
+        Assertions.assertThrows(NullPointerException.class, () -> e.readInt(null));
+        Assertions.assertThrows(ClassCastException.class, () -> e.readInt("foo"));
+    }
+
+    @Test
+    public void testStaticFinalFieldAccessor() throws Exception {
+        /* Reading must work even when JVM does not allow writing static final fields */
+        FieldAccessor<Object> lock = wrapClass(TestClassNine.class).getFieldAccessor("LOCK", Object.class).get();
+        Assertions.assertSame(TestClassNine.getLock(), lock.read(null));
+
+        Object newLock = new Object();
+        try {
+            lock.write(null, newLock);
+            Assertions.assertSame(newLock, lock.read(null));
+        } catch (IllegalStateException e) {
+            Assertions.assertTrue(e.getMessage().contains("LOCK"));
+        }
+    }
+
+    @Test
+    public void testReferenceFieldAccessor() throws Exception {
+        ClassWrapper<TestClassOne> cw = wrapClass(TestClassOne.class);
+        FieldAccessor<String> kek = cw.getFieldAccessor("kek", String.class).get();
+        TestClassOne first = new TestClassOne();
+        TestClassOne second = new TestClassOne();
+        kek.write(second, "bar");
+        Assertions.assertEquals("foo", kek.read(first));
+        Assertions.assertEquals("bar", kek.read(second));
+        Assertions.assertEquals(String.class, kek.getType());
+    }
 }
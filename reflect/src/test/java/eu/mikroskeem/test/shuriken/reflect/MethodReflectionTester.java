@@ -2,11 +2,15 @@ package eu.mikroskeem.test.shuriken.reflect;
 
 import eu.mikroskeem.shuriken.reflect.Reflect;
 import eu.mikroskeem.shuriken.reflect.ClassWrapper;
+import eu.mikroskeem.shuriken.reflect.MethodInvoker;
+import eu.mikroskeem.test.shuriken.reflect.classes.TestClassEight;
 import eu.mikroskeem.test.shuriken.reflect.classes.TestClassFour;
 import eu.mikroskeem.test.shuriken.reflect.classes.TestClassOne;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+
 public class MethodReflectionTester {
     @Test
     public void testClassMethodInvoke() throws Exception {
@@ -52,4 +56,48 @@ public class MethodReflectionTester {
         double[] actual = cw.invokeMethod("get", double[].class);
         Assertions.assertArrayEquals(expected, actual);
     }
+
+    @Test
+    public void testMethodInvoker() throws Exception {
+        ClassWrapper<TestClassEight> cw = Reflect.wrapClass(TestClassEight.class);
+        TestClassEight first = new TestClassEight();
+        TestClassEight second = new TestClassEight();
+
+        /* Instance method, invoked on different receivers */
+        MethodInvoker<Integer> add = cw.method("add", int.class, int.class, int.class);
+        Assertions.assertEquals(2, add.getArity());
+        Assertions.assertEquals(3, (int) add.invoke(first, 1, 2));
+        Assertions.assertEquals(7, (int) add.invoke(second, 3, 4));
+        Assertions.assertEquals(11, (int) add.invokeWithArguments(second, 5, 6));
+        Assertions.assertEquals(1, first.getCounter());
+        Assertions.assertEquals(2, second.getCounter());
+
+        /* Invokers are shared */
+        Assertions.assertSame(add, Reflect.wrapInstance(first).method("add", int.class, int.class, int.class));
+
+        /* Static method ignores receiver */
+        MethodInvoker<String> concat = cw.method("concat", String.class, String.class, String.class, String.class);
+        Assertions.assertTrue(concat.isStatic());
+        Assertions.assertEquals("abc", concat.invoke(null, "a", "b", "c"));
+
+        /* Arities above three go through argument array */
+        MethodInvoker<String> join = cw.method("join", String.class,
+                String.class, String.class, String.class, String.class);
+        Assertions.assertEquals("abcd", join.invokeWithArguments(first, "a", "b", "c", "d"));
+
+        /* Void method */
+        MethodInvoker<Void> fail = cw.method("fail", void.class);
+        Assertions.assertThrows(IOException.class, () -> fail.invoke(first));
+    }
+
+    @Test
+    public void testMethodInvokerInvalidUsage() throws Exception {
+        ClassWrapper<TestClassEight> cw = Reflect.wrapClass(TestClassEight.class);
+        MethodInvoker<Integer> add = cw.method("add", int.class, int.class, int.class);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> add.invoke(new TestClassEight(), 1));
+        Assertions.assertThrows(IllegalStateException.class, () -> add.invoke(null, 1, 2));
+        Assertions.assertThrows(NoSuchMethodException.class, () -> cw.method("add", int.class, long.class));
+        Assertions.assertThrows(NoSuchMethodException.class, () ->
+                cw.method("concat", Object.class, String.class, String.class, String.class));
+    }
 }
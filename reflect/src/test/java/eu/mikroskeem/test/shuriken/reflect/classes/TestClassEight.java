@@ -0,0 +1,31 @@
+package eu.mikroskeem.test.shuriken.reflect.classes;
+
+import java.io.IOException;
+
+/**
+ * @author Mark Vainomaa
+ */
+public class TestClassEight {
+    private int counter = 0;
+
+    private int add(int a, int b) {
+        counter++;
+        return a + b;
+    }
+
+    public static String concat(String a, String b, String c) {
+        return a + b + c;
+    }
+
+    public String join(String a, String b, String c, String d) {
+        return a + b + c + d;
+    }
+
+    public void fail() throws IOException {
+        throw new IOException("expected");
+    }
+
+    public int getCounter() {
+        return counter;
+    }
+}
@@ -0,0 +1,30 @@
+package eu.mikroskeem.test.shuriken.reflect.classes;
+
+/**
+ * @author Mark Vainomaa
+ */
+public class TestClassNine {
+    private static long counter = 1L;
+    private static final Object LOCK = new Object();
+
+    private boolean a = true;
+    private byte b = 2;
+    private char c = 'c';
+    private short d = 4;
+    private int e = 5;
+    private final long f;
+    private float g = 7F;
+    private double h = 8D;
+
+    public TestClassNine() {
+        this.f = 6L;
+    }
+
+    public long getF() {
+        return f;
+    }
+
+    public static Object getLock() {
+        return LOCK;
+    }
+}